@@ -18,10 +18,15 @@ import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.jayway.restassured.RestAssured;
 import com.oneops.boo.exception.BooException;
+import com.oneops.boo.utils.RecordWriter;
 import com.oneops.boo.workflow.BuildAllPlatforms;
+import com.oneops.boo.workflow.InstanceSnapshot;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.LogEntry;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -30,6 +35,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,10 +43,21 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * The Class BooCli.
@@ -82,6 +99,25 @@ public class BooCli {
   /** The boo utils. */
   private BooUtils booUtils = new BooUtils();
 
+  /** The columns of --get-ips records. */
+  private static final String[] IP_COLUMNS = {"environment", "platform", "component", "ciId",
+      "ciName", Constants.PRIVATE_IP, Constants.PUBLIC_IP, Constants.HOSTNAME};
+
+  /** The columns of --status records. */
+  private static final String[] STATUS_COLUMNS = {"environment", "deploymentId", "state"};
+
+  /** The columns of --watch records. */
+  private static final String[] LOG_COLUMNS = {"id", "timestamp", "level", "message"};
+
+  /** Print ips as they are fetched rather than in yaml order. */
+  private boolean ipsInCompletionOrder = false;
+
+  /** The output format given with --output, or null. */
+  private String outputFormat = null;
+
+  /** Follow deployment and procedure logs until they finish. */
+  private boolean watch = false;
+
   private String comment = null;
 
   private String profile = ClientConfig.ONEOPS_DEFAULT_PROFILE;
@@ -108,6 +144,11 @@ public class BooCli {
     Option list = Option.builder("l").longOpt("list").numberOfArgs(1).optionalArg(Boolean.TRUE)
         .desc("Return a list of instances applicable to the identifier provided..").build();
 
+    Option plan = Option.builder().longOpt("plan")
+        .desc("Show what -c or -u would change and the estimated number of OneOps API calls,"
+            + " without changing anything.")
+        .build();
+
     Option force = Option.builder().longOpt("force").desc("Do not prompt for --remove").build();
 
     Option nodeploy =
@@ -117,6 +158,19 @@ public class BooCli {
         .desc("Get IPs of deployed nodes specified by -f; Args are optional.").build();
     getIps.setOptionalArg(true);
     getIps.setArgs(Option.UNLIMITED_VALUES);
+    Option getIpsUnordered = Option.builder().longOpt("get-ips-unordered")
+        .desc("With --get-ips, print each platform and compute as soon as its IPs are fetched,"
+            + " instead of in YAML order.")
+        .build();
+    Option output = Option.builder().longOpt("output").argName("format").hasArg()
+        .desc("Print --get-ips, --status and --watch as json (JSON Lines) or csv records, one per"
+            + " line. --get-ips defaults to boo.ip_output.")
+        .build();
+    Option watch = Option.builder().longOpt("watch")
+        .desc("Stream deployment or procedure logs until they finish. Alone, follows the latest"
+            + " deployment specified by -f; with -c, -u, --retry or --procedure, follows the one"
+            + " started.")
+        .build();
 
     Option retry = Option.builder().longOpt("retry")
         .desc("Retry deployments of configurations specified by -f").build();
@@ -153,7 +207,11 @@ public class BooCli {
     options.addOption(status);
     options.addOption(list);
     options.addOption(cleanup);
+    options.addOption(plan);
     options.addOption(getIps);
+    options.addOption(getIpsUnordered);
+    options.addOption(output);
+    options.addOption(watch);
     options.addOption(retry);
     options.addOption(quiet);
     options.addOption(force);
@@ -168,6 +226,20 @@ public class BooCli {
     options.addOption(profile);
   }
 
+  /**
+   * Instantiates a boo cli on an existing flow.
+   *
+   * @param flow the flow
+   * @param outputFormat the output format given with --output, or null
+   * @param ipsInCompletionOrder print ips as they are fetched rather than in yaml order
+   */
+  BooCli(BuildAllPlatforms flow, String outputFormat, boolean ipsInCompletionOrder) {
+    this();
+    this.flow = flow;
+    this.outputFormat = outputFormat;
+    this.ipsInCompletionOrder = ipsInCompletionOrder;
+  }
+
   static {
     RestAssured.useRelaxedHTTPSValidation();
   }
@@ -251,6 +323,10 @@ public class BooCli {
       if (cmd.hasOption("no-deploy")) {
         BooCli.setNoDeploy(Boolean.TRUE);
       }
+      if (cmd.hasOption("output")) {
+        this.outputFormat = cmd.getOptionValue("output");
+      }
+      this.watch = cmd.hasOption("watch");
 
       if (cmd.hasOption("a")) {
         assembly = cmd.getOptionValue("a");
@@ -309,6 +385,21 @@ public class BooCli {
         }
         return Constants.EXIT_NORMAL;
       }
+      if (cmd.hasOption("plan")) {
+        boolean isUpdate = cmd.hasOption("u");
+        if (cmd.hasOption("c")) {
+          if (config.getYaml().getAssembly().getAutoGen()) {
+            this.initOo(this.config,
+                this.autoGenAssemblyName(config.getYaml().getAssembly().getAutoGen(),
+                    config.getYaml().getAssembly().getName()),
+                comment);
+          }
+        } else if (!isUpdate) {
+          isUpdate = flow.isAssemblyExist();
+        }
+        this.plan(isUpdate);
+        return Constants.EXIT_NORMAL;
+      }
       /**
        * Handle other commands.
        */
@@ -317,7 +408,15 @@ public class BooCli {
           System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
           return Constants.EXIT_ASSEMBLY_NOT_FOUND;
         } else {
-          System.out.println(this.getStatus());
+          RecordWriter writer = RecordWriter.create(outputFormat, System.out, STATUS_COLUMNS);
+          if (writer == null) {
+            System.out.println(this.getStatus());
+          } else {
+            Deployment deployment = flow.getDeploymentStatus();
+            writer.write(flow.getConfig().getYaml().getBoo().getEnvName(),
+                deployment == null ? null : deployment.getDeploymentId(),
+                deployment == null ? null : deployment.getDeploymentState());
+          }
         }
       } else if (cmd.hasOption("c")) {
         if (config.getYaml().getAssembly().getAutoGen()) {
@@ -328,10 +427,16 @@ public class BooCli {
           LogUtils.info(Constants.CREATING_ASSEMBLY, config.getYaml().getAssembly().getName());
         }
         this.createPacks(Boolean.FALSE, isNoDeploy);
+        if (watch && !isNoDeploy) {
+          exit = this.watchDeployment();
+        }
       } else if (cmd.hasOption("u")) {
         if (!config.getYaml().getAssembly().getAutoGen()) {
           if (flow.isAssemblyExist()) {
             this.createPacks(Boolean.TRUE, isNoDeploy);
+            if (watch && !isNoDeploy) {
+              exit = this.watchDeployment();
+            }
           } else {
             System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
           }
@@ -355,6 +460,7 @@ public class BooCli {
         }
         this.cleanup(assemblies);
       } else if (cmd.hasOption("get-ips")) {
+        this.ipsInCompletionOrder = cmd.hasOption("get-ips-unordered");
         if (!flow.isAssemblyExist()) {
           System.err.printf(Constants.NOTFOUND_ERROR, config.getYaml().getAssembly().getName());
         } else if (cmd.getOptionValues("get-ips") == null) {
@@ -369,6 +475,9 @@ public class BooCli {
         }
       } else if (cmd.hasOption("retry")) {
         this.retryDeployment();
+        if (watch) {
+          exit = this.watchDeployment();
+        }
       } else if (cmd.hasOption("procedure")) {
         if (cmd.getOptionValues("procedure").length != 3) {
           System.err
@@ -412,6 +521,8 @@ public class BooCli {
           }
 
         }
+      } else if (watch) {
+        exit = this.watchDeployment();
       } else {
         System.err.println("Wrong parameters!");
         return Constants.EXIT_WRONG_PRAMETER;
@@ -422,6 +533,9 @@ public class BooCli {
       exit = Constants.EXIT_UNKOWN;
       e.printStackTrace(new PrintStream(System.err));
     }
+    if (LOG.isDebugEnabled() && flow != null && flow.getGovernor() != null) {
+      LOG.debug("OneOps requests by endpoint class: {}", flow.getGovernor());
+    }
     return exit;
   }
 
@@ -451,19 +565,16 @@ public class BooCli {
     if (procedureId != null) {
       String procStatus = "active";
       try {
-        while (procStatus != null
-            && (procStatus.equalsIgnoreCase("active") || procStatus.equalsIgnoreCase("pending"))) {
-          procStatus = flow.getProcedureStatusForAction(procedureId);
-          try {
-            Thread.sleep(3000);
-          } catch (InterruptedException e) {
-            // Ignore
-          }
+        final String id = procedureId;
+        if (watch) {
+          procStatus = flow.tailProcedure(id, this.logSink());
+        } else {
+          procStatus = flow.awaitProcedure(id);
         }
       } catch (OneOpsClientAPIException e) {
         // Ignore
       }
-      if (procStatus.equalsIgnoreCase("complete")) {
+      if ("complete".equalsIgnoreCase(procStatus)) {
         System.out.println(Constants.SUCCEED);
       } else {
         System.err.println(Constants.PROCEDURE_NOT_COMPLETE);
@@ -473,6 +584,48 @@ public class BooCli {
     return returnCode;
   }
 
+  /**
+   * Follow the logs of the latest deployment until it finishes.
+   *
+   * @return the exit code
+   */
+  private int watchDeployment() {
+    Deployment deployment = flow.getDeploymentStatus();
+    if (deployment == null) {
+      System.err.println(Constants.NOTHING_TO_WATCH);
+      return Constants.EXIT_NOT_COMPLETE;
+    }
+    String deploymentId = String.valueOf(deployment.getDeploymentId());
+    String state;
+    try {
+      state = flow.tailDeployment(deploymentId, this.logSink());
+    } catch (OneOpsClientAPIException e) {
+      System.err.println(e.getMessage());
+      return Constants.EXIT_CLIENT;
+    }
+    if ("complete".equalsIgnoreCase(state)) {
+      System.out.println(Constants.SUCCEED);
+      return Constants.EXIT_NORMAL;
+    }
+    System.err.printf(Constants.DEPLOYMENT_NOT_COMPLETE, deploymentId, state);
+    return Constants.EXIT_NOT_COMPLETE;
+  }
+
+  /**
+   * Log sink printing entries as text, or as records with --output.
+   *
+   * @return the log sink
+   */
+  private Consumer<LogEntry> logSink() {
+    final RecordWriter writer = RecordWriter.create(outputFormat, System.out, LOG_COLUMNS);
+    if (writer == null) {
+      return entry -> System.out.println(String.format("[%s] %s", entry.getId(),
+          StringUtils.defaultString(entry.getMessage())));
+    }
+    return entry -> writer.write(entry.getId(), entry.getTimestamp(), entry.getLevel(),
+        entry.getMessage());
+  }
+
   /**
    * User input.
    *
@@ -495,14 +648,7 @@ public class BooCli {
   private void getIps0() {
     Map<String, Object> platforms = flow.getConfig().getYaml().getPlatforms();
     List<String> computes = booUtils.getComponentOfCompute(this.flow);
-    System.out.println("Environment name: " + flow.getConfig().getYaml().getBoo().getEnvName());
-    for (String pname : platforms.keySet()) {
-      System.out.println("Platform name: " + pname);
-      for (String cname : computes) {
-        System.out.println("Compute name: " + cname);
-        System.out.printf(getIps(pname, cname));
-      }
-    }
+    printIps(platforms.keySet(), computes);
   }
 
   /**
@@ -534,13 +680,7 @@ public class BooCli {
       List<String> computes = booUtils.getComponentOfCompute(this.flow);
       for (String s : computes) {
         if (s.equals(componentName)) {
-          System.out
-              .println("Environment name: " + flow.getConfig().getYaml().getBoo().getEnvName());
-          for (String pname : platforms.keySet()) {
-            System.out.println("Platform name: " + pname);
-            System.out.println("Compute name: " + componentName);
-            System.out.printf(getIps(pname, componentName));
-          }
+          printIps(platforms.keySet(), Collections.singletonList(componentName));
           return;
         }
       }
@@ -550,6 +690,151 @@ public class BooCli {
     }
   }
 
+  /**
+   * Prints the ips of every platform and compute. The ips are fetched concurrently, at most
+   * parallelism at a time, and printed in yaml order unless completion order was asked for.
+   *
+   * @param platformNames the platform names
+   * @param computes the compute component names
+   */
+  void printIps(Collection<String> platformNames, List<String> computes) {
+    String format = outputFormat;
+    if (format == null) {
+      format = flow.getConfig().getYaml().getBoo().getIpOutput();
+    }
+    RecordWriter writer = RecordWriter.create(format, System.out, IP_COLUMNS);
+    if (writer != null) {
+      writeIps(platformNames, computes, writer);
+      return;
+    }
+    System.out.println("Environment name: " + flow.getConfig().getYaml().getBoo().getEnvName());
+    List<String[]> pairs = new ArrayList<String[]>();
+    for (String pname : platformNames) {
+      for (String cname : computes) {
+        pairs.add(new String[] {pname, cname});
+      }
+    }
+    ExecutorService executor = ipsExecutor(pairs.size());
+    try {
+      CompletionService<String[]> completion = new ExecutorCompletionService<String[]>(executor);
+      Map<String, Future<String[]>> futures = new HashMap<String, Future<String[]>>();
+      for (final String[] pair : pairs) {
+        futures.put(pair[0] + "/" + pair[1], completion.submit(
+            () -> new String[] {pair[0], pair[1], getIps(pair[0], pair[1])}));
+      }
+      if (ipsInCompletionOrder) {
+        for (int i = 0; i < pairs.size(); i++) {
+          String[] done = completion.take().get();
+          System.out.println("Platform name: " + done[0]);
+          System.out.println("Compute name: " + done[1]);
+          printIps(done[2]);
+        }
+      } else {
+        for (String pname : platformNames) {
+          System.out.println("Platform name: " + pname);
+          for (String cname : computes) {
+            System.out.println("Compute name: " + cname);
+            printIps(futures.get(pname + "/" + cname).get()[2]);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes one record per instance of every platform and compute. In yaml order each component is
+   * listed once per run and written in listing order; in completion order the instances are
+   * written while their listing is still being read, without keeping them.
+   *
+   * @param platformNames the platform names
+   * @param computes the compute component names
+   * @param writer the record writer
+   */
+  private void writeIps(Collection<String> platformNames, List<String> computes,
+      final RecordWriter writer) {
+    final String envName = flow.getConfig().getYaml().getBoo().getEnvName();
+    Map<String, String[]> pairs = new LinkedHashMap<String, String[]>();
+    for (String pname : platformNames) {
+      for (String cname : computes) {
+        pairs.put(pname + "/" + cname, new String[] {pname, cname});
+      }
+    }
+    ExecutorService executor = ipsExecutor(pairs.size());
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (final String[] pair : pairs.values()) {
+        if (ipsInCompletionOrder) {
+          futures.add(executor.submit(() -> flow.visitInstances(pair[0], pair[1], instance -> {
+            writeIp(writer, envName, pair[0], pair[1], instance);
+            return true;
+          })));
+        } else {
+          futures.add(executor.submit(() -> flow.getInstances(pair[0], pair[1])));
+        }
+      }
+      int index = 0;
+      for (String[] pair : pairs.values()) {
+        try {
+          Object snapshot = futures.get(index++).get();
+          if (snapshot instanceof InstanceSnapshot) {
+            for (Instance instance : ((InstanceSnapshot) snapshot).getInstances()) {
+              writeIp(writer, envName, pair[0], pair[1], instance);
+            }
+          }
+        } catch (ExecutionException e) {
+          System.err.println("Failed to get ips of " + pair[0] + "/" + pair[1]);
+          e.getCause().printStackTrace();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Write one get-ips record.
+   *
+   * @param writer the writer
+   * @param envName the env name
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param instance the instance
+   */
+  private static void writeIp(RecordWriter writer, String envName, String platformName,
+      String componentName, Instance instance) {
+    writer.write(envName, platformName, componentName, instance.getCiId(), instance.getCiName(),
+        instance.getPrivateIp(), instance.getPublicIp(), instance.getHostname());
+  }
+
+  /**
+   * Executor for fetching ips, bounded by the configured parallelism.
+   *
+   * @param tasks the number of tasks
+   * @return the executor service
+   */
+  ExecutorService ipsExecutor(int tasks) {
+    return Executors.newFixedThreadPool(Math.max(1, Math.min(flow.getParallelism(), tasks)));
+  }
+
+  /**
+   * Prints the ips.
+   *
+   * @param ips the ips, may be null
+   */
+  private void printIps(String ips) {
+    if (ips != null) {
+      System.out.print(ips);
+    }
+  }
+
   /**
    * Gets the ips.
    *
@@ -620,6 +905,17 @@ public class BooCli {
     flow.process(isUpdate, isAssemblyOnly);
   }
 
+  /**
+   * Prints what a create or update would change and the estimated number of OneOps API calls.
+   * Nothing is changed.
+   *
+   * @param isUpdate the is update
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public void plan(boolean isUpdate) throws OneOpsClientAPIException {
+    flow.plan(isUpdate).print(System.out);
+  }
+
   /**
    *  Creates platforms if the assembly does not exist. Updates the platform/components if assembly already exists
    * @throws BooException
@@ -27,6 +27,7 @@ public class ClientConfig {
 
   public static final File ONEOPS_CONFIG =
       new File(new File(System.getProperty("user.home"), ".boo"), "config");
+  public static final File BOO_CACHE_DIR = new File(ONEOPS_CONFIG.getParentFile(), "cache");
   public static final String ONEOPS_DEFAULT_PROFILE = "default";
   private Yaml yaml;
 
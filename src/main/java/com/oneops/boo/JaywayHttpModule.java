@@ -18,7 +18,12 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.oneops.boo.yaml.RateLimitBean;
 import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.http.EndpointGuard;
+import com.oneops.client.api.http.RequestGovernor;
+import com.oneops.client.api.http.RequestGovernor.EndpointClass;
+import com.oneops.client.api.http.RetryPolicy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +32,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Class JaywayHttpModule.
@@ -129,7 +135,74 @@ public class JaywayHttpModule extends AbstractModule {
     instance.setOrgname(client.getYaml().getBoo().getOrg());
     instance.setEndpoint(client.getYaml().getBoo().getHost());
     instance.setGzipEnabled(client.getYaml().getBoo().isGzipEnabled());
+    // boo has always talked to OneOps with relaxed https validation, see BooCli
+    instance.setRelaxedHttpsValidation(true);
+    if (client.getYaml().getBoo().isCacheEnabled()) {
+      instance.setCacheDir(ClientConfig.BOO_CACHE_DIR);
+    }
+    instance.setRetryPolicy(RetryPolicy.DEFAULT);
+    instance.setGovernor(this.createGovernor(client.getYaml().getBoo().getRateLimits()));
+    instance.setEndpointGuard(this.createEndpointGuard(client.getYaml().getBoo().getTimeouts(),
+        client.getYaml().getBoo().isHedgedReads()));
     return instance;
   }
 
+  /**
+   * Creates the request governor of boo.rate_limits.
+   *
+   * @param rateLimits the rate limits by endpoint class
+   * @return the governor, or null if there are no limits
+   * @throws IOException if an endpoint class is unknown
+   */
+  private RequestGovernor createGovernor(Map<String, RateLimitBean> rateLimits)
+      throws IOException {
+    if (rateLimits == null || rateLimits.isEmpty()) {
+      return null;
+    }
+    RequestGovernor governor = new RequestGovernor();
+    for (Map.Entry<String, RateLimitBean> entry : rateLimits.entrySet()) {
+      EndpointClass endpointClass = EndpointClass.forName(entry.getKey());
+      if (endpointClass == null) {
+        throw new IOException(
+            "Unknown rate_limits class " + entry.getKey() + ", expected read, write or deploy");
+      }
+      if (entry.getValue() != null) {
+        governor.setLimit(endpointClass, entry.getValue().getRate(),
+            entry.getValue().getMaxInFlight());
+      }
+    }
+    return governor;
+  }
+
+  /**
+   * Creates the endpoint guard of boo.timeouts and boo.hedged_reads. Reads get a minute, writes
+   * two and deploys five unless the yaml says otherwise.
+   *
+   * @param timeouts the timeouts in seconds by endpoint class, 0 for none
+   * @param hedgedReads whether slow reads are sent twice
+   * @return the endpoint guard
+   * @throws IOException if an endpoint class is unknown
+   */
+  private EndpointGuard createEndpointGuard(Map<String, Integer> timeouts, boolean hedgedReads)
+      throws IOException {
+    EndpointGuard guard = new EndpointGuard();
+    guard.setTimeout(EndpointClass.READ, TimeUnit.MINUTES.toMillis(1));
+    guard.setTimeout(EndpointClass.WRITE, TimeUnit.MINUTES.toMillis(2));
+    guard.setTimeout(EndpointClass.DEPLOY, TimeUnit.MINUTES.toMillis(5));
+    guard.setHedging(hedgedReads);
+    if (timeouts != null) {
+      for (Map.Entry<String, Integer> entry : timeouts.entrySet()) {
+        EndpointClass endpointClass = EndpointClass.forName(entry.getKey());
+        if (endpointClass == null) {
+          throw new IOException(
+              "Unknown timeouts class " + entry.getKey() + ", expected read, write or deploy");
+        }
+        if (entry.getValue() != null) {
+          guard.setTimeout(endpointClass, TimeUnit.SECONDS.toMillis(entry.getValue()));
+        }
+      }
+    }
+    return guard;
+  }
+
 }
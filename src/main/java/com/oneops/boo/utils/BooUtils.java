@@ -13,7 +13,6 @@
  */
 package com.oneops.boo.utils;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.oneops.boo.ClientConfig;
 import com.oneops.boo.exception.BooException;
 import com.oneops.boo.workflow.AbstractWorkflow;
@@ -25,12 +24,8 @@ import com.oneops.boo.yaml.Yaml;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Common uses methods.
@@ -83,15 +78,6 @@ public class BooUtils {
     return result;
   }
 
-  /**
-   * Wait certain time.
-   *
-   * @param seconds the seconds
-   */
-  public void waitTimeout(int seconds) {
-    Uninterruptibles.sleepUninterruptibly(seconds, TimeUnit.SECONDS);
-  }
-
   /**
    * Checks if is customized.
    *
@@ -116,70 +102,7 @@ public class BooUtils {
    * @return the string
    */
   public String parseIps(String split, String format, List<Map<String, String>> ips) {
-    String result = null;
-    StringBuilder str = new StringBuilder();
-    int num = (null == format) ? Integer.MAX_VALUE : parseNumOfIp(format);
-    String ipExtra = null == format ? "" : parseIpExtra(format);
-    String ipSplit = null == split ? Constants.DEDAULT_IPSPLIT : split;
-    String itemName = null == format ? "" : parseItemName(format);
-    for (Map<String, String> ip : ips) {
-      if (num-- <= 0) {
-        break;
-      }
-      str.append(ipSplit);
-      str.append(ip.get(itemName));
-      str.append(ipExtra);
-    }
-    if (str.length() > 0) {
-      str.delete(0, ipSplit.length());
-    }
-    result = str.toString();
-    return result;
-  }
-
-  /**
-   * Parses the num of ip.
-   *
-   * @param customFormat the custom format
-   * @return the int
-   */
-  private int parseNumOfIp(String customFormat) {
-    int left = customFormat.indexOf(Constants.NUMTERMINATOR1);
-    int right = customFormat.indexOf(Constants.NUMTERMINATOR2);
-    if (left == -1 || right == -1 || left >= right) {
-      return 0;
-    }
-    return Integer.parseInt(customFormat.substring(left + 1, right));
-  }
-
-  /**
-   * Parses the ip extra.
-   *
-   * @param customFormat the custom format
-   * @return the string
-   */
-  private String parseIpExtra(String customFormat) {
-    int left = customFormat.indexOf(Constants.IPTERMINATOR2);
-    int right = customFormat.indexOf(Constants.NUMTERMINATOR1);
-    if (left == -1 || right == -1 || left >= right) {
-      return "";
-    }
-    return customFormat.substring(left + 1, right);
-  }
-
-  /**
-   * Parses the item name.
-   *
-   * @param customFormat the custom format
-   * @return the string
-   */
-  private String parseItemName(String customFormat) {
-    int left = customFormat.indexOf(Constants.IPTERMINATOR1);
-    int right = customFormat.indexOf(Constants.IPTERMINATOR2);
-    if (left == -1 || right == -1 || left >= right) {
-      return "";
-    }
-    return customFormat.substring(left + 1, right);
+    return IpFormat.of(split, format).format(ips);
   }
 
   /**
@@ -223,47 +146,6 @@ public class BooUtils {
     return userDir + Constants.SLASH + template;
   }
 
-  /**
-   * Creates the platforms.
-   *
-   * @param config the config
-   * @param workflow the workflow
-   * @return true, if successful
-   * @throws OneOpsClientAPIException the one ops client API exception
-   */
-  public boolean createPlatforms(ClientConfig config, BuildAllPlatforms workflow)
-      throws OneOpsClientAPIException {
-    List<PlatformBean> platforms = config.getYaml().getPlatformsList();
-    Collections.sort(platforms);
-    Queue<Integer> queue = new LinkedList<Integer>();
-    int prevOrderIdx = platforms.get(0).getDeployOrder();
-    for (int i = 0; i < platforms.size(); i++) {
-      if (prevOrderIdx == platforms.get(i).getDeployOrder()) {
-        queue.add(i);
-        workflow.createPlatform(platforms.get(i));
-      } else {
-        checkPlatformQ(workflow);
-        queue.clear();
-        prevOrderIdx++;
-      }
-    }
-    return true;
-  }
-
-  /**
-   * Check platform Q.
-   *
-   * @param workFlow the work flow
-   */
-  private void checkPlatformQ(AbstractWorkflow workFlow) {
-    while (true) {
-      if (!Constants.ACTIVE.equalsIgnoreCase(workFlow.getStatus())) {
-        break;
-      }
-      waitTimeout(30);
-    }
-  }
-
   /**
    * Gets the component of compute.
    *
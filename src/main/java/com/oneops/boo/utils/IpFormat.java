@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.utils;
+
+import com.oneops.boo.yaml.Constants;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A parsed {@code custom_format}/{@code custom_split} pair. A format such as
+ * {@code [private_ip]:8080{3}} prints the private_ip attribute of at most 3 instances, each
+ * followed by ":8080", separated by the split string.
+ */
+public final class IpFormat {
+
+  /** The formats parsed so far, by split and format. */
+  private static final ConcurrentMap<String, IpFormat> FORMATS =
+      new ConcurrentHashMap<String, IpFormat>();
+
+  /** The item name. */
+  private final String itemName;
+
+  /** The text appended to each item. */
+  private final String extra;
+
+  /** The max number of items. */
+  private final int num;
+
+  /** The split. */
+  private final String split;
+
+  /**
+   * Instantiates a new ip format.
+   *
+   * @param split the split, or null for the default
+   * @param format the format, or null
+   */
+  IpFormat(String split, String format) {
+    this.num = (null == format) ? Integer.MAX_VALUE : parseNumOfIp(format);
+    this.extra = null == format ? "" : parseIpExtra(format);
+    this.split = null == split ? Constants.DEDAULT_IPSPLIT : split;
+    this.itemName = null == format ? "" : parseItemName(format);
+  }
+
+  /**
+   * Gets the parsed format, parsing each distinct format only once.
+   *
+   * @param split the split, or null for the default
+   * @param format the format, or null
+   * @return the ip format
+   */
+  public static IpFormat of(String split, String format) {
+    String key = split + '\u0000' + format;
+    IpFormat ipFormat = FORMATS.get(key);
+    if (ipFormat == null) {
+      FORMATS.putIfAbsent(key, new IpFormat(split, format));
+      ipFormat = FORMATS.get(key);
+    }
+    return ipFormat;
+  }
+
+  /**
+   * Gets the item name.
+   *
+   * @return the attribute name printed for each instance
+   */
+  public String getItemName() {
+    return itemName;
+  }
+
+  /**
+   * Format the instances.
+   *
+   * @param ips the attributes of each instance
+   * @return the string
+   */
+  public String format(List<Map<String, String>> ips) {
+    StringBuilder str = new StringBuilder();
+    int left = num;
+    for (Map<String, String> ip : ips) {
+      if (left-- <= 0) {
+        break;
+      }
+      str.append(split);
+      str.append(ip.get(itemName));
+      str.append(extra);
+    }
+    if (str.length() > 0) {
+      str.delete(0, split.length());
+    }
+    return str.toString();
+  }
+
+  /**
+   * Parses the num of ip.
+   *
+   * @param customFormat the custom format
+   * @return the int
+   */
+  private static int parseNumOfIp(String customFormat) {
+    int left = customFormat.indexOf(Constants.NUMTERMINATOR1);
+    int right = customFormat.indexOf(Constants.NUMTERMINATOR2);
+    if (left == -1 || right == -1 || left >= right) {
+      return 0;
+    }
+    return Integer.parseInt(customFormat.substring(left + 1, right));
+  }
+
+  /**
+   * Parses the ip extra.
+   *
+   * @param customFormat the custom format
+   * @return the string
+   */
+  private static String parseIpExtra(String customFormat) {
+    int left = customFormat.indexOf(Constants.IPTERMINATOR2);
+    int right = customFormat.indexOf(Constants.NUMTERMINATOR1);
+    if (left == -1 || right == -1 || left >= right) {
+      return "";
+    }
+    return customFormat.substring(left + 1, right);
+  }
+
+  /**
+   * Parses the item name.
+   *
+   * @param customFormat the custom format
+   * @return the string
+   */
+  private static String parseItemName(String customFormat) {
+    int left = customFormat.indexOf(Constants.IPTERMINATOR1);
+    int right = customFormat.indexOf(Constants.IPTERMINATOR2);
+    if (left == -1 || right == -1 || left >= right) {
+      return "";
+    }
+    return customFormat.substring(left + 1, right);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes machine readable records, one per line, as soon as each one is known. Every record has
+ * the same columns. Writes are synchronized so records from concurrent fetches never interleave.
+ */
+public abstract class RecordWriter {
+
+  /** The columns. */
+  protected final List<String> columns;
+
+  /**
+   * Instantiates a new record writer.
+   *
+   * @param columns the columns
+   */
+  protected RecordWriter(String... columns) {
+    this.columns = Arrays.asList(columns);
+  }
+
+  /**
+   * Creates the writer for an output format.
+   *
+   * @param format json (JSON Lines) or csv; anything else means plain text
+   * @param out the out
+   * @param columns the columns
+   * @return the record writer, or null for plain text
+   */
+  public static RecordWriter create(String format, PrintStream out, String... columns) {
+    if (format == null) {
+      return null;
+    }
+    switch (format.trim().toLowerCase(Locale.ENGLISH)) {
+      case "json":
+      case "jsonl":
+      case "json_lines":
+        return new JsonLines(out, columns);
+      case "csv":
+        return new Csv(out, columns);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Write one record.
+   *
+   * @param values the values, in column order; null values are left empty
+   */
+  public abstract void write(Object... values);
+
+  /**
+   * JSON Lines: one JSON object per line, keyed by column.
+   */
+  static class JsonLines extends RecordWriter {
+
+    /** The factory. */
+    private static final JsonFactory FACTORY = new JsonFactory().setRootValueSeparator(null)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /** The generator. */
+    private final JsonGenerator generator;
+
+    /**
+     * Instantiates a new JSON Lines writer.
+     *
+     * @param out the out
+     * @param columns the columns
+     */
+    JsonLines(OutputStream out, String... columns) {
+      super(columns);
+      try {
+        this.generator = FACTORY.createGenerator(out);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public synchronized void write(Object... values) {
+      try {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+          Object value = i < values.length ? values[i] : null;
+          generator.writeFieldName(columns.get(i));
+          if (value == null) {
+            generator.writeNull();
+          } else if (value instanceof Long || value instanceof Integer) {
+            generator.writeNumber(((Number) value).longValue());
+          } else {
+            generator.writeString(String.valueOf(value));
+          }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * CSV as in RFC 4180, with a header row naming the columns.
+   */
+  static class Csv extends RecordWriter {
+
+    /** The out. */
+    private final PrintStream out;
+
+    /**
+     * Instantiates a new CSV writer and writes the header row.
+     *
+     * @param out the out
+     * @param columns the columns
+     */
+    Csv(PrintStream out, String... columns) {
+      super(columns);
+      this.out = out;
+      writeRow((Object[]) columns);
+    }
+
+    @Override
+    public synchronized void write(Object... values) {
+      Object[] row = Arrays.copyOf(values, columns.size());
+      writeRow(row);
+    }
+
+    /**
+     * Write row.
+     *
+     * @param values the values
+     */
+    private void writeRow(Object... values) {
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        line.append(escape(values[i]));
+      }
+      line.append("\r\n");
+      out.print(line);
+      out.flush();
+    }
+
+    /**
+     * Escape a field, quoting it when it holds a comma, quote or line break.
+     *
+     * @param value the value
+     * @return the field
+     */
+    static String escape(Object value) {
+      if (value == null) {
+        return "";
+      }
+      String text = String.valueOf(value);
+      if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+          && text.indexOf('\r') < 0) {
+        return text;
+      }
+      return '"' + text.replace("\"", "\"\"") + '"';
+    }
+  }
+}
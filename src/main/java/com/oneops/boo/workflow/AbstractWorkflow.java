@@ -20,26 +20,41 @@ import com.oneops.boo.yaml.Constants;
 import com.oneops.boo.yaml.PlatformBean;
 import com.oneops.boo.yaml.helper.EnvironmentBeanHelper;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
 import com.oneops.boo.utils.ProgressBar;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.http.RequestGovernor;
 import com.oneops.client.api.resource.Assembly;
 import com.oneops.client.api.resource.Cloud;
 import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.InstanceVisitor;
 import com.oneops.client.api.resource.Operation;
+import com.oneops.client.api.resource.StatusPoller;
 import com.oneops.client.api.resource.Transition;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.DeploymentRecord;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.resource.model.ProcedureAction;
+import com.oneops.client.api.util.LogTail;
+import com.oneops.client.api.util.Watcher;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,9 +66,23 @@ public abstract class AbstractWorkflow {
   /** The log. */
   private static Logger LOG = LoggerFactory.getLogger(AbstractWorkflow.class);
 
+  /** The Constant PENDING. */
+  private static final String PENDING = "pending";
+
+  /** The Constant LOCKED. */
+  private static final String LOCKED = "locked";
+
+  /** The states of deployments, procedures and their parts that are not finished yet. */
+  private static final Set<String> RUNNING_STATES =
+      new HashSet<String>(Arrays.asList("active", PENDING, "inprogress"));
+
   /** The pattern. */
   private static Pattern pattern = Pattern.compile("^-[0-9a-zA-Z]{2,9}$");
 
+  /** The instance attributes streamed by visitInstances. */
+  private static final Set<String> ADDRESS_ATTRIBUTES = new HashSet<String>(
+      Arrays.asList(Constants.PRIVATE_IP, Constants.PUBLIC_IP, Constants.HOSTNAME));
+
   /** The assembly name. */
   String assemblyName;
 
@@ -87,6 +116,18 @@ public abstract class AbstractWorkflow {
   /** The comments. */
   String comments = null;
 
+  /** The diff between the yaml and OneOps. */
+  DesiredStateDiff diff;
+
+  /** The instances listed so far in this run. */
+  InstanceInventory inventory;
+
+  /** The workers of component fan-out, shared by the whole workflow. */
+  private WorkerPool workers;
+
+  /** The environment read once per run, null until first used and after each commit. */
+  private EnvironmentSnapshot environmentSnapshot;
+
   /**
    * Instantiates a new abstract workflow.
    *
@@ -107,6 +148,8 @@ public abstract class AbstractWorkflow {
     design = new Design(instance, assemblyName);
     transition = new Transition(instance, assemblyName);
     op = new Operation(instance, assemblyName, envName);
+    diff = new DesiredStateDiff(design, transition, envName);
+    inventory = new InstanceInventory(op);
     this.config = config;
 
     this.bar = new ProgressBar();
@@ -115,6 +158,40 @@ public abstract class AbstractWorkflow {
     }
   }
 
+  /**
+   * Gets the workers of component fan-out, sized by boo.workers.
+   *
+   * @return the workers
+   */
+  synchronized WorkerPool getWorkers() {
+    if (workers == null) {
+      workers = new WorkerPool(config.getYaml().getBoo().getWorkers(),
+          config.getYaml().getBoo().isVirtualThreads());
+    }
+    return workers;
+  }
+
+  /**
+   * Gets the environment snapshot of the run, reading it on first use after a commit.
+   *
+   * @return the environment snapshot
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  synchronized EnvironmentSnapshot getEnvironmentSnapshot() throws OneOpsClientAPIException {
+    if (environmentSnapshot == null) {
+      environmentSnapshot = EnvironmentSnapshot.load(transition, design, cloud, envName,
+          config.getYaml().getEnvironmentBean().getClouds());
+    }
+    return environmentSnapshot;
+  }
+
+  /**
+   * Drops the environment snapshot, so that the next use reads what a commit changed.
+   */
+  synchronized void invalidateEnvironmentSnapshot() {
+    environmentSnapshot = null;
+  }
+
   /**
    * Process.
    *
@@ -244,8 +321,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> listEnvs() throws OneOpsClientAPIException {
-    JsonPath response = transition.listEnvironments();
-    return response.getList(Constants.CINAME);
+    return ciNames(transition.fetchEnvironments());
   }
 
   /**
@@ -255,8 +331,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> listPlatforms() throws OneOpsClientAPIException {
-    JsonPath response = design.listPlatforms();
-    return response.getList(Constants.CINAME);
+    return ciNames(design.fetchPlatforms());
   }
 
   /**
@@ -291,8 +366,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public List<String> getAssemblies() throws OneOpsClientAPIException {
-    JsonPath response = assembly.listAssemblies();
-    return response.getList(Constants.CINAME);
+    return ciNames(assembly.fetchAssemblies());
   }
 
   /**
@@ -305,8 +379,7 @@ public abstract class AbstractWorkflow {
    */
   public List<String> listAttachments(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = design.listPlatformComponentAttachments(platformName, componentName);
-    return response.getList(Constants.CINAME);
+    return ciNames(design.fetchPlatformComponentAttachments(platformName, componentName));
   }
 
   /**
@@ -365,16 +438,10 @@ public abstract class AbstractWorkflow {
    * Checks whether the component is user related.
    *
    */
-  @SuppressWarnings("unchecked")
   public boolean isUserCustomizedComponent(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath componentDetails = design.getPlatformComponent(platformName, componentName);
-    Map<String, Object> ciAttrProps = componentDetails.getMap(Constants.CIATTRPROPS);
-    if (ciAttrProps == null || !ciAttrProps.containsKey(Constants.OWNER)) {
-      return false;
-    }
-    Map<String, String> ciAttrPropsMap = (Map<String, String>) ciAttrProps.get(Constants.OWNER);
-    return !ciAttrPropsMap.isEmpty();
+    CmsCI component = design.fetchPlatformComponent(platformName, componentName);
+    return component != null && !component.getAttrOwners().isEmpty();
   }
 
 
@@ -396,16 +463,14 @@ public abstract class AbstractWorkflow {
   boolean cancelDeployment(String envName) {
     boolean isSuc = false;
     try {
-      JsonPath response = transition.getLatestDeployment(envName);
-      String deploymentId = response.getString("deploymentId");
-      response = transition.getLatestRelease(envName);
-      String releaseId = response.getString("releaseId");
+      String deploymentId =
+          String.valueOf(transition.fetchLatestDeployment(envName).getDeploymentId());
+      String releaseId = String.valueOf(transition.fetchLatestRelease(envName).getReleaseId());
       if (LOG.isDebugEnabled()) {
         LOG.debug("deploymentId:" + deploymentId + "; releaseId: " + releaseId);
       }
-      response = transition.getDeploymentStatus(envName, deploymentId);
-      Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
-      response = transition.cancelDeployment(envName, deploymentId, releaseId);
+      this.awaitDeploymentSettled(envName, deploymentId);
+      JsonPath response = transition.cancelDeployment(envName, deploymentId, releaseId);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Cancel deployment: " + (response == null ? "" : response.prettyPrint()));
       }
@@ -418,6 +483,30 @@ public abstract class AbstractWorkflow {
 
   }
 
+  /**
+   * Wait, for at most a second, until the deployment has left the pending state.
+   *
+   * @param envName the env name
+   * @param deploymentId the deployment id
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void awaitDeploymentSettled(final String envName, final String deploymentId)
+      throws OneOpsClientAPIException {
+    statusPoller().awaitDeployment(transition, envName, deploymentId,
+        state -> !PENDING.equals(state), TimeUnit.SECONDS.toMillis(1));
+  }
+
+  /**
+   * Wait until the environment is no longer locked, e.g. by a plan being generated.
+   *
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  void awaitEnvironmentUnlocked() throws OneOpsClientAPIException {
+    new Watcher(100, 2000, TimeUnit.SECONDS.toMillis(30)).until(
+        () -> transition.getEnvironment(envName).getString(Constants.CISTATE),
+        state -> !LOCKED.equalsIgnoreCase(state));
+  }
+
   /**
    * Sometimes we have to retry a few times to make the deployment done.
    *
@@ -426,16 +515,14 @@ public abstract class AbstractWorkflow {
   public boolean retryDeployment() {
     boolean isSuc = false;
     try {
-      JsonPath response = transition.getLatestDeployment(envName);
-      String deploymentId = response.getString("deploymentId");
-      response = transition.getLatestRelease(envName);
-      String releaseId = response.getString("releaseId");
+      String deploymentId =
+          String.valueOf(transition.fetchLatestDeployment(envName).getDeploymentId());
+      String releaseId = String.valueOf(transition.fetchLatestRelease(envName).getReleaseId());
       if (LOG.isDebugEnabled()) {
         LOG.debug("deploymentId:" + deploymentId + "; releaseId: " + releaseId);
       }
-      response = transition.getDeploymentStatus(envName, deploymentId);
-      Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
-      response = transition.retryDeployment(envName, deploymentId, releaseId);
+      this.awaitDeploymentSettled(envName, deploymentId);
+      JsonPath response = transition.retryDeployment(envName, deploymentId, releaseId);
       if (LOG.isDebugEnabled()) {
         LOG.debug("Retry deployment: " + (response == null ? "" : response.prettyPrint()));
       }
@@ -464,11 +551,13 @@ public abstract class AbstractWorkflow {
     try {
       transition.disableAllPlatforms(envName);
       transition.commitEnvironment(envName, null, "Clean up " + envName);
+      this.invalidateEnvironmentSnapshot();
       if (StringUtils.isBlank(this.comments)) {
         transition.deploy(envName, Constants.CLEANUP_DESCRIPTION);
       } else {
         transition.deploy(envName, comments);
       }
+      inventory.clear();
     } catch (Exception e) {
       // Ignore
     }
@@ -486,6 +575,7 @@ public abstract class AbstractWorkflow {
         LOG.debug("deleteEnvironment log:" + (response == null ? "" : response.prettyPrint()));
       }
       response = design.commitDesign();
+      this.invalidateEnvironmentSnapshot();
       if (LOG.isDebugEnabled()) {
         LOG.debug("commitDesign log:" + (response == null ? "" : response.prettyPrint()));
       }
@@ -547,13 +637,10 @@ public abstract class AbstractWorkflow {
    */
   public Map<String, Integer> listInstancesMap(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    List<String> names = response.getList("ciName");
-    List<Integer> ids = response.getList("ciId");
-    Map<String, Integer> map = new HashMap<String, Integer>();
-    int count = 0;
-    for (String name : names) {
-      map.put(name, ids.get(count++));
+    Map<String, Long> ids = inventory.get(platformName, componentName).getIdsByName();
+    Map<String, Integer> map = new HashMap<String, Integer>(ids.size() * 2);
+    for (Map.Entry<String, Long> entry : ids.entrySet()) {
+      map.put(entry.getKey(), Math.toIntExact(entry.getValue()));
     }
     return map;
   }
@@ -568,8 +655,7 @@ public abstract class AbstractWorkflow {
    */
   public List<String> listInstances(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciName");
+    return inventory.get(platformName, componentName).getNames();
   }
 
   /**
@@ -584,20 +670,6 @@ public abstract class AbstractWorkflow {
     return response.getList("ciName");
   }
 
-  /**
-   * List instance ids.
-   *
-   * @param platformName the platform name
-   * @param componentName the component name
-   * @return the list
-   * @throws OneOpsClientAPIException the one ops client API exception
-   */
-  private List<String> listInstanceIds(String platformName, String componentName)
-      throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciId");
-  }
-
   /**
    * Execute action.
    *
@@ -612,19 +684,24 @@ public abstract class AbstractWorkflow {
    */
   public String executeAction(String platformName, String componentName, String actionName,
       String arglist, List<String> instanceList, int rollAt) throws OneOpsClientAPIException {
+    InstanceSnapshot snapshot = inventory.get(platformName, componentName);
     List<String> list = new ArrayList<String>();
     if (instanceList == null || instanceList.size() == 0) {
-
-      list = this.listInstanceIds(platformName, componentName);
+      list = snapshot.getIds();
     } else {
-      Map<String, Integer> map = this.listInstancesMap(platformName, componentName);
       for (String name : instanceList) {
-        list.add(String.valueOf(map.get(name)));
+        Instance instance = snapshot.get(name);
+        if (instance == null) {
+          String msg = String.format("No instance %s found for %s/%s", name, platformName,
+              componentName);
+          throw new OneOpsClientAPIException(msg);
+        }
+        list.add(String.valueOf(instance.getCiId()));
       }
     }
-    JsonPath response =
-        op.executeAction(platformName, componentName, actionName, list, arglist, rollAt);
-    return response == null ? null : response.getString("procedureId");
+    Procedure procedure =
+        op.submitAction(platformName, componentName, actionName, list, arglist, rollAt);
+    return procedure == null ? null : String.valueOf(procedure.getProcedureId());
   }
 
   /**
@@ -635,7 +712,129 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public String getProcedureStatusForAction(String procedureId) throws OneOpsClientAPIException {
-    return op.getProcedureStatus(procedureId).getString("procedureState");
+    return op.fetchProcedure(procedureId).getProcedureState();
+  }
+
+  /**
+   * Waits until a procedure finishes. Procedures waited on at once, by this and other workflows of
+   * the instance, are polled together on the status poller of the instance.
+   *
+   * @param procedureId the procedure id
+   * @return the final procedure state
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public String awaitProcedure(String procedureId) throws OneOpsClientAPIException {
+    return statusPoller().awaitProcedure(op, procedureId, state -> !isRunning(state), 0);
+  }
+
+  /**
+   * Gets the status poller of the instance.
+   *
+   * @return the status poller
+   */
+  private StatusPoller statusPoller() {
+    return instance.getStatusPoller() == null ? StatusPoller.shared() : instance.getStatusPoller();
+  }
+
+  /**
+   * Follows the logs of a procedure until it finishes. Each round fetches, in one request, the
+   * logs of the actions that are still running or that finished since the round before, and hands
+   * out only the entries not seen yet.
+   *
+   * @param procedureId the procedure id
+   * @param sink the sink of new log entries
+   * @return the final procedure state
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public String tailProcedure(String procedureId, Consumer<LogEntry> sink)
+      throws OneOpsClientAPIException {
+    return tailProcedure(procedureId, sink, new Watcher(500, 10000, 0));
+  }
+
+  String tailProcedure(String procedureId, Consumer<LogEntry> sink, Watcher watcher)
+      throws OneOpsClientAPIException {
+    LogTail tail = new LogTail();
+    while (true) {
+      Procedure procedure = op.fetchProcedure(procedureId);
+      List<String> actionIds = new ArrayList<String>();
+      for (ProcedureAction action : procedure.getActions()) {
+        String actionId = String.valueOf(action.getActionId());
+        if (tail.shouldFetch(actionId, action.getActionState(),
+            isRunning(action.getActionState()))) {
+          actionIds.add(actionId);
+        }
+      }
+      if (!actionIds.isEmpty() || procedure.getActions().isEmpty()) {
+        emit(tail.advance(op.fetchLogData(procedureId, actionIds.isEmpty() ? null : actionIds)),
+            sink, watcher);
+      }
+      if (!isRunning(procedure.getProcedureState())) {
+        return procedure.getProcedureState();
+      }
+      watcher.pause();
+    }
+  }
+
+  /**
+   * Follows the logs of a deployment until it finishes. Each round fetches the logs of the
+   * deployment records that are in progress or that finished since the round before, and hands
+   * out only the entries not seen yet. Pending records and records already read to the end are
+   * not fetched.
+   *
+   * @param deploymentId the deployment id
+   * @param sink the sink of new log entries
+   * @return the final deployment state
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public String tailDeployment(String deploymentId, Consumer<LogEntry> sink)
+      throws OneOpsClientAPIException {
+    return tailDeployment(deploymentId, sink, new Watcher(1000, 10000, 0));
+  }
+
+  String tailDeployment(String deploymentId, Consumer<LogEntry> sink, Watcher watcher)
+      throws OneOpsClientAPIException {
+    LogTail tail = new LogTail();
+    while (true) {
+      Deployment deployment = transition.fetchDeployment(envName, deploymentId);
+      for (DeploymentRecord record : deployment.getRecords()) {
+        String rfcId = String.valueOf(record.getRfcId());
+        if (tail.shouldFetch(rfcId, record.getDpmtRecordState(),
+            isRunning(record.getDpmtRecordState()))) {
+          emit(tail.advance(transition.fetchDeploymentRfcLog(envName, deploymentId, rfcId)), sink,
+              watcher);
+        }
+      }
+      if (!isRunning(deployment.getDeploymentState())) {
+        return deployment.getDeploymentState();
+      }
+      watcher.pause();
+    }
+  }
+
+  /**
+   * Hands out new log entries, polling faster again while logs are growing.
+   *
+   * @param entries the new entries
+   * @param sink the sink
+   * @param watcher the watcher of the loop
+   */
+  private void emit(List<LogEntry> entries, Consumer<LogEntry> sink, Watcher watcher) {
+    for (LogEntry entry : entries) {
+      sink.accept(entry);
+    }
+    if (!entries.isEmpty()) {
+      watcher.reset();
+    }
+  }
+
+  /**
+   * Checks if a deployment, procedure or part of one is still running.
+   *
+   * @param state the state
+   * @return true, if it is not finished yet
+   */
+  private static boolean isRunning(String state) {
+    return state != null && RUNNING_STATES.contains(state.toLowerCase());
   }
 
   /**
@@ -807,6 +1006,7 @@ public abstract class AbstractWorkflow {
       } else {
         transition.commitEnvironment(envName, null, comments);
       }
+      this.invalidateEnvironmentSnapshot();
 
     } else {
       LogUtils.info(Constants.ENV_EXISTING, envName);
@@ -821,60 +1021,97 @@ public abstract class AbstractWorkflow {
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings("unchecked")
   public boolean updateEnv() throws OneOpsClientAPIException {
     List<PlatformBean> platforms = config.getYaml().getEnvironmentBean().getPlatformsList();
     if (platforms == null) {
       return false;
     }
     for (PlatformBean platform : platforms) {
-      Map<String, Object> map = platform.getComponents();
-      if (map != null) {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-          transition.updatePlatformComponent(envName, platform.getName(), entry.getKey(),
-              (Map<String, String>) entry.getValue());
-        }
-      }
+      this.updateEnv(platform);
     }
     return true;
   }
 
   /**
-   * Update platform cloud scale.
+   * Update the env components of one platform which differ from the yaml.
+   *
+   * @param platform the platform of the environment section
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public void updateEnv(PlatformBean platform) throws OneOpsClientAPIException {
+    for (Change change : diff.diffEnvironment(platform)) {
+      transition.updatePlatformComponent(envName, platform.getName(), change.getName(),
+          change.getAttributes());
+    }
+  }
+
+  /**
+   * Update platform cloud scale. The updates of all the platforms are issued at the same time.
    *
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean updatePlatformCloudScale() throws OneOpsClientAPIException {
+    WorkerPool.Batch batch = this.getWorkers().batch();
     for (PlatformBean platform : this.config.getYaml().getPlatformsList()) {
-      if (this.platformExist(platform.getName())) {
-        Map<String, Object> sysClouds = transition.getEnvironment(envName).getMap(Constants.CLOUDS);
-        List<CloudBean> clouds = config.getYaml().getEnvironmentBean().getClouds();
-        for (CloudBean cloud : clouds) {
-          if (sysClouds.containsKey(this.getCloudId(cloud.getCloudName()))) {
-            Map<String, String> cloudMap = new HashMap<String, String>();
-            cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.ACTIVE);
-            cloudMap.put(EnvironmentBeanHelper.PRIORITY, cloud.getPriority());
-            cloudMap.put(EnvironmentBeanHelper.DPMT_ORDER, cloud.getDpmtOrder());
-            cloudMap.put(EnvironmentBeanHelper.PCT_SCALE, cloud.getPctScale());
-            transition.updatePlatformCloudScale(envName, platform.getName(),
-                this.getCloudId(cloud.getCloudName()), cloudMap);
-            // If cloud exists in yaml, remove the cloud name from the system clouds map after
-            // updating cloud.
-            sysClouds.remove(this.getCloudId(cloud.getCloudName()));
-          }
-        }
-        // For rest clouds not in yaml, set them as shutdown.
-        for (String cloud : sysClouds.keySet()) {
-          Map<String, String> cloudMap = new HashMap<String, String>();
-          cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.OFFLINE);
-          transition.updatePlatformCloudScale(envName, platform.getName(), cloud, cloudMap);
-        }
-      }
+      this.updatePlatformCloudScale(platform, batch);
     }
+    batch.await();
     return true;
   }
 
+  /**
+   * Update the cloud scale of one platform, one cloud at a time in parallel.
+   *
+   * @param platform the platform
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public void updatePlatformCloudScale(PlatformBean platform) throws OneOpsClientAPIException {
+    WorkerPool.Batch batch = this.getWorkers().batch();
+    this.updatePlatformCloudScale(platform, batch);
+    batch.await();
+  }
+
+  /**
+   * Submits the cloud scale updates of one platform, from the environment snapshot.
+   *
+   * @param platform the platform
+   * @param batch the batch the updates are submitted to
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void updatePlatformCloudScale(PlatformBean platform, WorkerPool.Batch batch)
+      throws OneOpsClientAPIException {
+    EnvironmentSnapshot snapshot = this.getEnvironmentSnapshot();
+    final String platformName = platform.getName();
+    if (!snapshot.hasPlatform(platformName)) {
+      return;
+    }
+    Map<String, Object> sysClouds = new HashMap<String, Object>(snapshot.getClouds());
+    List<CloudBean> clouds = config.getYaml().getEnvironmentBean().getClouds();
+    for (CloudBean cloud : clouds) {
+      final String cloudId = snapshot.getCloudId(cloud.getCloudName());
+      if (sysClouds.containsKey(cloudId)) {
+        final Map<String, String> cloudMap = new HashMap<String, String>();
+        cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.ACTIVE);
+        cloudMap.put(EnvironmentBeanHelper.PRIORITY, cloud.getPriority());
+        cloudMap.put(EnvironmentBeanHelper.DPMT_ORDER, cloud.getDpmtOrder());
+        cloudMap.put(EnvironmentBeanHelper.PCT_SCALE, cloud.getPctScale());
+        batch.submit(
+            () -> transition.updatePlatformCloudScale(envName, platformName, cloudId, cloudMap));
+        // If cloud exists in yaml, remove the cloud name from the system clouds map after
+        // updating cloud.
+        sysClouds.remove(cloudId);
+      }
+    }
+    // For rest clouds not in yaml, set them as shutdown.
+    for (final String cloud : sysClouds.keySet()) {
+      final Map<String, String> cloudMap = new HashMap<String, String>();
+      cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS, Constants.OFFLINE);
+      batch.submit(
+          () -> transition.updatePlatformCloudScale(envName, platformName, cloud, cloudMap));
+    }
+  }
+
   /**
    * Pull design.
    *
@@ -897,6 +1134,7 @@ public abstract class AbstractWorkflow {
     } else {
       response = transition.commitEnvironment(envName, null, comments);
     }
+    this.invalidateEnvironmentSnapshot();
     return response == null ? false : true;
   }
 
@@ -917,6 +1155,7 @@ public abstract class AbstractWorkflow {
     } else {
       response = transition.deploy(envName, comments);
     }
+    inventory.clear();
     return response == null ? false : true;
   }
 
@@ -931,8 +1170,48 @@ public abstract class AbstractWorkflow {
    */
   public List<Map<String, String>> getIpsInternal(String platformName, String componentName)
       throws OneOpsClientAPIException {
-    JsonPath response = op.listInstances(platformName, componentName);
-    return response.getList("ciAttributes");
+    return inventory.get(platformName, componentName).getAttributes();
+  }
+
+  /**
+   * Gets the instances of a component, listed once per run.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the instance snapshot
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public InstanceSnapshot getInstances(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return inventory.get(platformName, componentName);
+  }
+
+  /**
+   * Stream the instances of a component with their address attributes, without keeping them.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param visitor the visitor
+   * @return the number of instances visited
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public int visitInstances(String platformName, String componentName, InstanceVisitor visitor)
+      throws OneOpsClientAPIException {
+    return op.visitInstances(platformName, componentName, ADDRESS_ATTRIBUTES, visitor);
+  }
+
+  /**
+   * Names of the given cis, in listing order.
+   *
+   * @param cis the cis
+   * @return the names
+   */
+  private static List<String> ciNames(List<? extends CmsCI> cis) {
+    List<String> names = new ArrayList<String>(cis.size());
+    for (CmsCI ci : cis) {
+      names.add(ci.getCiName());
+    }
+    return names;
   }
 
   /**
@@ -943,8 +1222,7 @@ public abstract class AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public String getCloudId(String cloudName) throws OneOpsClientAPIException {
-    JsonPath response = cloud.getCloud(cloudName);
-    return response.getString("ciId");
+    return cloud.getCloudId(cloudName);
   }
 
   /**
@@ -955,27 +1233,44 @@ public abstract class AbstractWorkflow {
   String getDeploymentId() {
     String id = null;
     try {
-      JsonPath latestDeployment = transition.getLatestDeployment(envName);
-      id = latestDeployment.getString(Constants.DEPLOYMENT_ID);
+      Deployment latestDeployment = transition.fetchLatestDeployment(envName);
+      id = latestDeployment == null ? null : String.valueOf(latestDeployment.getDeploymentId());
     } catch (OneOpsClientAPIException e) {
       // Ignore
     }
     return id;
   }
 
+  /**
+   * Gets the request governor, which holds the wait statistics of the rate limits.
+   *
+   * @return the request governor, or null if boo.rate_limits is not set
+   */
+  public RequestGovernor getGovernor() {
+    return instance.getGovernor();
+  }
+
   /**
    * Gets the status.
    *
    * @return the status
    */
   public String getStatus() {
-    String status = null;
+    Deployment deployment = this.getDeploymentStatus();
+    return deployment == null ? null : deployment.getDeploymentState();
+  }
+
+  /**
+   * Gets the status of the latest deployment.
+   *
+   * @return the deployment, or null if there is none
+   */
+  public Deployment getDeploymentStatus() {
     try {
-      JsonPath response = transition.getDeploymentStatus(envName, this.getDeploymentId());
-      status = response.getString(Constants.DEPLOYMENT_STATE);
+      return transition.fetchDeploymentStatus(envName, this.getDeploymentId());
     } catch (OneOpsClientAPIException e) {
       // Ignore
     }
-    return status;
+    return null;
   }
 }
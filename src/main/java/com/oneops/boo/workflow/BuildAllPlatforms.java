@@ -13,32 +13,40 @@
  */
 package com.oneops.boo.workflow;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
 import com.oneops.boo.BooCli;
 import com.oneops.boo.ClientConfig;
 import com.oneops.boo.LogUtils;
 import com.oneops.boo.utils.BooUtils;
+import com.oneops.boo.yaml.CloudBean;
 import com.oneops.boo.yaml.Constants;
 import com.oneops.boo.yaml.PlatformBean;
 import com.oneops.boo.yaml.ScaleBean;
+import com.oneops.boo.yaml.helper.EnvironmentBeanHelper;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
 import com.oneops.client.api.exception.OneOpsComponentExistException;
+import com.oneops.client.api.resource.Assembly;
+import com.oneops.client.api.resource.Cloud;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.Transition;
 import com.oneops.client.api.resource.model.RedundancyConfig;
+import com.oneops.client.api.resource.model.Release;
+import com.oneops.client.api.util.Watcher;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 
@@ -51,6 +59,9 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   // final private static String NAME = "ciName"; // Get component name.
   private static final String ACTIVE = "active";
 
+  /** The Constant OPEN. */
+  private static final String OPEN = "open";
+
   /** The Constant FAILED. */
   private static final String FAILED = "failed";
 
@@ -60,11 +71,21 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   /** The utils. */
   private final BooUtils utils = new BooUtils();
 
-  /** The retries. */
-  private int retries = 6;
+  /** The execution plan step ids. */
+  static final String ASSEMBLY_STEP = "assembly";
+  static final String PLATFORM_STEP = "platform:";
+  static final String COMPONENT_STEP = "component:";
+  static final String PRUNE_COMPONENTS_STEP = "prune-components:";
+  static final String VARIABLES_STEP = "variables:";
+  static final String DEPLOY_ORDER_STEP = "deploy-order:";
+  static final String CREATE_ENV_STEP = "create-env";
+  static final String CLOUD_SCALE_STEP = "cloud-scale:";
+  static final String UPDATE_ENV_STEP = "update-env:";
+  static final String PULL_DESIGN_STEP = "pull-design";
+
+  /** The attempts to start the deployment. */
+  static final int DEPLOY_ATTEMPTS = 6;
 
-  //
-  private int numOfThreads = 32;
 
   /**
    * Instantiates a new builds the all platforms.
@@ -79,6 +100,14 @@ public class BuildAllPlatforms extends AbstractWorkflow {
     super(instance, config, comment);
   }
 
+  /**
+   * Gets the max number of plan steps run at the same time.
+   *
+   * @return the parallelism
+   */
+  public int getParallelism() {
+    return config.getYaml().getBoo().getParallelism();
+  }
 
   /**
    * Process.
@@ -96,30 +125,13 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       }
     }
     this.bar.update(1, 100);
-    this.createAssemblyIfNotExist();
-    this.bar.update(5, 100);
-    this.createPlatforms(isUpdate);
-    this.bar.update(15, 100);
-    if (isUpdate) {
-      this.updatePlatformComponents();
-    }
-    this.updatePlatformVariables(isUpdate);
-    this.bar.update(20, 100);
-    this.createEnv();
-    this.bar.update(30, 100);
-    if (isUpdate) {
-      this.updatePlatformCloudScale();
-    }
-    this.updateEnv();
-    this.bar.update(40, 100);
-    utils.waitTimeout(1);
-    if (isUpdate) {
-      try {
-        this.pullDesign();
-      } catch (Exception e) {
-        // Ignore
-        // e.printStackTrace();
-      }
+    ExecutionPlan plan = this.createExecutionPlan(isUpdate);
+    plan.setListener(
+        (id, completed, total) -> this.bar.update(1 + completed * 49 / total, 100));
+    try {
+      plan.execute(this.getParallelism());
+    } finally {
+      this.getWorkers().close();
     }
     this.bar.update(50, 100);
     String status = this.getStatus();
@@ -134,9 +146,6 @@ public class BuildAllPlatforms extends AbstractWorkflow {
     }
     this.updateScaling();
     this.bar.update(70, 100);
-    // Added retries
-    boolean retry = true;
-    String deployError = null;
     this.relayEnableDelivery(config.getYaml().getBoo().isEnable());
     if (isUpdate) {
       this.commitEnv();
@@ -147,18 +156,9 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       return true;
     }
     LogUtils.info(Constants.START_DEPLOYMENT);
-    while (retry && retries > 0) {
-      utils.waitTimeout(2);
-      try {
-        this.deploy(isUpdate);
-        retry = false;
-      } catch (Exception e) {
-        deployError = e.getMessage();
-        retries--;
-      }
-    }
+    String deployError = this.deployWithRetries(isUpdate, new Watcher(1000, 8000, 0));
     this.bar.update(100, 100);
-    if (!retry) { // If no error for deployment.
+    if (deployError == null) { // If no error for deployment.
       LogUtils.info(Constants.DEPLOYMENT_RUNNING);
     } else {
       if (deployError.contains(Constants.NO_DEPLOYMENT)) {
@@ -173,6 +173,324 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   }
 
 
+  /**
+   * Reports what {@link #process(boolean, boolean)} would add, update and delete, and estimates
+   * the number of OneOps API calls it would make. Only reads are issued.
+   *
+   * @param isUpdate the is update
+   * @return the plan report
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  public PlanReport plan(boolean isUpdate) throws OneOpsClientAPIException {
+    PlanReport report = new PlanReport(assemblyName, envName);
+    int readsBefore = diff.getReadCount();
+    int reads = Assembly.GET_ASSEMBLY_CALLS;
+    boolean isAssemblyExist = this.isAssemblyExist();
+    // The existence checks of process() and of the assembly step.
+    report.addOverhead(2 * Assembly.GET_ASSEMBLY_CALLS);
+    if (!isAssemblyExist) {
+      report.add(new Change(Change.Action.ADD, Change.Kind.ASSEMBLY, null, null, assemblyName,
+          null, false));
+    }
+
+    List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
+    Set<Integer> deployOrders = new HashSet<Integer>();
+    for (PlatformBean platform : platforms) {
+      deployOrders.add(platform.getDeployOrder());
+      // The platform existence check, the component and variable listings.
+      report.addOverhead(Design.GET_PLATFORM_CALLS + Design.LIST_PLATFORM_COMPONENTS_CALLS
+          + Design.LIST_PLATFORM_VARIABLES_CALLS);
+      boolean isPlatformExist = false;
+      if (isAssemblyExist) {
+        reads += Design.GET_PLATFORM_CALLS;
+        isPlatformExist = this.platformExist(platform.getName());
+      }
+      if (platform.getComponents() != null) {
+        for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+          if (entry.getValue() instanceof Map) {
+            Map<String, Object> component = (Map<String, Object>) entry.getValue();
+            if (component.get(Constants.ATTACHMENTS) != null) {
+              // The attachment listing.
+              report.addOverhead(Design.LIST_PLATFORM_COMPONENT_ATTACHMENTS_CALLS);
+            }
+            if (isPlatformExist) {
+              report.addAll(diff.diffComponent(platform.getName(), entry.getKey(), component));
+              report.addAll(diff.diffAttachments(platform.getName(), entry.getKey(), component));
+            }
+          }
+        }
+      }
+      if (!isPlatformExist) {
+        report.addAll(diff.diffNewPlatform(platform));
+        continue;
+      }
+      report.addAll(diff.diffVariables(platform));
+      if (isUpdate) {
+        report.addAll(diff.diffRemovedComponents(platform));
+      }
+    }
+    // Each deploy order is committed and then polled until the release is closed.
+    report.addOverhead(
+        deployOrders.size() * (Design.COMMIT_DESIGN_CALLS + Design.FETCH_LATEST_RELEASE_CALLS));
+
+    JsonPath env = null;
+    if (isAssemblyExist) {
+      reads += Transition.GET_ENVIRONMENT_CALLS;
+      try {
+        env = transition.getEnvironment(envName);
+      } catch (OneOpsClientAPIException e) {
+        // Not created yet.
+      }
+    }
+    // The environment existence check.
+    report.addOverhead(Transition.GET_ENVIRONMENT_CALLS);
+    List<CloudBean> clouds = config.getYaml().getEnvironmentBean().getClouds();
+    if (env == null) {
+      report.add(new Change(Change.Action.ADD, Change.Kind.ENVIRONMENT, null, null, envName,
+          config.getYaml().getEnvironmentBean().getOthers(), false));
+      for (CloudBean cloud : clouds) {
+        report.add(new Change(Change.Action.ADD, Change.Kind.CLOUD, null, null,
+            cloud.getCloudName(), null, false));
+      }
+    } else if (isUpdate) {
+      // The cloud id lookups, cached once done.
+      report.addOverhead(clouds.size() * Cloud.GET_CLOUD_ID_CALLS);
+      Map<String, String> cloudIds = new LinkedHashMap<String, String>();
+      for (CloudBean cloud : clouds) {
+        reads += Cloud.GET_CLOUD_ID_CALLS;
+        cloudIds.put(this.getCloudId(cloud.getCloudName()), cloud.getCloudName());
+      }
+      for (PlatformBean platform : platforms) {
+        Map<String, Object> sysClouds = env.getMap(Constants.CLOUDS);
+        if (sysClouds == null) {
+          continue;
+        }
+        for (String cloudId : sysClouds.keySet()) {
+          Map<String, String> cloudMap = new HashMap<String, String>();
+          String cloudName = cloudIds.get(cloudId);
+          cloudMap.put(EnvironmentBeanHelper.ADMINSTATUS,
+              cloudName == null ? Constants.OFFLINE : Constants.ACTIVE);
+          report.add(new Change(Change.Action.UPDATE, Change.Kind.CLOUD, platform.getName(), null,
+              cloudName == null ? cloudId : cloudName, cloudMap, false));
+        }
+      }
+    }
+
+    if (isUpdate) {
+      // The environment and the platforms, read once by the cloud scale steps.
+      report.addOverhead(Transition.GET_ENVIRONMENT_CALLS + Design.FETCH_PLATFORMS_CALLS);
+    }
+
+    List<PlatformBean> envPlatforms = config.getYaml().getEnvironmentBean().getPlatformsList();
+    if (envPlatforms != null) {
+      for (PlatformBean platform : envPlatforms) {
+        // The environment component listing.
+        report.addOverhead(Transition.LIST_PLATFORM_COMPONENTS_CALLS);
+        ChangeSet envChanges = null;
+        if (env != null) {
+          try {
+            envChanges = diff.diffEnvironment(platform);
+          } catch (OneOpsClientAPIException e) {
+            // The platform is not in the environment yet.
+          }
+        }
+        report.addAll(envChanges == null ? diff.diffNewEnvironment(platform) : envChanges);
+      }
+    }
+
+    // The deployment status and the relay.
+    report.addOverhead(Transition.FETCH_LATEST_DEPLOYMENT_CALLS
+        + Transition.FETCH_DEPLOYMENT_STATUS_CALLS + Transition.UPDATE_RELAY_CALLS);
+    List<ScaleBean> scales = this.config.getYaml().getScales();
+    if (scales != null) {
+      // The scaling of each platform, then its commit.
+      report.addOverhead(scales.size() * Transition.UPDATE_PLATFORM_REDUNDANCY_CONFIG_CALLS
+          + Transition.COMMIT_ENVIRONMENT_CALLS);
+    }
+    if (isUpdate) {
+      // The environment commit, then the wait for the environment to unlock and the design pull.
+      report.addOverhead(Transition.COMMIT_ENVIRONMENT_CALLS + Transition.GET_ENVIRONMENT_CALLS
+          + Transition.PULL_DESIGN_CALLS);
+    }
+    if (!BooCli.isNoDeploy()) {
+      report.addOverhead(Transition.DEPLOY_CALLS);
+    }
+    report.addPlanReads(reads + diff.getReadCount() - readsBefore);
+    return report;
+  }
+
+  /**
+   * Creates the execution plan of the design and environment changes described by the yaml. Each
+   * platform, component, variable set and environment change is a step; steps only wait on what
+   * they really depend on (platform before its components and variables, design commit before the
+   * environment, environment before the design pull) so independent platforms are set up
+   * concurrently. Platforms are grouped in waves by deploy order: a wave is committed as a whole
+   * and the next wave starts once that commit is done.
+   *
+   * @param isUpdate the is update
+   * @return the execution plan
+   */
+  @SuppressWarnings("unchecked")
+  public ExecutionPlan createExecutionPlan(final boolean isUpdate) {
+    ExecutionPlan plan = new ExecutionPlan();
+    plan.add(ASSEMBLY_STEP, () -> this.createAssemblyIfNotExist());
+
+    List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
+    Collections.sort(platforms);
+    Map<Integer, List<PlatformBean>> waves = new TreeMap<Integer, List<PlatformBean>>();
+    for (PlatformBean platform : platforms) {
+      List<PlatformBean> wave = waves.get(platform.getDeployOrder());
+      if (wave == null) {
+        wave = new ArrayList<PlatformBean>();
+        waves.put(platform.getDeployOrder(), wave);
+      }
+      wave.add(platform);
+    }
+    String previousWave = ASSEMBLY_STEP;
+    for (Map.Entry<Integer, List<PlatformBean>> wave : waves.entrySet()) {
+      List<String> designSteps = new ArrayList<String>();
+      this.addDesignSteps(plan, wave.getValue(), previousWave, designSteps, isUpdate);
+      final int deployOrder = wave.getKey();
+      String waveStep = DEPLOY_ORDER_STEP + deployOrder;
+      plan.add(waveStep, () -> this.commitDeployOrder(deployOrder), designSteps);
+      previousWave = waveStep;
+    }
+
+    plan.add(CREATE_ENV_STEP, () -> this.createEnv(), previousWave);
+
+    List<String> envSteps = new ArrayList<String>();
+    envSteps.add(CREATE_ENV_STEP);
+    if (isUpdate) {
+      for (final PlatformBean platform : platforms) {
+        String cloudStep = CLOUD_SCALE_STEP + platform.getName();
+        plan.add(cloudStep, () -> this.updatePlatformCloudScale(platform), CREATE_ENV_STEP);
+        envSteps.add(cloudStep);
+      }
+    }
+    List<PlatformBean> envPlatforms = config.getYaml().getEnvironmentBean().getPlatformsList();
+    if (envPlatforms != null) {
+      for (final PlatformBean platform : envPlatforms) {
+        String cloudStep = CLOUD_SCALE_STEP + platform.getName();
+        String envStep = UPDATE_ENV_STEP + platform.getName();
+        plan.add(envStep, () -> this.updateEnv(platform),
+            plan.contains(cloudStep) ? cloudStep : CREATE_ENV_STEP);
+        envSteps.add(envStep);
+      }
+    }
+    if (isUpdate) {
+      plan.add(PULL_DESIGN_STEP, () -> {
+        try {
+          this.awaitEnvironmentUnlocked();
+          this.pullDesign();
+        } catch (Exception e) {
+          // Ignore
+        }
+      }, envSteps);
+    }
+    return plan;
+  }
+
+  /**
+   * Adds the design steps of the platforms of one deploy order: every platform, its components and
+   * its variables.
+   *
+   * @param plan the plan
+   * @param platforms the platforms sharing a deploy order
+   * @param previousWave the step the platforms wait for
+   * @param designSteps collects the ids of the added steps
+   * @param isUpdate the is update
+   */
+  @SuppressWarnings("unchecked")
+  private void addDesignSteps(ExecutionPlan plan, List<PlatformBean> platforms,
+      String previousWave, List<String> designSteps, final boolean isUpdate) {
+    for (final PlatformBean platform : platforms) {
+      final String platformName = platform.getName();
+      String platformStep = PLATFORM_STEP + platformName;
+      plan.add(platformStep, () -> {
+        LogUtils.info(Constants.CREATING_PLATFORM, platformName);
+        this.createPlatform(platform, false);
+      }, previousWave);
+
+      List<String> componentSteps = new ArrayList<String>();
+      componentSteps.add(platformStep);
+      if (platform.getComponents() != null) {
+        for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+          final String componentName = entry.getKey();
+          Object value = entry.getValue();
+          if (value instanceof Map) {
+            final Map<String, Object> components = (Map<String, Object>) value;
+            String componentStep = COMPONENT_STEP + platformName + "/" + componentName;
+            plan.add(componentStep, () -> {
+              this.handleAttachments(components, platformName, componentName);
+              this.updateComponentVariables(platformName, componentName, components);
+            }, platformStep);
+            componentSteps.add(componentStep);
+          } else {
+            if (LOG.isInfoEnabled()) {
+              LOG.info("Unknow type {}.", value.getClass());
+            }
+          }
+        }
+      }
+      designSteps.addAll(componentSteps);
+      if (isUpdate) {
+        String pruneStep = PRUNE_COMPONENTS_STEP + platformName;
+        plan.add(pruneStep, () -> this.updatePlatformComponents(platform), componentSteps);
+        designSteps.add(pruneStep);
+      }
+      String variablesStep = VARIABLES_STEP + platformName;
+      plan.add(variablesStep, () -> this.updatePlatformVariables(platform, isUpdate),
+          platformStep);
+      designSteps.add(variablesStep);
+    }
+  }
+
+  /**
+   * Starts the deployment, retrying with backoff. Right after the environment is committed the bom
+   * release often has no release id yet, and a failed deployment POST is not idempotent, so the
+   * client's retry policy resends neither.
+   *
+   * @param isUpdate whether the environment is updated
+   * @param backoff paces the attempts
+   * @return the error of the last attempt, or null once the deployment started
+   */
+  String deployWithRetries(boolean isUpdate, Watcher backoff) {
+    String deployError = null;
+    for (int attempt = 1; attempt <= DEPLOY_ATTEMPTS; attempt++) {
+      if (attempt > 1) {
+        backoff.pause();
+      }
+      try {
+        this.deploy(isUpdate);
+        return null;
+      } catch (Exception e) {
+        deployError = String.valueOf(e.getMessage());
+      }
+    }
+    return deployError;
+  }
+
+  /**
+   * Commits the design of one deploy order and waits until the release is closed, so that the
+   * next deploy order starts from a committed design.
+   *
+   * @param deployOrder the deploy order
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private void commitDeployOrder(int deployOrder) throws OneOpsClientAPIException {
+    design.commitDesign();
+    this.invalidateEnvironmentSnapshot();
+    Release release = new Watcher(100, 5000, TimeUnit.MINUTES.toMillis(2))
+        .until(design::fetchLatestRelease,
+            latest -> latest == null || !OPEN.equals(latest.getReleaseState()));
+    if (release != null && OPEN.equals(release.getReleaseState())) {
+      LogUtils.info(Constants.DESIGN_COMMIT_PENDING);
+      return;
+    }
+    LogUtils.info(Constants.DEPLOY_ORDER_COMMITTED, deployOrder);
+  }
+
   /**
    * Relay enable delivery.
    *
@@ -265,29 +583,23 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   }
 
   /**
-   * Handle attachments intl.
+   * Add or update the attachments which differ from the yaml.
    *
    * @param components the components
    * @param platformName the platform name
    * @param componentName the component name
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings("unchecked")
   private void handleAttachmentsIntl(Map<String, Object> components, String platformName,
       String componentName) throws OneOpsClientAPIException {
-    if (components.get(Constants.ATTACHMENTS) != null) {
-      Map<String, Object> attachments = (Map<String, Object>) components.get(Constants.ATTACHMENTS);
-      for (Map.Entry<String, Object> entry : attachments.entrySet()) {
-        String attachment = entry.getKey();
-        Map<String, String> attributes = (Map<String, String>) entry.getValue();
-        if (this.isAttachmentExists(platformName, componentName, attachment)) {
-          this.updateAttachment(platformName, componentName, attachment, attributes);
-        } else {
-          this.addAttachment(platformName, componentName, attachment, attributes);
-        }
+    for (Change change : diff.diffAttachments(platformName, componentName, components)) {
+      if (change.getAction() == Change.Action.UPDATE) {
+        this.updateAttachment(platformName, componentName, change.getName(),
+            change.getAttributes());
+      } else {
+        this.addAttachment(platformName, componentName, change.getName(), change.getAttributes());
       }
     }
-
   }
 
   /**
@@ -298,6 +610,19 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   public boolean createPlatform(PlatformBean platform) throws OneOpsClientAPIException {
+    return this.createPlatform(platform, true);
+  }
+
+  /**
+   * Creates the platform.
+   *
+   * @param platform the platform
+   * @param commit whether to commit the design right after creating the platform
+   * @return true, if successful
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public boolean createPlatform(PlatformBean platform, boolean commit)
+      throws OneOpsClientAPIException {
     boolean isExist = false;
     try {
       isExist = this.isPlatformExist(platform.getName());
@@ -308,8 +633,9 @@ public class BuildAllPlatforms extends AbstractWorkflow {
       JsonPath response =
           design.createPlatform(platform.getName(), platform.getPack(), platform.getPackVersion(),
               platform.getPackSource(), Constants.DESCRIPTION, Constants.DESCRIPTION);
-      if (response != null) {
+      if (response != null && commit) {
         design.commitDesign();
+        this.invalidateEnvironmentSnapshot();
       }
       LogUtils.info(Constants.CREATING_PLATFORM_SUCCEED, platform.getName());
     } else {
@@ -352,118 +678,56 @@ public class BuildAllPlatforms extends AbstractWorkflow {
   public boolean updatePlatformVariables(boolean isUpdate) throws OneOpsClientAPIException {
     List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
     for (PlatformBean platform : platforms) {
-      Map<String, String> secureVariables = platform.getSecureVariables();
-      Set<String> yamlVarSet = new HashSet<String>();
-      if (secureVariables != null && secureVariables.size() > 0) {
-        this.updateOrAddPlatformVariables(platform.getName(), secureVariables, true, isUpdate);
-        // collect all variables (secvar or var) in yaml
-        for (Map.Entry<String, String> entry : secureVariables.entrySet()) {
-          yamlVarSet.add(entry.getKey());
-        }
-      }
-      Map<String, String> variables = platform.getVariables();
-      if (variables != null && variables.size() > 0) {
-        this.updateOrAddPlatformVariables(platform.getName(), variables, false, isUpdate);
-        // collect all variables (secvar or var) in yaml
-        for (Map.Entry<String, String> entry : variables.entrySet()) {
-          yamlVarSet.add(entry.getKey());
-        }
-      }
-
-      JsonPath response = design.listPlatformVariables(platform.getName());
-      List<String> servVarList = response.getList(Constants.CINAME);
-      for (String servVar : servVarList) {
-        if (!yamlVarSet.contains(servVar)) {
-          design.deletePlatformVariable(platform.getName(), servVar);
-        }
-      }
+      this.updatePlatformVariables(platform, isUpdate);
     }
     if (platforms.size() > 0) {
       design.commitDesign();
+      this.invalidateEnvironmentSnapshot();
     }
     return true;
   }
 
-
   /**
-   * Update or add platform variables.
+   * Add or update the variables of one platform which differ from the yaml, and remove the ones no
+   * longer in the yaml, in a single pass over the current variables.
    *
-   * @param platformName the platform name
-   * @param variables the variables
-   * @param isSecure the is secure
+   * @param platform the platform
    * @param isUpdate the is update
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings("serial")
-  private void updateOrAddPlatformVariables(String platformName, Map<String, String> variables,
-      boolean isSecure, boolean isUpdate) throws OneOpsClientAPIException {
-    if (variables == null || variables.size() == 0) {
-      return;
-    }
-    for (final Map.Entry<String, String> entry : variables.entrySet()) {
-      this.updateOrAddPlatformVariablesIntl(platformName, new HashMap<String, String>() {
-        {
-          put(entry.getKey(), entry.getValue());
-        }
-      }, isSecure, isUpdate);
+  public void updatePlatformVariables(PlatformBean platform, boolean isUpdate)
+      throws OneOpsClientAPIException {
+    int writes = design.upsertPlatformVariables(platform.getName(), platform.getVariables(),
+        platform.getSecureVariables(), true, this.getParallelism());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Wrote {} variables of platform {}", writes, platform.getName());
     }
   }
 
   /**
-   * Have to add isExist method later.
-   *
-   * @param platformName Platform name.
-   * @param variables A map of variables.
-   * @param isSecure Is secure variable.
-   * @param isUpdate the is update
-   * @throws OneOpsClientAPIException when update failed.
-   */
-  private void updateOrAddPlatformVariablesIntl(String platformName, Map<String, String> variables,
-      boolean isSecure, boolean isUpdate) throws OneOpsClientAPIException {
-    design.updateOrAddPlatformVariables(platformName, variables, isSecure);
-  }
-
-  /**
-   * Right now support components with two layers config.
+   * Right now support components with two layers config. Only components which differ from the
+   * yaml are written.
    *
    * @param platformName Platform name.
    * @param componentName Component name.
    * @param attributes Component variables.
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings({"unchecked", "rawtypes"})
   private void updateComponentVariables(String platformName, String componentName,
       Map<String, Object> attributes) throws OneOpsClientAPIException {
-    // Create thread pool to add users parallel
-    ExecutorService executor = Executors.newFixedThreadPool(numOfThreads);
-
-    for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-      String key = entry.getKey();
-      Object value = entry.getValue();
-      // Another Map, so key is ciName
-      if (value instanceof Map) {
-        Map<String, String> attris = (Map<String, String>) value;
-        if (attris.containsKey(Constants.AUTHO_KEYS)) {
-          Runnable worker = new UpdateComponentTask(this, platformName, componentName, key, attris);
-          executor.execute(worker);
-        } else {
-          this.updateComponentVariablesInternal(platformName, componentName, key, attris);
-        }
-      } else if (value instanceof String) {
-        Map<String, String> att = (Map) attributes;
-        if (att.containsKey(Constants.AUTHO_KEYS)) {
-          Runnable worker = new UpdateComponentTask(this, platformName, componentName, key, att);
-          executor.execute(worker);
-        } else {
-          this.updateComponentVariablesInternal(platformName, componentName, componentName, att);
-        }
-        break;
+    // Add users in parallel on the shared workers
+    WorkerPool.Batch batch = this.getWorkers().batch();
+    for (Change change : diff.diffComponent(platformName, componentName, attributes)) {
+      Map<String, String> attris = change.getAttributes();
+      if (attris.containsKey(Constants.AUTHO_KEYS)) {
+        batch.submit(new UpdateComponentTask(this, platformName, componentName, change.getName(),
+            attris, change.getAction() == Change.Action.UPDATE));
+      } else {
+        this.updateComponentVariablesInternal(platformName, componentName, change.getName(),
+            attris, change.getAction() == Change.Action.UPDATE);
       }
     }
-    executor.shutdown();
-    while (!executor.isTerminated()) {
-      Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
-    }
+    batch.await();
   }
 
   /**
@@ -473,19 +737,14 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    * @param componentName the component name
    * @param uniqueName the unique name
    * @param attributes the attributes
+   * @param isExist whether the component already exists
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
   private boolean updateComponentVariablesInternal(String platformName, String componentName,
-      String uniqueName, Map<String, String> attributes) throws OneOpsClientAPIException {
+      String uniqueName, Map<String, String> attributes, boolean isExist)
+      throws OneOpsClientAPIException {
     LogUtils.info(Constants.UPDATE_COMPONENTS, componentName, platformName);
-    boolean isExist = Boolean.FALSE;
-    try {
-      isExist = this.isComponentExist(platformName, uniqueName);
-    } catch (OneOpsComponentExistException e1) {
-      // Ignore
-      isExist = Boolean.FALSE;
-    }
     if (isExist) {
       design.updatePlatformComponent(platformName, uniqueName, attributes);
     } else {
@@ -553,6 +812,7 @@ public class BuildAllPlatforms extends AbstractWorkflow {
     } else {
       transition.commitEnvironment(envName, null, comments);
     }
+    this.invalidateEnvironmentSnapshot();
     return true;
   }
 
@@ -562,33 +822,24 @@ public class BuildAllPlatforms extends AbstractWorkflow {
    * @return true, if successful
    * @throws OneOpsClientAPIException the one ops client API exception
    */
-  @SuppressWarnings("unchecked")
   public boolean updatePlatformComponents() throws OneOpsClientAPIException {
     List<PlatformBean> platforms = this.config.getYaml().getPlatformsList();
     for (PlatformBean platform : platforms) {
-      Map<String, Object> yamlComponents = platform.getComponents();
-      if (yamlComponents == null) {
-        continue;
-      }
-      Set<String> yamlCompSet = new HashSet<String>();
-      for (Map.Entry<String, Object> entry : yamlComponents.entrySet()) {
-        yamlCompSet.add(entry.getKey());
-        Object value = entry.getValue();
-        if (value instanceof Map) {
-          Map<String, Object> target = (Map<String, Object>) value;
-          yamlCompSet.addAll(target.keySet());
-        }
-      }
-      JsonPath response = design.listPlatformComponents(platform.getName());
-      List<String> servCompList = response.getList(Constants.CINAME);
-      for (String servComp : servCompList) {
-        if (this.isUserCustomizedComponent(platform.getName(), servComp)
-            && !yamlCompSet.contains(servComp)) {
-          design.deletePlatformComponent(platform.getName(), servComp);
-        }
-      }
+      this.updatePlatformComponents(platform);
     }
     return true;
   }
 
+  /**
+   * Remove the user customized components of one platform which are no longer in the yaml.
+   *
+   * @param platform the platform
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public void updatePlatformComponents(PlatformBean platform) throws OneOpsClientAPIException {
+    for (Change change : diff.diffRemovedComponents(platform)) {
+      design.deletePlatformComponent(platform.getName(), change.getName());
+    }
+  }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A single write needed to bring OneOps to the state described by the yaml.
+ */
+public class Change {
+
+  /**
+   * What happens to the object.
+   */
+  public enum Action {
+    ADD, UPDATE, DELETE
+  }
+
+  /**
+   * The kind of object changed.
+   */
+  public enum Kind {
+    ASSEMBLY, PLATFORM, COMPONENT, ATTACHMENT, VARIABLE, ENVIRONMENT, ENV_COMPONENT, CLOUD
+  }
+
+  /** The action. */
+  private final Action action;
+
+  /** The kind. */
+  private final Kind kind;
+
+  /** The platform name. */
+  private final String platform;
+
+  /** The component (template) name, for components and attachments. */
+  private final String component;
+
+  /** The name of the changed object. */
+  private final String name;
+
+  /** The desired attributes. */
+  private final Map<String, String> attributes;
+
+  /** Whether the object is a secure variable. */
+  private final boolean secure;
+
+  /**
+   * Instantiates a new change.
+   *
+   * @param action the action
+   * @param kind the kind
+   * @param platform the platform name, may be null for assembly and environment changes
+   * @param component the component name, may be null
+   * @param name the name of the changed object
+   * @param attributes the desired attributes, may be null
+   * @param secure whether the object is a secure variable
+   */
+  public Change(Action action, Kind kind, String platform, String component, String name,
+      Map<String, String> attributes, boolean secure) {
+    this.action = action;
+    this.kind = kind;
+    this.platform = platform;
+    this.component = component;
+    this.name = name;
+    this.attributes = attributes == null ? Collections.<String, String>emptyMap() : attributes;
+    this.secure = secure;
+  }
+
+  public Action getAction() {
+    return action;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public String getPlatform() {
+    return platform;
+  }
+
+  public String getComponent() {
+    return component;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Map<String, String> getAttributes() {
+    return attributes;
+  }
+
+  public boolean isSecure() {
+    return secure;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder();
+    str.append(action).append(' ').append(kind);
+    if (platform != null) {
+      str.append(' ').append(platform);
+      if (component != null && !component.equals(name)) {
+        str.append('/').append(component);
+      }
+    }
+    if (name != null && !name.equals(platform)) {
+      str.append(platform == null ? ' ' : '/').append(name);
+    }
+    return str.toString();
+  }
+}
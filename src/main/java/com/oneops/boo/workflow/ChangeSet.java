@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The changes found by {@link DesiredStateDiff}, plus the number of objects already up to date.
+ */
+public class ChangeSet implements Iterable<Change> {
+
+  /** The changes. */
+  private final List<Change> changes = new ArrayList<Change>();
+
+  /** The number of unchanged objects. */
+  private int unchanged;
+
+  /**
+   * Adds a change.
+   *
+   * @param change the change
+   */
+  public void add(Change change) {
+    changes.add(change);
+  }
+
+  /**
+   * Adds all the changes and unchanged objects of another change set.
+   *
+   * @param other the other change set
+   */
+  public void addAll(ChangeSet other) {
+    changes.addAll(other.changes);
+    unchanged += other.unchanged;
+  }
+
+  /**
+   * Records an object already up to date.
+   */
+  public void addUnchanged() {
+    unchanged++;
+  }
+
+  /**
+   * Gets the changes.
+   *
+   * @return the changes
+   */
+  public List<Change> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  /**
+   * Gets the changes of a kind.
+   *
+   * @param kind the kind
+   * @return the changes
+   */
+  public List<Change> getChanges(Change.Kind kind) {
+    List<Change> result = new ArrayList<Change>();
+    for (Change change : changes) {
+      if (change.getKind() == kind) {
+        result.add(change);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of unchanged objects.
+   *
+   * @return the unchanged count
+   */
+  public int getUnchanged() {
+    return unchanged;
+  }
+
+  /**
+   * Checks if there is nothing to change.
+   *
+   * @return true, if empty
+   */
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  /**
+   * Gets the number of changes.
+   *
+   * @return the number of changes
+   */
+  public int size() {
+    return changes.size();
+  }
+
+  @Override
+  public Iterator<Change> iterator() {
+    return getChanges().iterator();
+  }
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.PlatformVariables;
+import com.oneops.client.api.resource.Transition;
+import com.oneops.client.api.resource.model.CmsCI;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the yaml with what is currently in OneOps and reports the minimal set of writes. Each
+ * platform's design components are listed once per run and shared by all the component diffs of
+ * that platform; variables, attachments and environment components are listed once per diff
+ * instead of being fetched one by one.
+ */
+public class DesiredStateDiff {
+
+  /** The Constant VALUE. */
+  static final String VALUE = "value";
+
+  /** The Constant DESIGN_OWNER. */
+  private static final String DESIGN_OWNER = "design";
+
+  /** The Constant ROOT. */
+  private static final String ROOT = "$";
+
+  /** The design. */
+  private final Design design;
+
+  /** The transition. */
+  private final Transition transition;
+
+  /** The env name. */
+  private final String envName;
+
+  /** The design components by platform, then by ciName. */
+  private final Map<String, Map<String, Map<String, Object>>> designComponents =
+      new ConcurrentHashMap<String, Map<String, Map<String, Object>>>();
+
+  /** The number of OneOps reads issued by the diff. */
+  private final AtomicInteger reads = new AtomicInteger();
+
+  /**
+   * Instantiates a new desired state diff.
+   *
+   * @param design the design
+   * @param transition the transition
+   * @param envName the env name
+   */
+  public DesiredStateDiff(Design design, Transition transition, String envName) {
+    this.design = design;
+    this.transition = transition;
+    this.envName = envName;
+  }
+
+  /**
+   * Gets the design components of a platform, indexed by ciName. Listed once and then cached.
+   *
+   * @param platformName the platform name
+   * @return the design components
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public Map<String, Map<String, Object>> getDesignComponents(String platformName)
+      throws OneOpsClientAPIException {
+    Map<String, Map<String, Object>> components = designComponents.get(platformName);
+    if (components == null) {
+      reads.addAndGet(Design.LIST_PLATFORM_COMPONENTS_CALLS);
+      components = index(design.listPlatformComponents(platformName));
+      designComponents.put(platformName, components);
+    }
+    return components;
+  }
+
+  /**
+   * Forget the cached design components of a platform.
+   *
+   * @param platformName the platform name
+   */
+  public void invalidate(String platformName) {
+    designComponents.remove(platformName);
+  }
+
+  /**
+   * Gets the number of OneOps reads issued so far.
+   *
+   * @return the read count
+   */
+  public int getReadCount() {
+    return reads.get();
+  }
+
+  /**
+   * Diff the components described by one yaml component entry.
+   *
+   * @param platformName the platform name
+   * @param componentName the component (template) name
+   * @param component the yaml component entry
+   * @return the component changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public ChangeSet diffComponent(String platformName, String componentName,
+      Map<String, Object> component) throws OneOpsClientAPIException {
+    ChangeSet changes = new ChangeSet();
+    Map<String, Map<String, Object>> current = this.getDesignComponents(platformName);
+    for (Map.Entry<String, Map<String, String>> entry : componentWrites(componentName, component)
+        .entrySet()) {
+      Map<String, Object> ci = current.get(entry.getKey());
+      if (ci == null) {
+        changes.add(new Change(Change.Action.ADD, Change.Kind.COMPONENT, platformName,
+            componentName, entry.getKey(), entry.getValue(), false));
+      } else if (!matches(entry.getValue(), attributes(ci), owner(ci))) {
+        changes.add(new Change(Change.Action.UPDATE, Change.Kind.COMPONENT, platformName,
+            componentName, entry.getKey(), entry.getValue(), false));
+      } else {
+        changes.addUnchanged();
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Find the user customized design components of a platform that are no longer in the yaml.
+   *
+   * @param platform the platform
+   * @return the component deletions
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  public ChangeSet diffRemovedComponents(PlatformBean platform) throws OneOpsClientAPIException {
+    ChangeSet changes = new ChangeSet();
+    Map<String, Object> yamlComponents = platform.getComponents();
+    if (yamlComponents == null) {
+      return changes;
+    }
+    Set<String> yamlCompSet = new HashSet<String>();
+    for (Map.Entry<String, Object> entry : yamlComponents.entrySet()) {
+      yamlCompSet.add(entry.getKey());
+      Object value = entry.getValue();
+      if (value instanceof Map) {
+        yamlCompSet.addAll(((Map<String, Object>) value).keySet());
+      }
+    }
+    for (Map.Entry<String, Map<String, Object>> entry : this
+        .getDesignComponents(platform.getName()).entrySet()) {
+      String name = entry.getKey();
+      if (!yamlCompSet.contains(name) && isUserCustomized(platform.getName(), entry.getValue())) {
+        changes.add(new Change(Change.Action.DELETE, Change.Kind.COMPONENT, platform.getName(),
+            name, name, null, false));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Checks whether a design component has user customized attributes.
+   *
+   * @param platformName the platform name
+   * @param ci the component as listed
+   * @return true, if customized
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private boolean isUserCustomized(String platformName, Map<String, Object> ci)
+      throws OneOpsClientAPIException {
+    Map<String, Object> owner = owner(ci);
+    if (owner == null) {
+      reads.addAndGet(Design.GET_PLATFORM_COMPONENT_CALLS);
+      CmsCI details =
+          design.fetchPlatformComponent(platformName, String.valueOf(ci.get(Constants.CINAME)));
+      return details != null && !details.getAttrOwners().isEmpty();
+    }
+    return !owner.isEmpty();
+  }
+
+  /**
+   * Diff the attachments of one yaml component entry.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @param component the yaml component entry
+   * @return the attachment changes
+   */
+  @SuppressWarnings("unchecked")
+  public ChangeSet diffAttachments(String platformName, String componentName,
+      Map<String, Object> component) {
+    ChangeSet changes = new ChangeSet();
+    Object value = component.get(Constants.ATTACHMENTS);
+    if (!(value instanceof Map)) {
+      return changes;
+    }
+    Map<String, Map<String, Object>> current;
+    try {
+      reads.addAndGet(Design.LIST_PLATFORM_COMPONENT_ATTACHMENTS_CALLS);
+      current = index(design.listPlatformComponentAttachments(platformName, componentName));
+    } catch (OneOpsClientAPIException e) {
+      // The component does not exist yet, so neither do its attachments.
+      current = Collections.emptyMap();
+    }
+    for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+      Map<String, String> attributes = (Map<String, String>) entry.getValue();
+      Map<String, Object> ci = current.get(entry.getKey());
+      if (ci == null) {
+        changes.add(new Change(Change.Action.ADD, Change.Kind.ATTACHMENT, platformName,
+            componentName, entry.getKey(), attributes, false));
+      } else if (!matches(attributes, attributes(ci), null)) {
+        changes.add(new Change(Change.Action.UPDATE, Change.Kind.ATTACHMENT, platformName,
+            componentName, entry.getKey(), attributes, false));
+      } else {
+        changes.addUnchanged();
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Diff the variables and secure variables of a platform, including the variables to delete
+   * because they are no longer in the yaml. Secure values can't be read back, so existing secure
+   * variables are always updated. A name given both as a variable and a secure variable is
+   * rejected, as the run would reject it.
+   *
+   * @param platform the platform
+   * @return the variable changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public ChangeSet diffVariables(PlatformBean platform) throws OneOpsClientAPIException {
+    PlatformVariables.checkDistinct(platform.getName(), platform.getVariables(),
+        platform.getSecureVariables());
+    ChangeSet changes = new ChangeSet();
+    reads.addAndGet(Design.LIST_PLATFORM_VARIABLES_CALLS);
+    Map<String, Map<String, Object>> current =
+        PlatformVariables.byName(design.listPlatformVariables(platform.getName()));
+    Set<String> yamlVars = new HashSet<String>();
+    diffVariables(platform.getName(), platform.getSecureVariables(), true, current, yamlVars,
+        changes);
+    diffVariables(platform.getName(), platform.getVariables(), false, current, yamlVars, changes);
+    for (String name : current.keySet()) {
+      if (!yamlVars.contains(name)) {
+        changes.add(new Change(Change.Action.DELETE, Change.Kind.VARIABLE, platform.getName(),
+            null, name, null, false));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Diff variables of one kind.
+   *
+   * @param platformName the platform name
+   * @param variables the yaml variables
+   * @param isSecure the is secure
+   * @param current the current variables
+   * @param yamlVars collects the yaml variable names
+   * @param changes collects the changes
+   */
+  private void diffVariables(String platformName, Map<String, String> variables,
+      boolean isSecure, Map<String, Map<String, Object>> current, Set<String> yamlVars,
+      ChangeSet changes) {
+    if (variables == null) {
+      return;
+    }
+    for (Map.Entry<String, String> entry : variables.entrySet()) {
+      yamlVars.add(entry.getKey());
+      Map<String, String> attributes = Collections.singletonMap(VALUE, entry.getValue());
+      Map<String, Object> ci = current.get(entry.getKey());
+      if (ci == null) {
+        changes.add(new Change(Change.Action.ADD, Change.Kind.VARIABLE, platformName, null,
+            entry.getKey(), attributes, isSecure));
+        continue;
+      }
+      if (!PlatformVariables.isUnchanged(ci, entry.getValue(), isSecure)) {
+        changes.add(new Change(Change.Action.UPDATE, Change.Kind.VARIABLE, platformName, null,
+            entry.getKey(), attributes, isSecure));
+      } else {
+        changes.addUnchanged();
+      }
+    }
+  }
+
+  /**
+   * Diff the environment components of one platform of the environment section.
+   *
+   * @param platform the platform of the environment section
+   * @return the environment component changes
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  @SuppressWarnings("unchecked")
+  public ChangeSet diffEnvironment(PlatformBean platform) throws OneOpsClientAPIException {
+    ChangeSet changes = new ChangeSet();
+    Map<String, Object> components = platform.getComponents();
+    if (components == null) {
+      return changes;
+    }
+    reads.addAndGet(Transition.LIST_PLATFORM_COMPONENTS_CALLS);
+    Map<String, Map<String, Object>> current =
+        index(transition.listPlatformComponents(envName, platform.getName()));
+    for (Map.Entry<String, Object> entry : components.entrySet()) {
+      Map<String, String> attributes = (Map<String, String>) entry.getValue();
+      Map<String, Object> ci = current.get(entry.getKey());
+      if (ci == null || !matches(attributes, attributes(ci), null)) {
+        changes.add(new Change(Change.Action.UPDATE, Change.Kind.ENV_COMPONENT,
+            platform.getName(), entry.getKey(), entry.getKey(), attributes, false));
+      } else {
+        changes.addUnchanged();
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * The changes for a platform which is not in the design yet: the platform itself and all of its
+   * yaml components, attachments and variables. Nothing is read from OneOps.
+   *
+   * @param platform the platform
+   * @return the platform changes
+   */
+  @SuppressWarnings("unchecked")
+  public ChangeSet diffNewPlatform(PlatformBean platform) {
+    ChangeSet changes = new ChangeSet();
+    String platformName = platform.getName();
+    changes.add(new Change(Change.Action.ADD, Change.Kind.PLATFORM, platformName, null,
+        platformName, null, false));
+    if (platform.getComponents() != null) {
+      for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+        if (!(entry.getValue() instanceof Map)) {
+          continue;
+        }
+        Map<String, Object> component = (Map<String, Object>) entry.getValue();
+        for (Map.Entry<String, Map<String, String>> write : componentWrites(entry.getKey(),
+            component).entrySet()) {
+          changes.add(new Change(Change.Action.ADD, Change.Kind.COMPONENT, platformName,
+              entry.getKey(), write.getKey(), write.getValue(), false));
+        }
+        Object attachments = component.get(Constants.ATTACHMENTS);
+        if (attachments instanceof Map) {
+          for (Map.Entry<String, Object> attachment : ((Map<String, Object>) attachments)
+              .entrySet()) {
+            changes.add(new Change(Change.Action.ADD, Change.Kind.ATTACHMENT, platformName,
+                entry.getKey(), attachment.getKey(), (Map<String, String>) attachment.getValue(),
+                false));
+          }
+        }
+      }
+    }
+    addVariables(platformName, platform.getSecureVariables(), true, changes);
+    addVariables(platformName, platform.getVariables(), false, changes);
+    return changes;
+  }
+
+  /**
+   * Adds a variable ADD change for each variable.
+   *
+   * @param platformName the platform name
+   * @param variables the yaml variables
+   * @param isSecure the is secure
+   * @param changes collects the changes
+   */
+  private static void addVariables(String platformName, Map<String, String> variables,
+      boolean isSecure, ChangeSet changes) {
+    if (variables == null) {
+      return;
+    }
+    for (Map.Entry<String, String> entry : variables.entrySet()) {
+      changes.add(new Change(Change.Action.ADD, Change.Kind.VARIABLE, platformName, null,
+          entry.getKey(), Collections.singletonMap(VALUE, entry.getValue()), isSecure));
+    }
+  }
+
+  /**
+   * The changes for a platform of the environment section which can't be compared yet, because
+   * the environment or the platform is not there yet: every component is updated.
+   *
+   * @param platform the platform of the environment section
+   * @return the environment component changes
+   */
+  @SuppressWarnings("unchecked")
+  public ChangeSet diffNewEnvironment(PlatformBean platform) {
+    ChangeSet changes = new ChangeSet();
+    if (platform.getComponents() == null) {
+      return changes;
+    }
+    for (Map.Entry<String, Object> entry : platform.getComponents().entrySet()) {
+      changes.add(new Change(Change.Action.UPDATE, Change.Kind.ENV_COMPONENT, platform.getName(),
+          entry.getKey(), entry.getKey(), (Map<String, String>) entry.getValue(), false));
+    }
+    return changes;
+  }
+
+  /**
+   * The design components written for one yaml component entry, by unique name. An entry is
+   * either a map of named components of that type, or directly the attributes of the component.
+   *
+   * @param componentName the component name
+   * @param component the yaml component entry
+   * @return the attributes to write, by unique component name
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Map<String, String>> componentWrites(String componentName,
+      Map<String, Object> component) {
+    Map<String, Map<String, String>> writes = new LinkedHashMap<String, Map<String, String>>();
+    Map<String, String> plain = new LinkedHashMap<String, String>();
+    for (Map.Entry<String, Object> entry : component.entrySet()) {
+      if (Constants.ATTACHMENTS.equals(entry.getKey())) {
+        continue;
+      }
+      Object value = entry.getValue();
+      if (value instanceof Map) {
+        writes.put(entry.getKey(), (Map<String, String>) value);
+      } else if (value != null) {
+        plain.put(entry.getKey(), String.valueOf(value));
+      }
+    }
+    if (!plain.isEmpty()) {
+      writes.put(componentName, plain);
+    }
+    return writes;
+  }
+
+  /**
+   * Checks whether all the desired attributes already have the desired values. When the current
+   * owner properties are known, attributes not yet owned by the design count as changed too.
+   *
+   * @param desired the desired attributes
+   * @param current the current attributes
+   * @param owner the current owner properties, null if unknown
+   * @return true, if nothing needs to be written
+   */
+  static boolean matches(Map<String, ?> desired, Map<String, ?> current, Map<String, ?> owner) {
+    for (Map.Entry<String, ?> entry : desired.entrySet()) {
+      if (!normalize(entry.getValue()).equals(normalize(current.get(entry.getKey())))) {
+        return false;
+      }
+      if (owner != null && !DESIGN_OWNER.equals(owner.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Normalize an attribute value for comparison.
+   *
+   * @param value the value
+   * @return the string
+   */
+  private static String normalize(Object value) {
+    return value == null ? "" : String.valueOf(value).trim();
+  }
+
+  /**
+   * Index a list of CIs by ciName.
+   *
+   * @param response the list response
+   * @return the CIs by name
+   */
+  static Map<String, Map<String, Object>> index(JsonPath response) {
+    Map<String, Map<String, Object>> result = new LinkedHashMap<String, Map<String, Object>>();
+    if (response == null) {
+      return result;
+    }
+    List<Map<String, Object>> cis = response.getList(ROOT);
+    if (cis != null) {
+      for (Map<String, Object> ci : cis) {
+        Object name = ci.get(Constants.CINAME);
+        if (name != null) {
+          result.put(String.valueOf(name), ci);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the ciAttributes of a CI.
+   *
+   * @param ci the ci
+   * @return the attributes
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> attributes(Map<String, Object> ci) {
+    Object attributes = ci.get(Constants.CIATTRIBUTES);
+    return attributes instanceof Map ? (Map<String, Object>) attributes
+        : Collections.<String, Object>emptyMap();
+  }
+
+  /**
+   * Gets the owner properties of a CI, or null when the listing doesn't include them.
+   *
+   * @param ci the ci
+   * @return the owner properties
+   */
+  @SuppressWarnings("unchecked")
+  static Map<String, Object> owner(Map<String, Object> ci) {
+    Object props = ci.get(Constants.CIATTRPROPS);
+    if (!(props instanceof Map)) {
+      return null;
+    }
+    Object owner = ((Map<String, Object>) props).get(Constants.OWNER);
+    return owner instanceof Map ? (Map<String, Object>) owner : null;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.boo.yaml.CloudBean;
+import com.oneops.boo.yaml.Constants;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Cloud;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.Transition;
+import com.oneops.client.api.resource.model.CmsCI;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Run scoped view of the environment: its CI, its clouds and the ids of the design platforms and
+ * the yaml clouds. It is read once and shared by all the platforms of the run, and read again only
+ * after a commit changed it.
+ */
+public class EnvironmentSnapshot {
+
+  /** The environment CI. */
+  private final JsonPath environment;
+
+  /** The clouds of the environment by cloud ciId. */
+  private final Map<String, Object> clouds;
+
+  /** The ciIds of the yaml clouds by cloud name. */
+  private final Map<String, String> cloudIds;
+
+  /** The ciIds of the design platforms by platform name. */
+  private final Map<String, Long> platformIds;
+
+  /**
+   * Instantiates a new environment snapshot.
+   *
+   * @param environment the environment CI
+   * @param cloudIds the ciIds of the yaml clouds by cloud name
+   * @param platformIds the ciIds of the design platforms by platform name
+   */
+  EnvironmentSnapshot(JsonPath environment, Map<String, String> cloudIds,
+      Map<String, Long> platformIds) {
+    this.environment = environment;
+    Map<String, Object> envClouds = environment.getMap(Constants.CLOUDS);
+    this.clouds = Collections.unmodifiableMap(envClouds == null
+        ? new LinkedHashMap<String, Object>() : new LinkedHashMap<String, Object>(envClouds));
+    this.cloudIds = Collections.unmodifiableMap(cloudIds);
+    this.platformIds = Collections.unmodifiableMap(platformIds);
+  }
+
+  /**
+   * Reads the environment, the design platforms and the ids of the yaml clouds.
+   *
+   * @param transition the transition client
+   * @param design the design client
+   * @param cloud the cloud client
+   * @param envName the env name
+   * @param yamlClouds the clouds of the yaml
+   * @return the snapshot
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public static EnvironmentSnapshot load(Transition transition, Design design, Cloud cloud,
+      String envName, List<CloudBean> yamlClouds) throws OneOpsClientAPIException {
+    JsonPath environment = transition.getEnvironment(envName);
+    Map<String, String> cloudIds = new HashMap<String, String>();
+    if (yamlClouds != null) {
+      for (CloudBean yamlCloud : yamlClouds) {
+        cloudIds.put(yamlCloud.getCloudName(), cloud.getCloudId(yamlCloud.getCloudName()));
+      }
+    }
+    Map<String, Long> platformIds = new HashMap<String, Long>();
+    for (CmsCI platform : design.fetchPlatforms()) {
+      platformIds.put(platform.getCiName(), platform.getCiId());
+    }
+    return new EnvironmentSnapshot(environment, cloudIds, platformIds);
+  }
+
+  /**
+   * Gets the environment CI.
+   *
+   * @return the environment
+   */
+  public JsonPath getEnvironment() {
+    return environment;
+  }
+
+  /**
+   * Gets the clouds of the environment.
+   *
+   * @return the clouds by cloud ciId, read only
+   */
+  public Map<String, Object> getClouds() {
+    return clouds;
+  }
+
+  /**
+   * Gets the ciId of a yaml cloud.
+   *
+   * @param cloudName the cloud name
+   * @return the cloud ciId, or null if the cloud is not in the yaml
+   */
+  public String getCloudId(String cloudName) {
+    return cloudIds.get(cloudName);
+  }
+
+  /**
+   * Gets the ciId of a design platform.
+   *
+   * @param platformName the platform name
+   * @return the platform ciId, or null if there is no such platform
+   */
+  public Long getPlatformId(String platformName) {
+    return platformIds.get(platformName);
+  }
+
+  /**
+   * Checks whether the design has a platform.
+   *
+   * @param platformName the platform name
+   * @return true, if the platform exists
+   */
+  public boolean hasPlatform(String platformName) {
+    return platformIds.containsKey(platformName);
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A DAG of workflow steps. Every step names the steps it depends on; {@link #execute(int)} runs
+ * each step as soon as all its dependencies are done, running independent steps concurrently up to
+ * the given parallelism.
+ */
+public class ExecutionPlan {
+
+  /** The Constant LOG. */
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutionPlan.class);
+
+  /** The steps, in insertion order. */
+  private final Map<String, Node> nodes = new LinkedHashMap<String, Node>();
+
+  /** The listener. */
+  private Listener listener;
+
+  /**
+   * A single unit of work of the plan.
+   */
+  @FunctionalInterface
+  public interface Step {
+
+    /**
+     * Run the step.
+     *
+     * @throws OneOpsClientAPIException the one ops client API exception
+     */
+    void run() throws OneOpsClientAPIException;
+  }
+
+  /**
+   * Notified on the executing thread each time a step completes successfully.
+   */
+  @FunctionalInterface
+  public interface Listener {
+
+    /**
+     * Step completed.
+     *
+     * @param id the step id
+     * @param completed the number of steps completed so far
+     * @param total the total number of steps
+     */
+    void stepCompleted(String id, int completed, int total);
+  }
+
+  /**
+   * Sets the listener.
+   *
+   * @param listener the new listener
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Adds a step. Dependencies have to be added before the steps depending on them, which keeps the
+   * plan acyclic.
+   *
+   * @param id the unique step id
+   * @param step the step
+   * @param dependsOn the ids of the steps to finish first
+   * @return this plan
+   */
+  public ExecutionPlan add(String id, Step step, String... dependsOn) {
+    return add(id, step, Arrays.asList(dependsOn));
+  }
+
+  /**
+   * Adds a step. Dependencies have to be added before the steps depending on them, which keeps the
+   * plan acyclic.
+   *
+   * @param id the unique step id
+   * @param step the step
+   * @param dependsOn the ids of the steps to finish first
+   * @return this plan
+   */
+  public ExecutionPlan add(String id, Step step, Collection<String> dependsOn) {
+    if (nodes.containsKey(id)) {
+      throw new IllegalArgumentException("Duplicate step " + id);
+    }
+    Node node = new Node(id, step);
+    for (String dependency : dependsOn) {
+      Node parent = nodes.get(dependency);
+      if (parent == null) {
+        throw new IllegalArgumentException("Step " + id + " depends on unknown step " + dependency);
+      }
+      if (!node.dependencies.contains(parent)) {
+        node.dependencies.add(parent);
+        parent.dependents.add(node);
+      }
+    }
+    nodes.put(id, node);
+    return this;
+  }
+
+  /**
+   * Checks if the plan contains a step.
+   *
+   * @param id the step id
+   * @return true, if the step exists
+   */
+  public boolean contains(String id) {
+    return nodes.containsKey(id);
+  }
+
+  /**
+   * Gets the step ids, in insertion order.
+   *
+   * @return the step ids
+   */
+  public List<String> getStepIds() {
+    return Collections.unmodifiableList(new ArrayList<String>(nodes.keySet()));
+  }
+
+  /**
+   * Gets the ids of the steps a step depends on.
+   *
+   * @param id the step id
+   * @return the dependency ids
+   */
+  public List<String> getDependencies(String id) {
+    List<String> ids = new ArrayList<String>();
+    Node node = nodes.get(id);
+    if (node != null) {
+      for (Node dependency : node.dependencies) {
+        ids.add(dependency.id);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Gets the number of steps.
+   *
+   * @return the number of steps
+   */
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Runs the plan. Once a step fails no new step is started; running steps are allowed to finish
+   * and the first failure is rethrown.
+   *
+   * @param parallelism the max number of steps running at the same time
+   * @throws OneOpsClientAPIException the first failure of a step
+   */
+  public void execute(int parallelism) throws OneOpsClientAPIException {
+    if (nodes.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    try {
+      execute(executor);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs the plan on the given executor.
+   *
+   * @param executor the executor
+   * @throws OneOpsClientAPIException the first failure of a step
+   */
+  void execute(ExecutorService executor) throws OneOpsClientAPIException {
+    CompletionService<Node> completion = new ExecutorCompletionService<Node>(executor);
+    Map<Node, Integer> pending = new LinkedHashMap<Node, Integer>();
+    int running = 0;
+    int completed = 0;
+    for (Node node : nodes.values()) {
+      pending.put(node, node.dependencies.size());
+    }
+    for (Node node : nodes.values()) {
+      if (node.dependencies.isEmpty()) {
+        submit(completion, node);
+        running++;
+      }
+    }
+    Throwable failure = null;
+    while (running > 0) {
+      Future<Node> done;
+      try {
+        done = completion.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OneOpsClientAPIException("Interrupted while executing plan", e);
+      }
+      running--;
+      Node node;
+      try {
+        node = done.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OneOpsClientAPIException("Interrupted while executing plan", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+        continue;
+      }
+      if (failure != null) {
+        continue;
+      }
+      completed++;
+      if (listener != null) {
+        listener.stepCompleted(node.id, completed, nodes.size());
+      }
+      for (Node dependent : node.dependents) {
+        int remaining = pending.get(dependent) - 1;
+        pending.put(dependent, remaining);
+        if (remaining == 0) {
+          submit(completion, dependent);
+          running++;
+        }
+      }
+    }
+    if (failure instanceof OneOpsClientAPIException) {
+      throw (OneOpsClientAPIException) failure;
+    } else if (failure != null) {
+      throw new OneOpsClientAPIException(failure.getMessage(), failure);
+    }
+  }
+
+  /**
+   * Submit a step.
+   *
+   * @param completion the completion service
+   * @param node the node
+   */
+  private void submit(CompletionService<Node> completion, final Node node) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Starting step {}", node.id);
+    }
+    completion.submit(() -> {
+      node.step.run();
+      return node;
+    });
+  }
+
+  /**
+   * A step and its edges.
+   */
+  private static class Node {
+    private final String id;
+    private final Step step;
+    private final List<Node> dependencies = new ArrayList<Node>();
+    private final List<Node> dependents = new ArrayList<Node>();
+
+    Node(String id, Step step) {
+      this.id = id;
+      this.step = step;
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Operation;
+import com.oneops.client.api.resource.model.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run scoped inventory of component instances. Each platform component is listed at most once,
+ * however many callers ask for it, until it is invalidated. Concurrent callers asking for the same
+ * component wait for the one listing in flight.
+ */
+public class InstanceInventory {
+
+  /** The op. */
+  private final Operation op;
+
+  /** The snapshots by platform and component. */
+  private final ConcurrentMap<String, FutureTask<InstanceSnapshot>> snapshots =
+      new ConcurrentHashMap<String, FutureTask<InstanceSnapshot>>();
+
+  /** The number of listings fetched. */
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  /**
+   * Instantiates a new instance inventory.
+   *
+   * @param op the operation client
+   */
+  public InstanceInventory(Operation op) {
+    this.op = op;
+  }
+
+  /**
+   * Gets the snapshot of a platform component, listing its instances on first use.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the snapshot
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  public InstanceSnapshot get(final String platformName, final String componentName)
+      throws OneOpsClientAPIException {
+    String key = key(platformName, componentName);
+    FutureTask<InstanceSnapshot> task = snapshots.get(key);
+    if (task == null) {
+      FutureTask<InstanceSnapshot> created = new FutureTask<InstanceSnapshot>(
+          () -> this.fetch(platformName, componentName));
+      task = snapshots.putIfAbsent(key, created);
+      if (task == null) {
+        task = created;
+        task.run();
+      }
+    }
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OneOpsClientAPIException("Interrupted while listing instances", e);
+    } catch (ExecutionException e) {
+      // Let the next caller try again.
+      snapshots.remove(key, task);
+      Throwable cause = e.getCause();
+      if (cause instanceof OneOpsClientAPIException) {
+        throw (OneOpsClientAPIException) cause;
+      }
+      throw new OneOpsClientAPIException(cause);
+    }
+  }
+
+  /**
+   * Drop the snapshot of a platform component.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   */
+  public void invalidate(String platformName, String componentName) {
+    snapshots.remove(key(platformName, componentName));
+  }
+
+  /**
+   * Drop all snapshots, e.g. after a deployment.
+   */
+  public void clear() {
+    snapshots.clear();
+  }
+
+  /**
+   * Gets the number of listings fetched so far.
+   *
+   * @return the fetch count
+   */
+  public int getFetchCount() {
+    return fetches.get();
+  }
+
+  /**
+   * Fetch.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the snapshot
+   * @throws OneOpsClientAPIException the one ops client API exception
+   */
+  private InstanceSnapshot fetch(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    fetches.incrementAndGet();
+    final List<Instance> instances = new ArrayList<Instance>();
+    op.visitInstances(platformName, componentName, null, instance -> instances.add(instance));
+    return new InstanceSnapshot(instances);
+  }
+
+  /**
+   * Key.
+   *
+   * @param platformName the platform name
+   * @param componentName the component name
+   * @return the key
+   */
+  private static String key(String platformName, String componentName) {
+    return platformName + "/" + componentName;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.resource.model.Instance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The instances of one platform component as listed at a point in time, indexed by name and id.
+ */
+public class InstanceSnapshot {
+
+  /** The instances, in listing order. */
+  private final List<Instance> instances;
+
+  /** The instances by name. */
+  private final Map<String, Instance> byName;
+
+  /** The instances by id. */
+  private final Map<Long, Instance> byId;
+
+  /**
+   * Instantiates a new instance snapshot.
+   *
+   * @param instances the instances, in listing order
+   */
+  public InstanceSnapshot(List<Instance> instances) {
+    this.instances = Collections.unmodifiableList(new ArrayList<Instance>(instances));
+    this.byName = new HashMap<String, Instance>(instances.size() * 2);
+    this.byId = new HashMap<Long, Instance>(instances.size() * 2);
+    for (Instance instance : instances) {
+      byName.put(instance.getCiName(), instance);
+      byId.put(instance.getCiId(), instance);
+    }
+  }
+
+  /**
+   * Gets the instances.
+   *
+   * @return the instances, in listing order
+   */
+  public List<Instance> getInstances() {
+    return instances;
+  }
+
+  /**
+   * Gets the instance by name.
+   *
+   * @param name the instance name
+   * @return the instance, or null
+   */
+  public Instance get(String name) {
+    return byName.get(name);
+  }
+
+  /**
+   * Gets the instance by id.
+   *
+   * @param id the instance id
+   * @return the instance, or null
+   */
+  public Instance get(long id) {
+    return byId.get(id);
+  }
+
+  /**
+   * Gets the names.
+   *
+   * @return the names, in listing order
+   */
+  public List<String> getNames() {
+    List<String> names = new ArrayList<String>(instances.size());
+    for (Instance instance : instances) {
+      names.add(instance.getCiName());
+    }
+    return names;
+  }
+
+  /**
+   * Gets the ids.
+   *
+   * @return the ids, in listing order
+   */
+  public List<String> getIds() {
+    List<String> ids = new ArrayList<String>(instances.size());
+    for (Instance instance : instances) {
+      ids.add(String.valueOf(instance.getCiId()));
+    }
+    return ids;
+  }
+
+  /**
+   * Gets the ids map.
+   *
+   * @return the ids by instance name
+   */
+  public Map<String, Long> getIdsByName() {
+    Map<String, Long> ids = new HashMap<String, Long>(instances.size() * 2);
+    for (Instance instance : instances) {
+      ids.put(instance.getCiName(), instance.getCiId());
+    }
+    return ids;
+  }
+
+  /**
+   * Gets the attributes of every instance.
+   *
+   * @return the attributes, in listing order
+   */
+  public List<Map<String, String>> getAttributes() {
+    List<Map<String, String>> attributes = new ArrayList<Map<String, String>>(instances.size());
+    for (Instance instance : instances) {
+      attributes.add(instance.getCiAttributes());
+    }
+    return attributes;
+  }
+
+  /**
+   * Size.
+   *
+   * @return the number of instances
+   */
+  public int size() {
+    return instances.size();
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.oneops.client.api.resource.Assembly;
+import com.oneops.client.api.resource.Cloud;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.Transition;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a create or update would change, and roughly how many OneOps API calls it would take.
+ * Built by {@link BuildAllPlatforms#plan(boolean)} without writing anything.
+ */
+public class PlanReport {
+
+  /** The assembly name. */
+  private final String assemblyName;
+
+  /** The env name. */
+  private final String envName;
+
+  /** The changes. */
+  private final ChangeSet changes = new ChangeSet();
+
+  /** The reads issued while planning. */
+  private int planReads;
+
+  /** The calls the workflow makes whatever the changes are. */
+  private int overhead;
+
+  /**
+   * Instantiates a new plan report.
+   *
+   * @param assemblyName the assembly name
+   * @param envName the env name
+   */
+  public PlanReport(String assemblyName, String envName) {
+    this.assemblyName = assemblyName;
+    this.envName = envName;
+  }
+
+  /**
+   * Adds a change.
+   *
+   * @param change the change
+   */
+  public void add(Change change) {
+    changes.add(change);
+  }
+
+  /**
+   * Adds all the changes of a change set.
+   *
+   * @param other the change set
+   */
+  public void addAll(ChangeSet other) {
+    changes.addAll(other);
+  }
+
+  /**
+   * Records reads issued while planning.
+   *
+   * @param count the count
+   */
+  public void addPlanReads(int count) {
+    planReads += count;
+  }
+
+  /**
+   * Records calls the workflow makes whatever the changes are: existence checks, listings, commits,
+   * status and deployment.
+   *
+   * @param count the count
+   */
+  public void addOverhead(int count) {
+    overhead += count;
+  }
+
+  /**
+   * Gets the changes.
+   *
+   * @return the changes
+   */
+  public ChangeSet getChanges() {
+    return changes;
+  }
+
+  /**
+   * Gets the number of reads issued while planning.
+   *
+   * @return the plan reads
+   */
+  public int getPlanReads() {
+    return planReads;
+  }
+
+  /**
+   * Gets the estimated number of OneOps API calls the create or update would make.
+   *
+   * @return the estimated calls
+   */
+  public int getEstimatedCalls() {
+    int calls = overhead;
+    Set<String> templates = new HashSet<String>();
+    for (Change change : changes) {
+      calls += cost(change);
+      String template = template(change);
+      if (template != null && templates.add(template)) {
+        // Each new.json template is fetched once and then cached by the client.
+        calls += Design.TEMPLATE_CALLS;
+      }
+    }
+    return calls;
+  }
+
+  /**
+   * The API calls needed to apply one change, including the lookups the client makes before the
+   * write itself, but not the new.json template it may need.
+   *
+   * @param change the change
+   * @return the number of calls
+   */
+  static int cost(Change change) {
+    switch (change.getKind()) {
+      case ASSEMBLY:
+        return Assembly.CREATE_ASSEMBLY_CALLS;
+      case PLATFORM:
+        return Design.CREATE_PLATFORM_CALLS;
+      case COMPONENT:
+        return byAction(change, Design.ADD_PLATFORM_COMPONENT_CALLS,
+            Design.UPDATE_PLATFORM_COMPONENT_CALLS, Design.DELETE_PLATFORM_COMPONENT_CALLS);
+      case ATTACHMENT:
+        return byAction(change, Design.ADD_PLATFORM_COMPONENT_ATTACHMENT_CALLS,
+            Design.UPDATE_PLATFORM_COMPONENT_ATTACHMENT_CALLS, 0);
+      case VARIABLE:
+        // Variables are compared against the platform listing, so only the write itself.
+        return Design.PLATFORM_VARIABLE_WRITE_CALLS;
+      case ENVIRONMENT:
+        // Create, read back, then commit.
+        return Transition.CREATE_ENVIRONMENT_CALLS + Transition.GET_ENVIRONMENT_CALLS
+            + Transition.COMMIT_ENVIRONMENT_CALLS;
+      case ENV_COMPONENT:
+        return Transition.UPDATE_PLATFORM_COMPONENT_CALLS;
+      case CLOUD:
+        // The clouds of a new environment are looked up to create it, others are updated.
+        return byAction(change, Cloud.GET_CLOUD_ID_CALLS,
+            Transition.UPDATE_PLATFORM_CLOUD_SCALE_CALLS, 0);
+      default:
+        throw new IllegalArgumentException("Unknown change kind " + change.getKind());
+    }
+  }
+
+  /**
+   * Picks the calls of a change by its action.
+   *
+   * @param change the change
+   * @param add the calls of an add
+   * @param update the calls of an update
+   * @param delete the calls of a delete
+   * @return the calls
+   */
+  private static int byAction(Change change, int add, int update, int delete) {
+    switch (change.getAction()) {
+      case ADD:
+        return add;
+      case UPDATE:
+        return update;
+      default:
+        return delete;
+    }
+  }
+
+  /**
+   * The new.json template a change needs, which the client fetches for the first add of a kind.
+   *
+   * @param change the change
+   * @return the template key, or null if the change needs none
+   */
+  static String template(Change change) {
+    if (change.getAction() != Change.Action.ADD) {
+      return null;
+    }
+    switch (change.getKind()) {
+      case COMPONENT:
+        return "components/" + change.getPlatform() + "/" + change.getComponent();
+      case ATTACHMENT:
+        return "attachments/" + change.getPlatform() + "/" + change.getComponent();
+      case VARIABLE:
+        return "variables/" + change.getPlatform();
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Prints the changes grouped by platform, followed by the summary.
+   *
+   * @param out the out
+   */
+  public void print(PrintStream out) {
+    out.printf("Plan for assembly %s, environment %s:%n", assemblyName, envName);
+    Map<String, List<Change>> byPlatform = new LinkedHashMap<String, List<Change>>();
+    for (Change change : changes) {
+      String platform = change.getPlatform() == null ? "" : change.getPlatform();
+      List<Change> list = byPlatform.get(platform);
+      if (list == null) {
+        list = new ArrayList<Change>();
+        byPlatform.put(platform, list);
+      }
+      list.add(change);
+    }
+    for (Map.Entry<String, List<Change>> entry : byPlatform.entrySet()) {
+      String indent = "  ";
+      if (!entry.getKey().isEmpty()) {
+        out.printf("  platform %s%n", entry.getKey());
+        indent = "    ";
+      }
+      for (Change change : entry.getValue()) {
+        out.printf("%s%s %s%n", indent, marker(change.getAction()), change);
+      }
+    }
+    int added = 0;
+    int updated = 0;
+    int deleted = 0;
+    for (Change change : changes) {
+      if (change.getAction() == Change.Action.ADD) {
+        added++;
+      } else if (change.getAction() == Change.Action.UPDATE) {
+        updated++;
+      } else {
+        deleted++;
+      }
+    }
+    out.printf("%d to add, %d to update, %d to delete, %d unchanged.%n", added, updated, deleted,
+        changes.getUnchanged());
+    out.printf("Estimated OneOps API calls: %d (%d reads made while planning).%n",
+        getEstimatedCalls(), planReads);
+  }
+
+  /**
+   * The marker of an action.
+   *
+   * @param action the action
+   * @return the marker
+   */
+  private static char marker(Change.Action action) {
+    switch (action) {
+      case ADD:
+        return '+';
+      case DELETE:
+        return '-';
+      default:
+        return '~';
+    }
+  }
+}
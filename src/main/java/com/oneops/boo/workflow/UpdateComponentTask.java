@@ -20,48 +20,58 @@ import com.oneops.client.api.exception.OneOpsComponentExistException;
 
 import java.util.Map;
 
-public class UpdateComponentTask implements Runnable {
+public class UpdateComponentTask implements ExecutionPlan.Step {
   private BuildAllPlatforms flow;
   private String platformName;
   private String componentName;
   private String uniqueName;
   private Map<String, String> att;
+  private Boolean isExist;
 
   /**
-   * Update the components.
+   * Update the components, looking up first whether each one exists.
    * 
    */
   public UpdateComponentTask(BuildAllPlatforms flow, String platformName, String componentName,
       String uniqueName, Map<String, String> components) {
+    this(flow, platformName, componentName, uniqueName, components, null);
+  }
+
+  /**
+   * Update the components whose existence is already known, for instance from a
+   * {@link DesiredStateDiff} change, so that no lookup is needed.
+   * 
+   */
+  public UpdateComponentTask(BuildAllPlatforms flow, String platformName, String componentName,
+      String uniqueName, Map<String, String> components, Boolean isExist) {
     this.flow = flow;
     this.platformName = platformName;
     this.componentName = componentName;
     this.uniqueName = uniqueName;
     this.att = components;
+    this.isExist = isExist;
   }
 
   @Override
-  public void run() {
+  public void run() throws OneOpsClientAPIException {
     LogUtils.info(Constants.UPDATE_COMPONENTS2, componentName, uniqueName, platformName);
     Map<String, String> attributes = (Map<String, String>) att;
 
     boolean isExist = Boolean.FALSE;
-    try {
-      isExist = flow.isComponentExist(platformName, uniqueName);
-    } catch (OneOpsComponentExistException e1) {
-      // Ignore
-      isExist = Boolean.FALSE;
-    } catch (OneOpsClientAPIException e) {
-      e.printStackTrace();
-    }
-    try {
-      if (isExist) {
-        flow.design.updatePlatformComponent(platformName, uniqueName, attributes);
-      } else {
-        flow.design.addPlatformComponent(platformName, componentName, uniqueName, attributes);
+    if (this.isExist != null) {
+      isExist = this.isExist;
+    } else {
+      try {
+        isExist = flow.isComponentExist(platformName, uniqueName);
+      } catch (OneOpsComponentExistException e1) {
+        // Ignore
+        isExist = Boolean.FALSE;
       }
-    } catch (OneOpsClientAPIException e) {
-      e.printStackTrace();
+    }
+    if (isExist) {
+      flow.design.updatePlatformComponent(platformName, uniqueName, attributes);
+    } else {
+      flow.design.addPlatformComponent(platformName, componentName, uniqueName, attributes);
     }
   }
 }
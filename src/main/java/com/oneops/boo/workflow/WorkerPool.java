@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A worker pool shared by all the fan-out of one workflow. Threads are started on first use and
+ * reused by every batch, and at most {@code size} tasks run at the same time. On a JVM with
+ * virtual threads the pool can run each task on its own virtual thread instead, still bounded to
+ * {@code size} tasks at a time.
+ *
+ * <p>
+ * Work is submitted in {@link Batch batches}: {@link Batch#await()} waits for every task of the
+ * batch and reports all of their failures, rather than leaving them to be printed by the worker.
+ */
+public class WorkerPool implements Closeable {
+
+  /** The Constant LOG. */
+  private static final Logger LOG = LoggerFactory.getLogger(WorkerPool.class);
+
+  /** The max number of tasks running at the same time. */
+  private final int size;
+
+  /** Whether to use virtual threads when the JVM has them. */
+  private final boolean virtualThreads;
+
+  /** The permits of running tasks. */
+  private final Semaphore permits;
+
+  /** The executor, started on first use. */
+  private ExecutorService executor;
+
+  /**
+   * Instantiates a new worker pool.
+   *
+   * @param size the max number of tasks running at the same time
+   * @param virtualThreads whether to use virtual threads when the JVM has them
+   */
+  public WorkerPool(int size, boolean virtualThreads) {
+    this.size = Math.max(1, size);
+    this.virtualThreads = virtualThreads;
+    this.permits = new Semaphore(this.size);
+  }
+
+  /**
+   * Starts a new batch of tasks.
+   *
+   * @return the batch
+   */
+  public Batch batch() {
+    return new Batch();
+  }
+
+  /**
+   * Stops the threads. A later batch starts them again.
+   */
+  @Override
+  public synchronized void close() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * Gets the executor, starting it if needed.
+   *
+   * @return the executor
+   */
+  private synchronized ExecutorService executor() {
+    if (executor == null) {
+      executor = virtualThreads ? newVirtualThreadExecutor() : null;
+      if (executor == null) {
+        executor = Executors.newFixedThreadPool(size, new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("boo-worker-%d").build());
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Creates a virtual thread per task executor, looked up reflectively so that boo still runs on
+   * JVMs without virtual threads.
+   *
+   * @return the executor, or null if the JVM has no virtual threads
+   */
+  static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Virtual threads are not available, using platform threads.", e);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * A group of tasks that is awaited as a whole.
+   */
+  public class Batch {
+
+    /** The futures of the submitted tasks. */
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+    /**
+     * Submits a task.
+     *
+     * @param task the task
+     */
+    public void submit(final ExecutionPlan.Step task) {
+      futures.add(executor().submit(() -> {
+        permits.acquire();
+        try {
+          task.run();
+        } finally {
+          permits.release();
+        }
+        return null;
+      }));
+    }
+
+    /**
+     * Waits for every task of the batch. If any failed, the first failure is thrown with the others
+     * added as suppressed exceptions.
+     *
+     * @throws OneOpsClientAPIException the one ops client API exception
+     */
+    public void await() throws OneOpsClientAPIException {
+      List<Throwable> failures = new ArrayList<Throwable>();
+      int total = futures.size();
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          futures.get(i).get();
+        } catch (InterruptedException e) {
+          for (Future<?> future : futures.subList(i, futures.size())) {
+            future.cancel(true);
+          }
+          Thread.currentThread().interrupt();
+          throw new OneOpsClientAPIException("Interrupted while waiting for workers", e);
+        } catch (ExecutionException e) {
+          failures.add(e.getCause());
+        }
+      }
+      futures.clear();
+      if (failures.isEmpty()) {
+        return;
+      }
+      Throwable first = failures.get(0);
+      OneOpsClientAPIException failure;
+      if (failures.size() == 1 && first instanceof OneOpsClientAPIException) {
+        failure = (OneOpsClientAPIException) first;
+      } else {
+        failure = new OneOpsClientAPIException(String.format("%d of %d tasks failed, first: %s",
+            failures.size(), total, first.getMessage()), first);
+        for (Throwable other : failures.subList(1, failures.size())) {
+          failure.addSuppressed(other);
+        }
+      }
+      throw failure;
+    }
+  }
+}
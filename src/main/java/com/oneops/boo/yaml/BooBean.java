@@ -56,6 +56,33 @@ public class BooBean {
   @JsonProperty("custom")
   private Map<String, String> custom;
 
+  /** Max number of OneOps calls boo issues at the same time. */
+  @JsonProperty(value = "parallelism", defaultValue = "8")
+  private int parallelism = 8;
+
+  /** Max number of component writes a workflow fans out at the same time. */
+  @JsonProperty(value = "workers", defaultValue = "32")
+  private int workers = 32;
+
+  /** Run workflow fan-out on virtual threads when the JVM has them. */
+  @JsonProperty(value = "virtual_threads", defaultValue = "false")
+  private boolean virtualThreads;
+
+  /** Limits of OneOps calls by endpoint class: read, write and deploy. */
+  @JsonProperty("rate_limits")
+  private Map<String, RateLimitBean> rateLimits;
+
+  /** Seconds a OneOps call may take by endpoint class: read, write and deploy. */
+  @JsonProperty("timeouts")
+  private Map<String, Integer> timeouts;
+
+  /** Send a second copy of OneOps reads that are slower than usual. */
+  @JsonProperty(value = "hedged_reads", defaultValue = "false")
+  private boolean hedgedReads;
+
+  @JsonProperty(value = "cache_enabled", defaultValue = "true")
+  private boolean cacheEnabled = true;
+
   public String getEnvName() {
     return envName;
   }
@@ -134,4 +161,60 @@ public class BooBean {
   public void setGzipEnabled(boolean enableGzip) {
     this.gzipEnabled = enableGzip;
   }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getWorkers() {
+    return workers;
+  }
+
+  public void setWorkers(int workers) {
+    this.workers = workers;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  public Map<String, RateLimitBean> getRateLimits() {
+    return rateLimits;
+  }
+
+  public void setRateLimits(Map<String, RateLimitBean> rateLimits) {
+    this.rateLimits = rateLimits;
+  }
+
+  public Map<String, Integer> getTimeouts() {
+    return timeouts;
+  }
+
+  public void setTimeouts(Map<String, Integer> timeouts) {
+    this.timeouts = timeouts;
+  }
+
+  public boolean isHedgedReads() {
+    return hedgedReads;
+  }
+
+  public void setHedgedReads(boolean hedgedReads) {
+    this.hedgedReads = hedgedReads;
+  }
+
+  public boolean isCacheEnabled() {
+    return cacheEnabled;
+  }
+
+  public void setCacheEnabled(boolean cacheEnabled) {
+    this.cacheEnabled = cacheEnabled;
+  }
 }
@@ -36,12 +36,16 @@ public class Constants {
   public static final String ENV_NAME = "environment_name";
   public static final String TRUE = "true";
   public static final String PRIVATE_IP = "private_ip";
+  public static final String PUBLIC_IP = "public_ip";
+  public static final String HOSTNAME = "hostname";
   public static final String ACTIVE = "active";
   public static final String SIZE = "size";
   public static final String CINAME = "ciName";
   public static final String OFFLINE = "offline";
   public static final String AUTHO_KEYS = "authorized_keys";
   public static final String CIATTRPROPS = "ciAttrProps";
+  public static final String CIATTRIBUTES = "ciAttributes";
+  public static final String CISTATE = "ciState";
   public static final String OWNER = "owner";
   // public static final String ASSEMBLY_PREFIX = "CUBEBOO-"; // Magic string.
   public static final String ASSEMBLY_NAME_TOO_LONG =
@@ -102,6 +106,10 @@ public class Constants {
   public static final String UPDATE_COMPONENTS2 = "Updating component %s %s for %s ...";
 
   public static final String CREATING_PLATFORM_SUCCEED = "Created platform %s.";
+  public static final String DEPLOY_ORDER_COMMITTED =
+      "Committed design for platforms with deploy order %s.";
+  public static final String DESIGN_COMMIT_PENDING =
+      "Design release still open after commit, continuing with next deploy order.";
   public static final String START_DEPLOYMENT = "Starting the deployment now.";
   public static final String CREATE_WITHOUT_DEPLOYMENT =
       "Created/updated assembly without deployments.";
@@ -124,6 +132,8 @@ public class Constants {
   public static final String SUCCEED = "Succeed!";
   public static final String PROCEDURE_NOT_COMPLETE = "Procedure did not complete";
   public static final String PROCEDURE_RUNNING = "Procedure is running ...";
+  public static final String DEPLOYMENT_NOT_COMPLETE = "Deployment %s is %s%n";
+  public static final String NOTHING_TO_WATCH = "There is no deployment to watch.";
 
   // Debug
   public static final String ENV_NOT_EXISTING = "The environment %s is not exist! %s";
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.yaml;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Limits of one class of OneOps endpoints: read, write or deploy.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RateLimitBean {
+
+  /** Requests started per second, 0 for no limit. */
+  @JsonProperty("rate")
+  private double rate;
+
+  /** Requests running at the same time, 0 for no limit. */
+  @JsonProperty("max_in_flight")
+  private int maxInFlight;
+
+  /**
+   * Gets the rate.
+   *
+   * @return the rate
+   */
+  public double getRate() {
+    return rate;
+  }
+
+  /**
+   * Sets the rate.
+   *
+   * @param rate the new rate
+   */
+  public void setRate(double rate) {
+    this.rate = rate;
+  }
+
+  /**
+   * Gets the max in flight.
+   *
+   * @return the max in flight
+   */
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * Sets the max in flight.
+   *
+   * @param maxInFlight the new max in flight
+   */
+  public void setMaxInFlight(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+}
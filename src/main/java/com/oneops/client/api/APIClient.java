@@ -13,16 +13,26 @@
  */
 package com.oneops.client.api;
 
+import java.io.File;
+
 import org.apache.commons.codec.binary.Base64;
 
 import com.jayway.restassured.RestAssured;
 import com.jayway.restassured.config.DecoderConfig;
+import com.jayway.restassured.config.RestAssuredConfig;
 import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.cache.HttpResponseCache;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.http.HttpTransport;
+import com.oneops.client.api.http.PooledHttpTransport;
 
 public abstract class APIClient {
 
   private OOInstance instance;
+  private HttpTransport transport;
+  private String basicAuth;
+  private String baseUri;
+  private HttpResponseCache responseCache;
 
   public APIClient(OOInstance instance) throws OneOpsClientAPIException {
     this.instance = instance;
@@ -37,28 +47,71 @@ public abstract class APIClient {
     if (instance.getEndpoint() == null) {
       throw new OneOpsClientAPIException("Missing OneOps endpoint to perform API invocation");
     }
+    this.transport = instance.getTransport() != null ? instance.getTransport()
+        : PooledHttpTransport.forInstance(instance);
+    this.basicAuth =
+        "Basic " + new String(Base64.encodeBase64(instance.getAuthtoken().getBytes()));
+    String uri = instance.getEndpoint();
+    if (instance.getOrgname() != null) {
+      uri += instance.getOrgname();
+    }
+    this.baseUri = uri;
+    if (instance.getCacheDir() != null) {
+      this.responseCache = HttpResponseCache.forDirectory(new File(instance.getCacheDir(), "http"));
+    }
+  }
+
+  /**
+   * Base uri of the requests: the OneOps endpoint followed by the organization.
+   */
+  protected String getBaseUri() {
+    return baseUri;
+  }
+
+  protected OOInstance getInstance() {
+    return instance;
   }
 
   protected RequestSpecification createRequest() {
+    return createRequest(false);
+  }
+
+  /**
+   * Creates a request for read endpoints whose responses change rarely. GETs made with it are
+   * revalidated against the on-disk http cache when the instance has a cache directory.
+   */
+  protected RequestSpecification createCachedRequest() {
+    return createRequest(responseCache != null);
+  }
+
+  private RequestSpecification createRequest(boolean cached) {
     RequestSpecification rs = RestAssured.given();
+    RestAssuredConfig config = transport.configure(RestAssured.config());
     if (!instance.isGzipEnabled()) {
-      rs.config(
-          RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()));
+      config = config.decoderConfig(DecoderConfig.decoderConfig().noContentDecoders());
     }
-    String basicAuth =
-        "Basic " + new String(Base64.encodeBase64(instance.getAuthtoken().getBytes()));
+    rs.config(config);
     rs.header("Authorization", basicAuth);
     rs.header("User-Agent", "OneOpsAPIClient");
     rs.header("Accept", "application/json");
     rs.header("Content-Type", "application/json");
-    String baseUri = instance.getEndpoint();
-    if (instance.getOrgname() != null) {
-      baseUri += instance.getOrgname();
-    }
     rs.baseUri(baseUri);
+    // First, so that every retry goes through the governor and the cache again
+    if (instance.getRetryPolicy() != null) {
+      rs.filter(instance.getRetryPolicy());
+    }
+    if (instance.getGovernor() != null) {
+      rs.filter(instance.getGovernor());
+    }
+    // After the governor, so that waiting for a permit does not count against the timeout
+    if (instance.getEndpointGuard() != null) {
+      rs.filter(instance.getEndpointGuard());
+    }
+    if (cached) {
+      rs.filter(responseCache);
+    }
 
     return rs;
   }
 
-
 }
@@ -13,10 +13,17 @@
  */
 package com.oneops.client.api;
 
+import java.io.File;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.oneops.client.api.http.HttpTransport;
+import com.oneops.client.api.http.EndpointGuard;
+import com.oneops.client.api.http.RequestGovernor;
+import com.oneops.client.api.http.RetryPolicy;
+import com.oneops.client.api.resource.StatusPoller;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OOInstance {
@@ -35,6 +42,26 @@ public class OOInstance {
   private Map<String, String> localVars;
   private String comment;
   private boolean gzipEnabled = true;
+  private int maxConnectionsPerRoute = 20;
+  private int maxConnectionsTotal = 50;
+  private int idleConnectionTimeout = 30;
+  private int sslSessionCacheSize = 100;
+  private int sslSessionTimeout = 3600;
+  private boolean relaxedHttpsValidation;
+  private int cloudCacheTtl = 86400;
+  private int cloudCacheSize = 256;
+  @JsonIgnore
+  private File cacheDir;
+  @JsonIgnore
+  private HttpTransport transport;
+  @JsonIgnore
+  private RequestGovernor governor;
+  @JsonIgnore
+  private RetryPolicy retryPolicy;
+  @JsonIgnore
+  private EndpointGuard endpointGuard;
+  @JsonIgnore
+  private StatusPoller statusPoller;
 
   public String getName() {
     return name;
@@ -131,4 +158,150 @@ public class OOInstance {
   public void setGzipEnabled(boolean gzipEnabled) {
     this.gzipEnabled = gzipEnabled;
   }
+
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+  }
+
+  public int getMaxConnectionsTotal() {
+    return maxConnectionsTotal;
+  }
+
+  public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+    this.maxConnectionsTotal = maxConnectionsTotal;
+  }
+
+  /**
+   * Seconds a pooled connection may stay idle before it is evicted.
+   */
+  public int getIdleConnectionTimeout() {
+    return idleConnectionTimeout;
+  }
+
+  public void setIdleConnectionTimeout(int idleConnectionTimeout) {
+    this.idleConnectionTimeout = idleConnectionTimeout;
+  }
+
+  public int getSslSessionCacheSize() {
+    return sslSessionCacheSize;
+  }
+
+  public void setSslSessionCacheSize(int sslSessionCacheSize) {
+    this.sslSessionCacheSize = sslSessionCacheSize;
+  }
+
+  /**
+   * Seconds a cached TLS session may be resumed.
+   */
+  public int getSslSessionTimeout() {
+    return sslSessionTimeout;
+  }
+
+  public void setSslSessionTimeout(int sslSessionTimeout) {
+    this.sslSessionTimeout = sslSessionTimeout;
+  }
+
+  public boolean isRelaxedHttpsValidation() {
+    return relaxedHttpsValidation;
+  }
+
+  public void setRelaxedHttpsValidation(boolean relaxedHttpsValidation) {
+    this.relaxedHttpsValidation = relaxedHttpsValidation;
+  }
+
+  /**
+   * Transport used to send API requests, or null to use the shared pooled transport.
+   */
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  public void setTransport(HttpTransport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Rate and concurrency limits shared by the API clients of this instance, or null for none.
+   */
+  public RequestGovernor getGovernor() {
+    return governor;
+  }
+
+  public void setGovernor(RequestGovernor governor) {
+    this.governor = governor;
+  }
+
+  /**
+   * Policy retrying requests that failed for a transient reason, or null, the default, to never
+   * retry. {@link RetryPolicy#DEFAULT} suits most uses.
+   */
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Timeouts and circuit breakers of the endpoints of this instance, or null, the default, for
+   * neither.
+   */
+  public EndpointGuard getEndpointGuard() {
+    return endpointGuard;
+  }
+
+  public void setEndpointGuard(EndpointGuard endpointGuard) {
+    this.endpointGuard = endpointGuard;
+  }
+
+  /**
+   * Poller the waits on procedures and deployments of this instance share, or null to use
+   * {@link StatusPoller#shared()}.
+   */
+  public StatusPoller getStatusPoller() {
+    return statusPoller;
+  }
+
+  public void setStatusPoller(StatusPoller statusPoller) {
+    this.statusPoller = statusPoller;
+  }
+
+  /**
+   * Seconds a cloud name to ciId lookup is cached.
+   */
+  public int getCloudCacheTtl() {
+    return cloudCacheTtl;
+  }
+
+  public void setCloudCacheTtl(int cloudCacheTtl) {
+    this.cloudCacheTtl = cloudCacheTtl;
+  }
+
+  /**
+   * Maximum number of cloud name to ciId lookups cached.
+   */
+  public int getCloudCacheSize() {
+    return cloudCacheSize;
+  }
+
+  public void setCloudCacheSize(int cloudCacheSize) {
+    this.cloudCacheSize = cloudCacheSize;
+  }
+
+  /**
+   * Directory where lookups and read responses are cached between runs, or null to only cache
+   * lookups in memory.
+   */
+  public File getCacheDir() {
+    return cacheDir;
+  }
+
+  public void setCacheDir(File cacheDir) {
+    this.cacheDir = cacheDir;
+  }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+import com.jayway.restassured.builder.ResponseBuilder;
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * On-disk http cache for read endpoints. Successful GET responses carrying an ETag or a
+ * Last-Modified validator are stored with their validators; the next GET of the same url is sent
+ * as a conditional request (If-None-Match / If-Modified-Since) and a 304 is answered from the
+ * stored body. The server is still asked every time, so cached responses are never stale.
+ */
+public class HttpResponseCache implements Filter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HttpResponseCache.class);
+
+  private static final Map<File, HttpResponseCache> CACHES =
+      new ConcurrentHashMap<File, HttpResponseCache>();
+
+  private static final String ETAG = "ETag";
+  private static final String LAST_MODIFIED = "Last-Modified";
+  private static final String CACHE_CONTROL = "Cache-Control";
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String AUTHORIZATION = "Authorization";
+  private static final String NO_STORE = "no-store";
+  private static final String URL = "url";
+  private static final String BODY = ".body";
+  private static final String META = ".meta";
+
+  private final File dir;
+
+  private HttpResponseCache(File dir) {
+    this.dir = dir;
+  }
+
+  /**
+   * The cache stored in a directory, shared by all the API clients using that directory
+   */
+  public static HttpResponseCache forDirectory(File dir) {
+    HttpResponseCache cache = CACHES.get(dir);
+    if (cache == null) {
+      cache = new HttpResponseCache(dir);
+      HttpResponseCache existing = CACHES.putIfAbsent(dir, cache);
+      if (existing != null) {
+        cache = existing;
+      }
+    }
+    return cache;
+  }
+
+  public File getDirectory() {
+    return dir;
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    if (requestSpec.getMethod() != Method.GET) {
+      return ctx.next(requestSpec, responseSpec);
+    }
+    String url = requestSpec.getURI();
+    String key = key(url, requestSpec.getHeaders().getValue(AUTHORIZATION));
+    Properties meta = readMeta(key, url);
+    // A retried request comes through again with the validators already set
+    if (meta != null && !requestSpec.getHeaders().hasHeaderWithName("If-None-Match")
+        && !requestSpec.getHeaders().hasHeaderWithName("If-Modified-Since")) {
+      if (meta.getProperty(ETAG) != null) {
+        requestSpec.header("If-None-Match", meta.getProperty(ETAG));
+      }
+      if (meta.getProperty(LAST_MODIFIED) != null) {
+        requestSpec.header("If-Modified-Since", meta.getProperty(LAST_MODIFIED));
+      }
+    }
+    Response response = ctx.next(requestSpec, responseSpec);
+    if (response.getStatusCode() == 304 && meta != null) {
+      byte[] body = readBody(key);
+      if (body != null) {
+        LOG.debug("Serving {} from the http cache", url);
+        ResponseBuilder builder = new ResponseBuilder().clone(response).setStatusCode(200)
+            .setStatusLine("HTTP/1.1 200 OK").setBody(body);
+        if (meta.getProperty(CONTENT_TYPE) != null) {
+          builder.setContentType(meta.getProperty(CONTENT_TYPE));
+        }
+        return builder.build();
+      }
+    } else if (response.getStatusCode() == 200) {
+      store(key, url, response);
+    }
+    return response;
+  }
+
+  /**
+   * Responses are cached per url and per API key, since different keys may see different data.
+   */
+  private static String key(String url, String authorization) {
+    return Hashing.sha256()
+        .hashString(url + '\n' + (authorization == null ? "" : authorization),
+            StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  private Properties readMeta(String key, String url) {
+    File file = new File(dir, key + META);
+    if (!file.isFile()) {
+      return null;
+    }
+    Properties meta = new Properties();
+    try (InputStream in = new FileInputStream(file)) {
+      meta.load(in);
+    } catch (IOException e) {
+      LOG.debug("Ignoring unreadable http cache entry {}: {}", file, e.getMessage());
+      return null;
+    }
+    return url.equals(meta.getProperty(URL)) ? meta : null;
+  }
+
+  private byte[] readBody(String key) {
+    try {
+      return Files.readAllBytes(new File(dir, key + BODY).toPath());
+    } catch (IOException e) {
+      LOG.debug("Ignoring unreadable http cache entry {}: {}", key, e.getMessage());
+      return null;
+    }
+  }
+
+  private void store(String key, String url, Response response) {
+    String etag = response.getHeader(ETAG);
+    String lastModified = response.getHeader(LAST_MODIFIED);
+    String cacheControl = response.getHeader(CACHE_CONTROL);
+    if ((etag == null && lastModified == null)
+        || (cacheControl != null && cacheControl.contains(NO_STORE))) {
+      return;
+    }
+    Properties meta = new Properties();
+    meta.setProperty(URL, url);
+    if (etag != null) {
+      meta.setProperty(ETAG, etag);
+    }
+    if (lastModified != null) {
+      meta.setProperty(LAST_MODIFIED, lastModified);
+    }
+    if (response.getContentType() != null) {
+      meta.setProperty(CONTENT_TYPE, response.getContentType());
+    }
+    try {
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Unable to create " + dir);
+      }
+      // The body goes first, so a meta file always points to a complete body.
+      write(new File(dir, key + BODY), response.asByteArray(), null);
+      write(new File(dir, key + META), null, meta);
+    } catch (IOException e) {
+      LOG.debug("Unable to store {} in the http cache: {}", url, e.getMessage());
+    }
+  }
+
+  private void write(File file, byte[] bytes, Properties properties) throws IOException {
+    File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+    try {
+      try (OutputStream out = new FileOutputStream(tmp)) {
+        if (bytes != null) {
+          out.write(bytes);
+        } else {
+          properties.store(out, null);
+        }
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+}
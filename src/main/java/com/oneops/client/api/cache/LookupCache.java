@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small string to string cache for lookups which hardly ever change, such as cloud name to ciId.
+ * Entries expire after a time to live, the least recently used entries are evicted beyond the
+ * maximum size, and the cache can be persisted to a properties file so that it survives between
+ * runs. Persistence is best effort: an unreadable or unwritable file only costs the lookups.
+ *
+ * <p>
+ * Changes are appended to the file, a removal as an entry without value, so a put costs one small
+ * write whatever the size of the cache. The file is compacted when it is loaded, once it has grown
+ * to more than twice the size of its live entries.
+ */
+public class LookupCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LookupCache.class);
+
+  private static final char SEPARATOR = ',';
+
+  private final long ttlMillis;
+  private final int maxSize;
+  private final File file;
+  private final LruMap entries;
+
+  /**
+   * @param ttlMillis time to live of an entry
+   * @param maxSize maximum number of entries
+   * @param file file to persist the entries to, or null to only cache in memory
+   */
+  public LookupCache(long ttlMillis, int maxSize, File file) {
+    this.ttlMillis = ttlMillis;
+    this.maxSize = maxSize;
+    this.file = file;
+    this.entries = new LruMap(maxSize);
+    load();
+  }
+
+  /**
+   * Gets a cached value
+   * 
+   * @param key
+   * @return the value, or null if it is not cached or has expired
+   */
+  public synchronized String get(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (isExpired(entry, System.currentTimeMillis())) {
+      entries.remove(key);
+      return null;
+    }
+    return entry.value;
+  }
+
+  /**
+   * Caches a value, and persists the cache if it has a file
+   * 
+   * @param key
+   * @param value
+   */
+  public synchronized void put(String key, String value) {
+    Entry entry = new Entry(value, System.currentTimeMillis());
+    entries.put(key, entry);
+    append(key, entry);
+  }
+
+  /**
+   * Removes a cached value
+   * 
+   * @param key
+   */
+  public synchronized void invalidate(String key) {
+    if (entries.remove(key) != null) {
+      append(key, null);
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return now - entry.createdAt >= ttlMillis;
+  }
+
+  private void load() {
+    if (file == null || !file.isFile()) {
+      return;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = new FileInputStream(file)) {
+      properties.load(in);
+    } catch (IOException e) {
+      LOG.debug("Ignoring unreadable cache {}: {}", file, e.getMessage());
+      return;
+    }
+    // Later lines win, so each key holds its last put or removal
+    long now = System.currentTimeMillis();
+    for (String key : properties.stringPropertyNames()) {
+      String stored = properties.getProperty(key);
+      int separator = stored.indexOf(SEPARATOR);
+      if (separator <= 0) {
+        continue;
+      }
+      try {
+        Entry entry = new Entry(stored.substring(separator + 1),
+            Long.parseLong(stored.substring(0, separator)));
+        if (!isExpired(entry, now)) {
+          entries.put(key, entry);
+        }
+      } catch (NumberFormatException e) {
+        // Skip entries we did not write.
+      }
+    }
+    compact();
+  }
+
+  /**
+   * Appends a put, or a removal if the entry is null, to the file.
+   */
+  private void append(String key, Entry entry) {
+    if (file == null) {
+      return;
+    }
+    Map<String, Entry> change = new LinkedHashMap<String, Entry>();
+    change.put(key, entry);
+    try {
+      File dir = file.getAbsoluteFile().getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new IOException("Unable to create " + dir);
+      }
+      try (OutputStream out = new FileOutputStream(file, true)) {
+        out.write(toBytes(change));
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to persist cache {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Replaces the file with the live entries, if it is more than twice their size.
+   */
+  private void compact() {
+    try {
+      byte[] compacted = toBytes(entries);
+      if (file.length() <= 2L * compacted.length) {
+        return;
+      }
+      File dir = file.getAbsoluteFile().getParentFile();
+      File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+      try {
+        try (OutputStream out = new FileOutputStream(tmp)) {
+          out.write(compacted);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp.toPath());
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to compact cache {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Formats entries as properties, a null entry as a removal.
+   */
+  private static byte[] toBytes(Map<String, Entry> entries) throws IOException {
+    Properties properties = new Properties();
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      Entry value = entry.getValue();
+      properties.setProperty(entry.getKey(),
+          value == null ? "" : value.createdAt + String.valueOf(SEPARATOR) + value.value);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    properties.store(out, null);
+    // Leave out the timestamp comment store starts with, which would be repeated on every append
+    byte[] bytes = out.toByteArray();
+    int start = 0;
+    while (start < bytes.length && bytes[start] == '#') {
+      while (start < bytes.length && bytes[start++] != '\n') {
+        // skip the comment line
+      }
+    }
+    return Arrays.copyOfRange(bytes, start, bytes.length);
+  }
+
+  private static final class LruMap extends LinkedHashMap<String, Entry> {
+    private static final long serialVersionUID = 1L;
+    private final int maxSize;
+
+    private LruMap(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+  private static final class Entry {
+    private final String value;
+    private final long createdAt;
+
+    private Entry(String value, long createdAt) {
+      this.value = value;
+      this.createdAt = createdAt;
+    }
+  }
+}
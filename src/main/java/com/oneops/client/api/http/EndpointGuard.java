@@ -0,0 +1,366 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseBuilder;
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Header;
+import com.jayway.restassured.response.Headers;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+import com.oneops.client.api.http.RequestGovernor.EndpointClass;
+
+/**
+ * Keeps a slow or failing OneOps endpoint from blocking its callers.
+ *
+ * <p>
+ * Each request may be given the timeout of its endpoint class; there is none by default. A request
+ * that runs out of time is answered with a 504 Gateway Timeout carrying the
+ * {@value #ABANDONED} header, so callers fail the way they fail on any other server error; the
+ * request itself is abandoned to the socket timeout of the transport. As it may still reach the
+ * server, the retry policy does not resend an abandoned write.
+ *
+ * <p>
+ * Each endpoint, a method and a path with its numeric ids left out, has a circuit breaker. After
+ * consecutive timeouts, 502, 503 or 504 responses or I/O errors the circuit opens, and requests to
+ * the endpoint are answered at once with a 503 Service Unavailable whose Retry-After is the time
+ * left before the circuit lets one trial request through again. Other server errors are answers of
+ * a working endpoint, and don't count.
+ *
+ * <p>
+ * With hedging on, a GET that has not been answered after the 95th percentile latency of its
+ * endpoint is sent a second time, and the first response wins.
+ *
+ * <p>
+ * The guard should come after the retry policy, so that each attempt is timed on its own, and
+ * after the governor, so that the time spent waiting for a permit is not counted.
+ */
+public class EndpointGuard implements Filter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EndpointGuard.class);
+
+  private static final Pattern ID = Pattern.compile("/\\d+(?=/|$)");
+
+  /** Latencies kept for each endpoint, and the number needed before hedging. */
+  private static final int SAMPLES = 64;
+  private static final int MIN_SAMPLES = 20;
+
+  /** Set while a hedged request is sent, so that it is not guarded a second time. */
+  private static final ThreadLocal<Boolean> HEDGING = new ThreadLocal<Boolean>();
+
+  /** Header of the 504 answering a request that ran out of time, with the timeout in ms. */
+  public static final String ABANDONED = "X-OneOps-Abandoned-After";
+
+  private final Map<EndpointClass, Long> timeouts = new EnumMap<>(EndpointClass.class);
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+  private int failureThreshold = 5;
+  private long openMillis = TimeUnit.SECONDS.toMillis(30);
+  private boolean hedging;
+
+  /**
+   * Creates a guard with circuit breakers only: no timeouts and no hedging.
+   */
+  public EndpointGuard() {
+    for (EndpointClass endpointClass : EndpointClass.values()) {
+      timeouts.put(endpointClass, 0L);
+    }
+  }
+
+  /**
+   * @param endpointClass the endpoint class
+   * @param timeoutMillis how long its requests may take, 0 for no limit
+   */
+  public synchronized void setTimeout(EndpointClass endpointClass, long timeoutMillis) {
+    timeouts.put(endpointClass, Math.max(0, timeoutMillis));
+  }
+
+  public synchronized long getTimeout(EndpointClass endpointClass) {
+    return timeouts.get(endpointClass);
+  }
+
+  /**
+   * @param failureThreshold the consecutive failures opening the circuit of an endpoint
+   * @param openMillis how long the circuit stays open before a trial request
+   */
+  public synchronized void setCircuitBreaker(int failureThreshold, long openMillis) {
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * @param hedging whether slow GETs are sent a second time
+   */
+  public synchronized void setHedging(boolean hedging) {
+    this.hedging = hedging;
+  }
+
+  public synchronized boolean isHedging() {
+    return hedging;
+  }
+
+  /**
+   * @param method the request method
+   * @param path the request path
+   * @return the endpoint the request goes to, its path without numeric ids
+   */
+  static String endpointOf(Method method, String path) {
+    String bare = path;
+    int query = bare.indexOf('?');
+    if (query >= 0) {
+      bare = bare.substring(0, query);
+    }
+    return method + " " + ID.matcher(bare).replaceAll("/{id}");
+  }
+
+  @Override
+  public Response filter(final FilterableRequestSpecification requestSpec,
+      final FilterableResponseSpecification responseSpec, final FilterContext ctx) {
+    if (HEDGING.get() != null) {
+      return ctx.next(requestSpec, responseSpec);
+    }
+    Method method = requestSpec.getMethod();
+    String path = requestSpec.getDerivedPath();
+    String name = endpointOf(method, path);
+    Endpoint endpoint = endpoints.computeIfAbsent(name, key -> new Endpoint());
+    long now = System.currentTimeMillis();
+    long retryAfter = endpoint.acquire(now);
+    if (retryAfter > 0) {
+      LOG.debug("Circuit of {} is open, failing fast", name);
+      return unavailable(name, retryAfter);
+    }
+
+    long timeout = getTimeout(EndpointClass.of(method, path));
+    long hedgeAfter = method == Method.GET && isHedging() ? endpoint.hedgeDelay() : 0;
+    Response response;
+    try {
+      if (timeout == 0 && hedgeAfter == 0) {
+        response = ctx.next(requestSpec, responseSpec);
+      } else {
+        response = call(() -> ctx.next(requestSpec, responseSpec),
+            hedgeAfter == 0 ? null : () -> hedge(requestSpec), timeout, hedgeAfter, name);
+      }
+    } catch (RuntimeException | Error e) {
+      endpoint.release(false, 0, failureThreshold, openMillis);
+      throw e;
+    }
+    endpoint.release(!isFailure(response), System.currentTimeMillis() - now, failureThreshold,
+        openMillis);
+    return response;
+  }
+
+  /**
+   * @param response a response
+   * @return true if the response says the endpoint is down or overloaded, rather than answering
+   */
+  static boolean isFailure(Response response) {
+    if (response == null) {
+      return true;
+    }
+    int status = response.getStatusCode();
+    return status == 502 || status == 503 || status == 504;
+  }
+
+  /**
+   * @param response a response
+   * @return true if the response stands for a request abandoned after its timeout, which may still
+   *         reach the server
+   */
+  public static boolean isAbandoned(Response response) {
+    return response != null && response.getHeader(ABANDONED) != null;
+  }
+
+  /**
+   * Runs a request within its timeout, hedging it after a delay if asked to.
+   *
+   * @return the first response, or a 504 if there is none in time
+   */
+  private Response call(Callable<Response> request, Callable<Response> hedge, long timeoutMillis,
+      long hedgeAfterMillis, String name) {
+    CompletionService<Response> completion =
+        new ExecutorCompletionService<>(ExecutorHolder.EXECUTOR);
+    Future<Response> first = completion.submit(request);
+    Future<Response> second = null;
+    long deadline = timeoutMillis == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + timeoutMillis;
+    try {
+      Future<Response> done = null;
+      if (hedge != null) {
+        done = completion.poll(Math.min(hedgeAfterMillis, deadline - System.currentTimeMillis()),
+            TimeUnit.MILLISECONDS);
+        if (done == null && System.currentTimeMillis() < deadline) {
+          LOG.debug("Hedging {} after {} ms", name, hedgeAfterMillis);
+          second = completion.submit(hedge);
+        }
+      }
+      int pending = second == null ? 1 : 2;
+      ExecutionException failure = null;
+      while (pending > 0) {
+        if (done == null) {
+          done = timeoutMillis == 0 ? completion.take()
+              : completion.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (done == null) {
+          break;
+        }
+        pending--;
+        try {
+          return done.get();
+        } catch (ExecutionException e) {
+          // The other request may still succeed
+          failure = e;
+          done = null;
+        }
+      }
+      if (failure != null && pending == 0) {
+        throw EndpointGuard.<RuntimeException>sneakyThrow(failure.getCause());
+      }
+      LOG.debug("{} timed out after {} ms", name, timeoutMillis);
+      return timedOut(name, timeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return timedOut(name, timeoutMillis);
+    } finally {
+      first.cancel(true);
+      if (second != null) {
+        second.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Sends a copy of a GET, through all of its filters.
+   */
+  private static Response hedge(FilterableRequestSpecification requestSpec) {
+    HEDGING.set(Boolean.TRUE);
+    try {
+      return RestAssured.given()
+          .spec(new RequestSpecBuilder().addRequestSpecification(requestSpec).build())
+          .get(RetryPolicy.urlOf(requestSpec));
+    } finally {
+      HEDGING.remove();
+    }
+  }
+
+  /**
+   * Rethrows a request failure unchanged, as the chain throws its I/O errors undeclared.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends Throwable> T sneakyThrow(Throwable failure) throws T {
+    throw (T) failure;
+  }
+
+  private static Response timedOut(String name, long timeoutMillis) {
+    return new ResponseBuilder().setStatusCode(504)
+        .setStatusLine(
+            "HTTP/1.1 504 Gateway Timeout (" + name + " took over " + timeoutMillis + " ms)")
+        .setHeaders(new Headers(new Header(ABANDONED, String.valueOf(timeoutMillis))))
+        .setBody("").build();
+  }
+
+  private static Response unavailable(String name, long retryAfterMillis) {
+    return new ResponseBuilder().setStatusCode(503)
+        .setStatusLine("HTTP/1.1 503 Service Unavailable (circuit of " + name + " is open)")
+        .setHeaders(new Headers(new Header("Retry-After", String.valueOf(TimeUnit.MILLISECONDS
+            .toSeconds(retryAfterMillis + TimeUnit.SECONDS.toMillis(1) - 1)))))
+        .setBody("").build();
+  }
+
+  /**
+   * Runs the timed and hedged requests of all guards. Its threads are daemons and end once idle.
+   */
+  private static class ExecutorHolder {
+    static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("oneops-guard-%d").build());
+  }
+
+  /**
+   * The circuit and latencies of one endpoint.
+   */
+  private static class Endpoint {
+
+    private final long[] latencies = new long[SAMPLES];
+    private int samples;
+    private int failures;
+    private long openUntil;
+    private boolean trial;
+
+    /**
+     * @return 0 if a request may go, or else how long until the circuit lets one through
+     */
+    synchronized long acquire(long now) {
+      if (openUntil == 0) {
+        return 0;
+      }
+      if (now < openUntil) {
+        return openUntil - now;
+      }
+      if (trial) {
+        // Half open, with the trial request still running
+        return 1;
+      }
+      trial = true;
+      return 0;
+    }
+
+    synchronized void release(boolean success, long latencyMillis, int failureThreshold,
+        long openMillis) {
+      trial = false;
+      if (success) {
+        failures = 0;
+        openUntil = 0;
+        latencies[samples++ % SAMPLES] = latencyMillis;
+        return;
+      }
+      failures++;
+      if (openUntil != 0 || failures >= failureThreshold) {
+        openUntil = System.currentTimeMillis() + openMillis;
+      }
+    }
+
+    /**
+     * @return the 95th percentile latency, or 0 if there are too few samples
+     */
+    synchronized long hedgeDelay() {
+      int count = Math.min(samples, SAMPLES);
+      if (count < MIN_SAMPLES) {
+        return 0;
+      }
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      return Math.max(1, sorted[(int) Math.ceil(count * 0.95) - 1]);
+    }
+  }
+}
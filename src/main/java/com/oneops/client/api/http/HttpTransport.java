@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import com.jayway.restassured.config.RestAssuredConfig;
+
+/**
+ * Connection layer used by {@link com.oneops.client.api.APIClient} to talk to OneOps. A transport
+ * owns the underlying http client (connection pool, keep-alive, TLS setup) and applies it to the
+ * RestAssured configuration of every request.
+ */
+public interface HttpTransport {
+
+  /**
+   * Applies this transport to the given RestAssured configuration.
+   * 
+   * @param config base configuration
+   * @return configuration that sends requests through this transport
+   */
+  RestAssuredConfig configure(RestAssuredConfig config);
+
+  /**
+   * Releases pooled connections and background resources held by this transport.
+   */
+  void shutdown();
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.jayway.restassured.config.HttpClientConfig;
+import com.jayway.restassured.config.RestAssuredConfig;
+import com.jayway.restassured.config.SSLConfig;
+import com.oneops.client.api.OOInstance;
+
+/**
+ * Default {@link HttpTransport}: a keep-alive http client backed by a pooled connection manager.
+ * Transports are shared between all API clients created with the same connection settings, so
+ * connections and TLS sessions are reused across resources (Design, Transition, Operation...).
+ *
+ * <p>
+ * RestAssured 2.x casts the client of its {@link HttpClientConfig.HttpClientFactory} to
+ * {@code AbstractHttpClient} and only takes the old {@code SSLSocketFactory}, so the transport has
+ * to be built on the deprecated HttpClient 4.2 connection API. Those types are spelled out in full
+ * rather than imported, as javac 8 reports deprecated imports even under
+ * {@code @SuppressWarnings}.
+ */
+@SuppressWarnings("deprecation")
+public class PooledHttpTransport implements HttpTransport {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PooledHttpTransport.class);
+
+  private static final Map<String, PooledHttpTransport> TRANSPORTS =
+      new ConcurrentHashMap<String, PooledHttpTransport>();
+
+  private static final ScheduledExecutorService EVICTOR =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setNameFormat("oneops-http-evictor").setDaemon(true).build());
+
+  private final org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager;
+  private final org.apache.http.impl.client.DefaultHttpClient httpClient;
+  private final HttpClientConfig httpClientConfig;
+  private final SSLConfig sslConfig;
+  private final ScheduledFuture<?> eviction;
+
+  /**
+   * Creates a transport from the connection settings of the given instance.
+   * 
+   * @param instance OneOps instance holding the connection settings
+   */
+  public PooledHttpTransport(OOInstance instance) {
+    final long idleMillis = TimeUnit.SECONDS.toMillis(instance.getIdleConnectionTimeout());
+    org.apache.http.conn.ssl.SSLSocketFactory sslSocketFactory = createSslSocketFactory(instance);
+
+    org.apache.http.conn.scheme.SchemeRegistry registry =
+        new org.apache.http.conn.scheme.SchemeRegistry();
+    registry.register(new org.apache.http.conn.scheme.Scheme("http", 80,
+        org.apache.http.conn.scheme.PlainSocketFactory.getSocketFactory()));
+    registry.register(new org.apache.http.conn.scheme.Scheme("https", 443, sslSocketFactory));
+
+    connectionManager = new org.apache.http.impl.conn.PoolingClientConnectionManager(registry);
+    connectionManager.setDefaultMaxPerRoute(instance.getMaxConnectionsPerRoute());
+    connectionManager.setMaxTotal(
+        Math.max(instance.getMaxConnectionsTotal(), instance.getMaxConnectionsPerRoute()));
+
+    httpClient = new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+    httpClient.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration =
+            DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, idleMillis) : idleMillis;
+      }
+    });
+
+    httpClientConfig = HttpClientConfig.httpClientConfig().reuseHttpClientInstance()
+        .httpClientFactory(new HttpClientConfig.HttpClientFactory() {
+          @Override
+          public org.apache.http.impl.client.DefaultHttpClient createHttpClient() {
+            return httpClient;
+          }
+        });
+    sslConfig = SSLConfig.sslConfig().sslSocketFactory(sslSocketFactory);
+
+    long period = Math.max(1, instance.getIdleConnectionTimeout() / 2);
+    eviction = EVICTOR.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+      }
+    }, period, period, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Returns the transport shared by all instances with the same connection settings.
+   * 
+   * @param instance OneOps instance holding the connection settings
+   * @return shared transport
+   */
+  public static PooledHttpTransport forInstance(OOInstance instance) {
+    String key = keyOf(instance);
+    PooledHttpTransport transport = TRANSPORTS.get(key);
+    if (transport == null) {
+      synchronized (TRANSPORTS) {
+        transport = TRANSPORTS.get(key);
+        if (transport == null) {
+          transport = new PooledHttpTransport(instance);
+          TRANSPORTS.put(key, transport);
+        }
+      }
+    }
+    return transport;
+  }
+
+  /**
+   * @param instance OneOps instance holding the connection settings
+   * @return the key of the transports shared by instances with the same settings
+   */
+  static String keyOf(OOInstance instance) {
+    return instance.getMaxConnectionsPerRoute() + ":" + instance.getMaxConnectionsTotal() + ":"
+        + instance.getIdleConnectionTimeout() + ":" + instance.getSslSessionCacheSize() + ":"
+        + instance.getSslSessionTimeout() + ":" + instance.isRelaxedHttpsValidation();
+  }
+
+  @Override
+  public RestAssuredConfig configure(RestAssuredConfig config) {
+    return config.httpClient(httpClientConfig).sslConfig(sslConfig);
+  }
+
+  @Override
+  public void shutdown() {
+    TRANSPORTS.values().remove(this);
+    eviction.cancel(false);
+    connectionManager.shutdown();
+  }
+
+  /**
+   * Builds a single SSL socket factory so that TLS sessions are cached and resumed across
+   * connections instead of renegotiated for every new socket.
+   */
+  private static org.apache.http.conn.ssl.SSLSocketFactory createSslSocketFactory(
+      OOInstance instance) {
+    try {
+      SSLContext context = SSLContext.getInstance("TLS");
+      TrustManager[] trustManagers = null;
+      if (instance.isRelaxedHttpsValidation()) {
+        trustManagers = new TrustManager[] {new TrustAllManager()};
+      }
+      context.init(null, trustManagers, null);
+      if (instance.getSslSessionCacheSize() > 0) {
+        context.getClientSessionContext().setSessionCacheSize(instance.getSslSessionCacheSize());
+      }
+      if (instance.getSslSessionTimeout() > 0) {
+        context.getClientSessionContext().setSessionTimeout(instance.getSslSessionTimeout());
+      }
+      if (instance.isRelaxedHttpsValidation()) {
+        return new org.apache.http.conn.ssl.SSLSocketFactory(context,
+            org.apache.http.conn.ssl.SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+      }
+      return new org.apache.http.conn.ssl.SSLSocketFactory(context,
+          org.apache.http.conn.ssl.SSLSocketFactory.STRICT_HOSTNAME_VERIFIER);
+    } catch (GeneralSecurityException e) {
+      LOG.warn("Unable to initialize TLS context, falling back to system default", e);
+      return org.apache.http.conn.ssl.SSLSocketFactory.getSocketFactory();
+    }
+  }
+
+  /**
+   * Trust manager used when relaxed https validation is enabled.
+   */
+  private static class TrustAllManager implements X509TrustManager {
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+  }
+}
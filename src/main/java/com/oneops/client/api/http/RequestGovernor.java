@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Paces the requests of all the API clients sharing an instance, so that a highly parallel run
+ * does not overload the OneOps server. Requests fall into three endpoint classes: reads, writes,
+ * and commits and deployments. Each class can be given a token bucket rate and a cap on the
+ * requests in flight. The time requests spend waiting for either is recorded per class, so the
+ * limits can be tuned against what the server can take.
+ */
+public class RequestGovernor implements Filter {
+
+  /**
+   * The endpoint classes requests are paced by.
+   */
+  public enum EndpointClass {
+    READ, WRITE, DEPLOY;
+
+    /**
+     * @param method the request method
+     * @param path the request path
+     * @return the class of the request
+     */
+    public static EndpointClass of(Method method, String path) {
+      if (method == Method.GET || method == Method.HEAD || method == Method.OPTIONS) {
+        return READ;
+      }
+      String trimmed = path == null ? "" : path;
+      int query = trimmed.indexOf('?');
+      if (query >= 0) {
+        trimmed = trimmed.substring(0, query);
+      }
+      if (trimmed.endsWith("/commit") || trimmed.contains("/deployments")) {
+        return DEPLOY;
+      }
+      return WRITE;
+    }
+
+    /**
+     * @param name the class name, in any case
+     * @return the class, or null if there is no such class
+     */
+    public static EndpointClass forName(String name) {
+      for (EndpointClass endpointClass : values()) {
+        if (endpointClass.name().equals(name.toUpperCase(Locale.ENGLISH))) {
+          return endpointClass;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final Map<EndpointClass, Limit> limits =
+      new EnumMap<EndpointClass, Limit>(EndpointClass.class);
+  private final Map<EndpointClass, Stats> stats =
+      new EnumMap<EndpointClass, Stats>(EndpointClass.class);
+
+  public RequestGovernor() {
+    for (EndpointClass endpointClass : EndpointClass.values()) {
+      limits.put(endpointClass, new Limit(0, 0));
+      stats.put(endpointClass, new Stats());
+    }
+  }
+
+  /**
+   * Limits a class of endpoints. Takes effect for requests started afterwards.
+   * 
+   * @param endpointClass the endpoint class
+   * @param permitsPerSecond the requests started per second, or 0 for no limit
+   * @param maxInFlight the requests running at the same time, or 0 for no limit
+   */
+  public synchronized void setLimit(EndpointClass endpointClass, double permitsPerSecond,
+      int maxInFlight) {
+    limits.put(endpointClass, new Limit(permitsPerSecond, maxInFlight));
+  }
+
+  /**
+   * @param endpointClass the endpoint class
+   * @return the wait statistics of the class since the governor was created
+   */
+  public Stats getStats(EndpointClass endpointClass) {
+    return stats.get(endpointClass);
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    EndpointClass endpointClass =
+        EndpointClass.of(requestSpec.getMethod(), requestSpec.getDerivedPath());
+    Limit limit;
+    synchronized (this) {
+      limit = limits.get(endpointClass);
+    }
+    Stats classStats = stats.get(endpointClass);
+    long start = System.nanoTime();
+    if (limit.rate != null) {
+      limit.rate.acquire();
+    }
+    if (limit.inFlight != null) {
+      limit.inFlight.acquireUninterruptibly();
+    }
+    classStats.started(System.nanoTime() - start);
+    try {
+      return ctx.next(requestSpec, responseSpec);
+    } finally {
+      classStats.finished();
+      if (limit.inFlight != null) {
+        limit.inFlight.release();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (EndpointClass endpointClass : EndpointClass.values()) {
+      if (builder.length() > 0) {
+        builder.append(", ");
+      }
+      builder.append(endpointClass.name().toLowerCase(Locale.ENGLISH)).append(": ")
+          .append(stats.get(endpointClass));
+    }
+    return builder.toString();
+  }
+
+  private static class Limit {
+    private final RateLimiter rate;
+    private final Semaphore inFlight;
+
+    Limit(double permitsPerSecond, int maxInFlight) {
+      this.rate = permitsPerSecond > 0 ? RateLimiter.create(permitsPerSecond) : null;
+      this.inFlight = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+    }
+  }
+
+  /**
+   * How many requests of a class were sent and how long they waited for the limits.
+   */
+  public static class Stats {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    void started(long waited) {
+      requests.incrementAndGet();
+      waitNanos.addAndGet(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+      inFlight.incrementAndGet();
+    }
+
+    void finished() {
+      inFlight.decrementAndGet();
+    }
+
+    public long getRequests() {
+      return requests.get();
+    }
+
+    /**
+     * Total time requests waited for the rate and in-flight limits.
+     */
+    public long getTotalWaitMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    /**
+     * Longest time a single request waited for the limits.
+     */
+    public long getMaxWaitMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * Requests sent and not answered yet.
+     */
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d requests, waited %d ms in total, %d ms at most", getRequests(),
+          getTotalWaitMillis(), getMaxWaitMillis());
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.utils.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jayway.restassured.filter.Filter;
+import com.jayway.restassured.filter.FilterContext;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.FilterableRequestSpecification;
+import com.jayway.restassured.specification.FilterableResponseSpecification;
+import com.oneops.client.api.util.Watcher;
+
+/**
+ * Retries requests that failed for a transient reason, with jittered exponential backoff and a
+ * time budget per request.
+ *
+ * <p>
+ * Only idempotent requests (GET, HEAD, OPTIONS, PUT and DELETE) are retried after a 502, 503 or
+ * 504 or after an I/O error, as the server may have acted on them before failing. Other requests,
+ * such as creating something or starting a deployment, are retried only when the server cannot
+ * have seen them: the connection was refused, or the server answered 429 Too Many Requests. A
+ * Retry-After header is honored when it fits in the budget. Writes which timed out in the
+ * {@link EndpointGuard} are not retried, as they may still be running.
+ *
+ * <p>
+ * A retry sends the request again through all its filters, so the policy should be the first
+ * filter of the request: each attempt is then paced and revalidated like a new request.
+ */
+public class RetryPolicy implements Filter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RetryPolicy.class);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final String RETRY_AFTER = "Retry-After";
+
+  /** Set while a retry is sent, so that the policy does not retry the retry itself. */
+  private static final ThreadLocal<Boolean> RETRYING = new ThreadLocal<Boolean>();
+
+  /**
+   * Four attempts, backing off from half a second up to eight, within a minute per request.
+   */
+  public static final RetryPolicy DEFAULT =
+      new RetryPolicy(4, 500, 8000, TimeUnit.MINUTES.toMillis(1));
+
+  private final int maxAttempts;
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final long budgetMillis;
+
+  /**
+   * @param maxAttempts the max number of times a request is sent, 1 for no retries
+   * @param initialDelayMillis the delay before the first retry
+   * @param maxDelayMillis the largest delay between retries
+   * @param budgetMillis how long a request may take with all its retries and delays
+   */
+  public RetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis,
+      long budgetMillis) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.initialDelayMillis = initialDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.budgetMillis = budgetMillis;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * @param method the request method
+   * @return true if sending the request twice has the same effect as sending it once
+   */
+  public static boolean isIdempotent(Method method) {
+    return method == Method.GET || method == Method.HEAD || method == Method.OPTIONS
+        || method == Method.PUT || method == Method.DELETE;
+  }
+
+  @Override
+  public Response filter(FilterableRequestSpecification requestSpec,
+      FilterableResponseSpecification responseSpec, FilterContext ctx) {
+    if (RETRYING.get() != null) {
+      return ctx.next(requestSpec, responseSpec);
+    }
+    boolean idempotent = isIdempotent(requestSpec.getMethod());
+    long deadline = System.currentTimeMillis() + budgetMillis;
+    Watcher backoff = new Watcher(initialDelayMillis, maxDelayMillis, 0);
+    for (int attempt = 1;; attempt++) {
+      Response response;
+      try {
+        response = attempt == 1 ? ctx.next(requestSpec, responseSpec)
+            : resend(requestSpec, urlOf(requestSpec));
+      } catch (Exception e) {
+        // The chain throws I/O errors undeclared; anything not retried is rethrown unchanged
+        if (!isRetryable(e, idempotent) || attempt >= maxAttempts
+            || !sleep(backoff.nextDelay(), deadline, requestSpec, e.toString())) {
+          throw e;
+        }
+        continue;
+      }
+      int status = response.getStatusCode();
+      boolean retryable = status == TOO_MANY_REQUESTS
+          || (idempotent && (status == 502 || status == 503 || status == 504)
+              && !isInFlight(requestSpec.getMethod(), response));
+      if (!retryable || attempt >= maxAttempts) {
+        return response;
+      }
+      long delay = Math.max(backoff.nextDelay(), retryAfterMillis(response.getHeader(RETRY_AFTER)));
+      if (!sleep(delay, deadline, requestSpec, response.getStatusLine())) {
+        return response;
+      }
+    }
+  }
+
+  /**
+   * @param requestSpec the request
+   * @return the absolute url of the request, without the query parameters the request adds again
+   *         when it is sent
+   */
+  static String urlOf(FilterableRequestSpecification requestSpec) {
+    String url = requestSpec.getURI();
+    int query = url.indexOf('?');
+    return query >= 0 ? url.substring(0, query) : url;
+  }
+
+  /**
+   * Sends the request again, through all of its filters.
+   * 
+   * @param requestSpec the request
+   * @param path the request url
+   * @return the response
+   */
+  private static Response resend(FilterableRequestSpecification requestSpec, String path) {
+    RETRYING.set(Boolean.TRUE);
+    try {
+      switch (requestSpec.getMethod()) {
+        case GET:
+          return requestSpec.get(path);
+        case POST:
+          return requestSpec.post(path);
+        case PUT:
+          return requestSpec.put(path);
+        case DELETE:
+          return requestSpec.delete(path);
+        case HEAD:
+          return requestSpec.head(path);
+        case PATCH:
+          return requestSpec.patch(path);
+        default:
+          return requestSpec.options(path);
+      }
+    } finally {
+      RETRYING.remove();
+    }
+  }
+
+  /**
+   * @param method the request method
+   * @param response the response
+   * @return true if the request is a write which the {@link EndpointGuard} abandoned after its
+   *         timeout, and which may still be carried out: sending it again could run it twice at
+   *         the same time
+   */
+  static boolean isInFlight(Method method, Response response) {
+    return method != Method.GET && method != Method.HEAD && method != Method.OPTIONS
+        && EndpointGuard.isAbandoned(response);
+  }
+
+  /**
+   * @param failure the failure of a request
+   * @param idempotent whether the request is idempotent
+   * @return true if the request may be sent again
+   */
+  static boolean isRetryable(Throwable failure, boolean idempotent) {
+    return failure instanceof ConnectException || (idempotent && failure instanceof IOException);
+  }
+
+  /**
+   * Waits before a retry, unless that would overrun the deadline.
+   * 
+   * @return true if the request should be sent again
+   */
+  private static boolean sleep(long delayMillis, long deadline,
+      FilterableRequestSpecification requestSpec, String cause) {
+    if (System.currentTimeMillis() + delayMillis > deadline) {
+      return false;
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Retrying {} {} in {} ms after {}", requestSpec.getMethod(),
+          requestSpec.getURI(), delayMillis, cause);
+    }
+    try {
+      Thread.sleep(delayMillis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * @param retryAfter a Retry-After header, in seconds or as an http date
+   * @return the delay it asks for, or 0 if there is none
+   */
+  static long retryAfterMillis(String retryAfter) {
+    if (retryAfter == null || retryAfter.trim().isEmpty()) {
+      return 0;
+    }
+    try {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+    } catch (NumberFormatException e) {
+      Date date = DateUtils.parseDate(retryAfter.trim());
+      return date == null ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+  }
+}
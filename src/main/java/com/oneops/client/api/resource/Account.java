@@ -36,7 +36,7 @@ public class Account extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listEnvironmentProfiles() throws OneOpsClientAPIException {
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createCachedRequest();
     Response response = request.get(ACCOUNT_URI + "environments");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -14,10 +14,9 @@
 package com.oneops.client.api.resource;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
-import org.json.JSONObject;
-
 import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
@@ -25,7 +24,9 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CmsCI;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.ModelParser;
 
 public class Assembly extends APIClient {
 
@@ -35,6 +36,9 @@ public class Assembly extends APIClient {
     super(instance);
   }
 
+  /** Requests made by {@link #getAssembly(String)}. */
+  public static final int GET_ASSEMBLY_CALLS = 1;
+
   /**
    * Fetches specific assembly details
    * 
@@ -71,11 +75,25 @@ public class Assembly extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listAssemblies() throws OneOpsClientAPIException {
+    return assembliesResponse().getBody().jsonPath();
+  }
+
+  /**
+   * Lists all the assemblies as typed models
+   * 
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public List<CmsCI> fetchAssemblies() throws OneOpsClientAPIException {
+    return ModelParser.parseCis(assembliesResponse().asByteArray());
+  }
+
+  private Response assembliesResponse() throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     Response response = request.get(ASSEMBLY_URI);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get list of assemblies due to %s", response.getStatusLine());
@@ -87,6 +105,9 @@ public class Assembly extends APIClient {
   }
 
 
+  /** Requests made by {@link #createAssembly}. */
+  public static final int CREATE_ASSEMBLY_CALLS = 1;
+
   /**
    * Creates assembly for the given @assemblyName
    * 
@@ -124,8 +145,8 @@ public class Assembly extends APIClient {
     ro.setAttributes(attributes);
 
     RequestSpecification request = createRequest();
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_ci");
-    Response response = request.body(jsonObject.toString()).post(ASSEMBLY_URI);
+    byte[] body = JsonUtil.toJson(ro, "cms_ci");
+    Response response = request.body(body).post(ASSEMBLY_URI);
 
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
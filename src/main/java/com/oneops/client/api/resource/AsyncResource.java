@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * Base class of the asynchronous resource views ({@link DesignAsync}, {@link TransitionAsync},
+ * {@link OperationAsync}).
+ * 
+ * <p>
+ * Unless another executor is given, calls run on one executor shared by all views. It is bounded
+ * both in threads ({@value #DEFAULT_THREADS} by default, overridable with the
+ * {@value #THREADS_PROPERTY} system property) and in queued calls; once the queue is full the
+ * submitting thread runs the call itself, which throttles producers instead of piling up requests.
+ * </p>
+ */
+public abstract class AsyncResource {
+
+  public static final String THREADS_PROPERTY = "oneops.api.async.threads";
+  public static final int DEFAULT_THREADS = 16;
+  private static final int QUEUE_SIZE = 1024;
+
+  private final Executor executor;
+
+  protected AsyncResource(Executor executor) {
+    this.executor = executor;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Returns the executor shared by all asynchronous resource views.
+   * 
+   * @return shared bounded executor
+   */
+  public static ExecutorService sharedExecutor() {
+    return SharedExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * Runs a blocking API call on this view's executor.
+   * 
+   * @param call blocking call
+   * @return future completed with the call result
+   */
+  protected <T> CompletableFuture<T> call(final ApiCall<T> call) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return call.call();
+      } catch (OneOpsClientAPIException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * A blocking OneOps API call.
+   */
+  @FunctionalInterface
+  protected interface ApiCall<T> {
+    T call() throws OneOpsClientAPIException;
+  }
+
+  private static class SharedExecutorHolder {
+    static final ExecutorService EXECUTOR = create();
+
+    private static ExecutorService create() {
+      int threads = Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS);
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L,
+          TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+          new ThreadFactoryBuilder().setNameFormat("oneops-api-%d").setDaemon(true).build(),
+          new ThreadPoolExecutor.CallerRunsPolicy());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+}
@@ -13,19 +13,83 @@
  */
 package com.oneops.client.api.resource;
 
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
 import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
+import com.oneops.client.api.cache.LookupCache;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
 
 public class Cloud extends APIClient {
 
   private static final String CLOUD_URI = "/clouds/";
 
+  private static final Map<String, LookupCache> CLOUD_IDS =
+      new ConcurrentHashMap<String, LookupCache>();
+
+  private final LookupCache cloudIds;
+
   public Cloud(OOInstance instance) throws OneOpsClientAPIException {
     super(instance);
+    this.cloudIds = cloudIds(instance, getBaseUri());
+  }
+
+  /**
+   * The cloud id cache of an organization, shared by all the clients of that organization
+   */
+  private static LookupCache cloudIds(OOInstance instance, String baseUri) {
+    LookupCache cache = CLOUD_IDS.get(baseUri);
+    if (cache == null) {
+      File file = null;
+      if (instance.getCacheDir() != null) {
+        file = new File(instance.getCacheDir(),
+            "clouds-" + baseUri.replaceAll("[^A-Za-z0-9.-]+", "_") + ".properties");
+      }
+      cache = new LookupCache(TimeUnit.SECONDS.toMillis(instance.getCloudCacheTtl()),
+          instance.getCloudCacheSize(), file);
+      LookupCache existing = CLOUD_IDS.putIfAbsent(baseUri, cache);
+      if (existing != null) {
+        cache = existing;
+      }
+    }
+    return cache;
+  }
+
+  /** Requests made by {@link #getCloudId(String)} for a name not cached yet. */
+  public static final int GET_CLOUD_ID_CALLS = 1;
+
+  /**
+   * Gets the ciId of a cloud. Cloud ids don't change, so each name is fetched once and then served
+   * from a cache shared by the clients of the organization, optionally persisted between runs.
+   * 
+   * @param cloudName
+   * @return the cloud ciId
+   * @throws OneOpsClientAPIException
+   */
+  public String getCloudId(String cloudName) throws OneOpsClientAPIException {
+    String ciId = cloudIds.get(cloudName);
+    if (ciId == null) {
+      ciId = getCloud(cloudName).getString("ciId");
+      if (ciId != null) {
+        cloudIds.put(cloudName, ciId);
+      }
+    }
+    return ciId;
+  }
+
+  /**
+   * Forgets the cached ciId of a cloud, for instance after the cloud was recreated
+   * 
+   * @param cloudName
+   */
+  public void invalidateCloudId(String cloudName) {
+    cloudIds.invalidate(cloudName);
   }
 
   /**
@@ -63,7 +127,7 @@ public class Cloud extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listClouds() throws OneOpsClientAPIException {
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createCachedRequest();
     Response response = request.get(CLOUD_URI);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
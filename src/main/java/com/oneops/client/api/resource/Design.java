@@ -13,9 +13,12 @@
  */
 package com.oneops.client.api.resource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.json.JSONObject;
@@ -30,13 +33,17 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Release;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.ModelParser;
 
 
 public class Design extends APIClient {
   private static final Logger LOG = LoggerFactory.getLogger(Design.class);
   private String DESIGN_RELEASE_URI;
   private String DESIGN_URI;
+  private final Map<String, String> templates = new ConcurrentHashMap<String, String>();
 
   public Design(OOInstance instance, String assemblyName) throws OneOpsClientAPIException {
     super(instance);
@@ -48,6 +55,41 @@ public class Design extends APIClient {
     DESIGN_URI = Assembly.ASSEMBLY_URI + assemblyName + "/design/";
   }
 
+  /** Requests made for each new.json template a client fetches. */
+  public static final int TEMPLATE_CALLS = 1;
+
+  /**
+   * Fetches a new.json template. Templates only depend on the platform pack, so each one is
+   * fetched once per assembly, platform and template name and then reused for every add done with
+   * this client. Across runs the fetch is a conditional request answered from the http cache.
+   * 
+   * @param uri
+   * @param templateName the template_name parameter, or null
+   * @return the template, or null on a null response
+   */
+  private JsonPath getTemplate(String uri, String templateName) {
+    String key = templateName == null ? uri : uri + "?template_name=" + templateName;
+    String body = templates.get(key);
+    if (body == null) {
+      RequestSpecification request = createCachedRequest();
+      if (templateName != null) {
+        request.queryParam("template_name", templateName);
+      }
+      Response response = request.get(uri);
+      if (response == null) {
+        return null;
+      }
+      body = response.getBody().asString();
+      if (response.getStatusCode() == 200) {
+        templates.put(key, body);
+      }
+    }
+    return new JsonPath(body);
+  }
+
+  /** Requests made by {@link #getPlatform(String)}. */
+  public static final int GET_PLATFORM_CALLS = 1;
+
   /**
    * Fetches specific platform details
    * 
@@ -61,7 +103,7 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createCachedRequest();
     Response response = request.get(DESIGN_URI + "platforms/" + platformName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -84,11 +126,28 @@ public class Design extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listPlatforms() throws OneOpsClientAPIException {
-    RequestSpecification request = createRequest();
+    return platformsResponse().getBody().jsonPath();
+  }
+
+  /** Requests made by {@link #fetchPlatforms()}. */
+  public static final int FETCH_PLATFORMS_CALLS = 1;
+
+  /**
+   * Lists all the platforms as typed models
+   * 
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public List<CmsCI> fetchPlatforms() throws OneOpsClientAPIException {
+    return ModelParser.parseCis(platformsResponse().asByteArray());
+  }
+
+  private Response platformsResponse() throws OneOpsClientAPIException {
+    RequestSpecification request = createCachedRequest();
     Response response = request.get(DESIGN_URI + "platforms");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get list of platforms due to %s", response.getStatusLine());
@@ -100,6 +159,9 @@ public class Design extends APIClient {
   }
 
 
+  /** Requests made by {@link #createPlatform}. */
+  public static final int CREATE_PLATFORM_CALLS = 1;
+
   /**
    * Creates platform within the given assembly
    * 
@@ -158,8 +220,8 @@ public class Design extends APIClient {
     ownerProps.put("description", "");
     ro.setOwnerProps(ownerProps);
     RequestSpecification request = createRequest();
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-    Response response = request.body(jsonObject.toString()).post(DESIGN_URI + "platforms/");
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+    Response response = request.body(body).post(DESIGN_URI + "platforms/");
 
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -177,6 +239,12 @@ public class Design extends APIClient {
 
 
 
+  /**
+   * Requests made by {@link #commitDesign()} when the release is open: the release, then its
+   * commit.
+   */
+  public static final int COMMIT_DESIGN_CALLS = 2;
+
   /**
    * Commits design open releases
    * 
@@ -217,6 +285,45 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Fetches the latest design release
+   * 
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public JsonPath getLatestRelease() throws OneOpsClientAPIException {
+    return latestReleaseResponse().getBody().jsonPath();
+  }
+
+  /** Requests made by {@link #fetchLatestRelease()}. */
+  public static final int FETCH_LATEST_RELEASE_CALLS = 1;
+
+  /**
+   * Fetches the latest design release as a typed model
+   * 
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Release fetchLatestRelease() throws OneOpsClientAPIException {
+    return ModelParser.parseRelease(latestReleaseResponse().asByteArray());
+  }
+
+  private Response latestReleaseResponse() throws OneOpsClientAPIException {
+    RequestSpecification request = createRequest();
+    Response response = request.get(DESIGN_RELEASE_URI + "latest");
+    if (response != null) {
+      if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
+        return response;
+      } else {
+        String msg = String.format("Failed to get latest release details due to %s",
+            response.getStatusLine());
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+    String msg = String.format("Failed to get latest release details due to null response");
+    throw new OneOpsClientAPIException(msg);
+  }
+
   /**
    * Deletes the given platform
    * 
@@ -245,6 +352,9 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #deletePlatformComponent}: the component, then the delete. */
+  public static final int DELETE_PLATFORM_COMPONENT_CALLS = 2;
+
   /**
    * Deletes the platform component
    * 
@@ -301,10 +411,17 @@ public class Design extends APIClient {
       String msg = String.format("Missing variable name to delete");
       throw new OneOpsClientAPIException(msg);
     }
-    JsonPath variableDetails = getPlatformComponent(platformName, variableName);
+    RequestSpecification request = createRequest();
+    Response variable =
+        request.get(DESIGN_URI + "platforms/" + platformName + "/variables/" + variableName);
+    if (variable != null && variable.getStatusCode() != 200 && variable.getStatusCode() != 302) {
+      String msg = String.format("Failed to get variable with name %s due to %s", variableName,
+          variable.getStatusLine());
+      throw new OneOpsClientAPIException(msg);
+    }
+    JsonPath variableDetails = variable == null ? null : variable.getBody().jsonPath();
     if (variableDetails != null) {
       String ciId = variableDetails.getString("ciId");
-      RequestSpecification request = createRequest();
       Response response =
           request.delete(DESIGN_URI + "platforms/" + platformName + "/variables/" + ciId);
       if (response != null) {
@@ -322,6 +439,9 @@ public class Design extends APIClient {
   }
 
 
+  /** Requests made by {@link #listPlatformComponents(String)}. */
+  public static final int LIST_PLATFORM_COMPONENTS_CALLS = 1;
+
   /**
    * List platform components for a given assembly/design/platform
    * 
@@ -350,8 +470,33 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #listPlatformComponentAttachments}: the component, then its
+   * attachments.
+   */
+  public static final int LIST_PLATFORM_COMPONENT_ATTACHMENTS_CALLS = 2;
+
   public JsonPath listPlatformComponentAttachments(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return componentAttachmentsResponse(platformName, componentName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists all the attachments of a platform component as typed models
+   * 
+   * @param platformName
+   * @param componentName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public List<CmsCI> fetchPlatformComponentAttachments(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return ModelParser
+        .parseCis(componentAttachmentsResponse(platformName, componentName).asByteArray());
+  }
+
+  private Response componentAttachmentsResponse(String platformName, String componentName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to update component attributes");
       throw new OneOpsClientAPIException(msg);
@@ -370,7 +515,7 @@ public class Design extends APIClient {
           DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments.json");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-          return response.getBody().jsonPath();
+          return response;
         } else {
           String msg = String.format("Failed to get update component %s due to %s", componentName,
               response.getStatusLine());
@@ -383,6 +528,12 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #addPlatformComponentAttachment}: the component, then the add. The
+   * template costs {@link #TEMPLATE_CALLS} more the first time.
+   */
+  public static final int ADD_PLATFORM_COMPONENT_ATTACHMENT_CALLS = 2;
+
   public JsonPath addPlatformComponentAttachment(String platformName, String componentName,
       String uniqueName, Map<String, String> attributes) throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
@@ -394,22 +545,23 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createRequest().queryParam("template_name", componentName);
     JsonPath componentDetails = getPlatformComponent(platformName, componentName);
     if (componentDetails == null) {
       String msg = new String("Cannot find component");
       throw new OneOpsClientAPIException(msg);
     }
     String ciId = componentDetails.getString("ciId");
-    Response newComponentResponse = request.queryParam("template_name", componentName).get(
-        DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments/new.json");
-    if (newComponentResponse != null) {
+    JsonPath template = getTemplate(
+        DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments/new.json",
+        componentName);
+    if (template != null) {
       ResourceObject ro = new ResourceObject();
       Map<String, String> properties = Maps.newHashMap();
       properties.put("ciName", uniqueName);
       properties.put("rfcAction", "add");
 
-      componentDetails = newComponentResponse.getBody().jsonPath();
+      componentDetails = template;
       Map<String, String> attr = componentDetails.getMap("ciAttributes");
       if (attr == null) {
         attr = Maps.newHashMap();
@@ -427,10 +579,11 @@ public class Design extends APIClient {
       }
       ro.setAttributes(attr);
       ro.setProperties(properties);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      jsonObject.put("template_name", componentName);
-      LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
-      Response response = request.body(jsonObject.toString())
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci", "template_name", componentName);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Json in addPlatformComponent {}", new String(body, StandardCharsets.UTF_8));
+      }
+      Response response = request.body(body)
           .post(DESIGN_URI + "platforms/" + platformName + "/components/" + ciId + "/attachments");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -448,6 +601,12 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #updatePlatformComponentAttachment}: the component, the attachment,
+   * then the update.
+   */
+  public static final int UPDATE_PLATFORM_COMPONENT_ATTACHMENT_CALLS = 3;
+
   public JsonPath updatePlatformComponentAttachment(String platformName, String componentName,
       String uniqueName, Map<String, String> attributes) throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
@@ -495,10 +654,11 @@ public class Design extends APIClient {
       }
       ro.setAttributes(attr);
       ro.setProperties(properties);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      jsonObject.put("template_name", componentName);
-      LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
-      Response response = request.body(jsonObject.toString()).put(DESIGN_URI + "platforms/"
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci", "template_name", componentName);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Json in addPlatformComponent {}", new String(body, StandardCharsets.UTF_8));
+      }
+      Response response = request.body(body).put(DESIGN_URI + "platforms/"
           + platformName + "/components/" + ciId + "/attachments/" + ciId2);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -516,6 +676,9 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #getPlatformComponent} and {@link #fetchPlatformComponent}. */
+  public static final int GET_PLATFORM_COMPONENT_CALLS = 1;
+
   /**
    * Get platform component details for a given assembly/design/platform
    * 
@@ -526,6 +689,25 @@ public class Design extends APIClient {
    */
   public JsonPath getPlatformComponent(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return platformComponentResponse(platformName, componentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches a platform component as a typed model
+   * 
+   * @param platformName
+   * @param componentName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public CmsCI fetchPlatformComponent(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return ModelParser
+        .parseCi(platformComponentResponse(platformName, componentName).asByteArray());
+  }
+
+  private Response platformComponentResponse(String platformName, String componentName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to get platform component details");
       throw new OneOpsClientAPIException(msg);
@@ -539,7 +721,7 @@ public class Design extends APIClient {
         request.get(DESIGN_URI + "platforms/" + platformName + "/components/" + componentName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get platform component details due to %s",
             response.getStatusLine());
@@ -583,6 +765,12 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #addPlatformComponent}. The template costs {@link #TEMPLATE_CALLS} more
+   * the first time.
+   */
+  public static final int ADD_PLATFORM_COMPONENT_CALLS = 1;
+
   /**
    * Add component to a given assembly/design/platform
    * 
@@ -603,18 +791,18 @@ public class Design extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createRequest().queryParam("template_name", componentName);
 
-    Response newComponentResponse = request.queryParam("template_name", componentName)
-        .get(DESIGN_URI + "platforms/" + platformName + "/components/new.json");
+    JsonPath componentDetails =
+        getTemplate(DESIGN_URI + "platforms/" + platformName + "/components/new.json",
+            componentName);
 
-    if (newComponentResponse != null) {
+    if (componentDetails != null) {
       ResourceObject ro = new ResourceObject();
       Map<String, String> properties = Maps.newHashMap();
       properties.put("ciName", uniqueName);
       properties.put("rfcAction", "add");
 
-      JsonPath componentDetails = newComponentResponse.getBody().jsonPath();
       Map<String, String> attr = componentDetails.getMap("ciAttributes");
       if (attr == null) {
         attr = Maps.newHashMap();
@@ -633,10 +821,11 @@ public class Design extends APIClient {
       }
       ro.setAttributes(attr);
       ro.setProperties(properties);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      jsonObject.put("template_name", componentName);
-      LOG.debug("Json in addPlatformComponent {}", jsonObject.toString());
-      Response response = request.body(jsonObject.toString())
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci", "template_name", componentName);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Json in addPlatformComponent {}", new String(body, StandardCharsets.UTF_8));
+      }
+      Response response = request.body(body)
           .post(DESIGN_URI + "platforms/" + platformName + "/components/");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -654,6 +843,9 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #updatePlatformComponent}: the component, then the update. */
+  public static final int UPDATE_PLATFORM_COMPONENT_CALLS = 2;
+
   /**
    * Update component attributes for a given assembly/design/platform/component
    * 
@@ -699,8 +891,8 @@ public class Design extends APIClient {
       }
       ro.setOwnerProps(ownerProps);
       ro.setAttributes(attr);
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      Response response = request.body(jsonObject.toString())
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+      Response response = request.body(body)
           .put(DESIGN_URI + "platforms/" + platformName + "/components/" + ciId);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -717,6 +909,9 @@ public class Design extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #listPlatformVariables(String)}. */
+  public static final int LIST_PLATFORM_VARIABLES_CALLS = 1;
+
   /**
    * List local variables for a given assembly/design/platform
    * 
@@ -788,6 +983,108 @@ public class Design extends APIClient {
     return success;
   }
 
+  /**
+   * Requests made by {@link #upsertPlatformVariables} for each variable added, updated or removed,
+   * besides the listing and, when adding, the template.
+   */
+  public static final int PLATFORM_VARIABLE_WRITE_CALLS = 1;
+
+  /**
+   * Brings the local variables of a platform to the given values with a single list request.
+   * Only the variables which are missing or differ are written, concurrently, and with removeStale
+   * the variables in neither map are deleted in the same pass. Secure values can't be read back,
+   * so secure variables are always written. A name in both maps is rejected before any request.
+   * 
+   * @param platformName
+   * @param variables the variables, may be null
+   * @param secureVariables the secure variables, may be null
+   * @param removeStale whether to delete the variables in neither map
+   * @param parallelism the max number of writes at the same time
+   * @return the number of variables added, updated or deleted
+   * @throws OneOpsClientAPIException
+   */
+  public int upsertPlatformVariables(String platformName, Map<String, String> variables,
+      Map<String, String> secureVariables, boolean removeStale, int parallelism)
+      throws OneOpsClientAPIException {
+    if (platformName == null || platformName.length() == 0) {
+      String msg = String.format("Missing platform name to update variables");
+      throw new OneOpsClientAPIException(msg);
+    }
+    PlatformVariables.checkDistinct(platformName, variables, secureVariables);
+    Map<String, Map<String, Object>> current =
+        PlatformVariables.byName(listPlatformVariables(platformName));
+
+    WriteBatch batch = new WriteBatch(parallelism);
+    addVariableWrites(batch, platformName, variables, false, current);
+    addVariableWrites(batch, platformName, secureVariables, true, current);
+    if (removeStale) {
+      for (Entry<String, Map<String, Object>> entry : current.entrySet()) {
+        final String key = entry.getKey();
+        if ((variables == null || !variables.containsKey(key))
+            && (secureVariables == null || !secureVariables.containsKey(key))) {
+          final String ciId = String.valueOf(entry.getValue().get("ciId"));
+          batch.add(key, () -> deletePlatformVariable(platformName, key, ciId));
+        }
+      }
+    }
+    batch.runOrThrow("update variables of platform " + platformName);
+    return batch.size();
+  }
+
+  /**
+   * Adds the writes of the variables of one kind which are missing or differ to a batch.
+   * 
+   * @param batch
+   * @param platformName
+   * @param variables
+   * @param isSecure
+   * @param current the current variables by name
+   */
+  private void addVariableWrites(WriteBatch batch, final String platformName,
+      Map<String, String> variables, final boolean isSecure,
+      Map<String, Map<String, Object>> current) {
+    if (variables == null) {
+      return;
+    }
+    for (Entry<String, String> entry : variables.entrySet()) {
+      final String key = entry.getKey();
+      final String value = entry.getValue();
+      Map<String, Object> ci = current.get(key);
+      if (ci == null) {
+        batch.add(key, () -> addPlatformVariable(platformName, key, value, isSecure));
+        continue;
+      }
+      if (PlatformVariables.isUnchanged(ci, value, isSecure)) {
+        continue;
+      }
+      final Map<String, String> attr = PlatformVariables.attributes(ci);
+      final String ciId = String.valueOf(ci.get("ciId"));
+      batch.add(key,
+          () -> updatePlatformVariable(platformName, ciId, attr, key, value, isSecure));
+    }
+  }
+
+  /**
+   * Deletes a platform variable whose ciId is known.
+   * 
+   * @param platformName
+   * @param variableName
+   * @param ciId
+   * @throws OneOpsClientAPIException
+   */
+  private void deletePlatformVariable(String platformName, String variableName, String ciId)
+      throws OneOpsClientAPIException {
+    RequestSpecification request = createRequest();
+    LOG.info("Deleting variable id " + ciId + " with key " + variableName);
+    Response response =
+        request.delete(DESIGN_URI + "platforms/" + platformName + "/variables/" + ciId);
+    if (response != null && response.getStatusCode() != 200 && response.getStatusCode() != 302) {
+      String msg = String.format("Failed to delete variable with name %s due to %s", variableName,
+          response.getStatusLine());
+      throw new OneOpsClientAPIException(msg);
+    }
+  }
+
   /**
    *
    * @param platformName
@@ -815,12 +1112,12 @@ public class Design extends APIClient {
     ResourceObject ro = new ResourceObject();
     ro.setAttributes(attributes);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
     RequestSpecification request = createRequest();
 
     LOG.info("Updating variable id " + variableCiId + " with key " + key);
-    Response response = request.body(jsonObject.toString())
+    Response response = request.body(body)
             .put(DESIGN_URI + "platforms/" + platformName + "/variables/" + variableCiId);
     if (response != null) {
       if (response.getStatusCode() != 200 && response.getStatusCode() != 302) {
@@ -842,33 +1139,30 @@ public class Design extends APIClient {
   private void addPlatformVariable(String platformName, String key, String value, boolean isSecure) throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     ResourceObject ro = new ResourceObject();
-    Response newVarResponse =
-            request.get(DESIGN_URI + "platforms/" + platformName + "/variables/new.json");
-    if (newVarResponse != null) {
-      JsonPath newVarJsonPath = newVarResponse.getBody().jsonPath();
-      if (newVarJsonPath != null) {
-        Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
-        Map<String, String> properties = Maps.newHashMap();
-        if (attr == null) {
-          attr = Maps.newHashMap();
-        }
-        if (isSecure) {
-          attr.put("secure", "true");
-          attr.put("encrypted_value", value);
-        } else {
-          attr.put("secure", "false");
-          attr.put("value", value);
-        }
-
-        properties.put("ciName", key);
-        ro.setProperties(properties);
-        ro.setAttributes(attr);
+    JsonPath newVarJsonPath =
+            getTemplate(DESIGN_URI + "platforms/" + platformName + "/variables/new.json", null);
+    if (newVarJsonPath != null) {
+      Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
+      Map<String, String> properties = Maps.newHashMap();
+      if (attr == null) {
+        attr = Maps.newHashMap();
+      }
+      if (isSecure) {
+        attr.put("secure", "true");
+        attr.put("encrypted_value", value);
+      } else {
+        attr.put("secure", "false");
+        attr.put("value", value);
       }
+
+      properties.put("ciName", key);
+      ro.setProperties(properties);
+      ro.setAttributes(attr);
     }
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
-    Response response = request.body(jsonObject.toString())
+    Response response = request.body(body)
             .post(DESIGN_URI + "platforms/" + platformName + "/variables");
     if (response != null) {
       if (response.getStatusCode() != 200 && response.getStatusCode() != 302) {
@@ -909,33 +1203,30 @@ public class Design extends APIClient {
         throw new OneOpsClientAPIException(msg);
       }
       ResourceObject ro = new ResourceObject();
-      Response newVarResponse =
-          request.get(DESIGN_URI + "platforms/" + platformName + "/variables/new.json");
-      if (newVarResponse != null) {
-        JsonPath newVarJsonPath = newVarResponse.getBody().jsonPath();
-        if (newVarJsonPath != null) {
-          Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
-          Map<String, String> properties = Maps.newHashMap();
-          if (attr == null) {
-            attr = Maps.newHashMap();
-          }
-          if (isSecure) {
-            attr.put("secure", "true");
-            attr.put("encrypted_value", entry.getValue());
-          } else {
-            attr.put("secure", "false");
-            attr.put("value", entry.getValue());
-          }
-
-          properties.put("ciName", entry.getKey());
-          ro.setProperties(properties);
-          ro.setAttributes(attr);
+      JsonPath newVarJsonPath =
+          getTemplate(DESIGN_URI + "platforms/" + platformName + "/variables/new.json", null);
+      if (newVarJsonPath != null) {
+        Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
+        Map<String, String> properties = Maps.newHashMap();
+        if (attr == null) {
+          attr = Maps.newHashMap();
+        }
+        if (isSecure) {
+          attr.put("secure", "true");
+          attr.put("encrypted_value", entry.getValue());
+        } else {
+          attr.put("secure", "false");
+          attr.put("value", entry.getValue());
         }
+
+        properties.put("ciName", entry.getKey());
+        ro.setProperties(properties);
+        ro.setAttributes(attr);
       }
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
-      Response response = request.body(jsonObject.toString())
+      Response response = request.body(body)
           .post(DESIGN_URI + "platforms/" + platformName + "/variables");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -999,9 +1290,9 @@ public class Design extends APIClient {
       ResourceObject ro = new ResourceObject();
       ro.setAttributes(attr);
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
-      Response response = request.body(jsonObject.toString())
+      Response response = request.body(body)
           .put(DESIGN_URI + "platforms/" + platformName + "/variables/" + ciId);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -1067,32 +1358,29 @@ public class Design extends APIClient {
         throw new OneOpsClientAPIException(msg);
       }
       ResourceObject ro = new ResourceObject();
-      Response newVarResponse = request.get(DESIGN_URI + "variables/new.json");
-      if (newVarResponse != null) {
-        JsonPath newVarJsonPath = newVarResponse.getBody().jsonPath();
-        if (newVarJsonPath != null) {
-          Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
-          Map<String, String> properties = Maps.newHashMap();
-          if (attr == null) {
-            attr = Maps.newHashMap();
-          }
-          if (isSecure) {
-            attr.put("secure", "true");
-            attr.put("encrypted_value", entry.getValue());
-          } else {
-            attr.put("secure", "false");
-            attr.put("value", entry.getValue());
-          }
-
-          properties.put("ciName", entry.getKey());
-          ro.setProperties(properties);
-          ro.setAttributes(attr);
+      JsonPath newVarJsonPath = getTemplate(DESIGN_URI + "variables/new.json", null);
+      if (newVarJsonPath != null) {
+        Map<String, String> attr = newVarJsonPath.getMap("ciAttributes");
+        Map<String, String> properties = Maps.newHashMap();
+        if (attr == null) {
+          attr = Maps.newHashMap();
         }
+        if (isSecure) {
+          attr.put("secure", "true");
+          attr.put("encrypted_value", entry.getValue());
+        } else {
+          attr.put("secure", "false");
+          attr.put("value", entry.getValue());
+        }
+
+        properties.put("ciName", entry.getKey());
+        ro.setProperties(properties);
+        ro.setAttributes(attr);
       }
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
-      Response response = request.body(jsonObject.toString()).post(DESIGN_URI + "variables");
+      Response response = request.body(body).post(DESIGN_URI + "variables");
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
           return response.getBody().jsonPath();
@@ -1148,9 +1436,9 @@ public class Design extends APIClient {
       ResourceObject ro = new ResourceObject();
       ro.setAttributes(attr);
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
 
-      Response response = request.body(jsonObject.toString()).put(DESIGN_URI + "variables/" + ciId);
+      Response response = request.body(body).put(DESIGN_URI + "variables/" + ciId);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
           success = true;
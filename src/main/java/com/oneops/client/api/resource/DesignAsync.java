@@ -0,0 +1,281 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Release;
+
+/**
+ * Non-blocking view of {@link Design}. Each call runs the matching method on an executor;
+ * API failures complete the returned future exceptionally with the original
+ * {@code OneOpsClientAPIException} as cause.
+ */
+public class DesignAsync extends AsyncResource {
+
+  private final Design design;
+
+  public DesignAsync(Design design) {
+    this(design, AsyncResource.sharedExecutor());
+  }
+
+  public DesignAsync(Design design, Executor executor) {
+    super(executor);
+    this.design = design;
+  }
+
+  public Design getDelegate() {
+    return design;
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#getPlatform}.
+   */
+  public CompletableFuture<JsonPath> getPlatform(String platformName) {
+    return call(() -> design.getPlatform(platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#listPlatforms}.
+   */
+  public CompletableFuture<JsonPath> listPlatforms() {
+    return call(() -> design.listPlatforms());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#fetchPlatforms}.
+   */
+  public CompletableFuture<List<CmsCI>> fetchPlatforms() {
+    return call(() -> design.fetchPlatforms());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#createPlatform}.
+   */
+  public CompletableFuture<JsonPath> createPlatform(String platformName, String packname,
+      String packversion, String packsource, String comments, String description) {
+    return call(() -> design.createPlatform(platformName, packname, packversion, packsource,
+        comments, description));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#commitDesign}.
+   */
+  public CompletableFuture<JsonPath> commitDesign() {
+    return call(() -> design.commitDesign());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#getLatestRelease}.
+   */
+  public CompletableFuture<JsonPath> getLatestRelease() {
+    return call(() -> design.getLatestRelease());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#fetchLatestRelease}.
+   */
+  public CompletableFuture<Release> fetchLatestRelease() {
+    return call(() -> design.fetchLatestRelease());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#deletePlatform}.
+   */
+  public CompletableFuture<JsonPath> deletePlatform(String platformName) {
+    return call(() -> design.deletePlatform(platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#deletePlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> deletePlatformComponent(String platformName,
+      String componentName) {
+    return call(() -> design.deletePlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#deletePlatformVariable}.
+   */
+  public CompletableFuture<JsonPath> deletePlatformVariable(String platformName,
+      String variableName) {
+    return call(() -> design.deletePlatformVariable(platformName, variableName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#listPlatformComponents}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponents(String platformName) {
+    return call(() -> design.listPlatformComponents(platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#listPlatformComponentAttachments}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponentAttachments(String platformName,
+      String componentName) {
+    return call(() -> design.listPlatformComponentAttachments(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#fetchPlatformComponentAttachments}.
+   */
+  public CompletableFuture<List<CmsCI>> fetchPlatformComponentAttachments(String platformName,
+      String componentName) {
+    return call(() -> design.fetchPlatformComponentAttachments(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#addPlatformComponentAttachment}.
+   */
+  public CompletableFuture<JsonPath> addPlatformComponentAttachment(String platformName,
+      String componentName, String uniqueName, Map<String, String> attributes) {
+    return call(() -> design.addPlatformComponentAttachment(platformName, componentName, uniqueName,
+        attributes));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#updatePlatformComponentAttachment}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponentAttachment(String platformName,
+      String componentName, String uniqueName, Map<String, String> attributes) {
+    return call(() -> design.updatePlatformComponentAttachment(platformName, componentName,
+        uniqueName, attributes));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#getPlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponent(String platformName,
+      String componentName) {
+    return call(() -> design.getPlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#fetchPlatformComponent}.
+   */
+  public CompletableFuture<CmsCI> fetchPlatformComponent(String platformName,
+      String componentName) {
+    return call(() -> design.fetchPlatformComponent(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#getPlatformComponentAttachment}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponentAttachment(String platformName,
+      String componentName, String attachmentName) {
+    return call(() -> design.getPlatformComponentAttachment(platformName, componentName,
+        attachmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#addPlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> addPlatformComponent(String platformName, String componentName,
+      String uniqueName, Map<String, String> attributes) {
+    return call(() -> design.addPlatformComponent(platformName, componentName, uniqueName,
+        attributes));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#updatePlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String platformName,
+      String componentName, Map<String, String> attributes) {
+    return call(() -> design.updatePlatformComponent(platformName, componentName, attributes));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#listPlatformVariables}.
+   */
+  public CompletableFuture<JsonPath> listPlatformVariables(String platformName) {
+    return call(() -> design.listPlatformVariables(platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#updateOrAddPlatformVariables}.
+   */
+  public CompletableFuture<Boolean> updateOrAddPlatformVariables(String platformName,
+      Map<String, String> variables, boolean isSecure) {
+    return call(() -> design.updateOrAddPlatformVariables(platformName, variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#upsertPlatformVariables}.
+   */
+  public CompletableFuture<Integer> upsertPlatformVariables(String platformName,
+      Map<String, String> variables, Map<String, String> secureVariables, boolean removeStale,
+      int parallelism) {
+    return call(() -> design.upsertPlatformVariables(platformName, variables, secureVariables,
+        removeStale, parallelism));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#addPlatformVariable}.
+   */
+  public CompletableFuture<Boolean> addPlatformVariable(String platformName,
+      Map<String, String> variables, boolean isSecure) {
+    return call(() -> design.addPlatformVariable(platformName, variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#updatePlatformVariable}.
+   */
+  public CompletableFuture<Boolean> updatePlatformVariable(String platformName,
+      Map<String, String> variables, boolean isSecure) {
+    return call(() -> design.updatePlatformVariable(platformName, variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#listGlobalVariables}.
+   */
+  public CompletableFuture<JsonPath> listGlobalVariables() {
+    return call(() -> design.listGlobalVariables());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#addGlobalVariable}.
+   */
+  public CompletableFuture<JsonPath> addGlobalVariable(Map<String, String> variables,
+      boolean isSecure) {
+    return call(() -> design.addGlobalVariable(variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#updateGlobalVariable}.
+   */
+  public CompletableFuture<Boolean> updateGlobalVariable(Map<String, String> variables,
+      boolean isSecure) {
+    return call(() -> design.updateGlobalVariable(variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#extractYaml}.
+   */
+  public CompletableFuture<JsonPath> extractYaml() {
+    return call(() -> design.extractYaml());
+  }
+
+  /**
+   * Asynchronous variant of {@link Design#loadFile}.
+   */
+  public CompletableFuture<JsonPath> loadFile(String filecontent) {
+    return call(() -> design.loadFile(filecontent));
+  }
+}
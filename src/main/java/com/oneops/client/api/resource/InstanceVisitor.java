@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import com.oneops.client.api.resource.model.Instance;
+
+/**
+ * Receives the instances of a listing one at a time, while the response is still being read.
+ *
+ * @see Operation#visitInstances
+ */
+public interface InstanceVisitor {
+
+  /**
+   * Called once per instance, in listing order.
+   * 
+   * @param instance the instance, holding only the requested attributes
+   * @return false to stop reading the listing
+   */
+  boolean visit(Instance instance);
+}
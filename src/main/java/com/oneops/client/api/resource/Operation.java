@@ -16,6 +16,7 @@ package com.oneops.client.api.resource;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.json.JSONObject;
 
@@ -28,7 +29,11 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.resource.model.Procedure;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.ModelParser;
 
 public class Operation extends APIClient {
 
@@ -66,6 +71,41 @@ public class Operation extends APIClient {
    */
   public JsonPath listInstances(String platformName, String componentName)
       throws OneOpsClientAPIException {
+    return instancesResponse(platformName, componentName).getBody().jsonPath();
+  }
+
+  /**
+   * Lists all instances for a given assembly, environment, platform and component as typed models
+   * 
+   * @param platformName
+   * @param componentName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public List<Instance> fetchInstances(String platformName, String componentName)
+      throws OneOpsClientAPIException {
+    return ModelParser.parseInstances(instancesResponse(platformName, componentName).asByteArray());
+  }
+
+  /**
+   * Streams all instances for a given assembly, environment, platform and component to the
+   * visitor, without holding the whole listing in memory
+   * 
+   * @param platformName
+   * @param componentName
+   * @param attributes the attribute names to keep, or null for all of them
+   * @param visitor
+   * @return the number of instances visited
+   * @throws OneOpsClientAPIException
+   */
+  public int visitInstances(String platformName, String componentName, Set<String> attributes,
+      InstanceVisitor visitor) throws OneOpsClientAPIException {
+    Response response = instancesResponse(platformName, componentName);
+    return ModelParser.visitInstances(response.asInputStream(), attributes, visitor);
+  }
+
+  private Response instancesResponse(String platformName, String componentName)
+      throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -82,7 +122,7 @@ public class Operation extends APIClient {
             + "/instances");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get instances due to %s", response.getStatusLine());
         throw new OneOpsClientAPIException(msg);
@@ -148,6 +188,24 @@ public class Operation extends APIClient {
 
   public JsonPath getLogData(String procedureId, List<String> actionIds)
       throws OneOpsClientAPIException {
+    return logDataResponse(procedureId, actionIds).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the log data of a procedure's actions in one request
+   * 
+   * @param procedureId
+   * @param actionIds the action ids, or null for all actions
+   * @return the log entries, each carrying the id of its action
+   * @throws OneOpsClientAPIException
+   */
+  public List<LogEntry> fetchLogData(String procedureId, List<String> actionIds)
+      throws OneOpsClientAPIException {
+    return ModelParser.parseLogData(logDataResponse(procedureId, actionIds).asByteArray());
+  }
+
+  private Response logDataResponse(String procedureId, List<String> actionIds)
+      throws OneOpsClientAPIException {
     RequestSpecification request = createRequest();
     String uri = "/operations/procedures/log_data";
     request.queryParam("procedure_id", procedureId);
@@ -161,14 +219,15 @@ public class Operation extends APIClient {
     Response response = request.get(uri);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
-        String msg = String.format("Failed to set replace marker on instance(s) due to %s",
-            response.getStatusLine());
+        String msg = String.format("Failed to get log data for procedure %s due to %s",
+            procedureId, response.getStatusLine());
         throw new OneOpsClientAPIException(msg);
       }
     }
-    String msg = String.format("Failed to set replace marker on instance(s) due to null response");
+    String msg = String.format("Failed to get log data for procedure %s due to null response",
+        procedureId);
     throw new OneOpsClientAPIException(msg);
   }
 
@@ -297,8 +356,8 @@ public class Operation extends APIClient {
     properties.put("procedureCiId", "" + getProcedureId(platformName, procedureName));
     ro.setProperties(properties);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_procedure");
-    Response response = request.body(jsonObject.toString()).post("/operations/procedures/");
+    byte[] body = JsonUtil.toJson(ro, "cms_procedure");
+    Response response = request.body(body).post("/operations/procedures/");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
         return response.getBody().jsonPath();
@@ -319,6 +378,21 @@ public class Operation extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getProcedureStatus(String procedureId) throws OneOpsClientAPIException {
+    return procedureResponse(procedureId).getBody().jsonPath();
+  }
+
+  /**
+   * Get procedure status for a given Id as a typed model
+   * 
+   * @param procedureId
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Procedure fetchProcedure(String procedureId) throws OneOpsClientAPIException {
+    return ModelParser.parseProcedure(procedureResponse(procedureId).asByteArray());
+  }
+
+  private Response procedureResponse(String procedureId) throws OneOpsClientAPIException {
     if (procedureId == null || procedureId.length() == 0) {
       String msg = String.format("Missing procedure Id to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -328,7 +402,7 @@ public class Operation extends APIClient {
     Response response = request.get("/operations/procedures/" + procedureId);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get procedure status due to %s", response.getStatusLine());
@@ -363,9 +437,9 @@ public class Operation extends APIClient {
     properties.put("procedureId", null);
     ro.setProperties(properties);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_procedure");
+    byte[] body = JsonUtil.toJson(ro, "cms_procedure");
     Response response =
-        request.body(jsonObject.toString()).put("/operations/procedures/" + procedureId);
+        request.body(body).put("/operations/procedures/" + procedureId);
 
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -390,6 +464,31 @@ public class Operation extends APIClient {
    */
   public JsonPath executeAction(String platformName, String componentName, String actionName,
       List<String> instanceList, String arglist, int rollAt) throws OneOpsClientAPIException {
+    return executeActionResponse(platformName, componentName, actionName, instanceList, arglist,
+        rollAt).getBody().jsonPath();
+  }
+
+  /**
+   * Execute procedure for a given platform and return the created procedure as a typed model
+   * 
+   * @param platformName
+   * @param componentName
+   * @param actionName
+   * @param instanceList
+   * @param arglist
+   * @param rollAt
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Procedure submitAction(String platformName, String componentName, String actionName,
+      List<String> instanceList, String arglist, int rollAt) throws OneOpsClientAPIException {
+    Response response = executeActionResponse(platformName, componentName, actionName,
+        instanceList, arglist, rollAt);
+    return ModelParser.parseProcedure(response.asByteArray());
+  }
+
+  private Response executeActionResponse(String platformName, String componentName,
+      String actionName, List<String> instanceList, String arglist, int rollAt) throws OneOpsClientAPIException {
     if (platformName == null || platformName.length() == 0) {
       String msg = String.format("Missing platform name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -448,13 +547,12 @@ public class Operation extends APIClient {
     properties.put("definition", definition.toString());
     ro.setProperties(properties);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_procedure");
-    jsonObject.put("roll_at", String.valueOf(rollAt));
-    jsonObject.put("critical", "true");
-    Response response = request.body(jsonObject.toString()).post("/operations/procedures/");
+    byte[] body =
+        JsonUtil.toJson(ro, "cms_procedure", "roll_at", String.valueOf(rollAt), "critical", "true");
+    Response response = request.body(body).post("/operations/procedures/");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to execute procedures due to %s", response.getStatusLine());
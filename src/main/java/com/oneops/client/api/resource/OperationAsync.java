@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.resource.model.Procedure;
+
+/**
+ * Non-blocking view of {@link Operation}. Each call runs the matching method on an executor;
+ * API failures complete the returned future exceptionally with the original
+ * {@code OneOpsClientAPIException} as cause.
+ */
+public class OperationAsync extends AsyncResource {
+
+  private final Operation operation;
+
+  public OperationAsync(Operation operation) {
+    this(operation, AsyncResource.sharedExecutor());
+  }
+
+  public OperationAsync(Operation operation, Executor executor) {
+    super(executor);
+    this.operation = operation;
+  }
+
+  public Operation getDelegate() {
+    return operation;
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#listInstances}.
+   */
+  public CompletableFuture<JsonPath> listInstances(String platformName, String componentName) {
+    return call(() -> operation.listInstances(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#fetchInstances}.
+   */
+  public CompletableFuture<List<Instance>> fetchInstances(String platformName,
+      String componentName) {
+    return call(() -> operation.fetchInstances(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#visitInstances}.
+   */
+  public CompletableFuture<Integer> visitInstances(String platformName, String componentName,
+      Set<String> attributes, InstanceVisitor visitor) {
+    return call(() -> operation.visitInstances(platformName, componentName, attributes, visitor));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#markInstancesForReplacement}.
+   */
+  public CompletableFuture<JsonPath> markInstancesForReplacement(String platformName,
+      String componentName) {
+    return call(() -> operation.markInstancesForReplacement(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#markInstanceForReplacement}.
+   */
+  public CompletableFuture<JsonPath> markInstanceForReplacement(String platformName,
+      String componentName, Integer instanceId) {
+    return call(() -> operation.markInstanceForReplacement(platformName, componentName,
+        instanceId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#getLogData}.
+   */
+  public CompletableFuture<JsonPath> getLogData(String procedureId, List<String> actionIds) {
+    return call(() -> operation.getLogData(procedureId, actionIds));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#fetchLogData}.
+   */
+  public CompletableFuture<List<LogEntry>> fetchLogData(String procedureId,
+      List<String> actionIds) {
+    return call(() -> operation.fetchLogData(procedureId, actionIds));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#listProcedures}.
+   */
+  public CompletableFuture<JsonPath> listProcedures(String platformName) {
+    return call(() -> operation.listProcedures(platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#getProcedureId}.
+   */
+  public CompletableFuture<Integer> getProcedureId(String platformName, String procedureName) {
+    return call(() -> operation.getProcedureId(platformName, procedureName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#listActions}.
+   */
+  public CompletableFuture<JsonPath> listActions(String platformName, String componentName) {
+    return call(() -> operation.listActions(platformName, componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#executeProcedure}.
+   */
+  public CompletableFuture<JsonPath> executeProcedure(String platformName, String procedureName,
+      String arglist) {
+    return call(() -> operation.executeProcedure(platformName, procedureName, arglist));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#getProcedureStatus}.
+   */
+  public CompletableFuture<JsonPath> getProcedureStatus(String procedureId) {
+    return call(() -> operation.getProcedureStatus(procedureId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#fetchProcedure}.
+   */
+  public CompletableFuture<Procedure> fetchProcedure(String procedureId) {
+    return call(() -> operation.fetchProcedure(procedureId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#cancelProcedure}.
+   */
+  public CompletableFuture<JsonPath> cancelProcedure(String procedureId) {
+    return call(() -> operation.cancelProcedure(procedureId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#executeAction}.
+   */
+  public CompletableFuture<JsonPath> executeAction(String platformName, String componentName,
+      String actionName, List<String> instanceList, String arglist, int rollAt) {
+    return call(() -> operation.executeAction(platformName, componentName, actionName, instanceList,
+        arglist, rollAt));
+  }
+
+  /**
+   * Asynchronous variant of {@link Operation#submitAction}.
+   */
+  public CompletableFuture<Procedure> submitAction(String platformName, String componentName,
+      String actionName, List<String> instanceList, String arglist, int rollAt) {
+    return call(() -> operation.submitAction(platformName, componentName, actionName, instanceList,
+        arglist, rollAt));
+  }
+}
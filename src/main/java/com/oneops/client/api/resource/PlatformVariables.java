@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * How platform variables listed from OneOps compare with desired values. Design and transition
+ * variable updates and the plan of a run all decide with these helpers what needs writing, so
+ * they agree on it.
+ */
+public final class PlatformVariables {
+
+  private static final String CI_NAME = "ciName";
+  private static final String CI_ATTRIBUTES = "ciAttributes";
+  private static final String VALUE = "value";
+  private static final String SECURE = "secure";
+
+  private PlatformVariables() {}
+
+  /**
+   * Indexes a variable listing by variable name.
+   * 
+   * @param listing the listing, may be null
+   * @return the variable CIs by name
+   */
+  public static Map<String, Map<String, Object>> byName(JsonPath listing) {
+    Map<String, Map<String, Object>> result = new LinkedHashMap<String, Map<String, Object>>();
+    List<Map<String, Object>> cis = listing == null ? null : listing.getList("$");
+    if (cis != null) {
+      for (Map<String, Object> ci : cis) {
+        if (ci.get(CI_NAME) != null) {
+          result.put(String.valueOf(ci.get(CI_NAME)), ci);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the attributes of a variable CI as strings, null values kept.
+   * 
+   * @param ci the variable CI
+   * @return a modifiable copy of the attributes
+   */
+  public static Map<String, String> attributes(Map<String, Object> ci) {
+    Map<String, String> result = new HashMap<String, String>();
+    Object attributes = ci.get(CI_ATTRIBUTES);
+    if (attributes instanceof Map) {
+      for (Entry<?, ?> attribute : ((Map<?, ?>) attributes).entrySet()) {
+        result.put(String.valueOf(attribute.getKey()),
+            attribute.getValue() == null ? null : String.valueOf(attribute.getValue()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether a variable already holds a value. Secure values can't be read back, so a
+   * variable which is or becomes secure never does.
+   * 
+   * @param ci the current variable CI
+   * @param value the desired value
+   * @param isSecure whether the desired value is secure
+   * @return true, if nothing needs to be written
+   */
+  public static boolean isUnchanged(Map<String, Object> ci, String value, boolean isSecure) {
+    if (isSecure || ci == null) {
+      return false;
+    }
+    Map<String, String> current = attributes(ci);
+    return !"true".equals(current.get(SECURE))
+        && normalize(value).equals(normalize(current.get(VALUE)));
+  }
+
+  /**
+   * Rejects a name given both as a variable and as a secure variable. Both kinds are written to
+   * the same variable CI, so which value it ends up with would depend on the write order.
+   * 
+   * @param platformName the platform name
+   * @param variables the variables, may be null
+   * @param secureVariables the secure variables, may be null
+   * @throws OneOpsClientAPIException if a name is in both maps
+   */
+  public static void checkDistinct(String platformName, Map<String, String> variables,
+      Map<String, String> secureVariables) throws OneOpsClientAPIException {
+    if (variables == null || secureVariables == null) {
+      return;
+    }
+    for (String name : variables.keySet()) {
+      if (secureVariables.containsKey(name)) {
+        String msg = String.format(
+            "Variable %s of platform %s is both a variable and a secure variable", name,
+            platformName);
+        throw new OneOpsClientAPIException(msg);
+      }
+    }
+  }
+
+  private static String normalize(String value) {
+    return value == null ? "" : value.trim();
+  }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.util.Watcher;
+
+/**
+ * Tracks the state of many procedures and deployments at once on one shared scheduler.
+ * 
+ * <p>
+ * Every tracked item is polled on its own schedule: right after a state change it is polled again
+ * after the initial interval, and each poll that finds the same state doubles (with jitter) the
+ * interval up to the max interval. Watching an item that is already tracked adds a listener to it
+ * rather than another poll loop, so any number of watchers of one id cost one request per interval.
+ * Items stop being polled once they reach a final state (complete, failed or canceled) or once
+ * unwatched.
+ * </p>
+ * 
+ * <p>
+ * A failed poll, whether the client threw or the request itself broke, is handed to the listeners
+ * and the item is polled again after the next interval.
+ * </p>
+ */
+public class StatusPoller implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StatusPoller.class);
+
+  public static final long DEFAULT_INITIAL_INTERVAL_MILLIS = 1000;
+  public static final long DEFAULT_MAX_INTERVAL_MILLIS = 30000;
+  public static final int DEFAULT_THREADS = 4;
+
+  private static final Set<String> FINAL_STATES =
+      new HashSet<String>(Arrays.asList("complete", "failed", "canceled"));
+
+  /**
+   * Notified from the scheduler threads when a tracked item changes state.
+   */
+  public interface Listener {
+
+    /**
+     * @param key the item key, as returned when watching it
+     * @param from the previous state, or null on the first poll
+     * @param to the new state
+     */
+    void onTransition(String key, String from, String to);
+
+    /**
+     * Called when polling an item fails. The item keeps being polled.
+     * 
+     * @param key the item key
+     * @param e the failure
+     */
+    default void onError(String key, OneOpsClientAPIException e) {}
+  }
+
+  private static class SharedHolder {
+    static final StatusPoller SHARED = new StatusPoller();
+  }
+
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownScheduler;
+  private final long initialIntervalMillis;
+  private final long maxIntervalMillis;
+  private final ConcurrentMap<String, Item> items = new ConcurrentHashMap<String, Item>();
+
+  public StatusPoller() {
+    this(Executors.newScheduledThreadPool(DEFAULT_THREADS, new ThreadFactoryBuilder()
+        .setDaemon(true).setNameFormat("oneops-status-poller-%d").build()), true,
+        DEFAULT_INITIAL_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS);
+  }
+
+  /**
+   * @param scheduler the scheduler to poll on; it is not shut down on close
+   * @param initialIntervalMillis the interval after a state change
+   * @param maxIntervalMillis the largest interval
+   */
+  public StatusPoller(ScheduledExecutorService scheduler, long initialIntervalMillis,
+      long maxIntervalMillis) {
+    this(scheduler, false, initialIntervalMillis, maxIntervalMillis);
+  }
+
+  private StatusPoller(ScheduledExecutorService scheduler, boolean ownScheduler,
+      long initialIntervalMillis, long maxIntervalMillis) {
+    this.scheduler = scheduler;
+    this.ownScheduler = ownScheduler;
+    this.initialIntervalMillis = initialIntervalMillis;
+    this.maxIntervalMillis = maxIntervalMillis;
+  }
+
+  /**
+   * @return the poller shared by every wait of this JVM that has not been given its own, so that
+   *         waits on the same item share its polls
+   */
+  public static StatusPoller shared() {
+    return SharedHolder.SHARED;
+  }
+
+  /**
+   * Starts tracking a procedure.
+   * 
+   * @param operation the client to poll with
+   * @param procedureId the procedure id
+   * @param listener notified of state changes
+   * @return the item key
+   */
+  public String watchProcedure(final Operation operation, final String procedureId,
+      Listener listener) {
+    return watch("procedure/" + procedureId, () -> {
+      Procedure procedure = operation.fetchProcedure(procedureId);
+      return procedure == null ? null : procedure.getProcedureState();
+    }, listener);
+  }
+
+  /**
+   * Starts tracking a deployment.
+   * 
+   * @param transition the client to poll with
+   * @param environmentName the environment name
+   * @param deploymentId the deployment id
+   * @param listener notified of state changes
+   * @return the item key
+   */
+  public String watchDeployment(final Transition transition, final String environmentName,
+      final String deploymentId, Listener listener) {
+    return watch("deployment/" + environmentName + "/" + deploymentId, () -> {
+      Deployment deployment = transition.fetchDeploymentStatus(environmentName, deploymentId);
+      return deployment == null ? null : deployment.getDeploymentState();
+    }, listener);
+  }
+
+  /**
+   * Waits until a procedure reaches a state.
+   * 
+   * @param operation the client to poll with
+   * @param procedureId the procedure id
+   * @param done whether the state is the one waited for
+   * @param timeoutMillis how long to wait, or 0 to wait for ever
+   * @return the state reached, or the last state seen, possibly null, if the wait timed out
+   * @throws OneOpsClientAPIException if a poll fails or the wait is interrupted
+   */
+  public String awaitProcedure(Operation operation, String procedureId, Predicate<String> done,
+      long timeoutMillis) throws OneOpsClientAPIException {
+    return await(listener -> watchProcedure(operation, procedureId, listener), done,
+        timeoutMillis);
+  }
+
+  /**
+   * Waits until a deployment reaches a state.
+   * 
+   * @param transition the client to poll with
+   * @param environmentName the environment name
+   * @param deploymentId the deployment id
+   * @param done whether the state is the one waited for
+   * @param timeoutMillis how long to wait, or 0 to wait for ever
+   * @return the state reached, or the last state seen, possibly null, if the wait timed out
+   * @throws OneOpsClientAPIException if a poll fails or the wait is interrupted
+   */
+  public String awaitDeployment(Transition transition, String environmentName,
+      String deploymentId, Predicate<String> done, long timeoutMillis)
+      throws OneOpsClientAPIException {
+    return await(listener -> watchDeployment(transition, environmentName, deploymentId, listener),
+        done, timeoutMillis);
+  }
+
+  /**
+   * Stops notifying one listener of an item, and stops tracking the item once it has none left.
+   * 
+   * @param key the item key
+   * @param listener the listener
+   */
+  public synchronized void unwatch(String key, Listener listener) {
+    Item item = items.get(key);
+    if (item != null) {
+      item.listeners.remove(listener);
+      if (item.listeners.isEmpty() && items.remove(key, item)) {
+        item.cancel();
+      }
+    }
+  }
+
+  /**
+   * Stops tracking an item. Its listeners are not notified any more.
+   * 
+   * @param key the item key
+   */
+  public void unwatch(String key) {
+    Item item = items.remove(key);
+    if (item != null) {
+      item.cancel();
+    }
+  }
+
+  /**
+   * @return the number of items still being polled
+   */
+  public int size() {
+    return items.size();
+  }
+
+  /**
+   * Stops tracking every item, and shuts the scheduler down if this poller created it.
+   */
+  @Override
+  public void close() {
+    for (String key : items.keySet()) {
+      unwatch(key);
+    }
+    if (ownScheduler) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private String await(Function<Listener, String> watch, final Predicate<String> done,
+      long timeoutMillis) throws OneOpsClientAPIException {
+    final CompletableFuture<String> reached = new CompletableFuture<String>();
+    final AtomicReference<String> last = new AtomicReference<String>();
+    Listener listener = new Listener() {
+      @Override
+      public void onTransition(String key, String from, String to) {
+        last.set(to);
+        if (done.test(to)) {
+          reached.complete(to);
+        }
+      }
+
+      @Override
+      public void onError(String key, OneOpsClientAPIException e) {
+        reached.completeExceptionally(e);
+      }
+    };
+    String key = watch.apply(listener);
+    try {
+      return timeoutMillis > 0 ? reached.get(timeoutMillis, TimeUnit.MILLISECONDS)
+          : reached.get();
+    } catch (TimeoutException e) {
+      return last.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof OneOpsClientAPIException) {
+        throw (OneOpsClientAPIException) cause;
+      }
+      throw new OneOpsClientAPIException("Failed to wait for " + key, cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OneOpsClientAPIException("Interrupted while waiting for " + key, e);
+    } finally {
+      unwatch(key, listener);
+    }
+  }
+
+  private static void deliver(Listener listener, String key, String from, String to) {
+    try {
+      listener.onTransition(key, from, to);
+    } catch (RuntimeException e) {
+      LOG.warn("Status listener of " + key + " failed", e);
+    }
+  }
+
+  private synchronized String watch(String key, Watcher.Probe<String> probe,
+      Listener listener) {
+    Item created = new Item(key, probe);
+    Item item = items.putIfAbsent(key, created);
+    if (item == null) {
+      item = created;
+      item.listeners.add(listener);
+      item.schedule(0);
+    } else {
+      item.listeners.add(listener);
+      String state = item.state;
+      if (state != null) {
+        deliver(listener, key, null, state);
+      }
+    }
+    return key;
+  }
+
+  private class Item implements Runnable {
+    private final String key;
+    private final Watcher.Probe<String> probe;
+    private final Watcher backoff;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private volatile String state;
+    private volatile ScheduledFuture<?> future;
+
+    Item(String key, Watcher.Probe<String> probe) {
+      this.key = key;
+      this.probe = probe;
+      this.backoff = new Watcher(initialIntervalMillis, maxIntervalMillis, 0);
+    }
+
+    @Override
+    public void run() {
+      if (items.get(key) != this) {
+        return;
+      }
+      try {
+        String polled = probe.poll();
+        String previous;
+        List<Listener> notified = Collections.emptyList();
+        boolean finished = false;
+        // The state changes together with the listeners it goes to, under the lock watch() holds
+        // while replaying the state, so a listener added meanwhile sees each transition once.
+        synchronized (StatusPoller.this) {
+          previous = state;
+          if (polled != null && !polled.equals(previous)) {
+            state = polled;
+            backoff.reset();
+            finished = FINAL_STATES.contains(polled.toLowerCase(Locale.ENGLISH));
+            if (finished) {
+              items.remove(key, this);
+            }
+            notified = new ArrayList<Listener>(listeners);
+          }
+        }
+        for (Listener listener : notified) {
+          deliver(listener, key, previous, polled);
+        }
+        if (finished) {
+          return;
+        }
+      } catch (OneOpsClientAPIException e) {
+        fail(e);
+      } catch (Exception e) {
+        // Connection failures reach here unchecked, or undeclared from RestAssured
+        fail(new OneOpsClientAPIException("Failed to poll " + key + ": " + e.getMessage(), e));
+      }
+      schedule(backoff.nextDelay());
+    }
+
+    private void fail(OneOpsClientAPIException e) {
+      for (Listener listener : listeners) {
+        try {
+          listener.onError(key, e);
+        } catch (RuntimeException ex) {
+          LOG.warn("Status listener of " + key + " failed", ex);
+        }
+      }
+    }
+
+    void schedule(long delayMillis) {
+      if (items.get(key) == this && !scheduler.isShutdown()) {
+        future = scheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    void cancel() {
+      ScheduledFuture<?> scheduled = future;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+  }
+}
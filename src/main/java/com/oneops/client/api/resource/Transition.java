@@ -13,7 +13,9 @@
  */
 package com.oneops.client.api.resource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,7 +26,6 @@ import org.json.JSONObject;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
@@ -32,12 +33,22 @@ import com.oneops.client.api.APIClient;
 import com.oneops.client.api.OOInstance;
 import com.oneops.client.api.ResourceObject;
 import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.LogEntry;
 import com.oneops.client.api.resource.model.RedundancyConfig;
+import com.oneops.client.api.resource.model.Release;
+import com.oneops.client.api.resource.model.VariableUpdate;
 import com.oneops.client.api.util.JsonUtil;
+import com.oneops.client.api.util.ModelParser;
+import com.oneops.client.api.util.Watcher;
 
 public class Transition extends APIClient {
 
   private static final String RESOURCE_URI = "/transition/environments/";
+  private static final int VARIABLE_PARALLELISM = 8;
+
+  private static final long COMMIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
 
   private String TRANSITION_ENV_URI;
   private OOInstance instance;
@@ -54,6 +65,9 @@ public class Transition extends APIClient {
     TRANSITION_ENV_URI = Assembly.ASSEMBLY_URI + assemblyName + RESOURCE_URI;
   }
 
+  /** Requests made by {@link #getEnvironment(String)}. */
+  public static final int GET_ENVIRONMENT_CALLS = 1;
+
   /**
    * Fetches specific environment details
    * 
@@ -67,7 +81,7 @@ public class Transition extends APIClient {
       throw new OneOpsClientAPIException(msg);
     }
 
-    RequestSpecification request = createRequest();
+    RequestSpecification request = createCachedRequest();
     Response response = request.get(TRANSITION_ENV_URI + environmentName);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -90,12 +104,26 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath listEnvironments() throws OneOpsClientAPIException {
+    return environmentsResponse().getBody().jsonPath();
+  }
+
+  /**
+   * Lists all environments for a given assembly as typed models
+   * 
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public List<CmsCI> fetchEnvironments() throws OneOpsClientAPIException {
+    return ModelParser.parseCis(environmentsResponse().asByteArray());
+  }
+
+  private Response environmentsResponse() throws OneOpsClientAPIException {
 
     RequestSpecification request = createRequest();
     Response response = request.get(TRANSITION_ENV_URI);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to list environments due to %s", response.getStatusLine());
@@ -106,6 +134,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #createEnvironment}. */
+  public static final int CREATE_ENVIRONMENT_CALLS = 1;
+
   /**
    * Creates environment within the given assembly
    * 
@@ -151,7 +182,6 @@ public class Transition extends APIClient {
     ro.setAttributes(attributes);
 
     RequestSpecification request = createRequest();
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_ci");
 
     if (platformAvailability == null || platformAvailability.size() == 0) {
       Design design = new Design(instance, assemblyName);
@@ -164,14 +194,14 @@ public class Transition extends APIClient {
         }
       }
     }
-    jsonObject.put("platform_availability", platformAvailability);
 
     if (cloudMap == null || cloudMap.size() == 0) {
       String msg = String.format("Missing clouds map to create environment");
       throw new OneOpsClientAPIException(msg);
     }
-    jsonObject.put("clouds", cloudMap);
-    Response response = request.body(jsonObject.toString()).post(TRANSITION_ENV_URI);
+    byte[] body = JsonUtil.toJson(ro, "cms_ci", "platform_availability", platformAvailability,
+        "clouds", cloudMap);
+    Response response = request.body(body).post(TRANSITION_ENV_URI);
 
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -187,6 +217,12 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #commitEnvironment}: the commit, then at least one read of the
+   * environment until it is unlocked.
+   */
+  public static final int COMMIT_ENVIRONMENT_CALLS = 2;
+
   /**
    * Commits environment open releases
    * 
@@ -217,20 +253,23 @@ public class Transition extends APIClient {
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
 
-        response = request.get(TRANSITION_ENV_URI + environmentName);
-        String envState = response.getBody().jsonPath().get("ciState");
         // wait for deployment plan to generate
-        do {
-          Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
-          response = request.get(TRANSITION_ENV_URI + environmentName);
-          if (response == null) {
+        Watcher watcher = new Watcher(500, 5000, COMMIT_TIMEOUT_MILLIS);
+        watcher.pause();
+        JsonPath env = watcher.until(() -> {
+          Response r = createRequest().get(TRANSITION_ENV_URI + environmentName);
+          if (r == null) {
             String msg = String.format("Failed to commit environment due to null response");
             throw new OneOpsClientAPIException(msg);
           }
-          envState = response.getBody().jsonPath().get("ciState");
-        } while (response != null && "locked".equalsIgnoreCase(envState));
-
-        return response.getBody().jsonPath();
+          return r.getBody().jsonPath();
+        }, e -> !"locked".equalsIgnoreCase(e.getString("ciState")));
+        if ("locked".equalsIgnoreCase(env.getString("ciState"))) {
+          String msg = String.format("Environment %s is still locked %s seconds after commit",
+              environmentName, TimeUnit.MILLISECONDS.toSeconds(COMMIT_TIMEOUT_MILLIS));
+          throw new OneOpsClientAPIException(msg);
+        }
+        return env;
 
       } else {
         String msg =
@@ -242,6 +281,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #deploy(String, String)}: the bom release, then the deployment. */
+  public static final int DEPLOY_CALLS = 2;
+
   /**
    * Deploy an already generated deployment plan
    * 
@@ -267,8 +309,8 @@ public class Transition extends APIClient {
           }
           ResourceObject ro = new ResourceObject();
           ro.setProperties(properties);
-          JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_deployment");
-          response = request.body(jsonObject.toString())
+          byte[] body = JsonUtil.toJson(ro, "cms_deployment");
+          response = request.body(body)
               .post(TRANSITION_ENV_URI + environmentName + "/deployments/");
           if (response == null) {
             String msg =
@@ -311,6 +353,28 @@ public class Transition extends APIClient {
    */
   public JsonPath getDeploymentStatus(String environmentName, String deploymentId)
       throws OneOpsClientAPIException {
+    return deploymentStatusResponse(environmentName, deploymentId).getBody().jsonPath();
+  }
+
+  /** Requests made by {@link #fetchDeploymentStatus(String, String)}. */
+  public static final int FETCH_DEPLOYMENT_STATUS_CALLS = 1;
+
+  /**
+   * Fetches deployment status for the given assembly/environment as a typed model
+   * 
+   * @param environmentName
+   * @param deploymentId
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Deployment fetchDeploymentStatus(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
+    return ModelParser
+        .parseDeployment(deploymentStatusResponse(environmentName, deploymentId).asByteArray());
+  }
+
+  private Response deploymentStatusResponse(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -325,7 +389,7 @@ public class Transition extends APIClient {
         .get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId + "/status");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format(
             "Failed to get deployment status for environment %s with deployment Id %s due to %s",
@@ -347,6 +411,25 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getLatestDeployment(String environmentName) throws OneOpsClientAPIException {
+    return latestDeploymentResponse(environmentName).getBody().jsonPath();
+  }
+
+  /** Requests made by {@link #fetchLatestDeployment(String)}. */
+  public static final int FETCH_LATEST_DEPLOYMENT_CALLS = 1;
+
+  /**
+   * Fetches latest deployment for the given assembly/environment as a typed model
+   * 
+   * @param environmentName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Deployment fetchLatestDeployment(String environmentName) throws OneOpsClientAPIException {
+    return ModelParser.parseDeployment(latestDeploymentResponse(environmentName).asByteArray());
+  }
+
+  private Response latestDeploymentResponse(String environmentName)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -356,7 +439,7 @@ public class Transition extends APIClient {
     Response response = request.get(TRANSITION_ENV_URI + environmentName + "/deployments/latest");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get latest deployment for environment %s due to %s",
             environmentName, response.getStatusLine());
@@ -411,6 +494,21 @@ public class Transition extends APIClient {
    * @throws OneOpsClientAPIException
    */
   public JsonPath getLatestRelease(String environmentName) throws OneOpsClientAPIException {
+    return latestReleaseResponse(environmentName).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches latest release for the given assembly/environment as a typed model
+   * 
+   * @param environmentName
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Release fetchLatestRelease(String environmentName) throws OneOpsClientAPIException {
+    return ModelParser.parseRelease(latestReleaseResponse(environmentName).asByteArray());
+  }
+
+  private Response latestReleaseResponse(String environmentName) throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -420,7 +518,7 @@ public class Transition extends APIClient {
     Response response = request.get(TRANSITION_ENV_URI + environmentName + "/releases/latest");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format("Failed to get latest releases for environment %s due to %s",
             environmentName, response.getStatusLine());
@@ -477,6 +575,25 @@ public class Transition extends APIClient {
 
   public JsonPath getDeployment(String environmentName, String deploymentId)
       throws OneOpsClientAPIException {
+    return deploymentResponse(environmentName, deploymentId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches deployment details, including its deployment records, as a typed model
+   * 
+   * @param environmentName
+   * @param deploymentId
+   * @return
+   * @throws OneOpsClientAPIException
+   */
+  public Deployment fetchDeployment(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
+    return ModelParser
+        .parseDeployment(deploymentResponse(environmentName, deploymentId).asByteArray());
+  }
+
+  private Response deploymentResponse(String environmentName, String deploymentId)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -492,7 +609,7 @@ public class Transition extends APIClient {
         request.get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg =
             String.format("Failed to get deployment details for environment %s for id %s due to %s",
@@ -508,6 +625,32 @@ public class Transition extends APIClient {
 
   public JsonPath getDeploymentRfcLog(String environmentName, String deploymentId, String rfcId)
       throws OneOpsClientAPIException {
+    return deploymentRfcLogResponse(environmentName, deploymentId, rfcId).getBody().jsonPath();
+  }
+
+  /**
+   * Fetches the log of one deployment record
+   * 
+   * @param environmentName
+   * @param deploymentId
+   * @param rfcId
+   * @return the log entries, each carrying the rfc id
+   * @throws OneOpsClientAPIException
+   */
+  public List<LogEntry> fetchDeploymentRfcLog(String environmentName, String deploymentId,
+      String rfcId) throws OneOpsClientAPIException {
+    List<LogEntry> entries = ModelParser.parseLogData(
+        deploymentRfcLogResponse(environmentName, deploymentId, rfcId).asByteArray());
+    for (LogEntry entry : entries) {
+      if (entry.getId() == null) {
+        entry.setId(rfcId);
+      }
+    }
+    return entries;
+  }
+
+  private Response deploymentRfcLogResponse(String environmentName, String deploymentId,
+      String rfcId) throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to fetch details");
       throw new OneOpsClientAPIException(msg);
@@ -528,7 +671,7 @@ public class Transition extends APIClient {
         .get(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId + "/log_data");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-        return response.getBody().jsonPath();
+        return response;
       } else {
         String msg = String.format(
             "Failed to get deployment logs for environment %s, deployment id %s and rfcId %s due to %s",
@@ -597,9 +740,9 @@ public class Transition extends APIClient {
     properties.put("releaseId", releaseId);
     ResourceObject ro = new ResourceObject();
     ro.setProperties(properties);
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_deployment");
+    byte[] body = JsonUtil.toJson(ro, "cms_deployment");
 
-    Response response = request.body(jsonObject.toString())
+    Response response = request.body(body)
         .put(TRANSITION_ENV_URI + environmentName + "/deployments/" + deploymentId);
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -708,6 +851,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #listPlatformComponents(String, String)}. */
+  public static final int LIST_PLATFORM_COMPONENTS_CALLS = 1;
+
   /**
    * List platform components for a given assembly/environment/platform
    * 
@@ -788,6 +934,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #updatePlatformComponent}: the component, then the update. */
+  public static final int UPDATE_PLATFORM_COMPONENT_CALLS = 2;
+
   /**
    * Update component attributes for a given assembly/environment/platform/component
    * 
@@ -838,8 +987,8 @@ public class Transition extends APIClient {
       }
       ro.setOwnerProps(ownerProps);
 
-      JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-      Response response = request.body(jsonObject.toString()).put(TRANSITION_ENV_URI
+      byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+      Response response = request.body(body).put(TRANSITION_ENV_URI
           + environmentName + "/platforms/" + platformName + "/components/" + ciId);
       if (response != null) {
         if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -900,6 +1049,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #pullDesin(String)}. */
+  public static final int PULL_DESIGN_CALLS = 1;
+
   /**
    * Pull latest design commits
    * 
@@ -965,16 +1117,44 @@ public class Transition extends APIClient {
   }
 
   /**
-   * Update platform local variables for a given assembly/environment/platform
+   * Update platform local variables for a given assembly/environment/platform. Variables which
+   * don't exist in the platform are skipped, as are unchanged ones.
    * 
    * @param environmentName
    * @param platformName
    * @param variables
    * @return
-   * @throws OneOpsClientAPIException
+   * @throws OneOpsClientAPIException if a variable can't be updated
+   * @see #updatePlatformVariables(String, String, Map, boolean, int)
    */
   public Boolean updatePlatformVariable(String environmentName, String platformName,
       Map<String, String> variables, boolean isSecure) throws OneOpsClientAPIException {
+    Map<String, VariableUpdate> results = updatePlatformVariables(environmentName, platformName,
+        variables, isSecure, VARIABLE_PARALLELISM);
+    for (VariableUpdate result : results.values()) {
+      if (result.getStatus() == VariableUpdate.Status.FAILED) {
+        throw new OneOpsClientAPIException(result.getError());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Update platform local variables for a given assembly/environment/platform with a single list
+   * request. Only the variables whose value differs are put, concurrently. Secure values can't be
+   * read back, so secure variables are always put.
+   * 
+   * @param environmentName
+   * @param platformName
+   * @param variables
+   * @param isSecure
+   * @param parallelism the max number of puts at the same time
+   * @return the outcome of each variable, in the order of the given variables
+   * @throws OneOpsClientAPIException if the variables can't be listed
+   */
+  public Map<String, VariableUpdate> updatePlatformVariables(String environmentName,
+      String platformName, Map<String, String> variables, boolean isSecure, int parallelism)
+      throws OneOpsClientAPIException {
     if (environmentName == null || environmentName.length() == 0) {
       String msg = String.format("Missing environment name to update variables");
       throw new OneOpsClientAPIException(msg);
@@ -987,61 +1167,66 @@ public class Transition extends APIClient {
       String msg = String.format("Missing variables list to be updated");
       throw new OneOpsClientAPIException(msg);
     }
+    Map<String, Map<String, Object>> current =
+        PlatformVariables.byName(listPlatformVariables(environmentName, platformName));
 
-    RequestSpecification request = createRequest();
-    boolean success = false;
+    Map<String, VariableUpdate> results = new LinkedHashMap<String, VariableUpdate>();
+    WriteBatch batch = new WriteBatch(parallelism);
     for (Entry<String, String> entry : variables.entrySet()) {
-      ResourceObject ro = new ResourceObject();
-      Map<String, String> attributes = new HashMap<String, String>();
-
-      String uri = TRANSITION_ENV_URI + environmentName + "/platforms/" + platformName
-          + "/variables/" + entry.getKey();
-      Response response = request.get(uri);
-      if (response != null) {
-        JSONObject var = JsonUtil.createJsonObject(response.getBody().asString());
-        if (var != null && var.has("ciAttributes")) {
-          JSONObject attrs = var.getJSONObject("ciAttributes");
-          for (Object key : attrs.keySet()) {
-            // based on you key types
-            String keyStr = (String) key;
-            String keyvalue = String.valueOf(attrs.get(keyStr));
-
-            attributes.put(keyStr, keyvalue);
-          }
-          if (isSecure) {
-            attributes.put("secure", "true");
-            attributes.put("encrypted_value", entry.getValue());
-          } else {
-            attributes.put("secure", "false");
-            attributes.put("value", entry.getValue());
-          }
-          ro.setAttributes(attributes);
-
-          JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
-          if (response != null) {
-            response = request.body(jsonObject.toString()).put(uri);
-            if (response != null) {
-              if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
-                success = true;
-              } else {
-                String msg = String.format("Failed to get update variables %s due to %s",
-                    entry.getKey(), response.getStatusLine());
-                throw new OneOpsClientAPIException(msg);
-              }
-            }
-          }
-        } else {
-          success = true;
-        }
+      VariableUpdate result = new VariableUpdate();
+      result.setName(entry.getKey());
+      results.put(entry.getKey(), result);
+      Map<String, Object> ci = current.get(entry.getKey());
+      if (ci == null) {
+        result.setStatus(VariableUpdate.Status.MISSING);
+        continue;
+      }
+      if (PlatformVariables.isUnchanged(ci, entry.getValue(), isSecure)) {
+        result.setStatus(VariableUpdate.Status.UNCHANGED);
+        continue;
+      }
+      final Map<String, String> attributes = PlatformVariables.attributes(ci);
+      if (isSecure) {
+        attributes.put("secure", "true");
+        attributes.put("encrypted_value", entry.getValue());
       } else {
-        String msg =
-            String.format("Failed to get update variables %s due to null response", variables);
-        throw new OneOpsClientAPIException(msg);
+        attributes.put("secure", "false");
+        attributes.put("value", entry.getValue());
       }
+      final String name = entry.getKey();
+      batch.add(name, () -> putPlatformVariable(environmentName, platformName, name, attributes));
+    }
 
+    Map<String, OneOpsClientAPIException> failures = batch.run();
+    for (VariableUpdate result : results.values()) {
+      if (result.getStatus() == null) {
+        OneOpsClientAPIException failure = failures.get(result.getName());
+        result.setStatus(
+            failure == null ? VariableUpdate.Status.UPDATED : VariableUpdate.Status.FAILED);
+        result.setError(failure == null ? null : failure.getMessage());
+      }
     }
+    return results;
+  }
 
-    return success;
+  private void putPlatformVariable(String environmentName, String platformName,
+      String variableName, Map<String, String> attributes) throws OneOpsClientAPIException {
+    ResourceObject ro = new ResourceObject();
+    ro.setAttributes(attributes);
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+    RequestSpecification request = createRequest();
+    Response response = request.body(body).put(TRANSITION_ENV_URI + environmentName
+        + "/platforms/" + platformName + "/variables/" + variableName);
+    if (response == null) {
+      String msg = String.format("Failed to get update variables %s due to null response",
+          variableName);
+      throw new OneOpsClientAPIException(msg);
+    }
+    if (response.getStatusCode() != 200 && response.getStatusCode() != 302) {
+      String msg = String.format("Failed to get update variables %s due to %s", variableName,
+          response.getStatusLine());
+      throw new OneOpsClientAPIException(msg);
+    }
   }
 
   /**
@@ -1118,9 +1303,9 @@ public class Transition extends APIClient {
 
           ro.setAttributes(attributes);
 
-          JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+          byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
           if (response != null) {
-            response = request.body(jsonObject.toString()).put(uri);
+            response = request.body(body).put(uri);
             if (response != null) {
               if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
                 success = true;
@@ -1166,11 +1351,10 @@ public class Transition extends APIClient {
     }
 
     RequestSpecification request = createRequest();
-    JSONObject jsonObject = new JSONObject();
-    jsonObject.put("platformCiIds", platformIdList);
+    byte[] body = JsonUtil.toJson(null, null, "platformCiIds", platformIdList);
 
     Response response =
-        request.body(jsonObject.toString()).put(TRANSITION_ENV_URI + environmentName + "/disable");
+        request.body(body).put(TRANSITION_ENV_URI + environmentName + "/disable");
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
         return response.getBody().jsonPath();
@@ -1187,6 +1371,12 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /**
+   * Requests made by {@link #updatePlatformRedundancyConfig}: the compute component, then the
+   * update.
+   */
+  public static final int UPDATE_PLATFORM_REDUNDANCY_CONFIG_CALLS = 2;
+
   /**
    * Update redundancy configuration for a given platform
    * 
@@ -1397,10 +1587,10 @@ public class Transition extends APIClient {
     attributes.put("correlation", String.valueOf(correlation));
     ro.setAttributes(attributes);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_ci");
-    System.out.println(jsonObject);
+    byte[] body = JsonUtil.toJson(ro, "cms_ci");
+    System.out.println(new String(body, StandardCharsets.UTF_8));
     Response response =
-        request.body(jsonObject.toString()).post(TRANSITION_ENV_URI + environmentName + "/relays/");
+        request.body(body).post(TRANSITION_ENV_URI + environmentName + "/relays/");
 
     if (response != null) {
       if (response.getStatusCode() == 200 || response.getStatusCode() == 302) {
@@ -1416,6 +1606,9 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #updateRelay}: the relay, then the update. */
+  public static final int UPDATE_RELAY_CALLS = 2;
+
   public JsonPath updateRelay(String environmentName, String relayName, String severity,
       String emails, String source, String nsPaths, String regex, boolean correlation,
       boolean enable) throws OneOpsClientAPIException {
@@ -1459,9 +1652,9 @@ public class Transition extends APIClient {
     }
     ro.setAttributes(attributes);
 
-    JSONObject jsonObject = JsonUtil.createJsonObject(ro, "cms_ci");
+    byte[] body = JsonUtil.toJson(ro, "cms_ci");
 
-    Response response = request.body(jsonObject.toString())
+    Response response = request.body(body)
         .put(TRANSITION_ENV_URI + environmentName + "/relays/" + relayName);
 
     if (response != null) {
@@ -1478,6 +1671,8 @@ public class Transition extends APIClient {
     throw new OneOpsClientAPIException(msg);
   }
 
+  /** Requests made by {@link #updatePlatformCloudScale}. */
+  public static final int UPDATE_PLATFORM_CLOUD_SCALE_CALLS = 1;
 
   /*
    * 
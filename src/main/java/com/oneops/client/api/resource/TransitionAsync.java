@@ -0,0 +1,374 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.resource.model.RedundancyConfig;
+import com.oneops.client.api.resource.model.Release;
+import com.oneops.client.api.resource.model.VariableUpdate;
+
+/**
+ * Non-blocking view of {@link Transition}. Each call runs the matching method on an executor;
+ * API failures complete the returned future exceptionally with the original
+ * {@code OneOpsClientAPIException} as cause.
+ */
+public class TransitionAsync extends AsyncResource {
+
+  private final Transition transition;
+
+  public TransitionAsync(Transition transition) {
+    this(transition, AsyncResource.sharedExecutor());
+  }
+
+  public TransitionAsync(Transition transition, Executor executor) {
+    super(executor);
+    this.transition = transition;
+  }
+
+  public Transition getDelegate() {
+    return transition;
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getEnvironment}.
+   */
+  public CompletableFuture<JsonPath> getEnvironment(String environmentName) {
+    return call(() -> transition.getEnvironment(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listEnvironments}.
+   */
+  public CompletableFuture<JsonPath> listEnvironments() {
+    return call(() -> transition.listEnvironments());
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchEnvironments}.
+   */
+  public CompletableFuture<List<CmsCI>> fetchEnvironments() {
+    return call(() -> transition.fetchEnvironments());
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#createEnvironment}.
+   */
+  public CompletableFuture<JsonPath> createEnvironment(String environmentName, String availability,
+      Map<String, String> attributes, Map<String, String> platformAvailability,
+      Map<String, Map<String, String>> cloudMap, String description) {
+    return call(() -> transition.createEnvironment(environmentName, availability, attributes,
+        platformAvailability, cloudMap, description));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#commitEnvironment}.
+   */
+  public CompletableFuture<JsonPath> commitEnvironment(String environmentName,
+      List<Integer> excludePlatforms, String comment) {
+    return call(() -> transition.commitEnvironment(environmentName, excludePlatforms, comment));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#deploy}.
+   */
+  public CompletableFuture<JsonPath> deploy(String environmentName, String comments) {
+    return call(() -> transition.deploy(environmentName, comments));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getDeploymentStatus}.
+   */
+  public CompletableFuture<JsonPath> getDeploymentStatus(String environmentName,
+      String deploymentId) {
+    return call(() -> transition.getDeploymentStatus(environmentName, deploymentId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchDeploymentStatus}.
+   */
+  public CompletableFuture<Deployment> fetchDeploymentStatus(String environmentName,
+      String deploymentId) {
+    return call(() -> transition.fetchDeploymentStatus(environmentName, deploymentId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getLatestDeployment}.
+   */
+  public CompletableFuture<JsonPath> getLatestDeployment(String environmentName) {
+    return call(() -> transition.getLatestDeployment(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchLatestDeployment}.
+   */
+  public CompletableFuture<Deployment> fetchLatestDeployment(String environmentName) {
+    return call(() -> transition.fetchLatestDeployment(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#disableAllPlatforms}.
+   */
+  public CompletableFuture<JsonPath> disableAllPlatforms(String environmentName) {
+    return call(() -> transition.disableAllPlatforms(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getLatestRelease}.
+   */
+  public CompletableFuture<JsonPath> getLatestRelease(String environmentName) {
+    return call(() -> transition.getLatestRelease(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchLatestRelease}.
+   */
+  public CompletableFuture<Release> fetchLatestRelease(String environmentName) {
+    return call(() -> transition.fetchLatestRelease(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getBomRelease}.
+   */
+  public CompletableFuture<JsonPath> getBomRelease(String environmentName) {
+    return call(() -> transition.getBomRelease(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#cancelDeployment}.
+   */
+  public CompletableFuture<JsonPath> cancelDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return call(() -> transition.cancelDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getDeployment}.
+   */
+  public CompletableFuture<JsonPath> getDeployment(String environmentName, String deploymentId) {
+    return call(() -> transition.getDeployment(environmentName, deploymentId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchDeployment}.
+   */
+  public CompletableFuture<Deployment> fetchDeployment(String environmentName,
+      String deploymentId) {
+    return call(() -> transition.fetchDeployment(environmentName, deploymentId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getDeploymentRfcLog}.
+   */
+  public CompletableFuture<JsonPath> getDeploymentRfcLog(String environmentName,
+      String deploymentId, String rfcId) {
+    return call(() -> transition.getDeploymentRfcLog(environmentName, deploymentId, rfcId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#fetchDeploymentRfcLog}.
+   */
+  public CompletableFuture<List<LogEntry>> fetchDeploymentRfcLog(String environmentName,
+      String deploymentId, String rfcId) {
+    return call(() -> transition.fetchDeploymentRfcLog(environmentName, deploymentId, rfcId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#approveDeployment}.
+   */
+  public CompletableFuture<JsonPath> approveDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return call(() -> transition.approveDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#retryDeployment}.
+   */
+  public CompletableFuture<JsonPath> retryDeployment(String environmentName, String deploymentId,
+      String releaseId) {
+    return call(() -> transition.retryDeployment(environmentName, deploymentId, releaseId));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#deleteEnvironment}.
+   */
+  public CompletableFuture<JsonPath> deleteEnvironment(String environmentName) {
+    return call(() -> transition.deleteEnvironment(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listPlatforms}.
+   */
+  public CompletableFuture<JsonPath> listPlatforms(String environmentName) {
+    return call(() -> transition.listPlatforms(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getPlatform}.
+   */
+  public CompletableFuture<JsonPath> getPlatform(String environmentName, String platformName) {
+    return call(() -> transition.getPlatform(environmentName, platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listPlatformComponents}.
+   */
+  public CompletableFuture<JsonPath> listPlatformComponents(String environmentName,
+      String platformName) {
+    return call(() -> transition.listPlatformComponents(environmentName, platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getPlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> getPlatformComponent(String environmentName,
+      String platformName, String componentName) {
+    return call(() -> transition.getPlatformComponent(environmentName, platformName,
+        componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updatePlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformComponent(String environmentName,
+      String platformName, String componentName, Map<String, String> attributes) {
+    return call(() -> transition.updatePlatformComponent(environmentName, platformName,
+        componentName, attributes));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#touchPlatformComponent}.
+   */
+  public CompletableFuture<JsonPath> touchPlatformComponent(String environmentName,
+      String platformName, String componentName) {
+    return call(() -> transition.touchPlatformComponent(environmentName, platformName,
+        componentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#pullDesin}.
+   */
+  public CompletableFuture<JsonPath> pullDesin(String environmentName) {
+    return call(() -> transition.pullDesin(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listPlatformVariables}.
+   */
+  public CompletableFuture<JsonPath> listPlatformVariables(String environmentName,
+      String platformName) {
+    return call(() -> transition.listPlatformVariables(environmentName, platformName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updatePlatformVariable}.
+   */
+  public CompletableFuture<Boolean> updatePlatformVariable(String environmentName,
+      String platformName, Map<String, String> variables, boolean isSecure) {
+    return call(() -> transition.updatePlatformVariable(environmentName, platformName, variables,
+        isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updatePlatformVariables}.
+   */
+  public CompletableFuture<Map<String, VariableUpdate>> updatePlatformVariables(
+      String environmentName, String platformName, Map<String, String> variables,
+      boolean isSecure, int parallelism) {
+    return call(() -> transition.updatePlatformVariables(environmentName, platformName, variables,
+        isSecure, parallelism));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listGlobalVariables}.
+   */
+  public CompletableFuture<JsonPath> listGlobalVariables(String environmentName) {
+    return call(() -> transition.listGlobalVariables(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updateGlobalVariable}.
+   */
+  public CompletableFuture<Boolean> updateGlobalVariable(String environmentName,
+      Map<String, String> variables, boolean isSecure) {
+    return call(() -> transition.updateGlobalVariable(environmentName, variables, isSecure));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updateDisableEnvironment}.
+   */
+  public CompletableFuture<JsonPath> updateDisableEnvironment(String environmentName,
+      List<String> platformIdList) {
+    return call(() -> transition.updateDisableEnvironment(environmentName, platformIdList));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updatePlatformRedundancyConfig}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformRedundancyConfig(String environmentName,
+      String platformName, String componentName, RedundancyConfig config) {
+    return call(() -> transition.updatePlatformRedundancyConfig(environmentName, platformName,
+        componentName, config));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#listRelays}.
+   */
+  public CompletableFuture<JsonPath> listRelays(String environmentName) {
+    return call(() -> transition.listRelays(environmentName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#getRelay}.
+   */
+  public CompletableFuture<JsonPath> getRelay(String environmentName, String relayName) {
+    return call(() -> transition.getRelay(environmentName, relayName));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#addRelay}.
+   */
+  public CompletableFuture<JsonPath> addRelay(String environmentName, String relayName,
+      String severity, String emails, String source, String nsPaths, String regex,
+      boolean correlation) {
+    return call(() -> transition.addRelay(environmentName, relayName, severity, emails, source,
+        nsPaths, regex, correlation));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updateRelay}.
+   */
+  public CompletableFuture<JsonPath> updateRelay(String environmentName, String relayName,
+      String severity, String emails, String source, String nsPaths, String regex,
+      boolean correlation, boolean enable) {
+    return call(() -> transition.updateRelay(environmentName, relayName, severity, emails, source,
+        nsPaths, regex, correlation, enable));
+  }
+
+  /**
+   * Asynchronous variant of {@link Transition#updatePlatformCloudScale}.
+   */
+  public CompletableFuture<JsonPath> updatePlatformCloudScale(String environmentName,
+      String platformName, String cloudId, Map<String, String> cloudMap) {
+    return call(() -> transition.updatePlatformCloudScale(environmentName, platformName, cloudId,
+        cloudMap));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * Independent writes run concurrently, at most a given number at a time.
+ * 
+ * <p>
+ * The calling thread takes part in the batch, so a batch completes even when the executor has no
+ * free thread, for instance when it is itself run on the shared executor.
+ * </p>
+ *
+ * <p>
+ * Unless another executor is given, writes run on {@link AsyncResource#sharedExecutor()}, the
+ * bounded executor of the asynchronous resource views.
+ * </p>
+ */
+final class WriteBatch {
+
+  /**
+   * One write of the batch.
+   */
+  @FunctionalInterface
+  interface Write {
+    void run() throws OneOpsClientAPIException;
+  }
+
+  private final Executor executor;
+  private final int parallelism;
+  private final Map<String, Write> writes = new LinkedHashMap<String, Write>();
+
+  WriteBatch(int parallelism) {
+    this(AsyncResource.sharedExecutor(), parallelism);
+  }
+
+  WriteBatch(Executor executor, int parallelism) {
+    this.executor = executor;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * @param name the name of what is written, unique within the batch
+   * @param write the write
+   */
+  void add(String name, Write write) {
+    writes.put(name, write);
+  }
+
+  int size() {
+    return writes.size();
+  }
+
+  /**
+   * Runs all the writes, whether or not some of them fail.
+   * 
+   * @return the failures by name, in the order the writes were added
+   * @throws OneOpsClientAPIException if interrupted while writes are still running
+   */
+  Map<String, OneOpsClientAPIException> run() throws OneOpsClientAPIException {
+    final Queue<Map.Entry<String, Write>> queue =
+        new ConcurrentLinkedQueue<Map.Entry<String, Write>>(writes.entrySet());
+    final Map<String, OneOpsClientAPIException> failures =
+        new ConcurrentHashMap<String, OneOpsClientAPIException>();
+    final CountDownLatch done = new CountDownLatch(writes.size());
+    Runnable drain = () -> {
+      Map.Entry<String, Write> write;
+      while ((write = queue.poll()) != null) {
+        try {
+          write.getValue().run();
+        } catch (OneOpsClientAPIException e) {
+          failures.put(write.getKey(), e);
+        } catch (RuntimeException e) {
+          failures.put(write.getKey(), new OneOpsClientAPIException(e.toString(), e));
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+    for (int i = 1; i < Math.min(parallelism, writes.size()); i++) {
+      try {
+        executor.execute(drain);
+      } catch (RejectedExecutionException e) {
+        break;
+      }
+    }
+    drain.run();
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OneOpsClientAPIException("Interrupted while waiting for writes", e);
+    }
+    Map<String, OneOpsClientAPIException> ordered =
+        new LinkedHashMap<String, OneOpsClientAPIException>();
+    for (String name : writes.keySet()) {
+      if (failures.containsKey(name)) {
+        ordered.put(name, failures.get(name));
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Runs all the writes and fails if any of them failed.
+   * 
+   * @param description what the batch does, for the error message
+   * @throws OneOpsClientAPIException with the first failure as cause and the others suppressed
+   */
+  void runOrThrow(String description) throws OneOpsClientAPIException {
+    Map<String, OneOpsClientAPIException> failures = run();
+    if (failures.isEmpty()) {
+      return;
+    }
+    Iterator<OneOpsClientAPIException> it = failures.values().iterator();
+    OneOpsClientAPIException first = it.next();
+    OneOpsClientAPIException failure = new OneOpsClientAPIException(
+        String.format("Failed to %s: %d of %d writes failed, first: %s", description,
+            failures.size(), writes.size(), first.getMessage()),
+        first);
+    while (it.hasNext()) {
+      failure.addSuppressed(it.next());
+    }
+    throw failure;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A configuration item as returned by the design, transition and operations endpoints.
+ */
+public class CmsCI {
+
+  private long ciId;
+  private String ciName;
+  private String ciClassName;
+  private String nsPath;
+  private String ciState;
+  private String comments;
+  private String createdBy;
+  private Map<String, String> ciAttributes = new LinkedHashMap<String, String>();
+  private Map<String, String> attrOwners = new LinkedHashMap<String, String>();
+
+  public long getCiId() {
+    return ciId;
+  }
+
+  public void setCiId(long ciId) {
+    this.ciId = ciId;
+  }
+
+  public String getCiName() {
+    return ciName;
+  }
+
+  public void setCiName(String ciName) {
+    this.ciName = ciName;
+  }
+
+  public String getCiClassName() {
+    return ciClassName;
+  }
+
+  public void setCiClassName(String ciClassName) {
+    this.ciClassName = ciClassName;
+  }
+
+  public String getNsPath() {
+    return nsPath;
+  }
+
+  public void setNsPath(String nsPath) {
+    this.nsPath = nsPath;
+  }
+
+  public String getCiState() {
+    return ciState;
+  }
+
+  public void setCiState(String ciState) {
+    this.ciState = ciState;
+  }
+
+  public String getComments() {
+    return comments;
+  }
+
+  public void setComments(String comments) {
+    this.comments = comments;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  /**
+   * Attribute values by name. Nested values are kept as their JSON text.
+   */
+  public Map<String, String> getCiAttributes() {
+    return ciAttributes;
+  }
+
+  public void setCiAttributes(Map<String, String> ciAttributes) {
+    this.ciAttributes = ciAttributes;
+  }
+
+  /**
+   * The {@code ciAttrProps.owner} map, naming the attributes set by the user rather than
+   * inherited from the pack.
+   */
+  public Map<String, String> getAttrOwners() {
+    return attrOwners;
+  }
+
+  public void setAttrOwners(Map<String, String> attrOwners) {
+    this.attrOwners = attrOwners;
+  }
+
+  public String getAttribute(String name) {
+    return ciAttributes.get(name);
+  }
+
+  @Override
+  public String toString() {
+    return ciClassName + " " + ciName + " (" + ciId + ")";
+  }
+}
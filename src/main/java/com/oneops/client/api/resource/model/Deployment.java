@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An environment deployment.
+ */
+public class Deployment {
+
+  private long deploymentId;
+  private long releaseId;
+  private String deploymentState;
+  private String nsPath;
+  private String createdBy;
+  private String comments;
+  private List<DeploymentRecord> records = new ArrayList<DeploymentRecord>();
+
+  public long getDeploymentId() {
+    return deploymentId;
+  }
+
+  public void setDeploymentId(long deploymentId) {
+    this.deploymentId = deploymentId;
+  }
+
+  public long getReleaseId() {
+    return releaseId;
+  }
+
+  public void setReleaseId(long releaseId) {
+    this.releaseId = releaseId;
+  }
+
+  public String getDeploymentState() {
+    return deploymentState;
+  }
+
+  public void setDeploymentState(String deploymentState) {
+    this.deploymentState = deploymentState;
+  }
+
+  public String getNsPath() {
+    return nsPath;
+  }
+
+  public void setNsPath(String nsPath) {
+    this.nsPath = nsPath;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public String getComments() {
+    return comments;
+  }
+
+  public void setComments(String comments) {
+    this.comments = comments;
+  }
+
+  public List<DeploymentRecord> getRecords() {
+    return records;
+  }
+
+  public void setRecords(List<DeploymentRecord> records) {
+    this.records = records;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+/**
+ * A deployment record, carrying out one release change (rfc).
+ */
+public class DeploymentRecord {
+
+  private long dpmtRecordId;
+  private long rfcId;
+  private String dpmtRecordState;
+
+  public long getDpmtRecordId() {
+    return dpmtRecordId;
+  }
+
+  public void setDpmtRecordId(long dpmtRecordId) {
+    this.dpmtRecordId = dpmtRecordId;
+  }
+
+  public long getRfcId() {
+    return rfcId;
+  }
+
+  public void setRfcId(long rfcId) {
+    this.rfcId = rfcId;
+  }
+
+  public String getDpmtRecordState() {
+    return dpmtRecordState;
+  }
+
+  public void setDpmtRecordState(String dpmtRecordState) {
+    this.dpmtRecordState = dpmtRecordState;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An operations procedure, such as an action run on component instances.
+ */
+public class Procedure {
+
+  private long procedureId;
+  private String procedureName;
+  private String procedureState;
+  private long ciId;
+  private String arglist;
+  private String createdBy;
+  private List<ProcedureAction> actions = new ArrayList<ProcedureAction>();
+
+  public long getProcedureId() {
+    return procedureId;
+  }
+
+  public void setProcedureId(long procedureId) {
+    this.procedureId = procedureId;
+  }
+
+  public String getProcedureName() {
+    return procedureName;
+  }
+
+  public void setProcedureName(String procedureName) {
+    this.procedureName = procedureName;
+  }
+
+  public String getProcedureState() {
+    return procedureState;
+  }
+
+  public void setProcedureState(String procedureState) {
+    this.procedureState = procedureState;
+  }
+
+  public long getCiId() {
+    return ciId;
+  }
+
+  public void setCiId(long ciId) {
+    this.ciId = ciId;
+  }
+
+  public String getArglist() {
+    return arglist;
+  }
+
+  public void setArglist(String arglist) {
+    this.arglist = arglist;
+  }
+
+  public String getCreatedBy() {
+    return createdBy;
+  }
+
+  public void setCreatedBy(String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public List<ProcedureAction> getActions() {
+    return actions;
+  }
+
+  public void setActions(List<ProcedureAction> actions) {
+    this.actions = actions;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+/**
+ * An action a procedure runs on one component instance.
+ */
+public class ProcedureAction {
+
+  private long actionId;
+  private String actionState;
+  private long ciId;
+
+  public long getActionId() {
+    return actionId;
+  }
+
+  public void setActionId(long actionId) {
+    this.actionId = actionId;
+  }
+
+  public String getActionState() {
+    return actionState;
+  }
+
+  public void setActionState(String actionState) {
+    this.actionState = actionState;
+  }
+
+  public long getCiId() {
+    return ciId;
+  }
+
+  public void setCiId(long ciId) {
+    this.ciId = ciId;
+  }
+}
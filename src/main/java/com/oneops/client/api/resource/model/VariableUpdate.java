@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource.model;
+
+/**
+ * The outcome of updating one variable in a bulk update.
+ */
+public class VariableUpdate {
+
+  /**
+   * What happened to the variable.
+   */
+  public enum Status {
+    /** The new value was written. */
+    UPDATED,
+    /** The variable already had the value, nothing was written. */
+    UNCHANGED,
+    /** The variable does not exist, nothing was written. */
+    MISSING,
+    /** The write failed, see the error. */
+    FAILED
+  }
+
+  private String name;
+  private Status status;
+  private String error;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  /**
+   * The reason of a failed write, null otherwise.
+   */
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  @Override
+  public String toString() {
+    return error == null ? name + ": " + status : name + ": " + status + " (" + error + ")";
+  }
+}
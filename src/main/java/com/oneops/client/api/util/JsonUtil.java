@@ -13,14 +13,133 @@
  */
 package com.oneops.client.api.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.oneops.client.api.ResourceObject;
 
 public class JsonUtil {
 
+  private static final JsonFactory FACTORY =
+      new JsonFactory().enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+
+  private static final int MAX_BUFFER_SIZE = 256 * 1024;
+
+  private static final ThreadLocal<ByteArrayOutputStream> BUFFERS =
+      new ThreadLocal<ByteArrayOutputStream>() {
+        @Override
+        protected ByteArrayOutputStream initialValue() {
+          return new ByteArrayOutputStream(1024);
+        }
+      };
+
+  /**
+   * Serializes a resource object straight to a request body, without building an intermediate
+   * tree. The object is wrapped in root when root is not null, and followed by the given top level
+   * fields. Empty property, attribute and owner maps are left out, as are null values. Non-ASCII
+   * characters are escaped so the body is the same whatever charset the request declares.
+   * 
+   * @param ro the resource object, may be null
+   * @param root the root element, may be null
+   * @param fields top level field names and values, alternately; values may be strings, numbers,
+   *        booleans, maps or collections
+   * @return the request body
+   */
+  public static byte[] toJson(ResourceObject ro, String root, Object... fields) {
+    if (fields.length % 2 != 0) {
+      throw new IllegalArgumentException("Fields must be name and value pairs");
+    }
+    ByteArrayOutputStream buffer = BUFFERS.get();
+    buffer.reset();
+    try (JsonGenerator generator = FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      if (root != null) {
+        generator.writeObjectFieldStart(root);
+      }
+      if (ro != null) {
+        writeFields(generator, ro.getProperties());
+        if (ro.getAttributes() != null && ro.getAttributes().size() > 0) {
+          generator.writeObjectFieldStart("ciAttributes");
+          writeFields(generator, ro.getAttributes());
+          generator.writeEndObject();
+        }
+        if (ro.getOwnerProps() != null && ro.getOwnerProps().size() > 0) {
+          generator.writeObjectFieldStart("ciAttrProps");
+          generator.writeObjectFieldStart("owner");
+          writeFields(generator, ro.getOwnerProps());
+          generator.writeEndObject();
+          generator.writeEndObject();
+        }
+      }
+      if (root != null) {
+        generator.writeEndObject();
+      }
+      for (int i = 0; i < fields.length; i += 2) {
+        if (fields[i + 1] != null) {
+          generator.writeFieldName(String.valueOf(fields[i]));
+          writeValue(generator, fields[i + 1]);
+        }
+      }
+      generator.writeEndObject();
+    } catch (IOException e) {
+      // Writing to memory doesn't fail.
+      throw new UncheckedIOException(e);
+    }
+    byte[] body = buffer.toByteArray();
+    if (body.length > MAX_BUFFER_SIZE) {
+      // Don't keep a large buffer alive for the small bodies that follow.
+      BUFFERS.remove();
+    }
+    return body;
+  }
+
+  private static void writeFields(JsonGenerator generator, Map<?, ?> map) throws IOException {
+    if (map == null) {
+      return;
+    }
+    for (Entry<?, ?> entry : map.entrySet()) {
+      if (entry.getValue() != null) {
+        generator.writeFieldName(String.valueOf(entry.getKey()));
+        writeValue(generator, entry.getValue());
+      }
+    }
+  }
+
+  private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof Map) {
+      generator.writeStartObject();
+      writeFields(generator, (Map<?, ?>) value);
+      generator.writeEndObject();
+    } else if (value instanceof Collection) {
+      generator.writeStartArray();
+      for (Object item : (Collection<?>) value) {
+        writeValue(generator, item);
+      }
+      generator.writeEndArray();
+    } else if (value instanceof Number) {
+      generator.writeNumber(value.toString());
+    } else if (value instanceof Boolean) {
+      generator.writeBoolean((Boolean) value);
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
+
+  /**
+   * @deprecated builds an intermediate tree, use {@link #toJson(ResourceObject, String, Object...)}
+   */
+  @Deprecated
 
   public static JSONObject createJsonObject(ResourceObject ro, String root) {
     JSONObject rootObject = new JSONObject();
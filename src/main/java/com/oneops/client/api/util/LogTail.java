@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.oneops.client.api.resource.model.LogEntry;
+
+/**
+ * Remembers how far each log has been read, so that fetching a growing log again hands out only
+ * the entries added since the last fetch. Logs are told apart by the id their entries carry, so
+ * one response may hold the logs of several actions. It also remembers which logs are complete, so
+ * that they are not fetched again.
+ *
+ * <p>
+ * A tail is not thread safe; create one per followed deployment or procedure.
+ */
+public class LogTail {
+
+  private final Map<String, Integer> offsets = new HashMap<String, Integer>();
+  private final Set<String> drained = new HashSet<String>();
+
+  /**
+   * Tells whether a log has to be fetched this round. The log of a running action or record grows,
+   * so it is fetched every round; once finished, it is fetched one last time for its final entries
+   * and then never again. A log that is pending has nothing to fetch yet.
+   *
+   * @param id the log id
+   * @param state the state of the action or record the log belongs to
+   * @param running whether that state is not final
+   * @return true if the log has to be fetched
+   */
+  public boolean shouldFetch(String id, String state, boolean running) {
+    if (drained.contains(id) || "pending".equalsIgnoreCase(state)) {
+      return false;
+    }
+    if (!running) {
+      drained.add(id);
+    }
+    return true;
+  }
+
+  /**
+   * @param fetched the full logs as fetched, in log order within each id
+   * @return the entries not handed out before, in fetched order
+   */
+  public List<LogEntry> advance(List<LogEntry> fetched) {
+    List<LogEntry> added = new ArrayList<LogEntry>();
+    Map<String, Integer> positions = new HashMap<String, Integer>();
+    for (LogEntry entry : fetched) {
+      Integer seen = positions.get(entry.getId());
+      int position = seen == null ? 0 : seen;
+      positions.put(entry.getId(), position + 1);
+      if (position >= getOffset(entry.getId())) {
+        added.add(entry);
+      }
+    }
+    for (Map.Entry<String, Integer> position : positions.entrySet()) {
+      if (position.getValue() > getOffset(position.getKey())) {
+        offsets.put(position.getKey(), position.getValue());
+      }
+    }
+    return added;
+  }
+
+  /**
+   * @param id the log id
+   * @return the number of entries of the log handed out so far
+   */
+  public int getOffset(String id) {
+    Integer offset = offsets.get(id);
+    return offset == null ? 0 : offset;
+  }
+}
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.InstanceVisitor;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.DeploymentRecord;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.resource.model.ProcedureAction;
+import com.oneops.client.api.resource.model.Release;
+
+/**
+ * Reads response bodies into the typed models in a single pass over the token stream. Unknown
+ * fields are skipped without being materialized, so large listings cost little more than the
+ * fields that are kept.
+ */
+public class ModelParser {
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  interface ObjectReader<T> {
+    T read(JsonParser parser) throws IOException;
+  }
+
+  static final ObjectReader<CmsCI> CI = new ObjectReader<CmsCI>() {
+    @Override
+    public CmsCI read(JsonParser parser) throws IOException {
+      return readCi(parser, new CmsCI(), null);
+    }
+  };
+
+  static final ObjectReader<Instance> INSTANCE = new ObjectReader<Instance>() {
+    @Override
+    public Instance read(JsonParser parser) throws IOException {
+      return readCi(parser, new Instance(), null);
+    }
+  };
+
+  static final ObjectReader<Release> RELEASE = new ObjectReader<Release>() {
+    @Override
+    public Release read(JsonParser parser) throws IOException {
+      return readRelease(parser);
+    }
+  };
+
+  static final ObjectReader<Deployment> DEPLOYMENT = new ObjectReader<Deployment>() {
+    @Override
+    public Deployment read(JsonParser parser) throws IOException {
+      return readDeployment(parser);
+    }
+  };
+
+  static final ObjectReader<Procedure> PROCEDURE = new ObjectReader<Procedure>() {
+    @Override
+    public Procedure read(JsonParser parser) throws IOException {
+      return readProcedure(parser);
+    }
+  };
+
+  static final ObjectReader<ProcedureAction> PROCEDURE_ACTION =
+      new ObjectReader<ProcedureAction>() {
+        @Override
+        public ProcedureAction read(JsonParser parser) throws IOException {
+          return readProcedureAction(parser);
+        }
+      };
+
+  static final ObjectReader<DeploymentRecord> DEPLOYMENT_RECORD =
+      new ObjectReader<DeploymentRecord>() {
+        @Override
+        public DeploymentRecord read(JsonParser parser) throws IOException {
+          return readDeploymentRecord(parser);
+        }
+      };
+
+  static final ObjectReader<LogEntry> LOG_ENTRY = new ObjectReader<LogEntry>() {
+    @Override
+    public LogEntry read(JsonParser parser) throws IOException {
+      LogEntry entry = new LogEntry();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        readLogField(parser, field, entry);
+      }
+      return entry;
+    }
+  };
+
+  public static CmsCI parseCi(byte[] body) throws OneOpsClientAPIException {
+    return readOne(body, CI);
+  }
+
+  public static List<CmsCI> parseCis(byte[] body) throws OneOpsClientAPIException {
+    return readList(body, CI);
+  }
+
+  public static List<Instance> parseInstances(byte[] body) throws OneOpsClientAPIException {
+    return readList(body, INSTANCE);
+  }
+
+  public static Release parseRelease(byte[] body) throws OneOpsClientAPIException {
+    return readOne(body, RELEASE);
+  }
+
+  public static Deployment parseDeployment(byte[] body) throws OneOpsClientAPIException {
+    return readOne(body, DEPLOYMENT);
+  }
+
+  public static Procedure parseProcedure(byte[] body) throws OneOpsClientAPIException {
+    return readOne(body, PROCEDURE);
+  }
+
+  /**
+   * Reads log data, given either as a list of entries or as a list of {@code id} and
+   * {@code logData} groups such as the procedure log_data response for several action ids. Each
+   * entry of a group gets the id of its group.
+   *
+   * @param body the response body
+   * @return the entries in response order
+   */
+  public static List<LogEntry> parseLogData(byte[] body) throws OneOpsClientAPIException {
+    try (JsonParser parser = FACTORY.createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token == null || token == JsonToken.VALUE_NULL) {
+        return Collections.emptyList();
+      }
+      List<LogEntry> entries = new ArrayList<LogEntry>();
+      if (token == JsonToken.START_OBJECT) {
+        readLogData(parser, entries);
+        return entries;
+      }
+      expect(parser, JsonToken.START_ARRAY);
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        readLogData(parser, entries);
+      }
+      return entries;
+    } catch (IOException e) {
+      throw new OneOpsClientAPIException("Failed to parse response due to " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Streams an instance listing, handing each instance to the visitor as soon as it is read. Only
+   * the named attributes are kept, and the attribute owners are skipped, so memory use does not
+   * grow with the size of the listing.
+   *
+   * @param in the response body, closed when done
+   * @param attributes the attribute names to keep, or null to keep all of them
+   * @param visitor the visitor
+   * @return the number of instances visited
+   */
+  public static int visitInstances(InputStream in, Set<String> attributes,
+      InstanceVisitor visitor) throws OneOpsClientAPIException {
+    int count = 0;
+    try (JsonParser parser = FACTORY.createParser(in)) {
+      JsonToken token = parser.nextToken();
+      if (token == null || token == JsonToken.VALUE_NULL) {
+        return 0;
+      }
+      expect(parser, JsonToken.START_ARRAY);
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        count++;
+        if (!visitor.visit(readCi(parser, new Instance(), attributes))) {
+          break;
+        }
+      }
+      return count;
+    } catch (IOException e) {
+      throw new OneOpsClientAPIException("Failed to parse response due to " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads a single object, or returns null for an empty or {@code null} body.
+   */
+  static <T> T readOne(byte[] body, ObjectReader<T> reader) throws OneOpsClientAPIException {
+    try (JsonParser parser = FACTORY.createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token == null || token == JsonToken.VALUE_NULL) {
+        return null;
+      }
+      expect(parser, JsonToken.START_OBJECT);
+      return reader.read(parser);
+    } catch (IOException e) {
+      throw new OneOpsClientAPIException("Failed to parse response due to " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads an array of objects, or returns an empty list for an empty or {@code null} body.
+   */
+  static <T> List<T> readList(byte[] body, ObjectReader<T> reader)
+      throws OneOpsClientAPIException {
+    try (JsonParser parser = FACTORY.createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token == null || token == JsonToken.VALUE_NULL) {
+        return Collections.emptyList();
+      }
+      expect(parser, JsonToken.START_ARRAY);
+      List<T> list = new ArrayList<T>();
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        list.add(reader.read(parser));
+      }
+      return list;
+    } catch (IOException e) {
+      throw new OneOpsClientAPIException("Failed to parse response due to " + e.getMessage(), e);
+    }
+  }
+
+  static <T extends CmsCI> T readCi(JsonParser parser, T ci, Set<String> attributes)
+      throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "ciId":
+          ci.setCiId(parser.getValueAsLong());
+          break;
+        case "ciName":
+          ci.setCiName(parser.getValueAsString());
+          break;
+        case "ciClassName":
+          ci.setCiClassName(parser.getValueAsString());
+          break;
+        case "nsPath":
+          ci.setNsPath(parser.getValueAsString());
+          break;
+        case "ciState":
+          ci.setCiState(parser.getValueAsString());
+          break;
+        case "comments":
+          ci.setComments(parser.getValueAsString());
+          break;
+        case "createdBy":
+          ci.setCreatedBy(parser.getValueAsString());
+          break;
+        case "ciAttributes":
+          readStringMap(parser, ci.getCiAttributes(), attributes);
+          break;
+        case "ciAttrProps":
+          if (attributes != null) {
+            parser.skipChildren();
+            break;
+          }
+          readAttrProps(parser, ci.getAttrOwners());
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return ci;
+  }
+
+  static Release readRelease(JsonParser parser) throws IOException {
+    Release release = new Release();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "releaseId":
+          release.setReleaseId(parser.getValueAsLong());
+          break;
+        case "releaseName":
+          release.setReleaseName(parser.getValueAsString());
+          break;
+        case "releaseState":
+          release.setReleaseState(parser.getValueAsString());
+          break;
+        case "nsPath":
+          release.setNsPath(parser.getValueAsString());
+          break;
+        case "createdBy":
+          release.setCreatedBy(parser.getValueAsString());
+          break;
+        case "commitedBy":
+          release.setCommitedBy(parser.getValueAsString());
+          break;
+        case "revision":
+          release.setRevision(parser.getValueAsInt());
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return release;
+  }
+
+  static Deployment readDeployment(JsonParser parser) throws IOException {
+    Deployment deployment = new Deployment();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "deploymentId":
+          deployment.setDeploymentId(parser.getValueAsLong());
+          break;
+        case "releaseId":
+          deployment.setReleaseId(parser.getValueAsLong());
+          break;
+        case "deploymentState":
+          deployment.setDeploymentState(parser.getValueAsString());
+          break;
+        case "nsPath":
+          deployment.setNsPath(parser.getValueAsString());
+          break;
+        case "createdBy":
+          deployment.setCreatedBy(parser.getValueAsString());
+          break;
+        case "comments":
+          deployment.setComments(parser.getValueAsString());
+          break;
+        case "records":
+          readArray(parser, deployment.getRecords(), DEPLOYMENT_RECORD);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return deployment;
+  }
+
+  static Procedure readProcedure(JsonParser parser) throws IOException {
+    Procedure procedure = new Procedure();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "procedureId":
+          procedure.setProcedureId(parser.getValueAsLong());
+          break;
+        case "procedureName":
+          procedure.setProcedureName(parser.getValueAsString());
+          break;
+        case "procedureState":
+          procedure.setProcedureState(parser.getValueAsString());
+          break;
+        case "ciId":
+          procedure.setCiId(parser.getValueAsLong());
+          break;
+        case "arglist":
+          procedure.setArglist(parser.getValueAsString());
+          break;
+        case "createdBy":
+          procedure.setCreatedBy(parser.getValueAsString());
+          break;
+        case "actions":
+          readArray(parser, procedure.getActions(), PROCEDURE_ACTION);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return procedure;
+  }
+
+  static ProcedureAction readProcedureAction(JsonParser parser) throws IOException {
+    ProcedureAction action = new ProcedureAction();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "actionId":
+          action.setActionId(parser.getValueAsLong());
+          break;
+        case "actionState":
+          action.setActionState(parser.getValueAsString());
+          break;
+        case "ciId":
+          action.setCiId(parser.getValueAsLong());
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return action;
+  }
+
+  static DeploymentRecord readDeploymentRecord(JsonParser parser) throws IOException {
+    DeploymentRecord record = new DeploymentRecord();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "dpmtRecordId":
+          record.setDpmtRecordId(parser.getValueAsLong());
+          break;
+        case "rfcId":
+          record.setRfcId(parser.getValueAsLong());
+          break;
+        case "dpmtRecordState":
+          record.setDpmtRecordState(parser.getValueAsString());
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return record;
+  }
+
+  /**
+   * Reads one object of a log data response, which is either an entry or an id and its entries.
+   */
+  static void readLogData(JsonParser parser, List<LogEntry> entries) throws IOException {
+    int first = entries.size();
+    LogEntry entry = new LogEntry();
+    boolean grouped = false;
+    String id = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      switch (field) {
+        case "id":
+          id = parser.getValueAsString();
+          break;
+        case "logData":
+          grouped = true;
+          readArray(parser, entries, LOG_ENTRY);
+          break;
+        default:
+          readLogField(parser, field, entry);
+      }
+    }
+    if (!grouped) {
+      entries.add(entry);
+    }
+    for (int i = first; i < entries.size(); i++) {
+      if (entries.get(i).getId() == null) {
+        entries.get(i).setId(id);
+      }
+    }
+  }
+
+  private static void readLogField(JsonParser parser, String field, LogEntry entry)
+      throws IOException {
+    switch (field) {
+      case "timestamp":
+        entry.setTimestamp(parser.getValueAsLong());
+        break;
+      case "level":
+        entry.setLevel(parser.getValueAsString());
+        break;
+      case "message":
+        entry.setMessage(parser.getValueAsString());
+        break;
+      default:
+        parser.skipChildren();
+    }
+  }
+
+  /**
+   * Reads the array the parser is on into the list, skipping anything that is not an array.
+   */
+  private static <T> void readArray(JsonParser parser, List<T> list, ObjectReader<T> reader)
+      throws IOException {
+    if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      list.add(reader.read(parser));
+    }
+  }
+
+  /**
+   * Reads a flat object into the map, keeping nested values as their JSON text. Only the given
+   * keys are kept when keys is not null.
+   */
+  static void readStringMap(JsonParser parser, Map<String, String> map, Set<String> keys)
+      throws IOException {
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (keys == null || keys.contains(name)) {
+        map.put(name, readText(parser, token));
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private static void readAttrProps(JsonParser parser, Map<String, String> owners)
+      throws IOException {
+    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      if ("owner".equals(name)) {
+        readStringMap(parser, owners, null);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private static String readText(JsonParser parser, JsonToken token) throws IOException {
+    if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+      StringWriter writer = new StringWriter();
+      try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+        generator.copyCurrentStructure(parser);
+      }
+      return writer.toString();
+    }
+    return parser.getValueAsString();
+  }
+
+  private static void expect(JsonParser parser, JsonToken token) throws IOException {
+    if (parser.getCurrentToken() != token) {
+      throw new IOException(
+          "Expected " + token + " but found " + parser.getCurrentToken() + " at "
+              + parser.getCurrentLocation());
+    }
+  }
+}
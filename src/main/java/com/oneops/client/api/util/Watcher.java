@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+/**
+ * Polls for a state with exponential backoff and jitter until it is reached or a deadline passes.
+ * The first poll is immediate, so a state that is already reached costs no waiting at all; after
+ * that the delay doubles from the initial delay up to the max delay. Each delay is jittered
+ * between half and all of its value so that many clients polling the same server spread out.
+ *
+ * <p>
+ * A watcher is not thread safe; create one per wait.
+ */
+public class Watcher {
+
+  /**
+   * Reads the current state.
+   */
+  public interface Probe<T> {
+    T poll() throws OneOpsClientAPIException;
+  }
+
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final long deadline;
+  private long delay;
+
+  /**
+   * @param initialDelayMillis the first delay
+   * @param maxDelayMillis the largest delay
+   * @param timeoutMillis how long to keep waiting, or 0 to wait for ever
+   */
+  public Watcher(long initialDelayMillis, long maxDelayMillis, long timeoutMillis) {
+    this.initialDelayMillis = Math.max(1, initialDelayMillis);
+    this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+    this.deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    this.delay = this.initialDelayMillis;
+  }
+
+  /**
+   * Polls until the state satisfies done or the deadline passes.
+   *
+   * @param probe reads the state
+   * @param done whether the state is the one waited for
+   * @return the last state read, which does not satisfy done if the deadline passed
+   * @throws OneOpsClientAPIException if the probe fails
+   */
+  public <T> T until(Probe<T> probe, Predicate<? super T> done) throws OneOpsClientAPIException {
+    T state = probe.poll();
+    while (!done.test(state) && pause()) {
+      state = probe.poll();
+    }
+    return state;
+  }
+
+  /**
+   * Sleeps for the next delay, cut short at the deadline.
+   *
+   * @return false, without sleeping, if the deadline has passed
+   */
+  public boolean pause() {
+    long remaining = deadline - System.currentTimeMillis();
+    if (remaining <= 0) {
+      return false;
+    }
+    Uninterruptibles.sleepUninterruptibly(Math.min(nextDelay(), remaining), TimeUnit.MILLISECONDS);
+    return true;
+  }
+
+  /**
+   * @return true if the deadline has passed
+   */
+  public boolean isExpired() {
+    return System.currentTimeMillis() >= deadline;
+  }
+
+  /**
+   * Starts the delays over from the initial delay, e.g. after the state changed but is not yet the
+   * one waited for.
+   */
+  public void reset() {
+    delay = initialDelayMillis;
+  }
+
+  /**
+   * @return the next jittered delay, doubling the base delay for the one after
+   */
+  public long nextDelay() {
+    long base = delay;
+    delay = Math.min(maxDelayMillis, delay * 2);
+    long half = base / 2;
+    return half + ThreadLocalRandom.current().nextLong(base - half + 1);
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.oneops.boo.workflow.BuildAllPlatforms;
+import com.oneops.boo.workflow.InstanceSnapshot;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.InstanceVisitor;
+import com.oneops.client.api.resource.model.Instance;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BooCliIpsTest {
+
+  private static final List<String> PLATFORMS = Arrays.asList("web", "db");
+  private static final List<String> COMPUTES = Arrays.asList("compute", "worker");
+
+  private FakeOneOps oneops;
+  private ClientConfig config;
+  private final List<ExecutorService> executors = new ArrayList<ExecutorService>();
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+  private PrintStream stdout;
+  private PrintStream stderr;
+
+  @Before
+  public void setUp() throws Exception {
+    String basedir = System.getProperty("basedir", new File("").getAbsolutePath());
+    config = new ClientConfig(new File(basedir, "src/test/yaml/plan.yaml"),
+        Collections.<String, String>emptyMap());
+    oneops = new FakeOneOps();
+    stdout = System.out;
+    stderr = System.err;
+    System.setOut(new PrintStream(out, true, "UTF-8"));
+    System.setErr(new PrintStream(err, true, "UTF-8"));
+  }
+
+  @After
+  public void tearDown() {
+    System.setOut(stdout);
+    System.setErr(stderr);
+    oneops.close();
+  }
+
+  @Test
+  public void testTextIpsStayInYamlOrder() throws Exception {
+    List<String> expected = Arrays.asList("Environment name: dev",
+        "Platform name: web", "Compute name: compute", "10.1.1.1", "10.1.1.2",
+        "Compute name: worker", "10.1.2.1", "10.1.2.2",
+        "Platform name: db", "Compute name: compute", "10.2.1.1", "10.2.1.2",
+        "Compute name: worker", "10.2.2.1", "10.2.2.2");
+    for (int run = 0; run < 3; run++) {
+      // The last pair is fetched first, the first pair last.
+      cli(new StubFlow(4, true), null, false).printIps(PLATFORMS, COMPUTES);
+      assertEquals(expected, lines());
+      out.reset();
+    }
+    assertShutDown(3);
+  }
+
+  @Test
+  public void testTextIpsInCompletionOrder() throws Exception {
+    StubFlow flow = new StubFlow(4, true);
+    flow.untilPrinted = true;
+    cli(flow, null, true).printIps(PLATFORMS, COMPUTES);
+
+    assertEquals(Arrays.asList("Environment name: dev",
+        "Platform name: db", "Compute name: worker", "10.2.2.1", "10.2.2.2",
+        "Platform name: db", "Compute name: compute", "10.2.1.1", "10.2.1.2",
+        "Platform name: web", "Compute name: worker", "10.1.2.1", "10.1.2.2",
+        "Platform name: web", "Compute name: compute", "10.1.1.1", "10.1.1.2"), lines());
+    assertShutDown(1);
+  }
+
+  @Test
+  public void testRecordsStayInYamlOrder() throws Exception {
+    List<String> expected = Arrays.asList(
+        "environment,platform,component,ciId,ciName,private_ip,public_ip,hostname",
+        "dev,web,compute,1,web-compute-1,10.1.1.1,,", "dev,web,compute,2,web-compute-2,10.1.1.2,,",
+        "dev,web,worker,1,web-worker-1,10.1.2.1,,", "dev,web,worker,2,web-worker-2,10.1.2.2,,",
+        "dev,db,compute,1,db-compute-1,10.2.1.1,,", "dev,db,compute,2,db-compute-2,10.2.1.2,,",
+        "dev,db,worker,1,db-worker-1,10.2.2.1,,", "dev,db,worker,2,db-worker-2,10.2.2.2,,");
+    for (int run = 0; run < 3; run++) {
+      cli(new StubFlow(4, true), "csv", false).printIps(PLATFORMS, COMPUTES);
+      assertEquals(expected, lines());
+      out.reset();
+    }
+    assertShutDown(3);
+  }
+
+  @Test
+  public void testRecordsInCompletionOrder() throws Exception {
+    StubFlow flow = new StubFlow(4, true);
+    flow.untilPrinted = true;
+    cli(flow, "csv", true).printIps(PLATFORMS, COMPUTES);
+
+    List<String> lines = lines();
+    assertEquals(9, lines.size());
+    assertEquals("dev,db,worker,1,db-worker-1,10.2.2.1,,", lines.get(1));
+    assertEquals("dev,web,compute,2,web-compute-2,10.1.1.2,,", lines.get(8));
+    // Instances are streamed, not listed into a snapshot.
+    assertEquals(4, flow.visits.get());
+    assertEquals(0, flow.snapshots.get());
+    assertShutDown(1);
+  }
+
+  @Test
+  public void testPoolIsSizedByParallelism() throws Exception {
+    StubFlow flow = new StubFlow(2, false);
+    cli(flow, null, false).printIps(PLATFORMS, COMPUTES);
+    cli(flow, "csv", true).printIps(PLATFORMS, COMPUTES);
+    cli(new StubFlow(8, false), null, false).printIps(PLATFORMS, COMPUTES);
+    cli(new StubFlow(8, false), null, false).printIps(PLATFORMS,
+        Collections.singletonList("compute"));
+
+    assertEquals(2, ((ThreadPoolExecutor) executors.get(0)).getMaximumPoolSize());
+    assertEquals(2, ((ThreadPoolExecutor) executors.get(1)).getMaximumPoolSize());
+    assertEquals(4, ((ThreadPoolExecutor) executors.get(2)).getMaximumPoolSize());
+    assertEquals(2, ((ThreadPoolExecutor) executors.get(3)).getMaximumPoolSize());
+    assertTrue(String.valueOf(flow.maxRunning), flow.maxRunning.get() <= 2);
+    assertShutDown(4);
+  }
+
+  @Test
+  public void testPoolIsShutDownWhenAFetchFails() throws Exception {
+    for (String format : Arrays.asList(null, "csv")) {
+      for (boolean unordered : new boolean[] {false, true}) {
+        StubFlow flow = new StubFlow(4, true);
+        flow.failing.add("web/worker");
+        cli(flow, format, unordered).printIps(PLATFORMS, COMPUTES);
+
+        String printed = String.join("\n", lines());
+        assertTrue(printed, printed.contains("10.1.1.1"));
+        assertTrue(printed, printed.contains("10.2.2.2"));
+        assertTrue(printed, !printed.contains("10.1.2.1"));
+        out.reset();
+      }
+    }
+    assertTrue(err.toString("UTF-8").contains("Failed to get ips of web/worker"));
+    assertShutDown(4);
+  }
+
+  @Test
+  public void testPoolIsShutDownWhenAFetchThrows() throws Exception {
+    StubFlow flow = new StubFlow(4, false);
+    flow.broken.add("web/compute");
+    cli(flow, null, false).printIps(PLATFORMS, COMPUTES);
+
+    assertEquals(Arrays.asList("Environment name: dev", "Platform name: web",
+        "Compute name: compute"), lines());
+    assertShutDown(1);
+  }
+
+  private BooCli cli(BuildAllPlatforms flow, String format, boolean unordered) {
+    return new BooCli(flow, format, unordered) {
+      @Override
+      ExecutorService ipsExecutor(int tasks) {
+        ExecutorService executor = super.ipsExecutor(tasks);
+        executors.add(executor);
+        return executor;
+      }
+    };
+  }
+
+  private void assertShutDown(int count) throws InterruptedException {
+    assertEquals(count, executors.size());
+    for (ExecutorService executor : executors) {
+      assertTrue(executor.isShutdown());
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+  }
+
+  private List<String> lines() throws UnsupportedEncodingException {
+    return Arrays.asList(out.toString("UTF-8").split("\r?\n"));
+  }
+
+  /**
+   * A flow listing two instances per platform and compute. In reverse, each fetch waits for the
+   * next pair in yaml order to be fetched, or printed when untilPrinted is set.
+   */
+  private class StubFlow extends BuildAllPlatforms {
+    private final int parallelism;
+    private final Map<String, CountDownLatch> done = new HashMap<String, CountDownLatch>();
+    private final List<String> order = new ArrayList<String>();
+    private final boolean reverse;
+    private boolean untilPrinted;
+    private final Set<String> failing = new HashSet<String>();
+    private final Set<String> broken = new HashSet<String>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger visits = new AtomicInteger();
+    private final AtomicInteger snapshots = new AtomicInteger();
+
+    StubFlow(int parallelism, boolean reverse) throws OneOpsClientAPIException {
+      super(oneops.instance(), config, null);
+      this.parallelism = parallelism;
+      this.reverse = reverse;
+      for (String pname : PLATFORMS) {
+        for (String cname : COMPUTES) {
+          order.add(pname + "/" + cname);
+          done.put(pname + "/" + cname, new CountDownLatch(1));
+        }
+      }
+    }
+
+    @Override
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    @Override
+    public String printIps(String platformName, String componentName)
+        throws OneOpsClientAPIException {
+      StringBuilder ips = new StringBuilder();
+      for (Instance instance : fetch(platformName, componentName)) {
+        ips.append(instance.getPrivateIp()).append('\n');
+      }
+      return ips.toString();
+    }
+
+    @Override
+    public InstanceSnapshot getInstances(String platformName, String componentName)
+        throws OneOpsClientAPIException {
+      snapshots.incrementAndGet();
+      return new InstanceSnapshot(fetch(platformName, componentName));
+    }
+
+    @Override
+    public int visitInstances(String platformName, String componentName,
+        InstanceVisitor visitor) throws OneOpsClientAPIException {
+      visits.incrementAndGet();
+      List<Instance> instances = fetch(platformName, componentName);
+      for (Instance instance : instances) {
+        visitor.visit(instance);
+      }
+      return instances.size();
+    }
+
+    private List<Instance> fetch(String platformName, String componentName)
+        throws OneOpsClientAPIException {
+      String key = platformName + "/" + componentName;
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        int index = order.indexOf(key);
+        if (reverse && index + 1 < order.size()) {
+          awaitTurn(order.get(index + 1));
+        } else if (!reverse) {
+          Thread.sleep(5);
+        }
+        if (broken.contains(key)) {
+          throw new IllegalStateException("Broken " + key);
+        }
+        if (failing.contains(key)) {
+          throw new OneOpsClientAPIException("Failed " + key);
+        }
+        List<Instance> instances = new ArrayList<Instance>();
+        for (int i = 1; i <= 2; i++) {
+          Instance instance = new Instance();
+          instance.setCiId(i);
+          instance.setCiName(platformName + "-" + componentName + "-" + i);
+          instance.setCiAttributes(Collections.singletonMap("private_ip", "10."
+              + (PLATFORMS.indexOf(platformName) + 1) + "."
+              + (COMPUTES.indexOf(componentName) + 1) + "." + i));
+          instances.add(instance);
+        }
+        return instances;
+      } catch (InterruptedException | UnsupportedEncodingException e) {
+        Thread.currentThread().interrupt();
+        throw new OneOpsClientAPIException("Interrupted");
+      } finally {
+        running.decrementAndGet();
+        done.get(key).countDown();
+      }
+    }
+
+    private void awaitTurn(String previous)
+        throws InterruptedException, UnsupportedEncodingException, OneOpsClientAPIException {
+      if (!untilPrinted) {
+        if (done.get(previous).await(10, TimeUnit.SECONDS)) {
+          return;
+        }
+      } else {
+        String[] pair = previous.split("/");
+        String lastIp = "10." + (PLATFORMS.indexOf(pair[0]) + 1) + "."
+            + (COMPUTES.indexOf(pair[1]) + 1) + ".2";
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+          if (out.toString("UTF-8").contains(lastIp)) {
+            return;
+          }
+          Thread.sleep(1);
+        }
+      }
+      throw new OneOpsClientAPIException("Timed out waiting for " + previous);
+    }
+  }
+}
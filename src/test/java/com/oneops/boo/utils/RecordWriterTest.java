@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+public class RecordWriterTest {
+
+  @Test
+  public void testJsonLines() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RecordWriter writer =
+        RecordWriter.create("json", new PrintStream(bytes), "ciId", "ciName", "ip");
+    writer.write(12L, "compute-1", "10.0.0.1");
+    writer.write(13L, "compute-2", null);
+    assertEquals("{\"ciId\":12,\"ciName\":\"compute-1\",\"ip\":\"10.0.0.1\"}\n"
+        + "{\"ciId\":13,\"ciName\":\"compute-2\",\"ip\":null}\n",
+        new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testCsv() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriter.create("CSV", new PrintStream(bytes), "ciName", "note");
+    writer.write("compute-1", "a,b");
+    writer.write("compute-2", "say \"hi\"");
+    writer.write("compute-3");
+    assertEquals("ciName,note\r\ncompute-1,\"a,b\"\r\n"
+        + "compute-2,\"say \"\"hi\"\"\"\r\ncompute-3,\r\n",
+        new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testText() {
+    assertNull(RecordWriter.create(null, System.out, "ciName"));
+    assertNull(RecordWriter.create("text", System.out, "ciName"));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+
+import com.oneops.boo.ClientConfig;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.resource.model.LogEntry;
+import com.oneops.client.api.util.Watcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AbstractWorkflowTailTest {
+
+  private static final String PROCEDURE = "/operations/procedures/7";
+  private static final String PROCEDURE_LOG = "/operations/procedures/log_data";
+  private static final String DEPLOYMENT =
+      "/assemblies/asm/transition/environments/dev/deployments/9";
+
+  private FakeOneOps oneops;
+  private BuildAllPlatforms flow;
+  private final AtomicInteger round = new AtomicInteger();
+  private final List<String> printed = new ArrayList<String>();
+
+  @Before
+  public void setUp() throws Exception {
+    String basedir = System.getProperty("basedir", new File("").getAbsolutePath());
+    ClientConfig config = new ClientConfig(new File(basedir, "src/test/yaml/plan.yaml"),
+        Collections.<String, String>emptyMap());
+    oneops = new FakeOneOps();
+    flow = new BuildAllPlatforms(oneops.instance(), config, null);
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testProcedureLogsAreBatchedByRunningAction() throws Exception {
+    // Action 11 runs for two rounds, 12 starts in the second and 13 is done from the start.
+    oneops.on("GET", PROCEDURE, request -> {
+      int current = round.incrementAndGet();
+      return FakeOneOps.Reply.json(200, "{\"procedureId\":7,\"procedureState\":\""
+          + (current < 3 ? "active" : "complete") + "\",\"actions\":["
+          + action(11, current < 3 ? "inprogress" : "complete") + ","
+          + action(12, current < 2 ? "pending" : current < 3 ? "inprogress" : "complete") + ","
+          + action(13, "complete") + "]}");
+    });
+    oneops.on("GET", PROCEDURE_LOG, request -> {
+      StringBuilder groups = new StringBuilder();
+      for (String param : request.getQuery().split("&")) {
+        if (param.startsWith("action_ids=")) {
+          String id = param.substring("action_ids=".length());
+          groups.append(groups.length() == 0 ? "" : ",").append("{\"id\":\"").append(id)
+              .append("\",\"logData\":").append(log(id)).append("}");
+        }
+      }
+      return FakeOneOps.Reply.json(200, "[" + groups + "]");
+    });
+
+    assertEquals("complete", flow.tailProcedure("7", this::print, new Watcher(1, 1, 0)));
+    assertEquals(Arrays.asList("procedure_id=7&action_ids=11&action_ids=13",
+        "procedure_id=7&action_ids=11&action_ids=12", "procedure_id=7&action_ids=11&action_ids=12"),
+        queries(PROCEDURE_LOG));
+    assertEquals(Arrays.asList("11:1", "13:1", "11:2", "12:1", "12:2", "11:3", "12:3"), printed);
+  }
+
+  @Test
+  public void testDeploymentLogsOfRunningAndNewlyFinishedRecordsOnly() throws Exception {
+    // Record 21 runs for two rounds, 22 is pending in the first and 23 is done from the start.
+    oneops.on("GET", DEPLOYMENT, request -> {
+      int current = round.incrementAndGet();
+      return FakeOneOps.Reply.json(200, "{\"deploymentId\":9,\"deploymentState\":\""
+          + (current < 3 ? "active" : "complete") + "\",\"records\":["
+          + record(21, current < 3 ? "inprogress" : "complete") + ","
+          + record(22, current < 2 ? "pending" : current < 3 ? "inprogress" : "complete") + ","
+          + record(23, "complete") + "]}");
+    });
+    oneops.on("GET", DEPLOYMENT + "/log_data", request -> FakeOneOps.Reply.json(200,
+        log(request.getQuery().substring("rfcId=".length()))));
+
+    assertEquals("complete", flow.tailDeployment("9", this::print, new Watcher(1, 1, 0)));
+    assertEquals(Arrays.asList("rfcId=21", "rfcId=23", "rfcId=21", "rfcId=22", "rfcId=21",
+        "rfcId=22"), queries(DEPLOYMENT + "/log_data"));
+    assertEquals(Arrays.asList("21:1", "23:1", "21:2", "22:1", "22:2", "21:3", "22:3"), printed);
+  }
+
+  private void print(LogEntry entry) {
+    printed.add(entry.getMessage());
+  }
+
+  private List<String> queries(String path) {
+    List<String> queries = new ArrayList<String>();
+    for (FakeOneOps.Request request : oneops.getRequests()) {
+      if (request.getPath().equals(path)) {
+        queries.add(request.getQuery());
+      }
+    }
+    return queries;
+  }
+
+  /**
+   * @return the log of an action or record as of the current round, one entry per round
+   */
+  private String log(String id) {
+    StringBuilder entries = new StringBuilder();
+    for (int i = 1; i <= round.get(); i++) {
+      entries.append(i == 1 ? "" : ",").append("{\"timestamp\":").append(i)
+          .append(",\"level\":\"INFO\",\"message\":\"").append(id).append(':').append(i)
+          .append("\"}");
+    }
+    return "[" + entries + "]";
+  }
+
+  private static String action(long id, String state) {
+    return "{\"actionId\":" + id + ",\"actionState\":\"" + state + "\"}";
+  }
+
+  private static String record(long rfcId, String state) {
+    return "{\"dpmtRecordId\":" + (rfcId + 100) + ",\"rfcId\":" + rfcId
+        + ",\"dpmtRecordState\":\"" + state + "\"}";
+  }
+}
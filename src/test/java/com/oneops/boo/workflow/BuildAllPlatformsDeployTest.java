@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.oneops.boo.ClientConfig;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.util.Watcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BuildAllPlatformsDeployTest {
+
+  private static final String ENV = "/assemblies/asm/transition/environments/dev";
+  private static final String BOM = "{\"releaseId\":6,\"nsPath\":\"/org/asm/dev/bom\"}";
+  private static final String BOM_NOT_READY = "{\"nsPath\":\"/org/asm/dev/bom\"}";
+
+  private FakeOneOps oneops;
+  private BuildAllPlatforms flow;
+
+  @Before
+  public void setUp() throws Exception {
+    String basedir = System.getProperty("basedir", new File("").getAbsolutePath());
+    ClientConfig config = new ClientConfig(new File(basedir, "src/test/yaml/plan.yaml"),
+        Collections.<String, String>emptyMap());
+    oneops = new FakeOneOps();
+    flow = new BuildAllPlatforms(oneops.instance(), config, null);
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testWaitsForTheBomRelease() {
+    final AtomicInteger polls = new AtomicInteger();
+    oneops.on("GET", ENV + "/releases/bom", request -> FakeOneOps.Reply.json(200,
+        polls.incrementAndGet() < 3 ? BOM_NOT_READY : BOM));
+    oneops.on("POST", ENV + "/deployments/", 200, "{\"deploymentId\":9}");
+
+    assertNull(flow.deployWithRetries(true, new Watcher(1, 1, 0)));
+    assertEquals(3, oneops.count("GET", ENV + "/releases/bom"));
+    assertEquals(1, oneops.count("POST", ENV + "/deployments/"));
+  }
+
+  @Test
+  public void testRetriesAFailedDeploymentPost() {
+    final AtomicInteger posts = new AtomicInteger();
+    oneops.on("GET", ENV + "/releases/bom", 200, BOM);
+    oneops.on("POST", ENV + "/deployments/", request -> posts.incrementAndGet() == 1
+        ? FakeOneOps.Reply.status(500) : FakeOneOps.Reply.json(200, "{\"deploymentId\":9}"));
+
+    assertNull(flow.deployWithRetries(true, new Watcher(1, 1, 0)));
+    assertEquals(2, oneops.count("POST", ENV + "/deployments/"));
+  }
+
+  @Test
+  public void testGivesUpAfterTheLastAttempt() {
+    oneops.on("GET", ENV + "/releases/bom", 200, BOM_NOT_READY);
+
+    String error = flow.deployWithRetries(true, new Watcher(1, 1, 0));
+    assertTrue(error, error.contains("release id"));
+    assertEquals(BuildAllPlatforms.DEPLOY_ATTEMPTS,
+        oneops.count("GET", ENV + "/releases/bom"));
+    assertEquals(0, oneops.count("POST", ENV + "/deployments/"));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+
+import com.oneops.boo.ClientConfig;
+import com.oneops.client.api.FakeOneOps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BuildAllPlatformsPlanTest {
+
+  private static final String DESIGN = "/assemblies/asm/design";
+  private static final String PLATFORM = DESIGN + "/platforms/web";
+  private static final String ENV = "/assemblies/asm/transition/environments/dev";
+
+  private ClientConfig config;
+  private FakeOneOps planned;
+  private FakeOneOps applied;
+
+  @Before
+  public void setUp() throws Exception {
+    String basedir = System.getProperty("basedir", new File("").getAbsolutePath());
+    config = new ClientConfig(new File(basedir, "src/test/yaml/plan.yaml"),
+        Collections.<String, String>emptyMap());
+    planned = fixture(new FakeOneOps());
+    applied = fixture(new FakeOneOps());
+  }
+
+  @After
+  public void tearDown() {
+    planned.close();
+    applied.close();
+  }
+
+  @Test
+  public void testEstimateMatchesTheUpdate() throws Exception {
+    PlanReport report = new BuildAllPlatforms(planned.instance(), config, null).plan(true);
+    assertEquals(planned.getRequests().size(), report.getPlanReads());
+
+    // Plan and update are separate runs, so the update starts with empty client caches.
+    new BuildAllPlatforms(applied.instance(), config, null).process(true, false);
+    assertEquals(applied.getRequests().toString(), applied.getRequests().size(),
+        report.getEstimatedCalls());
+  }
+
+  /**
+   * An assembly with platform web, whose tomcat, variables, lb and cloud differ from the yaml.
+   */
+  private static FakeOneOps fixture(FakeOneOps oneops) {
+    oneops.on("GET", "/assemblies/asm", 200, "{\"ciId\":1,\"ciName\":\"asm\"}");
+    oneops.on("GET", "/clouds/dev-cloud", 200, "{\"ciId\":100,\"ciName\":\"dev-cloud\"}");
+
+    oneops.on("GET", DESIGN + "/platforms", 200, "[{\"ciId\":10,\"ciName\":\"web\"}]");
+    oneops.on("GET", PLATFORM, 200, "{\"ciId\":10,\"ciName\":\"web\"}");
+    oneops.on("GET", PLATFORM + "/components", 200, "["
+        + "{\"ciId\":11,\"ciName\":\"tomcat\",\"ciAttributes\":{\"version\":\"7.0\"},"
+        + "\"ciAttrProps\":{\"owner\":{\"version\":\"design\"}}},"
+        + "{\"ciId\":12,\"ciName\":\"user-old\",\"ciAttributes\":{\"username\":\"old\"},"
+        + "\"ciAttrProps\":{\"owner\":{\"username\":\"design\"}}}]");
+    oneops.on("GET", PLATFORM + "/components/11/attachments.json", 200, "[]");
+    oneops.on("GET", PLATFORM + "/components/11/attachments/new.json", 200,
+        "{\"ciAttributes\":{},\"ciAttrProps\":{\"owner\":{}}}");
+    oneops.on("POST", PLATFORM + "/components/11/attachments", 200, "{}");
+    oneops.on("GET", PLATFORM + "/components/*", 200, "{\"ciId\":11,\"ciName\":\"tomcat\","
+        + "\"ciAttributes\":{},\"ciAttrProps\":{\"owner\":{\"version\":\"design\"}}}");
+    oneops.on("PUT", PLATFORM + "/components/*", 200, "{}");
+    oneops.on("DELETE", PLATFORM + "/components/*", 200, "{}");
+    oneops.on("GET", PLATFORM + "/variables", 200, "["
+        + "{\"ciId\":21,\"ciName\":\"port\",\"ciAttributes\":{\"value\":\"8080\"}},"
+        + "{\"ciId\":22,\"ciName\":\"stale\",\"ciAttributes\":{\"value\":\"1\"}}]");
+    oneops.on("GET", PLATFORM + "/variables/new.json", 200, "{\"ciAttributes\":{}}");
+    oneops.on("POST", PLATFORM + "/variables", 200, "{}");
+    oneops.on("DELETE", PLATFORM + "/variables/*", 200, "{}");
+    final AtomicBoolean committed = new AtomicBoolean();
+    oneops.on("GET", DESIGN + "/releases/latest", request -> FakeOneOps.Reply.json(200,
+        "{\"releaseId\":5,\"releaseState\":\"" + (committed.get() ? "closed" : "open") + "\"}"));
+    oneops.on("POST", DESIGN + "/releases/5/commit", request -> {
+      committed.set(true);
+      return FakeOneOps.Reply.json(200, "{}");
+    });
+
+    oneops.on("GET", ENV, 200, "{\"ciId\":30,\"ciName\":\"dev\",\"ciState\":\"default\","
+        + "\"clouds\":{\"100\":{\"priority\":\"1\"}}}");
+    oneops.on("GET", ENV + "/platforms/web/components", 200,
+        "[{\"ciId\":40,\"ciName\":\"lb\",\"ciAttributes\":{\"ecv_map\":\"{}\"}}]");
+    oneops.on("GET", ENV + "/platforms/web/components/*", 200, "{\"ciId\":40,\"ciName\":\"lb\","
+        + "\"ciAttributes\":{\"ecv_map\":\"{}\"},\"ciAttrProps\":{\"owner\":{}}}");
+    oneops.on("GET", ENV + "/relays/default", 200, "{\"ciId\":60,\"ciAttributes\":{}}");
+    oneops.on("GET", ENV + "/deployments/latest", 200,
+        "{\"deploymentId\":9,\"deploymentState\":\"complete\"}");
+    oneops.on("GET", ENV + "/deployments/9/status", 200,
+        "{\"deploymentId\":9,\"deploymentState\":\"complete\"}");
+    oneops.on("GET", ENV + "/releases/bom", 200,
+        "{\"releaseId\":6,\"nsPath\":\"/org/asm/dev/bom\"}");
+    oneops.on("PUT", ENV + "/*", 200, "{}");
+    oneops.on("POST", ENV + "/*", 200, "{}");
+    return oneops;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.boo.yaml.PlatformBean;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.Design;
+import com.oneops.client.api.resource.Transition;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DesiredStateDiffTest {
+
+  @Test
+  public void testIndex() {
+    JsonPath response = new JsonPath("[{\"ciId\":1,\"ciName\":\"tomcat\","
+        + "\"ciAttributes\":{\"version\":\"7.0\"}},{\"ciId\":2,\"ciName\":\"user-app\"}]");
+    Map<String, Map<String, Object>> cis = DesiredStateDiff.index(response);
+    assertEquals(2, cis.size());
+    assertTrue(cis.containsKey("tomcat"));
+    assertTrue(cis.containsKey("user-app"));
+  }
+
+  @Test
+  public void testMatches() {
+    Map<String, String> desired = new HashMap<String, String>();
+    desired.put("version", "7.0");
+    Map<String, Object> current = new HashMap<String, Object>();
+    current.put("version", "7.0");
+    current.put("port", "8080");
+    assertTrue(DesiredStateDiff.matches(desired, current, null));
+
+    Map<String, Object> owner = new HashMap<String, Object>();
+    assertFalse(DesiredStateDiff.matches(desired, current, owner));
+    owner.put("version", "design");
+    assertTrue(DesiredStateDiff.matches(desired, current, owner));
+
+    current.put("version", "8.0");
+    assertFalse(DesiredStateDiff.matches(desired, current, null));
+  }
+
+  @Test
+  public void testComponentWrites() {
+    Map<String, Object> plain = new LinkedHashMap<String, Object>();
+    plain.put("version", "7.0");
+    plain.put("attachments", new HashMap<String, Object>());
+    Map<String, Map<String, String>> writes = DesiredStateDiff.componentWrites("tomcat", plain);
+    assertEquals(1, writes.size());
+    assertEquals("7.0", writes.get("tomcat").get("version"));
+
+    Map<String, String> user = new HashMap<String, String>();
+    user.put("username", "app");
+    Map<String, Object> named = new LinkedHashMap<String, Object>();
+    named.put("user-app", user);
+    writes = DesiredStateDiff.componentWrites("user", named);
+    assertEquals(1, writes.size());
+    assertEquals("app", writes.get("user-app").get("username"));
+  }
+
+  @Test
+  public void testSharedVariableNameIsRejected() throws Exception {
+    PlatformBean platform = new PlatformBean.PlatformBeanBuilder("oneops/tomcat", "1")
+        .setName("web").setVariables(Collections.singletonMap("port", "8080"))
+        .setSecureVariables(Collections.singletonMap("port", "8443")).build();
+    try (FakeOneOps oneops = new FakeOneOps()) {
+      DesiredStateDiff diff = new DesiredStateDiff(new Design(oneops.instance(), "asm"),
+          new Transition(oneops.instance(), "asm"), "dev");
+      try {
+        diff.diffVariables(platform);
+        fail("Expected the shared name to be rejected");
+      } catch (OneOpsClientAPIException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("port"));
+      }
+      assertTrue(oneops.getRequests().isEmpty());
+      assertEquals(0, diff.getReadCount());
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.jayway.restassured.path.json.JsonPath;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class EnvironmentSnapshotTest {
+
+  @Test
+  public void testIndexes() {
+    JsonPath environment = new JsonPath(
+        "{\"ciName\":\"dev\",\"clouds\":{\"11\":{\"priority\":\"1\"},\"12\":{\"priority\":\"2\"}}}");
+    Map<String, Long> platformIds = new HashMap<String, Long>();
+    platformIds.put("tomcat", 21L);
+    EnvironmentSnapshot snapshot = new EnvironmentSnapshot(environment,
+        Collections.singletonMap("dc1", "11"), platformIds);
+    assertEquals("dev", snapshot.getEnvironment().getString("ciName"));
+    assertEquals(2, snapshot.getClouds().size());
+    assertTrue(snapshot.getClouds().containsKey("12"));
+    assertEquals("11", snapshot.getCloudId("dc1"));
+    assertNull(snapshot.getCloudId("dc2"));
+    assertTrue(snapshot.hasPlatform("tomcat"));
+    assertEquals(Long.valueOf(21), snapshot.getPlatformId("tomcat"));
+    assertFalse(snapshot.hasPlatform("db"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCloudsAreReadOnly() {
+    EnvironmentSnapshot snapshot = new EnvironmentSnapshot(new JsonPath("{\"ciName\":\"dev\"}"),
+        Collections.<String, String>emptyMap(), Collections.<String, Long>emptyMap());
+    assertTrue(snapshot.getClouds().isEmpty());
+    snapshot.getClouds().remove("11");
+  }
+}
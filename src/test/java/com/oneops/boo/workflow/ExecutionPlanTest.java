@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutionPlanTest {
+
+  @Test
+  public void testDependenciesRunFirst() throws OneOpsClientAPIException {
+    final List<String> order = new CopyOnWriteArrayList<String>();
+    ExecutionPlan plan = new ExecutionPlan();
+    plan.add("a", () -> order.add("a"));
+    plan.add("b", () -> order.add("b"), "a");
+    plan.add("c", () -> order.add("c"), "a");
+    plan.add("d", () -> order.add("d"), "b", "c");
+    plan.execute(4);
+    assertEquals(4, order.size());
+    assertEquals("a", order.get(0));
+    assertEquals("d", order.get(3));
+  }
+
+  @Test
+  public void testIndependentStepsRunConcurrently() throws OneOpsClientAPIException {
+    // both steps wait for each other, which only completes if they run at the same time
+    final CountDownLatch latch = new CountDownLatch(2);
+    ExecutionPlan plan = new ExecutionPlan();
+    for (String id : new String[] {"p1", "p2"}) {
+      plan.add(id, () -> {
+        latch.countDown();
+        try {
+          assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+          throw new OneOpsClientAPIException(e.getMessage(), e);
+        }
+      });
+    }
+    plan.execute(2);
+  }
+
+  @Test
+  public void testFailureStopsDependents() {
+    final List<String> order = new CopyOnWriteArrayList<String>();
+    ExecutionPlan plan = new ExecutionPlan();
+    plan.add("a", () -> {
+      throw new OneOpsClientAPIException("boom");
+    });
+    plan.add("b", () -> order.add("b"), "a");
+    try {
+      plan.execute(2);
+      fail();
+    } catch (OneOpsClientAPIException e) {
+      assertEquals("boom", e.getMessage());
+    }
+    assertTrue(order.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownDependency() {
+    new ExecutionPlan().add("a", () -> {
+    }, "missing");
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.oneops.client.api.resource.model.Instance;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class InstanceSnapshotTest {
+
+  @Test
+  public void testIndexes() {
+    InstanceSnapshot snapshot = new InstanceSnapshot(
+        Arrays.asList(instance(12, "compute-12-1"), instance(7, "compute-7-1")));
+    assertEquals(2, snapshot.size());
+    assertEquals(Arrays.asList("compute-12-1", "compute-7-1"), snapshot.getNames());
+    assertEquals(Arrays.asList("12", "7"), snapshot.getIds());
+    assertEquals(Long.valueOf(7), snapshot.getIdsByName().get("compute-7-1"));
+    assertEquals("compute-12-1", snapshot.get(12).getCiName());
+    assertEquals(7, snapshot.get("compute-7-1").getCiId());
+    assertEquals("10.0.0.12", snapshot.getAttributes().get(0).get("private_ip"));
+    assertNull(snapshot.get("compute-1-1"));
+  }
+
+  private static Instance instance(long id, String name) {
+    Instance instance = new Instance();
+    instance.setCiId(id);
+    instance.setCiName(name);
+    instance.getCiAttributes().put("private_ip", "10.0.0." + id);
+    return instance;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class PlanReportTest {
+
+  @Test
+  public void testEstimateAndPrint() throws Exception {
+    PlanReport report = new PlanReport("asm", "dev");
+    report.add(new Change(Change.Action.ADD, Change.Kind.PLATFORM, "web", null, "web", null,
+        false));
+    report.add(new Change(Change.Action.ADD, Change.Kind.VARIABLE, "web", null, "port", null,
+        false));
+    report.add(new Change(Change.Action.ADD, Change.Kind.VARIABLE, "web", null, "host", null,
+        false));
+    report.add(new Change(Change.Action.UPDATE, Change.Kind.COMPONENT, "web", "tomcat", "tomcat",
+        null, false));
+    report.add(new Change(Change.Action.DELETE, Change.Kind.COMPONENT, "db", "user", "user-old",
+        null, false));
+    ChangeSet unchanged = new ChangeSet();
+    unchanged.addUnchanged();
+    report.addAll(unchanged);
+    report.addOverhead(5);
+    report.addPlanReads(3);
+    // The variable template is fetched once for both new variables.
+    assertEquals(5 + 1 + (1 + 1 + 1) + 2 + 2, report.getEstimatedCalls());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    report.print(new PrintStream(bytes, true, "UTF-8"));
+    String out = bytes.toString("UTF-8");
+    assertTrue(out.contains("+ ADD PLATFORM web"));
+    assertTrue(out.contains("~ UPDATE COMPONENT web/tomcat"));
+    assertTrue(out.contains("- DELETE COMPONENT db/user/user-old"));
+    assertTrue(out.contains("3 to add, 1 to update, 1 to delete, 1 unchanged."));
+    assertTrue(out.contains("Estimated OneOps API calls: 13 (3 reads made while planning)."));
+  }
+}
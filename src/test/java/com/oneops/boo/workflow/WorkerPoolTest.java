@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.boo.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WorkerPoolTest {
+
+  @Test
+  public void testAwaitRunsEveryTask() throws OneOpsClientAPIException {
+    final AtomicInteger count = new AtomicInteger();
+    WorkerPool pool = new WorkerPool(4, false);
+    WorkerPool.Batch batch = pool.batch();
+    for (int i = 0; i < 20; i++) {
+      batch.submit(() -> count.incrementAndGet());
+    }
+    batch.await();
+    assertEquals(20, count.get());
+    pool.close();
+  }
+
+  @Test
+  public void testConcurrencyIsBounded() throws OneOpsClientAPIException {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    WorkerPool pool = new WorkerPool(2, true);
+    WorkerPool.Batch batch = pool.batch();
+    for (int i = 0; i < 10; i++) {
+      batch.submit(() -> {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          throw new OneOpsClientAPIException(e.getMessage(), e);
+        }
+        running.decrementAndGet();
+      });
+    }
+    batch.await();
+    assertTrue(peak.get() <= 2);
+    pool.close();
+  }
+
+  @Test
+  public void testFailuresAreAggregated() {
+    WorkerPool pool = new WorkerPool(4, false);
+    WorkerPool.Batch batch = pool.batch();
+    batch.submit(() -> {
+      throw new OneOpsClientAPIException("first");
+    });
+    batch.submit(() -> {
+    });
+    batch.submit(() -> {
+      throw new OneOpsClientAPIException("second");
+    });
+    try {
+      batch.await();
+      fail("expected the failures to be thrown");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage().startsWith("2 of 3 tasks failed"));
+      assertEquals(1, e.getSuppressed().length);
+    }
+    pool.close();
+  }
+
+  @Test
+  public void testPoolRestartsAfterClose() throws OneOpsClientAPIException {
+    final AtomicInteger count = new AtomicInteger();
+    WorkerPool pool = new WorkerPool(1, false);
+    pool.close();
+    WorkerPool.Batch batch = pool.batch();
+    batch.submit(() -> count.incrementAndGet());
+    batch.await();
+    assertEquals(1, count.get());
+    pool.close();
+  }
+}
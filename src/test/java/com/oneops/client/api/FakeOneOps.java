@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process stand-in for the OneOps API. Routes answer requests by method and path, relative
+ * to the organization; every request is recorded. Unrouted requests get a 404.
+ */
+public class FakeOneOps implements Closeable {
+
+  public static final String ORG = "org";
+
+  /**
+   * Answers one request.
+   */
+  @FunctionalInterface
+  public interface Route {
+    Reply answer(Request request) throws Exception;
+  }
+
+  /**
+   * A request received, its path relative to the organization.
+   */
+  public static final class Request {
+    private final String method;
+    private final String path;
+    private final String query;
+    private final String body;
+    private final Map<String, String> headers;
+
+    Request(String method, String path, String query, String body, Map<String, String> headers) {
+      this.method = method;
+      this.path = path;
+      this.query = query;
+      this.body = body;
+      this.headers = headers;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the query string, null if there is none
+     */
+    public String getQuery() {
+      return query;
+    }
+
+    public String getBody() {
+      return body;
+    }
+
+    public String getHeader(String name) {
+      return headers.get(name.toLowerCase());
+    }
+
+    @Override
+    public String toString() {
+      return method + " " + path;
+    }
+  }
+
+  /**
+   * A response to send.
+   */
+  public static final class Reply {
+    private final int status;
+    private final String body;
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private long delayMillis;
+
+    private Reply(int status, String body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    public static Reply json(int status, String body) {
+      return new Reply(status, body).header("Content-Type", "application/json");
+    }
+
+    public static Reply status(int status) {
+      return json(status, "{}");
+    }
+
+    public Reply header(String name, String value) {
+      headers.put(name, value);
+      return this;
+    }
+
+    /**
+     * Sends the reply only after a delay.
+     */
+    public Reply after(long millis) {
+      this.delayMillis = millis;
+      return this;
+    }
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final Map<String, Route> routes = new LinkedHashMap<String, Route>();
+  private final List<Request> requests = new CopyOnWriteArrayList<Request>();
+
+  public FakeOneOps() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * Routes a method and path. A path ending with * matches every path starting with the rest.
+   */
+  public synchronized FakeOneOps on(String method, String path, Route route) {
+    routes.put(method + " " + path, route);
+    return this;
+  }
+
+  public FakeOneOps on(String method, String path, int status, String body) {
+    final Reply reply = Reply.json(status, body);
+    return on(method, path, request -> reply);
+  }
+
+  /**
+   * @return an instance whose requests go to this server
+   */
+  public OOInstance instance() {
+    OOInstance instance = new OOInstance();
+    instance.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    instance.setOrgname(ORG);
+    instance.setAuthtoken("token");
+    return instance;
+  }
+
+  public List<Request> getRequests() {
+    return new ArrayList<Request>(requests);
+  }
+
+  /**
+   * @return the number of requests received with a method and path, * as for routes
+   */
+  public int count(String method, String path) {
+    int count = 0;
+    for (Request request : requests) {
+      if (matches(method + " " + path, request.getMethod() + " " + request.getPath())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public void reset() {
+    requests.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String path = exchange.getRequestURI().getPath();
+      if (path.startsWith("/" + ORG + "/")) {
+        path = path.substring(ORG.length() + 1);
+      }
+      Map<String, String> headers = new LinkedHashMap<String, String>();
+      for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+        headers.put(header.getKey().toLowerCase(), header.getValue().get(0));
+      }
+      Request request = new Request(exchange.getRequestMethod(), path,
+          exchange.getRequestURI().getRawQuery(), read(exchange.getRequestBody()), headers);
+      requests.add(request);
+      Reply reply;
+      try {
+        Route route = route(request.getMethod() + " " + path);
+        reply = route == null ? Reply.status(404) : route.answer(request);
+      } catch (Exception e) {
+        reply = Reply.json(500, "{\"error\":\"" + e + "\"}");
+      }
+      if (reply.delayMillis > 0) {
+        TimeUnit.MILLISECONDS.sleep(reply.delayMillis);
+      }
+      for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+        exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+      }
+      byte[] body = reply.body == null ? new byte[0] : reply.body.getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(reply.status, body.length == 0 ? -1 : body.length);
+      if (body.length > 0) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private synchronized Route route(String key) {
+    for (Map.Entry<String, Route> entry : routes.entrySet()) {
+      if (matches(entry.getKey(), key)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static boolean matches(String pattern, String key) {
+    return pattern.endsWith("*") ? key.startsWith(pattern.substring(0, pattern.length() - 1))
+        : pattern.equals(key);
+  }
+
+  private static String read(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int n; (n = in.read(buffer)) > 0;) {
+      bytes.write(buffer, 0, n);
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.FakeOneOps.Reply;
+
+public class HttpResponseCacheTest {
+
+  private static final String BODY = "{\"ciName\":\"tomcat\"}";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FakeOneOps oneops;
+  private HttpResponseCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    cache = HttpResponseCache.forDirectory(folder.newFolder("http"));
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testNotModifiedIsAnsweredFromStoredBody() {
+    oneops.on("GET", "/templates/tomcat", request -> "\"v1\"".equals(request
+        .getHeader("If-None-Match")) ? Reply.json(304, null) : Reply.json(200, BODY)
+            .header("ETag", "\"v1\""));
+
+    Response first = request("key").get("/templates/tomcat");
+    assertEquals(200, first.getStatusCode());
+    Response second = request("key").get("/templates/tomcat");
+    assertEquals(200, second.getStatusCode());
+    assertEquals(BODY, second.asString());
+    assertEquals("tomcat", second.jsonPath().getString("ciName"));
+
+    List<FakeOneOps.Request> requests = oneops.getRequests();
+    assertEquals(2, requests.size());
+    assertNull(requests.get(0).getHeader("If-None-Match"));
+    assertEquals("\"v1\"", requests.get(1).getHeader("If-None-Match"));
+  }
+
+  @Test
+  public void testEntriesAreKeptPerApiKey() {
+    oneops.on("GET", "/templates/tomcat",
+        request -> Reply.json(200, BODY).header("Last-Modified", "Mon, 05 Oct 2026 10:00:00 GMT"));
+
+    request("key").get("/templates/tomcat");
+    request("other").get("/templates/tomcat");
+    request("key").get("/templates/tomcat");
+
+    List<FakeOneOps.Request> requests = oneops.getRequests();
+    assertNull(requests.get(1).getHeader("If-Modified-Since"));
+    assertEquals("Mon, 05 Oct 2026 10:00:00 GMT", requests.get(2).getHeader("If-Modified-Since"));
+  }
+
+  @Test
+  public void testNoStoreResponsesAreNotStored() {
+    oneops.on("GET", "/templates/secret", request -> Reply.json(200, BODY)
+        .header("ETag", "\"v1\"").header("Cache-Control", "private, no-store"));
+
+    request("key").get("/templates/secret");
+    request("key").get("/templates/secret");
+
+    assertNull(oneops.getRequests().get(1).getHeader("If-None-Match"));
+    File[] entries = cache.getDirectory().listFiles();
+    assertEquals(0, entries == null ? 0 : entries.length);
+  }
+
+  @Test
+  public void testWritesAreNotCached() {
+    oneops.on("PUT", "/templates/tomcat",
+        request -> Reply.json(200, BODY).header("ETag", "\"v1\""));
+    request("key").body(BODY).put("/templates/tomcat");
+    File[] entries = cache.getDirectory().listFiles();
+    assertEquals(0, entries == null ? 0 : entries.length);
+  }
+
+  private RequestSpecification request(String apiKey) {
+    return RestAssured.given().baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG)
+        .header("Authorization", "Basic " + apiKey).filter(cache);
+  }
+}
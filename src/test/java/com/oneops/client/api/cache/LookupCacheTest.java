@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LookupCacheTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testEntriesExpire() throws Exception {
+    LookupCache cache = new LookupCache(100, 10, null);
+    cache.put("prod-cloud", "1234");
+    assertEquals("1234", cache.get("prod-cloud"));
+    TimeUnit.MILLISECONDS.sleep(150);
+    assertNull(cache.get("prod-cloud"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() {
+    LookupCache cache = new LookupCache(DAY, 2, null);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    assertEquals("1", cache.get("a"));
+    cache.put("c", "3");
+    assertEquals(2, cache.size());
+    assertNull(cache.get("b"));
+    assertEquals("1", cache.get("a"));
+    assertEquals("3", cache.get("c"));
+  }
+
+  @Test
+  public void testReloadFromDisk() throws Exception {
+    File file = new File(folder.getRoot(), "cache/clouds.properties");
+    LookupCache cache = new LookupCache(DAY, 10, file);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("odd key=:#!", " value with \\ and é\n");
+    cache.put("a", "3");
+    cache.invalidate("b");
+
+    LookupCache reloaded = new LookupCache(DAY, 10, file);
+    assertEquals(2, reloaded.size());
+    assertEquals("3", reloaded.get("a"));
+    assertNull(reloaded.get("b"));
+    assertEquals(" value with \\ and é\n", reloaded.get("odd key=:#!"));
+  }
+
+  @Test
+  public void testExpiredEntriesAreNotReloaded() throws Exception {
+    File file = folder.newFile("clouds.properties");
+    new LookupCache(100, 10, file).put("a", "1");
+    TimeUnit.MILLISECONDS.sleep(150);
+    assertNull(new LookupCache(100, 10, file).get("a"));
+  }
+
+  @Test
+  public void testPutsAreAppendedAndCompactedOnLoad() throws Exception {
+    File file = folder.newFile("clouds.properties");
+    LookupCache cache = new LookupCache(DAY, 10, file);
+    cache.put("a", "1");
+    long oneEntry = file.length();
+    for (int i = 0; i < 50; i++) {
+      cache.put("a", String.valueOf(i % 10));
+    }
+    String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+    assertFalse(text, text.contains("#"));
+    assertTrue(file.length() > 50 * oneEntry / 2);
+
+    LookupCache reloaded = new LookupCache(DAY, 10, file);
+    assertEquals("9", reloaded.get("a"));
+    assertEquals(oneEntry, file.length());
+  }
+
+  @Test
+  public void testUnreadableFileIsIgnored() throws Exception {
+    File file = folder.newFile("clouds.properties");
+    Files.write(file.toPath(), "a=not a timestamp\nb=\n".getBytes(StandardCharsets.ISO_8859_1));
+    LookupCache cache = new LookupCache(DAY, 10, file);
+    assertEquals(0, cache.size());
+    cache.put("a", "1");
+    assertEquals("1", new LookupCache(DAY, 10, file).get("a"));
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.FakeOneOps.Reply;
+import com.oneops.client.api.http.RequestGovernor.EndpointClass;
+
+public class EndpointGuardTest {
+
+  private FakeOneOps oneops;
+  private EndpointGuard guard;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    guard = new EndpointGuard();
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testEndpointOf() {
+    assertEquals("GET /org/assemblies/{id}/design/platforms/web",
+        EndpointGuard.endpointOf(Method.GET, "/org/assemblies/12/design/platforms/web"));
+    assertEquals("PUT /env/{id}/variables/{id}",
+        EndpointGuard.endpointOf(Method.PUT, "/env/3/variables/45?x=1"));
+    assertEquals("GET /env/v1", EndpointGuard.endpointOf(Method.GET, "/env/v1"));
+  }
+
+  @Test
+  public void testNoTimeoutsByDefault() {
+    for (EndpointClass endpointClass : EndpointClass.values()) {
+      assertEquals(0, guard.getTimeout(endpointClass));
+    }
+    assertFalse(guard.isHedging());
+  }
+
+  @Test
+  public void testCircuitOpensThenHalfOpensThenCloses() throws Exception {
+    final AtomicBoolean down = new AtomicBoolean(true);
+    oneops.on("GET", "/envs/*", request -> down.get() ? Reply.status(503) : Reply.json(200, "{}"));
+    guard.setCircuitBreaker(2, 300);
+
+    assertEquals(503, request().get("/envs/1").getStatusCode());
+    assertEquals(503, request().get("/envs/2").getStatusCode());
+    assertEquals(2, oneops.count("GET", "/envs/*"));
+
+    // Open: answered without reaching the server, for every id of the endpoint
+    Response open = request().get("/envs/3");
+    assertEquals(503, open.getStatusCode());
+    assertEquals("1", open.getHeader("Retry-After"));
+    assertEquals(2, oneops.count("GET", "/envs/*"));
+
+    // Half open: one trial, which fails and opens the circuit again at once
+    TimeUnit.MILLISECONDS.sleep(350);
+    assertEquals(503, request().get("/envs/1").getStatusCode());
+    assertEquals(3, oneops.count("GET", "/envs/*"));
+    assertEquals(503, request().get("/envs/1").getStatusCode());
+    assertEquals(3, oneops.count("GET", "/envs/*"));
+
+    // Half open again: the trial succeeds and closes the circuit
+    down.set(false);
+    TimeUnit.MILLISECONDS.sleep(350);
+    assertEquals(200, request().get("/envs/1").getStatusCode());
+    assertEquals(200, request().get("/envs/2").getStatusCode());
+    assertEquals(5, oneops.count("GET", "/envs/*"));
+  }
+
+  @Test
+  public void testOtherServerErrorsKeepCircuitClosed() throws Exception {
+    oneops.on("GET", "/broken", 500, "{}");
+    guard.setCircuitBreaker(2, TimeUnit.MINUTES.toMillis(1));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(500, request().get("/broken").getStatusCode());
+    }
+    assertEquals(5, oneops.count("GET", "/broken"));
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    oneops.on("GET", "/slow", request -> Reply.json(200, "{}").after(10000));
+    guard.setTimeout(EndpointClass.READ, 200);
+    long start = System.currentTimeMillis();
+    Response response = request().get("/slow");
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertEquals(504, response.getStatusCode());
+    assertEquals("200", response.getHeader(EndpointGuard.ABANDONED));
+    assertTrue(EndpointGuard.isAbandoned(response));
+  }
+
+  @Test
+  public void testAbandonedWriteIsNotRetried() throws Exception {
+    oneops.on("PUT", "/slow", request -> Reply.json(200, "{}").after(1000));
+    oneops.on("GET", "/slow", request -> Reply.json(200, "{}").after(1000));
+    guard.setTimeout(EndpointClass.WRITE, 100);
+    guard.setTimeout(EndpointClass.READ, 100);
+    RetryPolicy policy = new RetryPolicy(3, 1, 2, TimeUnit.SECONDS.toMillis(10));
+
+    assertEquals(504, request(policy).body("{}").put("/slow").getStatusCode());
+    assertEquals(1, oneops.count("PUT", "/slow"));
+    // A read may be sent again
+    assertEquals(504, request(policy).get("/slow").getStatusCode());
+    assertEquals(3, oneops.count("GET", "/slow"));
+  }
+
+  @Test
+  public void testSlowReadIsHedged() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    oneops.on("GET", "/items/*", request -> {
+      int call = calls.incrementAndGet();
+      return Reply.json(200, "{\"call\":" + call + "}").after(call == 21 ? 10000 : 0);
+    });
+    guard.setHedging(true);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(200, request().get("/items/" + i).getStatusCode());
+    }
+    long start = System.currentTimeMillis();
+    Response response = request().get("/items/21");
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertEquals(200, response.getStatusCode());
+    assertEquals(22, response.jsonPath().getInt("call"));
+    assertEquals(22, oneops.count("GET", "/items/*"));
+  }
+
+  @Test
+  public void testWritesAreNotHedged() throws Exception {
+    oneops.on("PUT", "/items/*", 200, "{}");
+    guard.setHedging(true);
+    for (int i = 0; i < 25; i++) {
+      assertNotNull(request().body("{}").put("/items/" + i));
+    }
+    assertEquals(25, oneops.count("PUT", "/items/*"));
+  }
+
+  private RequestSpecification request() {
+    return RestAssured.given().baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG)
+        .filter(guard);
+  }
+
+  private RequestSpecification request(RetryPolicy policy) {
+    return RestAssured.given().baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG)
+        .filter(policy).filter(guard);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.jayway.restassured.RestAssured;
+import com.oneops.client.api.OOInstance;
+
+public class PooledHttpTransportTest {
+
+  @Test
+  public void testSameSettingsShareTransport() {
+    OOInstance first = instance(false);
+    OOInstance second = instance(false);
+    second.setEndpoint("https://other.example.com/");
+    PooledHttpTransport transport = PooledHttpTransport.forInstance(first);
+    try {
+      assertSame(transport, PooledHttpTransport.forInstance(second));
+    } finally {
+      transport.shutdown();
+    }
+  }
+
+  @Test
+  public void testDifferentSettingsGetOwnTransport() {
+    OOInstance first = instance(false);
+    OOInstance second = instance(false);
+    second.setMaxConnectionsPerRoute(first.getMaxConnectionsPerRoute() + 1);
+    OOInstance relaxed = instance(true);
+    assertNotEquals(PooledHttpTransport.keyOf(first), PooledHttpTransport.keyOf(second));
+    assertNotEquals(PooledHttpTransport.keyOf(first), PooledHttpTransport.keyOf(relaxed));
+
+    PooledHttpTransport transport = PooledHttpTransport.forInstance(first);
+    PooledHttpTransport other = PooledHttpTransport.forInstance(second);
+    try {
+      assertNotSame(transport, other);
+    } finally {
+      transport.shutdown();
+      other.shutdown();
+    }
+  }
+
+  @Test
+  public void testShutdownReleasesSharedTransport() {
+    OOInstance instance = instance(false);
+    PooledHttpTransport transport = PooledHttpTransport.forInstance(instance);
+    transport.shutdown();
+    PooledHttpTransport next = PooledHttpTransport.forInstance(instance);
+    try {
+      assertNotSame(transport, next);
+    } finally {
+      next.shutdown();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testRelaxedValidationOnlyWhenAsked() {
+    PooledHttpTransport strict = new PooledHttpTransport(instance(false));
+    PooledHttpTransport relaxed = new PooledHttpTransport(instance(true));
+    try {
+      assertSame(org.apache.http.conn.ssl.SSLSocketFactory.STRICT_HOSTNAME_VERIFIER,
+          strict.configure(RestAssured.config()).getSSLConfig().getSSLSocketFactory()
+              .getHostnameVerifier());
+      assertSame(org.apache.http.conn.ssl.SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER,
+          relaxed.configure(RestAssured.config()).getSSLConfig().getSSLSocketFactory()
+              .getHostnameVerifier());
+    } finally {
+      strict.shutdown();
+      relaxed.shutdown();
+    }
+  }
+
+  private static OOInstance instance(boolean relaxedHttpsValidation) {
+    OOInstance instance = new OOInstance();
+    instance.setEndpoint("https://oneops.example.com/");
+    // Settings no other test uses, so the shared transports of other tests are left alone
+    instance.setSslSessionTimeout(1234);
+    instance.setRelaxedHttpsValidation(relaxedHttpsValidation);
+    return instance;
+  }
+}
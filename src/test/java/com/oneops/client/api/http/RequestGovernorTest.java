@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.FakeOneOps.Reply;
+import com.oneops.client.api.FakeOneOps.Route;
+import com.oneops.client.api.http.RequestGovernor.EndpointClass;
+
+public class RequestGovernorTest {
+
+  private FakeOneOps oneops;
+  private RequestGovernor governor;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    governor = new RequestGovernor();
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testEndpointClassOf() {
+    assertEquals(EndpointClass.READ, EndpointClass.of(Method.GET, "/org/assemblies/a/commit"));
+    assertEquals(EndpointClass.WRITE,
+        EndpointClass.of(Method.PUT, "/org/assemblies/a/design/platforms/web"));
+    assertEquals(EndpointClass.DEPLOY,
+        EndpointClass.of(Method.POST, "/org/assemblies/a/design/releases/1/commit"));
+    assertEquals(EndpointClass.DEPLOY,
+        EndpointClass.of(Method.POST, "/org/assemblies/a/transition/environments/dev/deployments"));
+    assertEquals(EndpointClass.WRITE, EndpointClass.of(Method.POST, "/org/a?next=/commit"));
+    assertEquals(EndpointClass.DEPLOY, EndpointClass.forName("Deploy"));
+    assertNull(EndpointClass.forName("admin"));
+  }
+
+  @Test
+  public void testInFlightLimitsArePerEndpointClass() throws Exception {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxWrites = new AtomicInteger();
+    final AtomicInteger maxReads = new AtomicInteger();
+    oneops.on("PUT", "/items/*", slow(inFlight, maxWrites));
+    oneops.on("GET", "/items/*", slow(inFlight, maxReads));
+    governor.setLimit(EndpointClass.WRITE, 0, 2);
+
+    send(Method.PUT, 6);
+    assertEquals(2, maxWrites.get());
+    send(Method.GET, 6);
+    assertTrue(String.valueOf(maxReads.get()), maxReads.get() > 2);
+
+    assertEquals(6, governor.getStats(EndpointClass.WRITE).getRequests());
+    assertTrue(governor.getStats(EndpointClass.WRITE).getMaxWaitMillis() > 0);
+    assertEquals(6, governor.getStats(EndpointClass.READ).getRequests());
+    assertEquals(0, governor.getStats(EndpointClass.DEPLOY).getRequests());
+    assertEquals(0, governor.getStats(EndpointClass.WRITE).getInFlight());
+  }
+
+  @Test
+  public void testRateLimit() {
+    oneops.on("POST", "/deployments", 200, "{}");
+    governor.setLimit(EndpointClass.DEPLOY, 10, 0);
+    long start = System.nanoTime();
+    for (int i = 0; i < 6; i++) {
+      RestAssured.given().baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG)
+          .filter(governor).body("{}").post("/deployments");
+    }
+    // The first permit is free, the next five are 100 ms apart
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue(String.valueOf(elapsed), elapsed >= 400);
+    assertEquals(6, governor.getStats(EndpointClass.DEPLOY).getRequests());
+  }
+
+  /**
+   * A route taking 200 ms, recording how many requests it serves at the same time.
+   */
+  private static Route slow(final AtomicInteger inFlight, final AtomicInteger max) {
+    return request -> {
+      max.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        TimeUnit.MILLISECONDS.sleep(200);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+      return Reply.json(200, "{}");
+    };
+  }
+
+  private void send(final Method method, int count) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(count);
+    try {
+      List<Future<Response>> responses = new ArrayList<Future<Response>>();
+      for (int i = 0; i < count; i++) {
+        final String path = "/items/" + i;
+        responses.add(executor.submit(() -> {
+          RequestSpecification request = RestAssured.given()
+              .baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG).filter(governor);
+          return method == Method.PUT ? request.body("{}").put(path) : request.get(path);
+        }));
+      }
+      for (Future<Response> response : responses) {
+        assertEquals(200, response.get().getStatusCode());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
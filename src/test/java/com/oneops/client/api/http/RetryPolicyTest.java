@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Test;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.http.Method;
+import com.jayway.restassured.response.Response;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.FakeOneOps.Reply;
+
+public class RetryPolicyTest {
+
+  private static final RetryPolicy POLICY = new RetryPolicy(4, 1, 2, TimeUnit.SECONDS.toMillis(10));
+
+  @Test
+  public void testIsIdempotent() {
+    for (Method method : new Method[] {Method.GET, Method.HEAD, Method.OPTIONS, Method.PUT,
+        Method.DELETE}) {
+      assertTrue(method.name(), RetryPolicy.isIdempotent(method));
+    }
+    assertFalse(RetryPolicy.isIdempotent(Method.POST));
+    assertFalse(RetryPolicy.isIdempotent(Method.PATCH));
+  }
+
+  @Test
+  public void testIsRetryable() {
+    // A refused connection never reached the server, whatever the method
+    assertTrue(RetryPolicy.isRetryable(new ConnectException(), false));
+    assertTrue(RetryPolicy.isRetryable(new ConnectException(), true));
+    assertTrue(RetryPolicy.isRetryable(new SocketTimeoutException(), true));
+    assertFalse(RetryPolicy.isRetryable(new SocketTimeoutException(), false));
+    assertFalse(RetryPolicy.isRetryable(new IOException(), false));
+    assertFalse(RetryPolicy.isRetryable(new IllegalStateException(), true));
+  }
+
+  @Test
+  public void testRetryAfterMillis() {
+    assertEquals(0, RetryPolicy.retryAfterMillis(null));
+    assertEquals(0, RetryPolicy.retryAfterMillis(" "));
+    assertEquals(0, RetryPolicy.retryAfterMillis("soon"));
+    assertEquals(3000, RetryPolicy.retryAfterMillis("3"));
+    assertEquals(120000, RetryPolicy.retryAfterMillis(" 120 "));
+
+    String inAMinute =
+        DateUtils.formatDate(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1)));
+    long delay = RetryPolicy.retryAfterMillis(inAMinute);
+    assertTrue(String.valueOf(delay), delay > TimeUnit.SECONDS.toMillis(55)
+        && delay <= TimeUnit.MINUTES.toMillis(1));
+    String aMinuteAgo =
+        DateUtils.formatDate(new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)));
+    assertEquals(0, RetryPolicy.retryAfterMillis(aMinuteAgo));
+  }
+
+  @Test
+  public void testGetIsResentAfter503() throws Exception {
+    try (FakeOneOps oneops = new FakeOneOps()) {
+      final AtomicInteger calls = new AtomicInteger();
+      oneops.on("GET", "/flaky",
+          request -> calls.incrementAndGet() < 3 ? Reply.status(503) : Reply.json(200, "{}"));
+      Response response = request(oneops).queryParam("q", "1").get("/flaky");
+      assertEquals(200, response.getStatusCode());
+      assertEquals(3, oneops.count("GET", "/flaky"));
+      for (FakeOneOps.Request request : oneops.getRequests()) {
+        assertEquals("q=1", request.getQuery());
+      }
+    }
+  }
+
+  @Test
+  public void testGetGivesUpAfterMaxAttempts() throws Exception {
+    try (FakeOneOps oneops = new FakeOneOps()) {
+      oneops.on("GET", "/down", 502, "{}");
+      assertEquals(502, request(oneops).get("/down").getStatusCode());
+      assertEquals(POLICY.getMaxAttempts(), oneops.count("GET", "/down"));
+    }
+  }
+
+  @Test
+  public void testPostIsNotResentAfter503() throws Exception {
+    try (FakeOneOps oneops = new FakeOneOps()) {
+      oneops.on("POST", "/deploy", 503, "{}");
+      assertEquals(503, request(oneops).body("{}").post("/deploy").getStatusCode());
+      assertEquals(1, oneops.count("POST", "/deploy"));
+    }
+  }
+
+  @Test
+  public void testPostIsResentAfter429() throws Exception {
+    try (FakeOneOps oneops = new FakeOneOps()) {
+      final AtomicInteger calls = new AtomicInteger();
+      oneops.on("POST", "/deploy", request -> calls.incrementAndGet() == 1
+          ? Reply.status(429).header("Retry-After", "0") : Reply.json(200, "{}"));
+      assertEquals(200, request(oneops).body("{}").post("/deploy").getStatusCode());
+      assertEquals(2, oneops.count("POST", "/deploy"));
+    }
+  }
+
+  @Test
+  public void testPostIsNotResentAfterIoException() throws Exception {
+    assertEquals(1, connectionsUntilFailure(Method.POST));
+  }
+
+  @Test
+  public void testGetIsResentAfterIoException() throws Exception {
+    assertTrue(connectionsUntilFailure(Method.GET) > 1);
+  }
+
+  private static RequestSpecification request(FakeOneOps oneops) {
+    return RestAssured.given().baseUri(oneops.instance().getEndpoint() + FakeOneOps.ORG)
+        .filter(POLICY);
+  }
+
+  /**
+   * Sends a request to a server which reads requests and hangs up without answering.
+   *
+   * @return the connections the server accepted
+   */
+  private static int connectionsUntilFailure(Method method) throws Exception {
+    try (ServerSocket server = new ServerSocket(0)) {
+      final AtomicInteger connections = new AtomicInteger();
+      Thread acceptor = new Thread(() -> {
+        while (!server.isClosed()) {
+          try (Socket socket = server.accept()) {
+            connections.incrementAndGet();
+            InputStream in = socket.getInputStream();
+            in.read(new byte[8192]);
+          } catch (IOException e) {
+            // closed
+          }
+        }
+      });
+      acceptor.setDaemon(true);
+      acceptor.start();
+      RequestSpecification request = RestAssured.given()
+          .baseUri("http://127.0.0.1:" + server.getLocalPort()).filter(POLICY).body("{}");
+      try {
+        if (method == Method.POST) {
+          request.post("/hangup");
+        } else {
+          request.get("/hangup");
+        }
+        fail("The server never answers");
+      } catch (Exception e) {
+        assertTrue(e.toString(), e instanceof IOException);
+      }
+      return connections.get();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class AsyncResourceTest {
+
+  private FakeOneOps oneops;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    oneops.on("GET", "/assemblies/asm/design/platforms/web", 200,
+        "{\"ciId\":10,\"ciName\":\"web\"}");
+    oneops.on("GET", "/assemblies/asm/transition/environments/dev", 200,
+        "{\"ciId\":30,\"ciName\":\"dev\"}");
+    oneops.on("GET", "/operations/procedures/7", 200,
+        "{\"procedureId\":7,\"procedureState\":\"complete\"}");
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testCallsCompleteOnTheSharedExecutor() throws Exception {
+    DesignAsync design = new DesignAsync(new Design(oneops.instance(), "asm"));
+    assertSame(AsyncResource.sharedExecutor(), design.getExecutor());
+
+    assertEquals(10, design.getPlatform("web").get().getInt("ciId"));
+  }
+
+  @Test
+  public void testFailureCompletesExceptionally() throws Exception {
+    DesignAsync design = new DesignAsync(new Design(oneops.instance(), "asm"));
+    try {
+      design.getPlatform("db").get();
+      fail("Expected the missing platform to fail");
+    } catch (ExecutionException e) {
+      assertTrue(String.valueOf(e.getCause()),
+          e.getCause() instanceof OneOpsClientAPIException);
+    }
+  }
+
+  @Test
+  public void testViewsRunOnTheGivenExecutor() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    Executor direct = task -> {
+      calls.incrementAndGet();
+      task.run();
+    };
+    TransitionAsync transition =
+        new TransitionAsync(new Transition(oneops.instance(), "asm"), direct);
+    OperationAsync operation =
+        new OperationAsync(new Operation(oneops.instance(), "asm", "dev"), direct);
+
+    assertEquals("dev", transition.getEnvironment("dev").get().getString("ciName"));
+    assertEquals("complete", operation.fetchProcedure("7").get().getProcedureState());
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testSharedExecutorIsBounded() {
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) AsyncResource.sharedExecutor();
+    assertEquals(Integer.getInteger(AsyncResource.THREADS_PROPERTY, AsyncResource.DEFAULT_THREADS)
+        .intValue(), executor.getMaximumPoolSize());
+    assertTrue(executor.getQueue().remainingCapacity() + executor.getQueue().size() <= 1024);
+    // A full queue throttles the caller instead of failing the call.
+    assertTrue(
+        executor.getRejectedExecutionHandler() instanceof ThreadPoolExecutor.CallerRunsPolicy);
+  }
+}
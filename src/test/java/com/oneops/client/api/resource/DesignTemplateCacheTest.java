@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class DesignTemplateCacheTest {
+
+  private static final String COMPONENTS = "/assemblies/asm/design/platforms/web/components/";
+  private static final String TEMPLATE = COMPONENTS + "new.json";
+
+  private FakeOneOps oneops;
+  private Design design;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    // Each template carries its own name, so a mixed up cache entry shows in the posted body.
+    oneops.on("GET", TEMPLATE, request -> FakeOneOps.Reply.json(200,
+        "{\"ciAttributes\":{\"kind\":\"" + request.getQuery().replace("template_name=", "")
+            + "\"},\"ciAttrProps\":{\"owner\":{}}}"));
+    oneops.on("POST", COMPONENTS + "*", 200, "{\"ciId\":1}");
+    design = new Design(oneops.instance(), "asm");
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testSameTemplateIsFetchedOnce() throws OneOpsClientAPIException {
+    design.addPlatformComponent("web", "compute", "compute-1", attributes());
+    design.addPlatformComponent("web", "compute", "compute-2", attributes());
+
+    assertEquals(Design.TEMPLATE_CALLS, oneops.count("GET", TEMPLATE));
+    assertEquals(2, oneops.count("POST", COMPONENTS + "*"));
+    for (String body : posted()) {
+      assertTrue(body, body.contains("\"kind\":\"compute\""));
+    }
+  }
+
+  @Test
+  public void testTemplateNamesDoNotCollide() throws OneOpsClientAPIException {
+    design.addPlatformComponent("web", "compute", "compute-1", attributes());
+    design.addPlatformComponent("web", "lb", "lb-1", attributes());
+    design.addPlatformComponent("web", "compute", "compute-2", attributes());
+    design.addPlatformComponent("web", "lb", "lb-2", attributes());
+
+    assertEquals(2 * Design.TEMPLATE_CALLS, oneops.count("GET", TEMPLATE));
+    List<String> queries = new ArrayList<String>();
+    for (FakeOneOps.Request request : oneops.getRequests()) {
+      if (request.getMethod().equals("GET")) {
+        queries.add(request.getQuery());
+      }
+    }
+    assertEquals(2, queries.size());
+    assertTrue(queries.contains("template_name=compute"));
+    assertTrue(queries.contains("template_name=lb"));
+
+    List<String> bodies = posted();
+    assertEquals(4, bodies.size());
+    String[] kinds = {"compute", "lb", "compute", "lb"};
+    for (int i = 0; i < kinds.length; i++) {
+      assertTrue(bodies.get(i), bodies.get(i).contains("\"kind\":\"" + kinds[i] + "\""));
+    }
+  }
+
+  @Test
+  public void testCacheIsPerClient() throws OneOpsClientAPIException {
+    design.addPlatformComponent("web", "compute", "compute-1", attributes());
+    new Design(oneops.instance(), "asm").addPlatformComponent("web", "compute", "compute-2",
+        attributes());
+
+    assertEquals(2 * Design.TEMPLATE_CALLS, oneops.count("GET", TEMPLATE));
+  }
+
+  @Test
+  public void testFailedFetchIsNotCached() throws OneOpsClientAPIException {
+    String template = "{\"ciAttributes\":{},\"ciAttrProps\":{\"owner\":{}}}";
+    AtomicInteger calls = new AtomicInteger();
+    oneops.on("GET", TEMPLATE, request -> FakeOneOps.Reply
+        .json(calls.incrementAndGet() == 1 ? 503 : 200, template));
+
+    design.addPlatformComponent("web", "compute", "compute-1", attributes());
+    design.addPlatformComponent("web", "compute", "compute-2", attributes());
+    design.addPlatformComponent("web", "compute", "compute-3", attributes());
+
+    assertEquals(2, calls.get());
+    assertEquals(2, oneops.count("GET", TEMPLATE));
+  }
+
+  private static Map<String, String> attributes() {
+    return Collections.singletonMap("size", "M");
+  }
+
+  private List<String> posted() {
+    List<String> bodies = new ArrayList<String>();
+    for (FakeOneOps.Request request : oneops.getRequests()) {
+      if (request.getMethod().equals("POST")) {
+        bodies.add(request.getBody());
+      }
+    }
+    return bodies;
+  }
+}
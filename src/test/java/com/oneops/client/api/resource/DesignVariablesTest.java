@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class DesignVariablesTest {
+
+  private static final String VARIABLES = "/assemblies/asm/design/platforms/web/variables";
+
+  private FakeOneOps oneops;
+  private Design design;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    oneops.on("GET", VARIABLES, 200, "[]");
+    oneops.on("GET", VARIABLES + "/new.json", 200, "{\"ciAttributes\":{}}");
+    oneops.on("POST", VARIABLES, 200, "{}");
+    design = new Design(oneops.instance(), "asm");
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testSharedNameIsRejectedBeforeAnyRequest() {
+    Map<String, String> variables = new HashMap<String, String>();
+    variables.put("host", "a.example.com");
+    variables.put("port", "8080");
+    try {
+      design.upsertPlatformVariables("web", variables,
+          Collections.singletonMap("port", "8443"), true, 4);
+      fail("Expected the shared name to be rejected");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("port"));
+    }
+    assertTrue(oneops.getRequests().toString(), oneops.getRequests().isEmpty());
+  }
+
+  @Test
+  public void testDistinctNamesAreWritten() throws OneOpsClientAPIException {
+    assertEquals(2, design.upsertPlatformVariables("web",
+        Collections.singletonMap("port", "8080"), Collections.singletonMap("token", "s3cret"),
+        true, 4));
+
+    assertEquals(2, oneops.count("POST", VARIABLES));
+    int secure = 0;
+    for (FakeOneOps.Request request : oneops.getRequests()) {
+      if (request.getMethod().equals("POST") && request.getBody().contains("\"token\"")) {
+        assertTrue(request.getBody(), request.getBody().contains("\"secure\":\"true\""));
+        secure++;
+      }
+    }
+    assertEquals(1, secure);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.Instance;
+
+public class OperationInstancesTest {
+
+  private static final String COMPONENTS =
+      "/assemblies/asm/operations/environments/dev/platforms/web/components/";
+
+  private FakeOneOps oneops;
+  private Operation operation;
+  private final List<Instance> visited = new ArrayList<Instance>();
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    StringBuilder computes = new StringBuilder();
+    for (int i = 1; i <= 3; i++) {
+      computes.append(i == 1 ? "" : ",").append("{\"ciId\":").append(100 + i)
+          .append(",\"ciName\":\"compute-").append(i).append("\",\"ciAttributes\":{")
+          .append("\"public_ip\":\"10.0.0.").append(i).append("\",")
+          .append("\"private_ip\":\"192.168.0.").append(i).append("\",")
+          .append("\"hostname\":\"web-").append(i).append("\",")
+          .append("\"metadata\":{\"tags\":[\"a\"]}},")
+          .append("\"ciAttrProps\":{\"owner\":{\"size\":\"design\"}}}");
+    }
+    oneops.on("GET", COMPONENTS + "compute/instances", 200, "[" + computes + "]");
+    oneops.on("GET", COMPONENTS + "lb/instances", 200, "[]");
+    oneops.on("GET", COMPONENTS + "broken/instances", 500, "{}");
+    operation = new Operation(oneops.instance(), "asm", "dev");
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testVisitsEveryInstanceInOrder() throws OneOpsClientAPIException {
+    assertEquals(3, operation.visitInstances("web", "compute", null, visited::add));
+
+    assertEquals(3, visited.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(101 + i, visited.get(i).getCiId());
+      assertEquals("compute-" + (i + 1), visited.get(i).getCiName());
+      assertEquals("10.0.0." + (i + 1), visited.get(i).getPublicIp());
+      assertEquals("{\"tags\":[\"a\"]}", visited.get(i).getAttribute("metadata"));
+      assertEquals("design", visited.get(i).getAttrOwners().get("size"));
+    }
+    assertEquals("instances_state=all", oneops.getRequests().get(0).getQuery());
+  }
+
+  @Test
+  public void testKeepsOnlyTheRequestedAttributes() throws OneOpsClientAPIException {
+    operation.visitInstances("web", "compute",
+        new HashSet<String>(Arrays.asList("private_ip", "hostname")), visited::add);
+
+    assertEquals(3, visited.size());
+    for (Instance instance : visited) {
+      assertEquals(new HashSet<String>(Arrays.asList("private_ip", "hostname")),
+          instance.getCiAttributes().keySet());
+      assertNull(instance.getPublicIp());
+      assertTrue(instance.getAttrOwners().isEmpty());
+    }
+  }
+
+  @Test
+  public void testEmptyListing() throws OneOpsClientAPIException {
+    assertEquals(0, operation.visitInstances("web", "lb", Collections.<String>emptySet(),
+        visited::add));
+    assertTrue(visited.isEmpty());
+  }
+
+  @Test
+  public void testVisitorStopsEarly() throws OneOpsClientAPIException {
+    int count = operation.visitInstances("web", "compute", null, instance -> {
+      visited.add(instance);
+      return visited.size() < 2;
+    });
+
+    assertEquals(2, count);
+    assertEquals(2, visited.size());
+    assertEquals("compute-2", visited.get(1).getCiName());
+    // The half read response doesn't break the next request.
+    assertEquals(3, operation.fetchInstances("web", "compute").size());
+  }
+
+  @Test
+  public void testFailedListing() {
+    try {
+      operation.visitInstances("web", "broken", null, visited::add);
+      fail("Expected the failed listing to throw");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("500"));
+    }
+    assertTrue(visited.isEmpty());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class PlatformVariablesTest {
+
+  private static final String LISTING = "["
+      + "{\"ciId\":1,\"ciName\":\"port\","
+      + "\"ciAttributes\":{\"value\":\"8080 \",\"secure\":\"false\"}},"
+      + "{\"ciId\":2,\"ciName\":\"token\",\"ciAttributes\":{\"secure\":\"true\"}},"
+      + "{\"ciId\":3,\"ciName\":\"empty\",\"ciAttributes\":{\"value\":null}},"
+      + "{\"ciId\":4}]";
+
+  @Test
+  public void testByName() {
+    Map<String, Map<String, Object>> variables = PlatformVariables.byName(new JsonPath(LISTING));
+    assertEquals(3, variables.size());
+    assertEquals(2, variables.get("token").get("ciId"));
+    assertTrue(PlatformVariables.byName(null).isEmpty());
+  }
+
+  @Test
+  public void testIsUnchanged() {
+    Map<String, Map<String, Object>> variables = PlatformVariables.byName(new JsonPath(LISTING));
+    assertTrue(PlatformVariables.isUnchanged(variables.get("port"), "8080", false));
+    assertFalse(PlatformVariables.isUnchanged(variables.get("port"), "8081", false));
+    assertFalse(PlatformVariables.isUnchanged(variables.get("port"), "8080", true));
+    assertFalse(PlatformVariables.isUnchanged(variables.get("token"), "", false));
+    assertTrue(PlatformVariables.isUnchanged(variables.get("empty"), null, false));
+    assertFalse(PlatformVariables.isUnchanged(null, "8080", false));
+  }
+
+  @Test
+  public void testAttributesAreACopy() {
+    Map<String, Map<String, Object>> variables = PlatformVariables.byName(new JsonPath(LISTING));
+    Map<String, String> attributes = PlatformVariables.attributes(variables.get("port"));
+    attributes.put("value", "9090");
+    assertTrue(PlatformVariables.isUnchanged(variables.get("port"), "8080", false));
+    assertEquals(null, PlatformVariables.attributes(variables.get("empty")).get("value"));
+  }
+
+  @Test
+  public void testCheckDistinct() throws OneOpsClientAPIException {
+    Map<String, String> port = Collections.singletonMap("port", "8080");
+    PlatformVariables.checkDistinct("web", port, Collections.singletonMap("token", "t"));
+    PlatformVariables.checkDistinct("web", port, null);
+    PlatformVariables.checkDistinct("web", null, port);
+    try {
+      PlatformVariables.checkDistinct("web", port, Collections.singletonMap("port", "8443"));
+      fail("Expected port to be rejected");
+    } catch (OneOpsClientAPIException e) {
+      assertEquals("Variable port of platform web is both a variable and a secure variable",
+          e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.Procedure;
+
+public class StatusPollerTest {
+
+  private static final String PROCEDURE = "/operations/procedures/7";
+  private static final String DEPLOYMENT =
+      "/assemblies/asm/transition/environments/dev/deployments/9/status";
+
+  private FakeOneOps oneops;
+  private RecordingScheduler scheduler;
+  private StatusPoller poller;
+  private Operation operation;
+  private Transition transition;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    scheduler = new RecordingScheduler();
+    poller = new StatusPoller(scheduler, 100, 300);
+    operation = new Operation(oneops.instance(), "asm", "dev");
+    transition = new Transition(oneops.instance(), "asm");
+  }
+
+  @After
+  public void tearDown() {
+    poller.close();
+    scheduler.shutdownNow();
+    oneops.close();
+  }
+
+  @Test
+  public void testWatchersOfOneProcedureShareItsPolls() throws Exception {
+    procedureStates("active", "active", "complete");
+    Recorder first = new Recorder(1);
+    Recorder second = new Recorder(1);
+    scheduler.hold();
+    poller.watchProcedure(operation, "7", first);
+    poller.watchProcedure(operation, "7", second);
+    scheduler.release();
+
+    assertTrue(first.await());
+    assertTrue(second.await());
+    assertEquals(Arrays.asList("null>active", "active>complete"), first.transitions);
+    assertEquals(first.transitions, second.transitions);
+    assertEquals(3, oneops.count("GET", PROCEDURE));
+    assertEquals(0, poller.size());
+  }
+
+  @Test
+  public void testIntervalsGrowWhileUnchangedAndResetOnChange() throws Exception {
+    procedureStates("pending", "pending", "pending", "pending", "pending", "active", "complete");
+    Recorder recorder = new Recorder(1);
+    poller.watchProcedure(operation, "7", recorder);
+
+    assertTrue(recorder.await());
+    List<Long> delays = scheduler.delays;
+    assertEquals(7, delays.size());
+    assertEquals(0, (long) delays.get(0));
+    assertBetween(50, 100, delays.get(1));
+    assertBetween(100, 200, delays.get(2));
+    assertBetween(150, 300, delays.get(3));
+    assertBetween(150, 300, delays.get(4));
+    assertBetween(150, 300, delays.get(5));
+    // active is a change, so the interval starts over
+    assertBetween(50, 100, delays.get(6));
+  }
+
+  @Test
+  public void testFailedPollsAreReportedAndPolledAgain() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    Operation failing = new Operation(oneops.instance(), "asm", "dev") {
+      @Override
+      public Procedure fetchProcedure(String procedureId) throws OneOpsClientAPIException {
+        if (calls.incrementAndGet() == 1) {
+          throw new IllegalStateException("Connection reset");
+        }
+        return super.fetchProcedure(procedureId);
+      }
+    };
+    oneops.on("GET", PROCEDURE, request -> calls.get() == 2 ? FakeOneOps.Reply.status(500)
+        : FakeOneOps.Reply.json(200, "{\"procedureId\":7,\"procedureState\":\"complete\"}"));
+    Recorder recorder = new Recorder(1);
+    // Both listeners are in place before the first poll, so both see its failure.
+    scheduler.hold();
+    poller.watchProcedure(failing, "7", (key, from, to) -> {
+      throw new IllegalStateException("Broken listener");
+    });
+    poller.watchProcedure(failing, "7", recorder);
+    scheduler.release();
+
+    assertTrue(recorder.await());
+    assertEquals(Collections.singletonList("null>complete"), recorder.transitions);
+    assertEquals(2, recorder.errors.size());
+    assertTrue(recorder.errors.get(0).getCause() instanceof IllegalStateException);
+    assertEquals(3, calls.get());
+    assertEquals(0, poller.size());
+  }
+
+  @Test
+  public void testListenerAddedDuringAPollSeesEachTransitionOnce() throws Exception {
+    final CountDownLatch polling = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    Operation slow = new Operation(oneops.instance(), "asm", "dev") {
+      @Override
+      public Procedure fetchProcedure(String procedureId) throws OneOpsClientAPIException {
+        if (calls.incrementAndGet() == 2) {
+          polling.countDown();
+          Uninterruptibles.awaitUninterruptibly(proceed);
+        }
+        return super.fetchProcedure(procedureId);
+      }
+    };
+    procedureStates("active", "complete");
+    Recorder first = new Recorder(1);
+    Recorder second = new Recorder(1);
+    poller.watchProcedure(slow, "7", first);
+    assertTrue(polling.await(10, TimeUnit.SECONDS));
+    poller.watchProcedure(slow, "7", second);
+    proceed.countDown();
+
+    assertTrue(first.await());
+    assertTrue(second.await());
+    assertEquals(Arrays.asList("null>active", "active>complete"), first.transitions);
+    assertEquals(first.transitions, second.transitions);
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void testAwaitProcedure() throws Exception {
+    procedureStates("pending", "active", "failed");
+    assertEquals("failed", poller.awaitProcedure(operation, "7",
+        state -> !"pending".equals(state) && !"active".equals(state), 0));
+
+    oneops.on("GET", PROCEDURE, 500, "{}");
+    try {
+      poller.awaitProcedure(operation, "7", state -> true, 0);
+      fail("Expected the failed poll");
+    } catch (OneOpsClientAPIException e) {
+      assertEquals(0, poller.size());
+    }
+  }
+
+  @Test
+  public void testAwaitDeploymentTimesOutWithTheLastState() throws Exception {
+    StatusPoller fast = new StatusPoller(new ScheduledThreadPoolExecutor(1), 10, 20);
+    try {
+      oneops.on("GET", DEPLOYMENT, 200, "{\"deploymentId\":9,\"deploymentState\":\"pending\"}");
+      assertEquals("pending", fast.awaitDeployment(transition, "dev", "9",
+          state -> !"pending".equals(state), 2000));
+      assertEquals(0, fast.size());
+    } finally {
+      fast.close();
+    }
+  }
+
+  private void procedureStates(String... states) {
+    final Queue<String> queue = new ConcurrentLinkedQueue<String>(Arrays.asList(states));
+    final String last = states[states.length - 1];
+    oneops.on("GET", PROCEDURE, request -> {
+      String state = queue.poll();
+      return FakeOneOps.Reply.json(200, "{\"procedureId\":7,\"procedureState\":\""
+          + (state == null ? last : state) + "\"}");
+    });
+  }
+
+  private static void assertBetween(long min, long max, long actual) {
+    assertTrue(actual + " not in [" + min + ", " + max + "]", actual >= min && actual <= max);
+  }
+
+  /**
+   * Runs every task at once, keeping the delay it was scheduled with. Tasks scheduled while held
+   * wait until released.
+   */
+  private static class RecordingScheduler extends ScheduledThreadPoolExecutor {
+    final List<Long> delays = new CopyOnWriteArrayList<Long>();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    RecordingScheduler() {
+      super(1);
+    }
+
+    void hold() {
+      gate = new CountDownLatch(1);
+    }
+
+    void release() {
+      gate.countDown();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      delays.add(unit.toMillis(delay));
+      final CountDownLatch held = gate;
+      return super.schedule(() -> {
+        Uninterruptibles.awaitUninterruptibly(held);
+        command.run();
+      }, 0, unit);
+    }
+  }
+
+  private static class Recorder implements StatusPoller.Listener {
+    final List<String> transitions = new CopyOnWriteArrayList<String>();
+    final List<OneOpsClientAPIException> errors =
+        new CopyOnWriteArrayList<OneOpsClientAPIException>();
+    private final CountDownLatch finished;
+
+    Recorder(int finals) {
+      this.finished = new CountDownLatch(finals);
+    }
+
+    @Override
+    public void onTransition(String key, String from, String to) {
+      transitions.add(from + ">" + to);
+      if ("complete".equals(to) || "failed".equals(to)) {
+        finished.countDown();
+      }
+    }
+
+    @Override
+    public void onError(String key, OneOpsClientAPIException e) {
+      errors.add(e);
+    }
+
+    boolean await() throws InterruptedException {
+      return finished.await(10, TimeUnit.SECONDS);
+    }
+  }
+}
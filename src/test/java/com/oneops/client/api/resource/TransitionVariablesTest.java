@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oneops.client.api.FakeOneOps;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.VariableUpdate;
+
+public class TransitionVariablesTest {
+
+  private static final String VARIABLES =
+      "/assemblies/asm/transition/environments/dev/platforms/web/variables";
+
+  private FakeOneOps oneops;
+  private Transition transition;
+
+  @Before
+  public void setUp() throws Exception {
+    oneops = new FakeOneOps();
+    oneops.on("GET", VARIABLES, 200, "["
+        + "{\"ciId\":1,\"ciName\":\"port\",\"ciAttributes\":{\"value\":\"8080\"}},"
+        + "{\"ciId\":2,\"ciName\":\"host\",\"ciAttributes\":{\"value\":\"a.example.com\"}},"
+        + "{\"ciId\":3,\"ciName\":\"broken\",\"ciAttributes\":{\"value\":\"1\"}},"
+        + "{\"ciId\":4,\"ciName\":\"token\",\"ciAttributes\":{\"secure\":\"true\"}}]");
+    oneops.on("PUT", VARIABLES + "/broken", 400, "{}");
+    oneops.on("PUT", VARIABLES + "/*", 200, "{}");
+    transition = new Transition(oneops.instance(), "asm");
+  }
+
+  @After
+  public void tearDown() {
+    oneops.close();
+  }
+
+  @Test
+  public void testOnlyChangedVariablesArePut() throws OneOpsClientAPIException {
+    Map<String, String> variables = new LinkedHashMap<String, String>();
+    variables.put("port", "8080");
+    variables.put("host", "b.example.com");
+    variables.put("missing", "x");
+    variables.put("broken", "2");
+    Map<String, VariableUpdate> results =
+        transition.updatePlatformVariables("dev", "web", variables, false, 4);
+
+    assertEquals(variables.keySet(), results.keySet());
+    assertEquals(VariableUpdate.Status.UNCHANGED, results.get("port").getStatus());
+    assertEquals(VariableUpdate.Status.UPDATED, results.get("host").getStatus());
+    assertNull(results.get("host").getError());
+    assertEquals(VariableUpdate.Status.MISSING, results.get("missing").getStatus());
+    assertEquals(VariableUpdate.Status.FAILED, results.get("broken").getStatus());
+    assertNotNull(results.get("broken").getError());
+
+    assertEquals(1, oneops.count("GET", VARIABLES));
+    assertEquals(0, oneops.count("PUT", VARIABLES + "/port"));
+    assertEquals(1, oneops.count("PUT", VARIABLES + "/host"));
+    assertEquals(0, oneops.count("PUT", VARIABLES + "/missing"));
+    assertEquals(1, oneops.count("PUT", VARIABLES + "/broken"));
+  }
+
+  @Test
+  public void testSecureValuesAreAlwaysPut() throws OneOpsClientAPIException {
+    Map<String, String> variables = new LinkedHashMap<String, String>();
+    variables.put("port", "8080");
+    variables.put("token", "secret");
+    Map<String, VariableUpdate> results =
+        transition.updatePlatformVariables("dev", "web", variables, true, 4);
+
+    assertEquals(VariableUpdate.Status.UPDATED, results.get("port").getStatus());
+    assertEquals(VariableUpdate.Status.UPDATED, results.get("token").getStatus());
+    for (FakeOneOps.Request request : oneops.getRequests()) {
+      if ("PUT".equals(request.getMethod())) {
+        assertTrue(request.getBody(), request.getBody().contains("\"encrypted_value\""));
+        assertTrue(request.getBody(), request.getBody().contains("\"secure\":\"true\""));
+      }
+    }
+    assertEquals(1, oneops.count("PUT", VARIABLES + "/port"));
+    assertEquals(1, oneops.count("PUT", VARIABLES + "/token"));
+  }
+
+  @Test
+  public void testSingleCallUpdatePutsChangedVariables() throws OneOpsClientAPIException {
+    Map<String, String> variables = new LinkedHashMap<String, String>();
+    variables.put("port", "8080");
+    variables.put("host", "b.example.com");
+    variables.put("missing", "x");
+    assertTrue(transition.updatePlatformVariable("dev", "web", variables, false));
+    assertEquals(1, oneops.count("PUT", VARIABLES + "/*"));
+
+    try {
+      transition.updatePlatformVariable("dev", "web",
+          Collections.singletonMap("broken", "2"), false);
+      fail("A failed put was not reported");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("broken"));
+    }
+  }
+
+  @Test
+  public void testMissingNamesAreRejected() {
+    Map<String, String> variables = Collections.singletonMap("port", "8080");
+    for (String[] names : new String[][] {{"", "web"}, {null, "web"}, {"dev", ""},
+        {"dev", null}}) {
+      try {
+        transition.updatePlatformVariables(names[0], names[1], variables, false, 4);
+        fail("Accepted " + names[0] + "/" + names[1]);
+      } catch (OneOpsClientAPIException e) {
+        // expected
+      }
+    }
+    assertTrue(oneops.getRequests().isEmpty());
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class WriteBatchTest {
+
+  @Test
+  public void testRunsEveryWrite() throws OneOpsClientAPIException {
+    final AtomicInteger count = new AtomicInteger();
+    WriteBatch batch = new WriteBatch(8);
+    for (int i = 0; i < 50; i++) {
+      batch.add("var" + i, () -> count.incrementAndGet());
+    }
+    assertTrue(batch.run().isEmpty());
+    assertEquals(50, count.get());
+  }
+
+  @Test
+  public void testConcurrencyIsCapped() throws OneOpsClientAPIException {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    WriteBatch batch = new WriteBatch(3);
+    for (int i = 0; i < 20; i++) {
+      batch.add("var" + i, () -> {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+      });
+    }
+    batch.run();
+    assertTrue("peak " + peak.get(), peak.get() <= 3);
+  }
+
+  @Test
+  public void testCallerRunsWhenExecutorIsSaturated() throws OneOpsClientAPIException {
+    Executor saturated = task -> {
+      throw new RejectedExecutionException("full");
+    };
+    final Thread caller = Thread.currentThread();
+    final AtomicInteger onCaller = new AtomicInteger();
+    WriteBatch batch = new WriteBatch(saturated, 4);
+    for (int i = 0; i < 10; i++) {
+      batch.add("var" + i, () -> {
+        if (Thread.currentThread() == caller) {
+          onCaller.incrementAndGet();
+        }
+      });
+    }
+    batch.run();
+    assertEquals(10, onCaller.get());
+  }
+
+  @Test
+  public void testCompletesWhenExecutorNeverRunsHelpers() throws OneOpsClientAPIException {
+    // Helpers queued behind busy threads only start once the caller has drained the batch
+    final CountDownLatch release = new CountDownLatch(1);
+    Executor late = task -> new Thread(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      task.run();
+    }).start();
+    final AtomicInteger count = new AtomicInteger();
+    WriteBatch batch = new WriteBatch(late, 4);
+    for (int i = 0; i < 10; i++) {
+      batch.add("var" + i, () -> count.incrementAndGet());
+    }
+    batch.run();
+    release.countDown();
+    assertEquals(10, count.get());
+  }
+
+  @Test
+  public void testFailuresAreReportedByName() throws OneOpsClientAPIException {
+    WriteBatch batch = new WriteBatch(4);
+    batch.add("a", () -> {
+    });
+    batch.add("b", () -> {
+      throw new OneOpsClientAPIException("b failed");
+    });
+    batch.add("c", () -> {
+      throw new IllegalStateException("c failed");
+    });
+    Map<String, OneOpsClientAPIException> failures = batch.run();
+    assertEquals(Arrays.asList("b", "c"), Arrays.asList(failures.keySet().toArray()));
+    assertEquals("b failed", failures.get("b").getMessage());
+    assertTrue(failures.get("c").getCause() instanceof IllegalStateException);
+  }
+
+  @Test
+  public void testRunOrThrowAggregatesFailures() {
+    WriteBatch batch = new WriteBatch(2);
+    batch.add("a", () -> {
+      throw new OneOpsClientAPIException("a failed");
+    });
+    batch.add("b", () -> {
+      throw new OneOpsClientAPIException("b failed");
+    });
+    batch.add("c", () -> {
+    });
+    try {
+      batch.runOrThrow("update variables");
+      fail();
+    } catch (OneOpsClientAPIException e) {
+      assertEquals("Failed to update variables: 2 of 3 writes failed, first: a failed",
+          e.getMessage());
+      assertEquals("a failed", e.getCause().getMessage());
+      assertEquals(1, e.getSuppressed().length);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.oneops.client.api.ResourceObject;
+
+/**
+ * Checks the streamed request bodies against the tree built by the deprecated createJsonObject.
+ */
+@SuppressWarnings("deprecation")
+public class JsonUtilTest {
+
+  @Test
+  public void testAttributesAndOwners() {
+    ResourceObject ro = resourceObject();
+    assertSameJson(JsonUtil.createJsonObject(ro, "cms_dj_ci"), JsonUtil.toJson(ro, "cms_dj_ci"));
+  }
+
+  @Test
+  public void testWithoutRoot() {
+    ResourceObject ro = resourceObject();
+    assertSameJson(JsonUtil.createJsonObject(ro, null), JsonUtil.toJson(ro, null));
+  }
+
+  @Test
+  public void testNullValuesAreLeftOut() {
+    ResourceObject ro = resourceObject();
+    ro.getAttributes().put("java_options", null);
+    ro.getOwnerProps().put("java_options", null);
+    ro.getProperties().put("comments", null);
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+
+    assertSameJson(JsonUtil.createJsonObject(ro, "cms_dj_ci"), body);
+    assertFalse(text(body).contains("java_options"));
+    assertFalse(text(body).contains("comments"));
+  }
+
+  @Test
+  public void testEmptyMapsAreLeftOut() {
+    ResourceObject ro = new ResourceObject();
+    ro.setProperties(new LinkedHashMap<String, String>());
+    ro.setAttributes(new LinkedHashMap<String, String>());
+    ro.setOwnerProps(new LinkedHashMap<String, String>());
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+
+    assertSameJson(JsonUtil.createJsonObject(ro, "cms_dj_ci"), body);
+    assertEquals("{\"cms_dj_ci\":{}}", text(body));
+  }
+
+  @Test
+  public void testNonAsciiIsEscaped() {
+    ResourceObject ro = resourceObject();
+    ro.getAttributes().put("context", "Ünïcodé ✓ \"quoted\"\n");
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci");
+
+    assertSameJson(JsonUtil.createJsonObject(ro, "cms_dj_ci"), body);
+    for (byte b : body) {
+      assertTrue("Not ASCII: " + text(body), b >= 0);
+    }
+    assertTrue(text(body).contains("\\u00DC"));
+  }
+
+  @Test
+  public void testExtraTopLevelFields() {
+    ResourceObject ro = resourceObject();
+    Map<String, Object> nested = new LinkedHashMap<String, Object>();
+    nested.put("a", "1");
+    nested.put("skipped", null);
+    byte[] body = JsonUtil.toJson(ro, "cms_dj_ci", "template_name", "tomcat", "count", 3,
+        "enabled", true, "nested", nested, "ids", Arrays.asList(1L, 2L), "none", null);
+
+    JSONObject expected = JsonUtil.createJsonObject(ro, "cms_dj_ci");
+    expected.put("template_name", "tomcat");
+    expected.put("count", 3);
+    expected.put("enabled", true);
+    expected.put("nested", new JSONObject().put("a", "1"));
+    expected.put("ids", new JSONArray("[1,2]"));
+    assertSameJson(expected, body);
+    assertFalse(text(body).contains("none"));
+  }
+
+  @Test
+  public void testBuffersAreNotShared() {
+    ResourceObject ro = resourceObject();
+    byte[] first = JsonUtil.toJson(ro, "cms_dj_ci");
+    byte[] second = JsonUtil.toJson(null, "cms_deployment", "releaseId", "6");
+
+    assertSameJson(JsonUtil.createJsonObject(ro, "cms_dj_ci"), first);
+    assertEquals("{\"cms_deployment\":{},\"releaseId\":\"6\"}", text(second));
+  }
+
+  private static ResourceObject resourceObject() {
+    ResourceObject ro = new ResourceObject();
+    Map<String, String> properties = new LinkedHashMap<String, String>();
+    properties.put("ciName", "tomcat");
+    properties.put("rfcAction", "update");
+    ro.setProperties(properties);
+    Map<String, String> attributes = new LinkedHashMap<String, String>();
+    attributes.put("version", "8.0");
+    attributes.put("port", "8080");
+    attributes.put("config", "{\"a\":[1,2]}");
+    ro.setAttributes(attributes);
+    Map<String, String> owners = new LinkedHashMap<String, String>();
+    owners.put("version", "design");
+    owners.put("port", "");
+    ro.setOwnerProps(owners);
+    return ro;
+  }
+
+  private static void assertSameJson(JSONObject expected, byte[] body) {
+    JSONObject actual = new JSONObject(text(body));
+    assertTrue(expected + " != " + actual, expected.similar(actual));
+  }
+
+  private static String text(byte[] body) {
+    return new String(body, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oneops.client.api.resource.model.LogEntry;
+
+public class LogTailTest {
+
+  @Test
+  public void testOnlyNewEntriesAcrossRounds() {
+    LogTail tail = new LogTail();
+    assertEquals(Arrays.asList("1:a", "1:b"), messages(tail.advance(entries("1:a", "1:b"))));
+    assertEquals(2, tail.getOffset("1"));
+
+    // The log of 1 grew and the log of 2 showed up, interleaved in one response.
+    assertEquals(Arrays.asList("2:a", "1:c", "2:b"),
+        messages(tail.advance(entries("1:a", "2:a", "1:b", "1:c", "2:b"))));
+    assertEquals(3, tail.getOffset("1"));
+    assertEquals(2, tail.getOffset("2"));
+
+    // Nothing new, or a log that is left out of this round.
+    assertTrue(tail.advance(entries("1:a", "1:b", "1:c")).isEmpty());
+    assertEquals(Arrays.asList("2:c"), messages(tail.advance(entries("2:a", "2:b", "2:c"))));
+    assertEquals(3, tail.getOffset("1"));
+  }
+
+  @Test
+  public void testShorterLogDoesNotMoveTheOffsetBack() {
+    LogTail tail = new LogTail();
+    tail.advance(entries("1:a", "1:b", "1:c"));
+    assertTrue(tail.advance(entries("1:a")).isEmpty());
+    assertEquals(3, tail.getOffset("1"));
+    assertEquals(Arrays.asList("1:d"),
+        messages(tail.advance(entries("1:a", "1:b", "1:c", "1:d"))));
+  }
+
+  @Test
+  public void testFinishedLogsAreFetchedOnceMore() {
+    LogTail tail = new LogTail();
+    assertFalse(tail.shouldFetch("1", "pending", true));
+    assertTrue(tail.shouldFetch("1", "inprogress", true));
+    assertTrue(tail.shouldFetch("1", "inprogress", true));
+    assertTrue(tail.shouldFetch("1", "complete", false));
+    assertFalse(tail.shouldFetch("1", "complete", false));
+
+    assertTrue(tail.shouldFetch("2", "failed", false));
+    assertFalse(tail.shouldFetch("2", "failed", false));
+  }
+
+  /**
+   * @param messages id:message pairs
+   */
+  private static List<LogEntry> entries(String... messages) {
+    List<LogEntry> entries = new ArrayList<LogEntry>();
+    for (String message : messages) {
+      LogEntry entry = new LogEntry();
+      entry.setId(message.substring(0, message.indexOf(':')));
+      entry.setMessage(message);
+      entries.add(entry);
+    }
+    return entries;
+  }
+
+  private static List<String> messages(List<LogEntry> entries) {
+    List<String> messages = new ArrayList<String>();
+    for (LogEntry entry : entries) {
+      messages.add(entry.getMessage());
+    }
+    return messages;
+  }
+}
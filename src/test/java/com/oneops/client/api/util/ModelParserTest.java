@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import com.jayway.restassured.path.json.JsonPath;
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+import com.oneops.client.api.resource.model.CmsCI;
+import com.oneops.client.api.resource.model.Deployment;
+import com.oneops.client.api.resource.model.Instance;
+import com.oneops.client.api.resource.model.Procedure;
+import com.oneops.client.api.resource.model.Release;
+
+/**
+ * Checks the typed models against what the JsonPath mapping they replaced reads from the same
+ * response bodies.
+ */
+public class ModelParserTest {
+
+  @Test
+  public void testCi() throws Exception {
+    byte[] body = body("component.json");
+    JsonPath json = JsonPath.from(new String(body, StandardCharsets.UTF_8));
+    CmsCI ci = ModelParser.parseCi(body);
+
+    assertCi(json, "", ci);
+    assertEquals("7715033", String.valueOf(ci.getCiId()));
+    // Scalars keep their text, nulls stay null, and the unknown attrProps, locked and ciRels go.
+    assertEquals("8080", ci.getAttribute("port"));
+    assertEquals("true", ci.getAttribute("ssl"));
+    assertTrue(ci.getCiAttributes().containsKey("java_options"));
+    assertNull(ci.getAttribute("java_options"));
+    assertEquals("Ünïcodé ✓", ci.getAttribute("context"));
+    assertEquals(json.getMap("ciAttrProps.owner"), ci.getAttrOwners());
+    assertNull(ci.getComments());
+  }
+
+  @Test
+  public void testInstances() throws Exception {
+    byte[] body = body("instances.json");
+    JsonPath json = JsonPath.from(new String(body, StandardCharsets.UTF_8));
+    List<Instance> instances = ModelParser.parseInstances(body);
+
+    assertEquals(json.getList("").size(), instances.size());
+    for (int i = 0; i < instances.size(); i++) {
+      assertCi(json, "[" + i + "].", instances.get(i));
+      assertEquals(json.getString("[" + i + "].ciAttributes.public_ip"),
+          instances.get(i).getPublicIp());
+      assertEquals(json.getString("[" + i + "].ciAttributes.hostname"),
+          instances.get(i).getHostname());
+    }
+    // Ids beyond the int range, whether numbers or strings.
+    assertEquals(3000000001L, instances.get(0).getCiId());
+    assertEquals(3000000002L, instances.get(1).getCiId());
+    // A nested attribute is kept as its JSON text.
+    assertEquals("{\"owner\":\"boo\",\"tags\":[\"a\",\"b\"]}",
+        instances.get(0).getAttribute("metadata"));
+    assertNull(instances.get(1).getPublicIp());
+    assertTrue(instances.get(1).getAttrOwners().isEmpty());
+  }
+
+  @Test
+  public void testRelease() throws Exception {
+    byte[] body = body("release.json");
+    JsonPath json = JsonPath.from(new String(body, StandardCharsets.UTF_8));
+    Release release = ModelParser.parseRelease(body);
+
+    assertEquals(json.getLong("releaseId"), release.getReleaseId());
+    assertEquals(json.getString("releaseName"), release.getReleaseName());
+    assertEquals(json.getString("releaseState"), release.getReleaseState());
+    assertEquals(json.getString("nsPath"), release.getNsPath());
+    assertEquals(json.getString("createdBy"), release.getCreatedBy());
+    assertNull(release.getCommitedBy());
+    assertEquals(json.getInt("revision"), release.getRevision());
+  }
+
+  @Test
+  public void testDeployment() throws Exception {
+    byte[] body = body("deployment.json");
+    JsonPath json = JsonPath.from(new String(body, StandardCharsets.UTF_8));
+    Deployment deployment = ModelParser.parseDeployment(body);
+
+    assertEquals(json.getLong("deploymentId"), deployment.getDeploymentId());
+    assertEquals(json.getLong("releaseId"), deployment.getReleaseId());
+    assertEquals(json.getString("deploymentState"), deployment.getDeploymentState());
+    assertEquals(json.getString("nsPath"), deployment.getNsPath());
+    assertEquals(json.getString("createdBy"), deployment.getCreatedBy());
+    assertEquals(json.getString("comments"), deployment.getComments());
+    assertEquals(json.getList("records").size(), deployment.getRecords().size());
+    for (int i = 0; i < deployment.getRecords().size(); i++) {
+      assertEquals(json.getLong("records[" + i + "].dpmtRecordId"),
+          deployment.getRecords().get(i).getDpmtRecordId());
+      assertEquals(json.getLong("records[" + i + "].rfcId"),
+          deployment.getRecords().get(i).getRfcId());
+      assertEquals(json.getString("records[" + i + "].dpmtRecordState"),
+          deployment.getRecords().get(i).getDpmtRecordState());
+    }
+  }
+
+  @Test
+  public void testProcedure() throws Exception {
+    byte[] body = body("procedure.json");
+    JsonPath json = JsonPath.from(new String(body, StandardCharsets.UTF_8));
+    Procedure procedure = ModelParser.parseProcedure(body);
+
+    assertEquals(json.getLong("procedureId"), procedure.getProcedureId());
+    assertEquals(json.getString("procedureName"), procedure.getProcedureName());
+    assertEquals(json.getString("procedureState"), procedure.getProcedureState());
+    assertEquals(json.getLong("ciId"), procedure.getCiId());
+    assertEquals(json.getString("arglist"), procedure.getArglist());
+    assertEquals(json.getString("createdBy"), procedure.getCreatedBy());
+    assertEquals(json.getList("actions").size(), procedure.getActions().size());
+    for (int i = 0; i < procedure.getActions().size(); i++) {
+      assertEquals(json.getLong("actions[" + i + "].actionId"),
+          procedure.getActions().get(i).getActionId());
+      assertEquals(json.getString("actions[" + i + "].actionState"),
+          procedure.getActions().get(i).getActionState());
+      assertEquals(json.getLong("actions[" + i + "].ciId"),
+          procedure.getActions().get(i).getCiId());
+    }
+  }
+
+  @Test
+  public void testEmptyAndNullBodies() throws Exception {
+    assertNull(ModelParser.parseCi(new byte[0]));
+    assertNull(ModelParser.parseRelease("null".getBytes(StandardCharsets.UTF_8)));
+    assertTrue(ModelParser.parseInstances(new byte[0]).isEmpty());
+    assertTrue(ModelParser.parseCis("[]".getBytes(StandardCharsets.UTF_8)).isEmpty());
+
+    Deployment deployment = ModelParser.parseDeployment(
+        "{\"deploymentId\":1,\"records\":null}".getBytes(StandardCharsets.UTF_8));
+    assertTrue(deployment.getRecords().isEmpty());
+    CmsCI ci = ModelParser.parseCi(
+        "{\"ciId\":1,\"ciAttributes\":null,\"ciAttrProps\":null}".getBytes(StandardCharsets.UTF_8));
+    assertTrue(ci.getCiAttributes().isEmpty());
+    assertTrue(ci.getAttrOwners().isEmpty());
+  }
+
+  @Test
+  public void testMalformedBody() {
+    try {
+      ModelParser.parseCi("[{\"ciId\":1}]".getBytes(StandardCharsets.UTF_8));
+      fail("Expected a list to be rejected where an object is expected");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("START_OBJECT"));
+    }
+    try {
+      ModelParser.parseCis("[{\"ciId\":".getBytes(StandardCharsets.UTF_8));
+      fail("Expected a truncated body to fail");
+    } catch (OneOpsClientAPIException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+  }
+
+  private static void assertCi(JsonPath json, String prefix, CmsCI ci) {
+    assertEquals(json.getLong(prefix + "ciId"), ci.getCiId());
+    assertEquals(json.getString(prefix + "ciName"), ci.getCiName());
+    assertEquals(json.getString(prefix + "ciClassName"), ci.getCiClassName());
+    assertEquals(json.getString(prefix + "nsPath"), ci.getNsPath());
+    assertEquals(json.getString(prefix + "ciState"), ci.getCiState());
+    assertEquals(json.getString(prefix + "createdBy"), ci.getCreatedBy());
+    Map<String, Object> attributes = json.getMap(prefix + "ciAttributes");
+    assertEquals(attributes.keySet(), ci.getCiAttributes().keySet());
+    for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+      if (!(entry.getValue() instanceof Map)) {
+        assertEquals(entry.getKey(), entry.getValue() == null ? null
+            : String.valueOf(entry.getValue()), ci.getAttribute(entry.getKey()));
+      }
+    }
+  }
+
+  private static byte[] body(String name) throws IOException {
+    try (InputStream in = ModelParserTest.class.getResourceAsStream("/responses/" + name)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Walmart, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.oneops.client.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.oneops.client.api.exception.OneOpsClientAPIException;
+
+public class WatcherTest {
+
+  @Test
+  public void testDelaysDoubleWithJitterUpToTheCap() {
+    for (int run = 0; run < 50; run++) {
+      Watcher watcher = new Watcher(100, 1000, 0);
+      assertBetween(50, 100, watcher.nextDelay());
+      assertBetween(100, 200, watcher.nextDelay());
+      assertBetween(200, 400, watcher.nextDelay());
+      assertBetween(400, 800, watcher.nextDelay());
+      // 1600 is capped at 1000, and stays there.
+      assertBetween(500, 1000, watcher.nextDelay());
+      assertBetween(500, 1000, watcher.nextDelay());
+    }
+  }
+
+  @Test
+  public void testResetStartsOverFromTheInitialDelay() {
+    Watcher watcher = new Watcher(100, 1000, 0);
+    watcher.nextDelay();
+    watcher.nextDelay();
+    watcher.nextDelay();
+    watcher.reset();
+    assertBetween(50, 100, watcher.nextDelay());
+    assertBetween(100, 200, watcher.nextDelay());
+  }
+
+  @Test
+  public void testDelaysAreSane() {
+    // A zero initial delay still makes progress, and the cap is never below it.
+    Watcher watcher = new Watcher(0, 0, 0);
+    assertBetween(0, 1, watcher.nextDelay());
+    assertBetween(0, 1, watcher.nextDelay());
+    watcher = new Watcher(400, 100, 0);
+    assertBetween(200, 400, watcher.nextDelay());
+    assertBetween(200, 400, watcher.nextDelay());
+  }
+
+  @Test
+  public void testUntilPollsUntilDone() throws OneOpsClientAPIException {
+    final Iterator<String> states = Arrays.asList("pending", "active", "complete").iterator();
+    final AtomicInteger polls = new AtomicInteger();
+    String state = new Watcher(1, 1, 0).until(() -> {
+      polls.incrementAndGet();
+      return states.next();
+    }, "complete"::equals);
+    assertEquals("complete", state);
+    assertEquals(3, polls.get());
+  }
+
+  @Test
+  public void testUntilDoesNotWaitForAStateAlreadyReached() throws OneOpsClientAPIException {
+    long start = System.currentTimeMillis();
+    assertEquals("complete",
+        new Watcher(10000, 10000, 0).until(() -> "complete", "complete"::equals));
+    assertTrue(System.currentTimeMillis() - start < 5000);
+  }
+
+  @Test
+  public void testUntilTimesOutWithTheLastState() throws OneOpsClientAPIException {
+    final AtomicInteger polls = new AtomicInteger();
+    long start = System.currentTimeMillis();
+    String state = new Watcher(10, 20, 200).until(() -> {
+      polls.incrementAndGet();
+      return "pending";
+    }, "complete"::equals);
+    long elapsed = System.currentTimeMillis() - start;
+
+    assertEquals("pending", state);
+    assertTrue(polls.get() > 1);
+    assertTrue("Waited " + elapsed, elapsed >= 190 && elapsed < 5000);
+  }
+
+  @Test
+  public void testPauseStopsAtTheDeadline() {
+    Watcher watcher = new Watcher(10000, 10000, 100);
+    assertFalse(watcher.isExpired());
+    long start = System.currentTimeMillis();
+    assertTrue(watcher.pause());
+    // The pause is cut short at the deadline rather than taking the full delay.
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertTrue(watcher.isExpired());
+    assertFalse(watcher.pause());
+  }
+
+  @Test
+  public void testUntilPassesProbeFailuresOn() {
+    try {
+      new Watcher(1, 1, 0).until(() -> {
+        throw new OneOpsClientAPIException("Failed to poll");
+      }, state -> true);
+      fail("Expected the probe failure");
+    } catch (OneOpsClientAPIException e) {
+      assertEquals("Failed to poll", e.getMessage());
+    }
+  }
+
+  private static void assertBetween(long min, long max, long actual) {
+    assertTrue(actual + " not in [" + min + ", " + max + "]", actual >= min && actual <= max);
+  }
+}